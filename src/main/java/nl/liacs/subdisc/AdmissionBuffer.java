@@ -0,0 +1,174 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/*
+ * NOTE this class replaces the synchronized (itsCheckLock) block that used to
+ * guard every addition in SubgroupDiscovery.checkAndLog().
+ * Each Thread collects its accepted Subgroups and Candidates in its own
+ * buffer, no lock is acquired for that. The buffer is merged into the
+ * SubgroupSet and CandidateQueue at the end of a unit of work (a Test, or a
+ * ColumnRangeTask), so a lock is acquired once per unit of work, instead of
+ * once per accepted refinement.
+ *
+ * Buffers are bounded by the maximum size of the SubgroupSet, and for BEAM by
+ * the beam width. The top-k of the union of all buffers is the same as the
+ * top-k of all additions, as both the SubgroupSet and the buffers use the
+ * (canonical) Subgroup.compareTo() / Candidate.compareTo() ordering, so the
+ * end result does not depend on the number of Threads, or the order in which
+ * the buffers are merged, also not in case of ties on the boundary.
+ * The other SearchStrategies have no maximum queue size, and are unbounded.
+ *
+ * NOTE the CandidateQueue level transition of beam strategies requires all
+ * buffers to be merged, this is guaranteed by calling flush() before a unit
+ * of work signals completion (Semaphore.release(), Phaser.arrive()).
+ */
+/**
+ * An AdmissionBuffer collects the {@link Subgroup Subgroup}s and
+ * {@link Candidate Candidate}s accepted by a single Thread, and adds them to
+ * a {@link SubgroupSet SubgroupSet} and {@link CandidateQueue CandidateQueue}
+ * in a single step.
+ *
+ * This class is thread save.
+ *
+ * @see SubgroupSet
+ * @see CandidateQueue
+ */
+final class AdmissionBuffer
+{
+	private final SubgroupSet itsResult;
+	private final CandidateQueue itsCandidateQueue;
+	private final int itsResultCapacity;
+	private final int itsCandidateCapacity;
+	// merge of result and candidates is a logical unit, see REQUIREMENT 1
+	private final Object itsMergeLock = new Object();
+
+	private final ThreadLocal<Buffer> itsBuffers = new ThreadLocal<Buffer>()
+	{
+		@Override
+		protected Buffer initialValue() { return new Buffer(); }
+	};
+
+	AdmissionBuffer(SubgroupSet theResult, CandidateQueue theCandidateQueue, SearchParameters theSearchParameters)
+	{
+		itsResult = theResult;
+		itsCandidateQueue = theCandidateQueue;
+		itsResultCapacity = theResult.getMaximumSize();
+		// only BEAM trims its next level, ROC_BEAM and CBSS select later
+		if (theSearchParameters.getSearchStrategy() == SearchStrategy.BEAM)
+			itsCandidateCapacity = theSearchParameters.getSearchStrategyWidth();
+		else
+			itsCandidateCapacity = Integer.MAX_VALUE;
+	}
+
+	/*
+	 * Unsynchronised check, the lowest score of the SubgroupSet is published
+	 * atomically, but may be outdated. In that case a Subgroup is buffered
+	 * that could have been rejected, the merge will remove it.
+	 * Includes equal scores, see SubgroupSet.hasPotential(float).
+	 */
+	boolean hasPotential(float theQuality)
+	{
+		if (!itsResult.hasPotential(theQuality))
+			return false;
+
+		TreeSet<Subgroup> aSubgroups = itsBuffers.get().itsSubgroups;
+		return ((aSubgroups.size() < itsResultCapacity) || (theQuality >= aSubgroups.last().getMeasureValue()));
+	}
+
+	/**
+	 * Adds the arguments to the buffer of the calling Thread, either
+	 * argument can be <code>null</code>.
+	 *
+	 * @param theSubgroup the Subgroup to add to the {@link SubgroupSet}.
+	 *
+	 * @param theCandidate the Candidate to add to the {@link CandidateQueue}.
+	 *
+	 * @see #flush()
+	 */
+	void add(Subgroup theSubgroup, Candidate theCandidate)
+	{
+		Buffer aBuffer = itsBuffers.get();
+
+		if (theSubgroup != null)
+			addBounded(aBuffer.itsSubgroups, theSubgroup, itsResultCapacity);
+
+		if (theCandidate != null)
+		{
+			if (itsCandidateCapacity == Integer.MAX_VALUE)
+				aBuffer.itsCandidates.add(theCandidate);
+			else
+				addBounded(aBuffer.itsCandidateSet, theCandidate, itsCandidateCapacity);
+		}
+	}
+
+	private static final <T> void addBounded(TreeSet<T> theSet, T theItem, int theCapacity)
+	{
+		if (theSet.add(theItem) && (theSet.size() > theCapacity))
+			theSet.pollLast();
+	}
+
+	/**
+	 * Merges the buffer of the calling Thread into the {@link SubgroupSet}
+	 * and {@link CandidateQueue}, and empties it.
+	 * Should be called by every Thread that used {@link #add}, before it
+	 * signals that its unit of work is done.
+	 */
+	void flush()
+	{
+		Buffer aBuffer = itsBuffers.get();
+
+		if (aBuffer.isEmpty())
+			return;
+
+		synchronized (itsMergeLock)
+		{
+			if (!aBuffer.itsSubgroups.isEmpty())
+				itsResult.merge(aBuffer.itsSubgroups);
+
+			for (Candidate c : aBuffer.itsCandidates)
+				itsCandidateQueue.add(c);
+			for (Candidate c : aBuffer.itsCandidateSet)
+				itsCandidateQueue.add(c);
+		}
+
+		aBuffer.clear();
+	}
+
+	/*
+	 * For a MiningWorker, moves the buffer of the calling Thread to the
+	 * arguments, instead of merging it, the coordinator merges it into its
+	 * own AdmissionBuffer.
+	 */
+	void drainTo(Collection<Subgroup> theSubgroups, Collection<Candidate> theCandidates)
+	{
+		Buffer aBuffer = itsBuffers.get();
+
+		theSubgroups.addAll(aBuffer.itsSubgroups);
+		theCandidates.addAll(aBuffer.itsCandidates);
+		theCandidates.addAll(aBuffer.itsCandidateSet);
+
+		aBuffer.clear();
+	}
+
+	private static final class Buffer
+	{
+		private final TreeSet<Subgroup> itsSubgroups = new TreeSet<Subgroup>();
+		// unbounded, order is irrelevant, CandidateQueue sorts
+		private final List<Candidate> itsCandidates = new ArrayList<Candidate>();
+		// bounded, uses natural ordering like the BEAM next level
+		private final TreeSet<Candidate> itsCandidateSet = new TreeSet<Candidate>();
+
+		boolean isEmpty()
+		{
+			return (itsSubgroups.isEmpty() && itsCandidates.isEmpty() && itsCandidateSet.isEmpty());
+		}
+
+		void clear()
+		{
+			itsSubgroups.clear();
+			itsCandidates.clear();
+			itsCandidateSet.clear();
+		}
+	}
+}
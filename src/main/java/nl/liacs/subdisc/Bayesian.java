@@ -1,31 +1,62 @@
 package nl.liacs.subdisc;
 
 import java.util.*;
+import java.util.stream.*;
 
 public class Bayesian
 {
+	// the families of a scoreNext() step are scored in parallel when there
+	// are at least this many words to count, see FamilyScores.scorePending()
+	private static final long PARALLEL_MIN_WORDS = 1L << 14;
+
 	private DAG itsDAG;
-	private BinaryTable itsTable;
+	private final FamilyScores itsScores;
+	private boolean isCollecting; // see scoreNext()
 	private static Random itsRandom;
 
 	public Bayesian(BinaryTable theTable, List<Column> theTargets)
 	{
-		itsDAG = new DAG(theTargets);
-		itsTable = theTable;
-		itsRandom = new Random(System.currentTimeMillis()); // truly random
-//		itsRandom = new Random(12345); // random, but always the same
+		this(new FamilyScores(theTable, null), theTargets);
 	}
 
 	public Bayesian(BinaryTable theTable)
 	{
-		itsDAG = new DAG(theTable.getNrColumns());
-		itsTable = theTable;
+		this(new FamilyScores(theTable, null), null);
+	}
+
+	// theTargets are used for the names of the nodes, when null the nodes
+	// are numbered, as for Bayesian(BinaryTable)
+	Bayesian(FamilyScores theScores, List<Column> theTargets)
+	{
+		itsDAG = (theTargets == null) ? new DAG(theScores.itsTable.getNrColumns()) : new DAG(theTargets);
+		itsScores = theScores;
 		itsRandom = new Random(System.currentTimeMillis()); // truly random
 //		itsRandom = new Random(12345); // random, but always the same
 	}
 
 	public DAG getDAG() { return itsDAG; }
 
+	/*
+	 * Starts climb() from the arcs of theDAG, instead of from an empty DAG,
+	 * for example from the DAG of the whole dataset, when this Bayesian is
+	 * for the members of a Subgroup.
+	 * The quality of each node is the score of its family for this data.
+	 */
+	public void warmStart(DAG theDAG)
+	{
+		assert (theDAG.getSize() == itsDAG.getSize());
+
+		for (int i = 0; i < itsDAG.getSize(); ++i)
+		{
+			ItemSet aParents = theDAG.getNode(i).getParents();
+			for (int j = aParents.nextSetBit(0); j >= 0; j = aParents.nextSetBit(j + 1))
+				itsDAG.addArc(j, i, false);
+		}
+
+		for (int i = 0; i < itsDAG.getSize(); ++i)
+			itsDAG.setQuality(i, computeQuality(i));
+	}
+
 	public void test()
 	{
 /*
@@ -71,7 +102,25 @@ public class Bayesian
 		climb();
 	}
 
+	/*
+	 * The moves, and the families they need, do not depend on the scores, so
+	 * the first pass only collects the families that were not scored before
+	 * by itsScores, these are scored in parallel, and the second pass finds
+	 * the best move using the scores of itsScores only.
+	 */
 	EdgeQuality scoreNext()
+	{
+		isCollecting = true;
+		scoreMoves();
+		isCollecting = false;
+
+		itsScores.scorePending();
+
+		return scoreMoves();
+	}
+
+	// when isCollecting, the EdgeQuality is meaningless, see computeQuality()
+	private EdgeQuality scoreMoves()
 	{
 		EdgeQuality aQuality = new EdgeQuality();
 		double qual;
@@ -192,12 +241,84 @@ public class Bayesian
 		return aQuality;
 	}
 
+	// NaN for a family that is not scored yet when isCollecting, comparisons
+	// with NaN are false, so the moves of scoreMoves() are unaffected
 	private double computeQuality(int theChild)
 	{
-		BinaryTable aTable = itsTable.selectColumns(itsDAG.getNode(theChild).getParents());
-		aTable.addColumn(itsTable.getColumn(theChild)); //make sure the child is the last column
+		return itsScores.get(theChild, itsDAG.getNode(theChild).getParents(), isCollecting);
+	}
+
+	/*
+	 * The BDeu scores of the families, a child and its parent set, of the
+	 * columns of a BinaryTable, for all of its records or for the members of
+	 * a Subgroup, so for the members no BinaryTable.selectRows() is needed.
+	 * A family is scored once, by BinaryTable.computeBDeu(), and the score is
+	 * reused by all steps of a climb(), and by all climb()s that share this
+	 * FamilyScores, like those for the same Subgroup in post-processing.
+	 * A FamilyScores should be used by one climb() at a time.
+	 */
+	static final class FamilyScores
+	{
+		private final BinaryTable itsTable;
+		private final long[] itsRows;
+		private final List<Map<ItemSet, Double>> itsScores;
+		// families collected by get(), scored by scorePending()
+		private final List<Integer> itsPendingChildren = new ArrayList<Integer>();
+		private final List<ItemSet> itsPendingParents = new ArrayList<ItemSet>();
+
+		// theMembers is null for all records of theTable
+		FamilyScores(BinaryTable theTable, BitSet theMembers)
+		{
+			itsTable = theTable;
+			itsRows = theTable.getRows(theMembers);
+			itsScores = new ArrayList<Map<ItemSet, Double>>(theTable.getNrColumns());
+			for (int i = 0; i < theTable.getNrColumns(); ++i)
+				itsScores.add(new HashMap<ItemSet, Double>());
+		}
+
+		// theParents is changed by the DAG later on, so a copy is the key
+		double get(int theChild, ItemSet theParents, boolean isCollecting)
+		{
+			Map<ItemSet, Double> aScores = itsScores.get(theChild);
+			Double aScore = aScores.get(theParents);
+			if (aScore != null)
+				return aScore.doubleValue();
+
+			ItemSet aKey = (ItemSet) theParents.clone();
+			if (isCollecting)
+			{
+				// NaN until scorePending(), so it is collected only once
+				aScores.put(aKey, Double.NaN);
+				itsPendingChildren.add(theChild);
+				itsPendingParents.add(aKey);
+				return Double.NaN;
+			}
 
-		return aTable.computeBDeuFaster();
+			double d = itsTable.computeBDeu(aKey, theChild, itsRows);
+			aScores.put(aKey, d);
+			return d;
+		}
+
+		void scorePending()
+		{
+			int aNrPending = itsPendingChildren.size();
+			if (aNrPending == 0)
+				return;
+
+			// the families are independent, and a score does not depend on
+			// the order in which the families are scored
+			double[] aResults = new double[aNrPending];
+			IntStream aFamilies = IntStream.range(0, aNrPending);
+			if ((aNrPending > 1) && ((long) aNrPending * itsRows.length >= PARALLEL_MIN_WORDS))
+				aFamilies = aFamilies.parallel();
+			aFamilies.forEach(i -> aResults[i] = itsTable.computeBDeu(itsPendingParents.get(i), itsPendingChildren.get(i), itsRows));
+
+			for (int i = 0; i < aNrPending; ++i)
+				itsScores.get(itsPendingChildren.get(i)).put(itsPendingParents.get(i), aResults[i]);
+
+			itsPendingChildren.clear();
+			itsPendingParents.clear();
+		}
 	}
 
 	public void climb()
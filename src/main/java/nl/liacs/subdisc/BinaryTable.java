@@ -11,6 +11,7 @@ public class BinaryTable
 {
 	private List<BitSet> itsColumns;
 	private int itsNrRecords; //Nr. of examples
+	private volatile long[][] itsWords; // itsColumns as words, see getWords()
 
 	//From Table
 	public BinaryTable(Table theTable, List<Column> theColumns)
@@ -129,8 +130,131 @@ public class BinaryTable
 			aTotalCount++;
 		}
 
+		return computeBDeu(aCounts, aTotalCount);
+	}
+
+	/*
+	 * The same BDeu as computeBDeuFaster() for the table that
+	 * selectRows(theRows).selectColumns(theParents) with the column of
+	 * theChild added last would return, but without creating it.
+	 * theRows are the records as returned by getRows(), the counts of the
+	 * crosscube are obtained by splitting theRows on each parent column in
+	 * turn, and on theChild last, using popcounts of 64 records at a time.
+	 * Only non-empty parent configurations are split further.
+	 */
+	double computeBDeu(ItemSet theParents, int theChild, long[] theRows)
+	{
+		long[][] aWords = getWords();
+		int aNrParents = theParents.cardinality();
+		int[] aColumns = new int[aNrParents + 1];
+		for (int i = theParents.nextSetBit(0), j = 0; i >= 0; i = theParents.nextSetBit(i + 1))
+			aColumns[j++] = i;
+		aColumns[aNrParents] = theChild;
+
+		// aMasks[d] holds the records of the current configuration of the
+		// first d parents, the first column has the most significant bit
+		long[][] aMasks = new long[aNrParents + 1][];
+		aMasks[0] = theRows;
+		for (int d = 1; d <= aNrParents; ++d)
+			aMasks[d] = new long[theRows.length];
+
+		int[] aCounts = new int[1 << (aNrParents + 1)];
+		int aTotalCount = count(aWords, aColumns, aMasks, 0, 0, aCounts);
+
+		return computeBDeu(aCounts, aTotalCount);
+	}
+
+	// fills theCounts for all configurations that extend theIndex, returns
+	// the number of records in theMasks[theDepth], or 0 when there are none
+	private static int count(long[][] theWords, int[] theColumns, long[][] theMasks, int theDepth, int theIndex, int[] theCounts)
+	{
+		long[] aMask = theMasks[theDepth];
+		long[] aColumn = theWords[theColumns[theDepth]];
+
+		// the child, both of its counts follow from the same pass
+		if (theDepth == theColumns.length - 1)
+		{
+			int aSize = 0;
+			int aPositives = 0;
+			for (int i = 0; i < aMask.length; ++i)
+			{
+				aSize += Long.bitCount(aMask[i]);
+				aPositives += Long.bitCount(aMask[i] & aColumn[i]);
+			}
+			theCounts[(theIndex << 1)] = (aSize - aPositives);
+			theCounts[(theIndex << 1) + 1] = aPositives;
+			return aSize;
+		}
+
+		long[] aNext = theMasks[theDepth + 1];
+		int aTotal = 0;
+		for (int aBit = 0; aBit <= 1; ++aBit)
+		{
+			long anAny = 0L;
+			for (int i = 0; i < aMask.length; ++i)
+			{
+				long w = aMask[i] & ((aBit == 0) ? ~aColumn[i] : aColumn[i]);
+				aNext[i] = w;
+				anAny |= w;
+			}
+			// all counts of an empty configuration remain 0
+			if (anAny != 0L)
+				aTotal += count(theWords, theColumns, theMasks, theDepth + 1, (theIndex << 1) + aBit, theCounts);
+		}
+
+		return aTotal;
+	}
+
+	// all records of this table, or the subset theMembers, as words
+	long[] getRows(BitSet theMembers)
+	{
+		long[] aRows = new long[(itsNrRecords + 63) >>> 6];
+		if (theMembers == null)
+		{
+			Arrays.fill(aRows, -1L);
+			if ((itsNrRecords & 63) != 0)
+				aRows[aRows.length - 1] = (-1L >>> (64 - (itsNrRecords & 63)));
+		}
+		else
+		{
+			long[] aMembers = theMembers.toLongArray();
+			System.arraycopy(aMembers, 0, aRows, 0, Math.min(aMembers.length, aRows.length));
+		}
+
+		return aRows;
+	}
+
+	// itsColumns is not modified after construction, but for addColumn()
+	// which is only used for the tables of computeBDeuFaster()
+	private long[][] getWords()
+	{
+		long[][] aWords = itsWords;
+		if ((aWords != null) && (aWords.length == itsColumns.size()))
+			return aWords;
+
+		synchronized (this)
+		{
+			aWords = itsWords;
+			if ((aWords != null) && (aWords.length == itsColumns.size()))
+				return aWords;
+
+			int aNrWords = (itsNrRecords + 63) >>> 6;
+			aWords = new long[itsColumns.size()][];
+			for (int i = 0; i < aWords.length; ++i)
+				aWords[i] = Arrays.copyOf(itsColumns.get(i).toLongArray(), aNrWords);
+
+			itsWords = aWords;
+			return aWords;
+		}
+	}
+
+	// theCounts as filled by computeBDeuFaster(), the child is the last column
+	private static double computeBDeu(int[] theCounts, int theTotalCount)
+	{
+		int aSize = theCounts.length;
+
 		// Compute BDeu
-		if (aTotalCount == 0)
+		if (theTotalCount == 0)
 			return 0;
 
 		double aQuality = 0.0;
@@ -146,11 +270,11 @@ public class BinaryTable
 			double aPost = 0.0;
 
 			//child = 0;
-			aPost += Function.logGamma(alpha_ijk + aCounts[j*2]) - LogGam_alpha_ijk;
-			aSum += aCounts[j*2];
+			aPost += Function.logGamma(alpha_ijk + theCounts[j*2]) - LogGam_alpha_ijk;
+			aSum += theCounts[j*2];
 			//child = 1;
-			aPost += Function.logGamma(alpha_ijk + aCounts[j*2 + 1]) - LogGam_alpha_ijk;
-			aSum += aCounts[j*2 + 1];
+			aPost += Function.logGamma(alpha_ijk + theCounts[j*2 + 1]) - LogGam_alpha_ijk;
+			aSum += theCounts[j*2 + 1];
 
 			aQuality += LogGam_alpha_ij - Function.logGamma(alpha_ij + aSum) + aPost;
 		}
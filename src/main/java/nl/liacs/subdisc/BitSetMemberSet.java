@@ -0,0 +1,35 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/**
+ * A BitSetMemberSet stores the members in a plain {@link BitSet}, of which
+ * the size is determined by the highest member.
+ * It is the fastest {@link MemberSet}, and the most compact one for dense
+ * member sets of data sets with few rows.
+ *
+ * @see MemberSetType#BITSET
+ */
+final class BitSetMemberSet implements MemberSet
+{
+	private final BitSet itsMembers;
+	private final int itsCardinality;
+
+	// takes ownership of theMembers, do not modify it after this call
+	BitSetMemberSet(BitSet theMembers)
+	{
+		itsMembers = theMembers;
+		itsCardinality = theMembers.cardinality();
+	}
+
+	@Override
+	public int cardinality()                 { return itsCardinality; }
+	@Override
+	public boolean get(int theIndex)         { return itsMembers.get(theIndex); }
+	@Override
+	public int nextSetBit(int theFromIndex)  { return itsMembers.nextSetBit(theFromIndex); }
+	@Override
+	public BitSet toBitSet()                 { return (BitSet) itsMembers.clone(); }
+	@Override
+	public long getSizeInBytes()             { return itsMembers.size() >>> 3; }
+}
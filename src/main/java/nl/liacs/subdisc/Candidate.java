@@ -8,6 +8,8 @@ public class Candidate implements Comparable<Candidate>
 	// TODO not having this final is a very bad design, will change this, and
 	// remove setPriority() method
 	private double itsPriority;
+	// upper bound for the quality of all refinements, see QM.hasOptimisticEstimate()
+	private double itsOptimisticEstimate = Double.POSITIVE_INFINITY;
 
 	// FIXME MM disallow Candidates of size 0 and 1, they can not be refined
 	public Candidate(Subgroup theSubgroup)
@@ -78,6 +80,8 @@ public class Candidate implements Comparable<Candidate>
 	public double getPriority() { return itsPriority; }
 	public void setPriority(double thePriority) { itsPriority = thePriority; }
 	public Subgroup getSubgroup() { return itsSubgroup; }
+	double getOptimisticEstimate() { return itsOptimisticEstimate; }
+	void setOptimisticEstimate(double theOptimisticEstimate) { itsOptimisticEstimate = theOptimisticEstimate; }
 
 	@Override
 	public String toString()
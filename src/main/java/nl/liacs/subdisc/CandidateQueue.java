@@ -1,5 +1,6 @@
 package nl.liacs.subdisc;
 
+import java.io.*;
 import java.util.*;
 
 /*
@@ -15,6 +16,13 @@ import java.util.*;
  * Candidates. It allows for faster modification of the hull. Consequently,
  * itsNextQueue is not a TreeSet, however, when moving to a next level the,
  * itsNextQueue is 'transformed' into TreeSet itsQueue.
+ *
+ * NOTE the non-beam SearchStrategies have no maximum queue size, to bound the
+ * memory, itsQueue holds at most itsMaximumInMemoryCandidates Candidates, when
+ * it grows larger, its worst half is spilled to disk as a sorted CandidateRun
+ * removeFirst() lazily merges itsQueue and the heads of all runs, the runs are
+ * guarded by the itsQueue lock, like all other access to itsQueue
+ * spilling is disabled for the TargetTypes that CandidateRun does not support
  */
 /**
  * A CandidateQueue holds a collection of {@link Candidate Candidate}s for
@@ -40,6 +48,16 @@ public class CandidateQueue
 //	private ConvexHullROC itsNextQueueROCBeam;	// debug only
 	private TreeSet<Candidate> itsTempQueue;
 	private final int itsMaximumQueueSize;
+	// non-beam SearchStrategies only, see SearchParameters
+	static final int MAXIMUM_IN_MEMORY_CANDIDATES = (1 << 20);
+	private final int itsMaximumInMemoryCandidates;
+	private final Comparator<Candidate> itsComparator;
+	private final CandidateRun.Dictionary itsDictionary = new CandidateRun.Dictionary();
+	private final PriorityQueue<CandidateRun> itsRuns;
+	private int itsSpilledSize;
+	private int itsNrRuns;
+	// set to false when spilling fails, the queue then grows on the heap
+	private boolean isSpillEnabled;
 
 	public CandidateQueue(SearchParameters theSearchParameters, Candidate theRootCandidate)
 	{
@@ -100,6 +118,24 @@ public class CandidateQueue
 				throw new IllegalArgumentException(itsSearchStrategy.toString());
 		}
 
+		// same ordering as itsQueue, natural ordering for the other strategies
+		if ((itsSearchStrategy == SearchStrategy.DEPTH_FIRST) || (itsSearchStrategy == SearchStrategy.BREADTH_FIRST))
+			itsComparator = Candidate.getComparator(itsSearchStrategy);
+		else
+			itsComparator = new Candidate.CandidateComparatorBestFirst();
+		isSpillEnabled = !isBeamSearchStrategy && CandidateRun.isSupported(theSearchParameters.getTargetType());
+		itsMaximumInMemoryCandidates = theSearchParameters.getMaximumInMemoryCandidates();
+		itsRuns = !isBeamSearchStrategy ? new PriorityQueue<CandidateRun>(11, new Comparator<CandidateRun>()
+		{
+			@Override
+			public int compare(CandidateRun x, CandidateRun y)
+			{
+				// for equivalent heads, the one added first wins
+				int cmp = itsComparator.compare(x.peek(), y.peek());
+				return (cmp != 0) ? cmp : (x.getIndex() - y.getIndex());
+			}
+		}) : null;
+
 		// this.add() would be better
 		itsQueue.add(theRootCandidate);
 	}
@@ -204,11 +240,94 @@ if (Process.ROC_BEAM_TEST)
 
 			if (isAdded && (theQueue.size() > itsMaximumQueueSize))
 				theQueue.pollLast();
+			else if (isAdded && isSpillEnabled && (theQueue.size() > itsMaximumInMemoryCandidates))
+				spill(theQueue);
 
 			return isAdded;
 		}
 	}
 
+	// synchronized (itsQueue) done by addToQueue(), moves its worst half to disk
+	private void spill(TreeSet<Candidate> theQueue)
+	{
+		assert (theQueue == itsQueue);
+
+		int aSize = Math.max(1, theQueue.size() / 2);
+		List<Candidate> aTail = new ArrayList<Candidate>(aSize);
+		for (int i = 0; i < aSize; ++i)
+			aTail.add(theQueue.pollLast());
+		// in queue order
+		Collections.reverse(aTail);
+
+		try
+		{
+			CandidateRun aRun = CandidateRun.write(aTail, itsNrRuns++, itsDictionary);
+			itsRuns.add(aRun);
+			itsSpilledSize += aSize;
+			Log.logCommandLine(String.format("CandidateQueue: spilled %d Candidates (%d bytes), on disk: %d Candidates in %d runs",
+								aSize, aRun.getSizeInBytes(), itsSpilledSize, itsRuns.size()));
+		}
+		catch (IOException e)
+		{
+			Log.logCommandLine("CandidateQueue: error while spilling Candidates to disk, keeping all Candidates in memory: " + e.getMessage());
+			isSpillEnabled = false;
+			theQueue.addAll(aTail);
+		}
+	}
+
+	/**
+	 * Deletes the files of the {@link Candidate}s that were spilled to
+	 * disk, call when the search has ended, as these Candidates are lost.
+	 */
+	public void deleteRuns()
+	{
+		if (itsRuns == null)
+			return;
+
+		synchronized (itsQueue)
+		{
+			for (CandidateRun r : itsRuns)
+				r.delete();
+			itsRuns.clear();
+			itsSpilledSize = 0;
+		}
+	}
+
+	// synchronized (itsQueue) done by removeFirst()
+	private Candidate pollFirstMerged()
+	{
+		CandidateRun aRun = itsRuns.peek();
+		Candidate aFirst = itsQueue.isEmpty() ? null : itsQueue.first();
+
+		// on a tie the run wins, as its Candidate was added before aFirst
+		Candidate aBest;
+		if ((aFirst != null) && (itsComparator.compare(aFirst, aRun.peek()) < 0))
+			aBest = itsQueue.pollFirst();
+		else
+			aBest = pollRun();
+
+		// equivalent Candidates in other tiers, the TreeSet would have
+		// kept only one of them, see Candidate.compareTo()
+		if (!itsQueue.isEmpty() && (itsComparator.compare(itsQueue.first(), aBest) == 0))
+			itsQueue.pollFirst();
+		while (!itsRuns.isEmpty() && (itsComparator.compare(itsRuns.peek().peek(), aBest) == 0))
+			pollRun();
+
+		return aBest;
+	}
+
+	private Candidate pollRun()
+	{
+		// the head changes, so remove and re-insert the run
+		CandidateRun aRun = itsRuns.poll();
+		Candidate aCandidate = aRun.poll();
+		--itsSpilledSize;
+		if (aRun.size() > 0)
+			itsRuns.add(aRun);
+
+		return aCandidate;
+	}
+
 	/**
 	 * Retrieves first {@link Candidate Candidate} from this CandidateQueue,
 	 * and moves to next level if required.
@@ -226,7 +345,10 @@ if (Process.ROC_BEAM_TEST)
 			if (isBeamSearchStrategy && itsQueue.size() == 0)
 				moveToNextLevel();
 
-			return itsQueue.pollFirst();
+			if ((itsRuns == null) || itsRuns.isEmpty())
+				return itsQueue.pollFirst();
+
+			return pollFirstMerged();
 		}
 	}
 
@@ -341,6 +463,117 @@ itsNextQueueConvexHullROC.debug();
 		}
 	}
 
+	/*
+	 * for Checkpoint, call only when no other Thread uses this CandidateQueue
+	 * the first level is the current level, including the spilled Candidates,
+	 * the other levels are specific to the SearchStrategy, see moveToNextLevel()
+	 * equivalent Candidates are returned in the order they were added, as the
+	 * one added first is kept, see pollFirstMerged()
+	 */
+	List<Iterable<Candidate>> getLevels()
+	{
+		switch (itsSearchStrategy)
+		{
+			case BEAM :
+				return Arrays.<Iterable<Candidate>>asList(itsQueue, itsNextQueue);
+			case ROC_BEAM :
+				return Arrays.<Iterable<Candidate>>asList(itsQueue, itsNextQueueConvexHullROC.toTreeSet());
+			case COVER_BASED_BEAM_SELECTION :
+				return Arrays.<Iterable<Candidate>>asList(itsQueue, itsNextQueue, itsTempQueue);
+			// do not use fall-through
+			case BEST_FIRST :
+				return Collections.singletonList(getCurrentLevel());
+			case DEPTH_FIRST :
+				return Collections.singletonList(getCurrentLevel());
+			case BREADTH_FIRST :
+				return Collections.singletonList(getCurrentLevel());
+			// should never happen
+			default :
+				throw new AssertionError(itsSearchStrategy.toString());
+		}
+	}
+
+	// all runs in the order they were written, then itsQueue
+	private Iterable<Candidate> getCurrentLevel()
+	{
+		final List<CandidateRun> aRuns = new ArrayList<CandidateRun>(itsRuns);
+		Collections.sort(aRuns, new Comparator<CandidateRun>()
+		{
+			@Override
+			public int compare(CandidateRun x, CandidateRun y) { return x.getIndex() - y.getIndex(); }
+		});
+
+		return new Iterable<Candidate>()
+		{
+			@Override
+			public Iterator<Candidate> iterator()
+			{
+				final List<Iterator<Candidate>> anIterators = new ArrayList<Iterator<Candidate>>(aRuns.size() + 1);
+				for (CandidateRun r : aRuns)
+					anIterators.add(r.iterator());
+				anIterators.add(itsQueue.iterator());
+
+				return new Iterator<Candidate>()
+				{
+					private int itsIndex = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						while ((itsIndex < anIterators.size()) && !anIterators.get(itsIndex).hasNext())
+							++itsIndex;
+						return (itsIndex < anIterators.size());
+					}
+
+					@Override
+					public Candidate next()
+					{
+						if (!hasNext())
+							throw new NoSuchElementException();
+						return anIterators.get(itsIndex).next();
+					}
+				};
+			}
+		};
+	}
+
+	/*
+	 * for Checkpoint, call only when no other Thread uses this CandidateQueue
+	 * adds theCandidate to the level as returned by getLevels(), the members
+	 * of theCandidate are not killed, it should have none
+	 */
+	void restore(int theLevel, Candidate theCandidate)
+	{
+		synchronized (itsQueue)
+		{
+			if (theLevel == 0)
+			{
+				// spills for non-beam SearchStrategies
+				addToQueue(itsQueue, theCandidate);
+				return;
+			}
+
+			switch (itsSearchStrategy)
+			{
+				case BEAM :
+					addToQueue(itsNextQueue, theCandidate);
+					return;
+				case ROC_BEAM :
+					itsNextQueueConvexHullROC.add(new SubgroupROCPoint(theCandidate.getSubgroup()));
+					return;
+				case COVER_BASED_BEAM_SELECTION :
+					if (theLevel == 1)
+						itsNextQueue.add(theCandidate);
+					else
+						itsTempQueue.add(theCandidate);
+					return;
+				// other SearchStrategies have a single level
+				default :
+					throw new AssertionError(itsSearchStrategy.toString() + ": " + theLevel);
+			}
+		}
+	}
+
 	/**
 	 * Returns the total number of {@link Candidate Candidate}s in this
 	 * CandidateQueue.
@@ -393,11 +626,11 @@ itsNextQueueConvexHullROC.debug();
 			}
 			// do not use fall-through
 			case BEST_FIRST :
-				synchronized (itsQueue) { return itsQueue.size(); }
+				synchronized (itsQueue) { return itsQueue.size() + itsSpilledSize; }
 			case DEPTH_FIRST :
-				synchronized (itsQueue) { return itsQueue.size(); }
+				synchronized (itsQueue) { return itsQueue.size() + itsSpilledSize; }
 			case BREADTH_FIRST :
-				synchronized (itsQueue) { return itsQueue.size(); }
+				synchronized (itsQueue) { return itsQueue.size() + itsSpilledSize; }
 			// should never happen
 			default :
 				throw new AssertionError(itsSearchStrategy.toString());
@@ -417,7 +650,8 @@ itsNextQueueConvexHullROC.debug();
 	 */
 	public int currentLevelQueueSize()
 	{
-		synchronized (itsQueue) { return itsQueue.size(); }
+		// itsSpilledSize is 0 for beam SearchStrategies
+		synchronized (itsQueue) { return itsQueue.size() + itsSpilledSize; }
 	}
 
 	////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,247 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import nl.liacs.subdisc.ConditionListBuilder.ConditionList;
+
+/*
+ * NOTE a run is written once, in queue order, and read back sequentially
+ * through a memory-mapped buffer, so only its head Candidate is on the heap
+ * the file is deleted as soon as the run is exhausted, or by delete() when the
+ * search ends before that, not by File.deleteOnExit(), as that keeps the path
+ * of every run for the lifetime of the JVM
+ *
+ * Conditions are not serialised, every distinct Condition gets an id in the
+ * Dictionary that is shared by all runs of a CandidateQueue, and a run stores
+ * the ids in search order, so the ConditionList is rebuilt exactly
+ * the number of distinct Conditions is bounded by the refinements of the
+ * Table, not by the number of Candidates
+ *
+ * a Subgroup that is read back has no members, they are revived on demand by
+ * evaluating its Conditions, as for any killed Subgroup, see
+ * Subgroup.killMembers()
+ * other state, like the DAG, LabelRanking or RegressionModel of a Subgroup, is
+ * not written, so spilling is only supported for some TargetTypes
+ */
+/**
+ * A CandidateRun is a sorted, read-once, run of {@link Candidate}s that was
+ * spilled to disk by a {@link CandidateQueue}.
+ *
+ * This class is not thread save, CandidateQueue guards it.
+ */
+final class CandidateRun
+{
+	private final File itsFile;
+	private final int itsIndex;
+	private final Dictionary itsDictionary;
+	private final SubgroupSet itsParentSet;
+	private MappedByteBuffer itsBuffer;
+	private int itsSize;
+	private Candidate itsHead;
+
+	private CandidateRun(File theFile, int theIndex, MappedByteBuffer theBuffer, int theSize, Dictionary theDictionary, SubgroupSet theParentSet)
+	{
+		itsFile = theFile;
+		itsIndex = theIndex;
+		itsBuffer = theBuffer;
+		itsSize = theSize;
+		itsDictionary = theDictionary;
+		itsParentSet = theParentSet;
+		itsHead = read();
+	}
+
+	/**
+	 * Writes the {@link Candidate}s to a temporary file, and returns a
+	 * CandidateRun that reads them back in the same order.
+	 *
+	 * @param theCandidates the Candidates, in queue order.
+	 * @param theIndex the number of runs written before this one.
+	 * @param theDictionary the ids of the {@link Condition}s.
+	 *
+	 * @return the CandidateRun, positioned at the first Candidate.
+	 *
+	 * @throws IOException if the file could not be written or mapped.
+	 */
+	static CandidateRun write(List<Candidate> theCandidates, int theIndex, Dictionary theDictionary) throws IOException
+	{
+		assert (!theCandidates.isEmpty());
+
+		File aFile = File.createTempFile("subdisc-candidates-", ".run");
+
+		try
+		{
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aFile), 1 << 16));
+			try
+			{
+				for (Candidate c : theCandidates)
+				{
+					Subgroup s = c.getSubgroup();
+					ConditionList aConditions = s.getConditions();
+					out.writeDouble(c.getPriority());
+					out.writeDouble(c.getOptimisticEstimate());
+					out.writeDouble(s.getMeasureValue());
+					out.writeDouble(s.getSecondaryStatistic());
+					out.writeDouble(s.getTertiaryStatistic());
+					out.writeInt(s.getCoverage());
+					out.writeInt(aConditions.size());
+					out.writeBoolean(s.hasQuality());
+					// search order, not canonical order
+					for (int i = 0, j = aConditions.size(); i < j; ++i)
+						out.writeInt(theDictionary.getId(aConditions.get(i)));
+				}
+			}
+			finally
+			{
+				out.close();
+			}
+
+			RandomAccessFile aRandomAccessFile = new RandomAccessFile(aFile, "r");
+			try
+			{
+				FileChannel aChannel = aRandomAccessFile.getChannel();
+				MappedByteBuffer aBuffer = aChannel.map(FileChannel.MapMode.READ_ONLY, 0, aChannel.size());
+				// the mapping stays valid after the channel is closed
+				return new CandidateRun(aFile, theIndex, aBuffer, theCandidates.size(), theDictionary, theCandidates.get(0).getSubgroup().getParentSet());
+			}
+			finally
+			{
+				aRandomAccessFile.close();
+			}
+		}
+		catch (IOException e)
+		{
+			aFile.delete();
+			throw e;
+		}
+	}
+
+	/*
+	 * a read back Subgroup has no DAG (MULTI_LABEL), LabelRanking
+	 * (LABEL_RANKING) or RegressionModel (DOUBLE_REGRESSION)
+	 */
+	static boolean isSupported(TargetType theTargetType)
+	{
+		return (theTargetType != TargetType.MULTI_LABEL) &&
+			(theTargetType != TargetType.LABEL_RANKING) &&
+			(theTargetType != TargetType.DOUBLE_REGRESSION);
+	}
+
+	/** Returns the next Candidate of this run, without removing it. */
+	Candidate peek()                         { return itsHead; }
+	/** Returns the number of Candidates left in this run, including the head. */
+	int size()                               { return itsSize; }
+	/** Returns the number of runs written before this one. */
+	int getIndex()                           { return itsIndex; }
+	/** Returns the size of the file of this run. */
+	long getSizeInBytes()                    { return itsFile.length(); }
+
+	/** Removes the next Candidate of this run, and returns it. */
+	Candidate poll()
+	{
+		Candidate aHead = itsHead;
+		--itsSize;
+		itsHead = read();
+		return aHead;
+	}
+
+	/*
+	 * for Checkpoint, the Candidates left in this run, including the head,
+	 * iterating does not change this run
+	 */
+	Iterator<Candidate> iterator()
+	{
+		// itsBuffer is positioned after the head
+		final ByteBuffer aBuffer = (itsSize > 1) ? itsBuffer.duplicate() : null;
+
+		return new Iterator<Candidate>()
+		{
+			private int itsIndex = 0;
+
+			@Override
+			public boolean hasNext() { return (itsIndex < itsSize); }
+
+			@Override
+			public Candidate next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				return (itsIndex++ == 0) ? itsHead : read(aBuffer);
+			}
+		};
+	}
+
+	private Candidate read()
+	{
+		if (itsSize == 0)
+		{
+			delete();
+			return null;
+		}
+
+		return read(itsBuffer);
+	}
+
+	/** Deletes the file of this run, the Candidates left can not be read. */
+	void delete()
+	{
+		// allow the mapping to be released, so the file can be deleted
+		itsBuffer = null;
+		itsSize = 0;
+		itsHead = null;
+		itsFile.delete();
+	}
+
+	private Candidate read(ByteBuffer theBuffer)
+	{
+		double aPriority = theBuffer.getDouble();
+		double anOptimisticEstimate = theBuffer.getDouble();
+		double aMeasureValue = theBuffer.getDouble();
+		double aSecondaryStatistic = theBuffer.getDouble();
+		double aTertiaryStatistic = theBuffer.getDouble();
+		int aCoverage = theBuffer.getInt();
+		int aDepth = theBuffer.getInt();
+		boolean hasQuality = (theBuffer.get() != 0);
+
+		ConditionList aConditions = ConditionListBuilder.emptyList();
+		for (int i = 0; i < aDepth; ++i)
+			aConditions = ConditionListBuilder.createList(aConditions, itsDictionary.getCondition(theBuffer.getInt()));
+
+		Subgroup aSubgroup = new Subgroup(aConditions, aCoverage, hasQuality, aMeasureValue, aSecondaryStatistic, aTertiaryStatistic, itsParentSet);
+		Candidate aCandidate = new Candidate(aSubgroup);
+		aCandidate.setPriority(aPriority);
+		aCandidate.setOptimisticEstimate(anOptimisticEstimate);
+
+		return aCandidate;
+	}
+
+	/**
+	 * A Dictionary assigns consecutive ids to logically equal
+	 * {@link Condition}s, as defined by
+	 * {@link Condition#compareTo(Condition)}.
+	 */
+	static final class Dictionary
+	{
+		private final Map<Condition, Integer> itsIds = new TreeMap<Condition, Integer>();
+		private final List<Condition> itsConditions = new ArrayList<Condition>();
+
+		int getId(Condition theCondition)
+		{
+			Integer anId = itsIds.get(theCondition);
+			if (anId == null)
+			{
+				anId = itsConditions.size();
+				itsIds.put(theCondition, anId);
+				itsConditions.add(theCondition);
+			}
+
+			return anId;
+		}
+
+		Condition getCondition(int theId) { return itsConditions.get(theId); }
+		int size()                        { return itsConditions.size(); }
+	}
+}
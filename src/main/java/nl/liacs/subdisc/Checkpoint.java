@@ -0,0 +1,354 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import nl.liacs.subdisc.ConditionListBuilder.ConditionList;
+
+/*
+ * NOTE a checkpoint is captured by the mining Thread at a point where no
+ * refinement is in progress, so the CandidateQueue, the SubgroupSet and the
+ * candidate count are consistent, see SubgroupDiscovery.checkpoint()
+ * capturing only encodes the state in a byte[], writing it to disk is done by
+ * another Thread, to a temporary file that atomically replaces the checkpoint
+ * file, so a crash while writing leaves the previous checkpoint intact
+ *
+ * the format is
+ * header     : magic, version, fingerprint of the Table and SearchParameters,
+ *              candidate count, elapsed time
+ * dictionary : the distinct Conditions, by Column index, Operator and value
+ * levels     : for each CandidateQueue level, its Candidates
+ * result     : the Subgroups of the SubgroupSet
+ * Candidates and Subgroups refer to Conditions by their dictionary id
+ *
+ * a Subgroup is stored by its ConditionList (in search order) and statistics,
+ * its members are revived on demand after a resume, so target types that keep
+ * a model with each Subgroup (DAG, LabelRanking) are not supported
+ * mining draws no random numbers, so there is no random state to store
+ */
+/**
+ * A Checkpoint holds the state of a {@link SubgroupDiscovery} search, such that
+ * it can be resumed with the same final result.
+ *
+ * @see SearchParameters#getCheckpointFile()
+ */
+final class Checkpoint
+{
+	private static final int MAGIC = 0x53444350; // SDCP
+	private static final int VERSION = 1;
+
+	private final long itsCandidateCount;
+	private final long itsElapsedTime;
+
+	private Checkpoint(long theCandidateCount, long theElapsedTime)
+	{
+		itsCandidateCount = theCandidateCount;
+		itsElapsedTime = theElapsedTime;
+	}
+
+	/** Returns the number of candidates evaluated before the checkpoint. */
+	long getCandidateCount()                 { return itsCandidateCount; }
+	/** Returns the mining time before the checkpoint, in milliseconds. */
+	long getElapsedTime()                    { return itsElapsedTime; }
+
+	static boolean isSupported(TargetType theTargetType)
+	{
+		return (theTargetType != TargetType.MULTI_LABEL) && (theTargetType != TargetType.LABEL_RANKING);
+	}
+
+	/**
+	 * Encodes the state of a search, call only when no other Thread uses
+	 * the {@link CandidateQueue} or {@link SubgroupSet}.
+	 *
+	 * @return the checkpoint, to be written by {@link #write(byte[], File)}.
+	 *
+	 * @throws IOException never, as the checkpoint is written to memory.
+	 */
+	static byte[] capture(Table theTable, BitSet theSelection, SearchParameters theSearchParameters, CandidateQueue theCandidateQueue, SubgroupSet theResult, long theCandidateCount, long theElapsedTime) throws IOException
+	{
+		CandidateRun.Dictionary aDictionary = new CandidateRun.Dictionary();
+
+		// written first, as it creates the dictionary
+		ByteArrayOutputStream aBody = new ByteArrayOutputStream(1 << 16);
+		DataOutputStream out = new DataOutputStream(aBody);
+		List<Iterable<Candidate>> aLevels = theCandidateQueue.getLevels();
+		out.writeInt(aLevels.size());
+		for (Iterable<Candidate> aLevel : aLevels)
+		{
+			for (Candidate c : aLevel)
+			{
+				out.writeBoolean(true);
+				out.writeDouble(c.getPriority());
+				out.writeDouble(c.getOptimisticEstimate());
+				writeSubgroup(out, c.getSubgroup(), aDictionary);
+			}
+			out.writeBoolean(false);
+		}
+		out.writeInt(theResult.size());
+		for (Subgroup s : theResult)
+			writeSubgroup(out, s, aDictionary);
+		out.flush();
+
+		ByteArrayOutputStream aCheckpoint = new ByteArrayOutputStream(aBody.size() + (1 << 12));
+		out = new DataOutputStream(aCheckpoint);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(getFingerprint(theTable, theSelection, theSearchParameters));
+		out.writeLong(theCandidateCount);
+		out.writeLong(theElapsedTime);
+		out.writeInt(aDictionary.size());
+		for (int i = 0, j = aDictionary.size(); i < j; ++i)
+			writeCondition(out, aDictionary.getCondition(i));
+		aBody.writeTo(out);
+		out.flush();
+
+		return aCheckpoint.toByteArray();
+	}
+
+	/**
+	 * Writes a checkpoint, the file is replaced atomically.
+	 *
+	 * @param theCheckpoint the checkpoint, as returned by capture().
+	 * @param theFile the checkpoint file.
+	 *
+	 * @throws IOException if the checkpoint could not be written.
+	 */
+	static void write(byte[] theCheckpoint, File theFile) throws IOException
+	{
+		File aFile = theFile.getAbsoluteFile();
+		File aTemporaryFile = new File(aFile.getParentFile(), aFile.getName() + ".tmp");
+
+		FileOutputStream out = new FileOutputStream(aTemporaryFile);
+		try
+		{
+			out.write(theCheckpoint);
+			// a crash after the move must not leave a partial file
+			out.getFD().sync();
+		}
+		finally
+		{
+			out.close();
+		}
+
+		Files.move(aTemporaryFile.toPath(), aFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a checkpoint, and replaces the contents of the
+	 * {@link CandidateQueue} and {@link SubgroupSet} by its state, call only
+	 * before mining starts.
+	 * The CandidateQueue and SubgroupSet are not changed when an
+	 * IOException is thrown.
+	 *
+	 * @return the Checkpoint, holding the candidate count and elapsed time.
+	 *
+	 * @throws IOException if the file could not be read, or it is not a
+	 * checkpoint of a search using the same Table and SearchParameters.
+	 */
+	static Checkpoint read(File theFile, Table theTable, BitSet theSelection, SearchParameters theSearchParameters, CandidateQueue theCandidateQueue, SubgroupSet theResult) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(theFile), 1 << 16));
+		try
+		{
+			if (in.readInt() != MAGIC)
+				throw new IOException("not a SubDisc checkpoint");
+			int aVersion = in.readInt();
+			if (aVersion != VERSION)
+				throw new IOException("unsupported version: " + aVersion);
+			if (!getFingerprint(theTable, theSelection, theSearchParameters).equals(in.readUTF()))
+				throw new IOException("checkpoint of a different Table or SearchParameters");
+
+			Checkpoint aCheckpoint = new Checkpoint(in.readLong(), in.readLong());
+
+			Condition[] aDictionary = new Condition[in.readInt()];
+			for (int i = 0; i < aDictionary.length; ++i)
+				aDictionary[i] = readCondition(in, theTable);
+
+			// read all before changing anything
+			List<List<Candidate>> aLevels = new ArrayList<List<Candidate>>();
+			for (int i = 0, j = in.readInt(); i < j; ++i)
+			{
+				List<Candidate> aLevel = new ArrayList<Candidate>();
+				while (in.readBoolean())
+				{
+					double aPriority = in.readDouble();
+					double anOptimisticEstimate = in.readDouble();
+					Candidate c = new Candidate(readSubgroup(in, aDictionary, theResult));
+					c.setPriority(aPriority);
+					c.setOptimisticEstimate(anOptimisticEstimate);
+					aLevel.add(c);
+				}
+				aLevels.add(aLevel);
+			}
+			List<Subgroup> aSubgroups = new ArrayList<Subgroup>();
+			for (int i = 0, j = in.readInt(); i < j; ++i)
+				aSubgroups.add(readSubgroup(in, aDictionary, theResult));
+
+			// replaces the root Candidate, or beam seed
+			while (theCandidateQueue.size() > 0)
+				theCandidateQueue.removeFirst();
+			for (int i = 0, j = aLevels.size(); i < j; ++i)
+				for (Candidate c : aLevels.get(i))
+					theCandidateQueue.restore(i, c);
+
+			theResult.clear();
+			for (Subgroup s : aSubgroups)
+				theResult.add(s);
+
+			return aCheckpoint;
+		}
+		// a Condition that is invalid for the Column, or an invalid Interval
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException("invalid Condition: " + e.getMessage());
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	// settings that change the search, not how long or on how many Threads
+	// and the selection of rows, a fold for instance, null for all rows
+	// also used by the MiningWorker handshake, a MiningWorker loads its
+	// SearchParameters from XML, so has the defaults of the package-private
+	// settings, a coordinator that changed one rejects it
+	static String getFingerprint(Table theTable, BitSet theSelection, SearchParameters theSearchParameters)
+	{
+		TargetConcept aTargetConcept = theSearchParameters.getTargetConcept();
+
+		return new StringBuilder(256)
+			.append(theTable.getName()).append(",")
+			.append(theTable.getNrRows()).append(",")
+			.append(theTable.getNrColumns()).append(",")
+			.append(theSelection == null ? "" : theSelection.cardinality() + ":" + Integer.toHexString(theSelection.hashCode())).append(",")
+			.append(aTargetConcept.getTargetType()).append(",")
+			.append(aTargetConcept.getPrimaryTarget() == null ? "" : aTargetConcept.getPrimaryTarget().getName()).append(",")
+			.append(aTargetConcept.getTargetValue()).append(",")
+			.append(theSearchParameters.getQualityMeasure()).append(",")
+			.append(theSearchParameters.getQualityMeasureMinimum()).append(",")
+			.append(theSearchParameters.getSearchDepth()).append(",")
+			.append(theSearchParameters.getMinimumCoverage()).append(",")
+			.append(theSearchParameters.getMaximumCoverageFraction()).append(",")
+			.append(theSearchParameters.getMaximumSubgroups()).append(",")
+			.append(theSearchParameters.getSearchStrategy()).append(",")
+			.append(theSearchParameters.getSearchStrategyWidth()).append(",")
+			.append(theSearchParameters.getNominalSets()).append(",")
+			.append(theSearchParameters.getNumericOperatorSetting()).append(",")
+			.append(theSearchParameters.getNumericStrategy()).append(",")
+			.append(theSearchParameters.getNrBins()).append(",")
+			// package-private settings
+			.append(theSearchParameters.getUseOptimisticEstimates())
+			.append(",").append(theSearchParameters.getUseDirectSingleNumeric())
+			.append(",").append(theSearchParameters.getUseDirectScape())
+			.append(",").append(theSearchParameters.getUseDirectDoubleCorrelation())
+			.toString();
+	}
+
+	private static void writeSubgroup(DataOutputStream out, Subgroup theSubgroup, CandidateRun.Dictionary theDictionary) throws IOException
+	{
+		ConditionList aConditions = theSubgroup.getConditions();
+		out.writeInt(aConditions.size());
+		// search order, not canonical order
+		for (int i = 0, j = aConditions.size(); i < j; ++i)
+			out.writeInt(theDictionary.getId(aConditions.get(i)));
+		out.writeInt(theSubgroup.getCoverage());
+		out.writeBoolean(theSubgroup.hasQuality());
+		out.writeDouble(theSubgroup.getMeasureValue());
+		out.writeDouble(theSubgroup.getSecondaryStatistic());
+		out.writeDouble(theSubgroup.getTertiaryStatistic());
+	}
+
+	private static Subgroup readSubgroup(DataInputStream in, Condition[] theDictionary, SubgroupSet theResult) throws IOException
+	{
+		ConditionList aConditions = ConditionListBuilder.emptyList();
+		for (int i = 0, j = in.readInt(); i < j; ++i)
+			aConditions = ConditionListBuilder.createList(aConditions, theDictionary[in.readInt()]);
+		int aCoverage = in.readInt();
+		boolean hasQuality = in.readBoolean();
+
+		return new Subgroup(aConditions, aCoverage, hasQuality, in.readDouble(), in.readDouble(), in.readDouble(), theResult);
+	}
+
+	// also used by MiningProtocol
+	static void writeCondition(DataOutputStream out, Condition theCondition) throws IOException
+	{
+		Column aColumn = theCondition.getColumn();
+		Operator anOperator = theCondition.getOperator();
+		out.writeInt(aColumn.getIndex());
+		out.writeUTF(anOperator.name());
+
+		switch (aColumn.getType())
+		{
+			case NOMINAL :
+			{
+				if (anOperator == Operator.ELEMENT_OF)
+				{
+					SortedSet<String> aValues = theCondition.getNominalValueSet().getValues();
+					out.writeInt(aValues.size());
+					for (String s : aValues)
+						out.writeUTF(s);
+				}
+				else
+					out.writeUTF(theCondition.getNominalValue());
+				break;
+			}
+			case NUMERIC :
+			{
+				if (anOperator == Operator.BETWEEN)
+				{
+					out.writeFloat(theCondition.getNumericInterval().getLower());
+					out.writeFloat(theCondition.getNumericInterval().getUpper());
+				}
+				else
+					out.writeFloat(theCondition.getNumericValue());
+				break;
+			}
+			case BINARY :
+			{
+				out.writeBoolean(theCondition.getBinaryValue());
+				break;
+			}
+			default :
+				throw new AssertionError(aColumn.getType());
+		}
+	}
+
+	static Condition readCondition(DataInputStream in, Table theTable) throws IOException
+	{
+		int anIndex = in.readInt();
+		if ((anIndex < 0) || (anIndex >= theTable.getColumns().size()))
+			throw new IOException("invalid Column index: " + anIndex);
+		Column aColumn = theTable.getColumn(anIndex);
+		Operator anOperator;
+		try { anOperator = Operator.valueOf(in.readUTF()); }
+		catch (IllegalArgumentException e) { throw new IOException(e.getMessage()); }
+		ConditionBase aConditionBase = new ConditionBase(aColumn, anOperator);
+
+		switch (aColumn.getType())
+		{
+			case NOMINAL :
+			{
+				if (anOperator != Operator.ELEMENT_OF)
+					return new Condition(aConditionBase, in.readUTF());
+
+				SortedSet<String> aValues = new TreeSet<String>();
+				for (int i = 0, j = in.readInt(); i < j; ++i)
+					aValues.add(in.readUTF());
+				return new Condition(aConditionBase, new ValueSet(aValues));
+			}
+			case NUMERIC :
+			{
+				if (anOperator == Operator.BETWEEN)
+					return new Condition(aConditionBase, new Interval(in.readFloat(), in.readFloat()));
+				// the sort index is an optimisation, Column.evaluate() does not require it
+				return new Condition(aConditionBase, in.readFloat(), Condition.UNINITIALISED_SORT_INDEX);
+			}
+			case BINARY :
+				return new Condition(aConditionBase, in.readBoolean());
+			default :
+				throw new IOException("unsupported AttributeType: " + aColumn.getType());
+		}
+	}
+}
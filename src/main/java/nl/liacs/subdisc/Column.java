@@ -57,6 +57,12 @@ public class Column implements XMLNodeInterface
 	private static final int MASK_OFF = 0x7fffffff;
 	private float[] itsSortedFloats;
 	private int[] itsSortIndex;
+	// target independent rank of every value, built once, see getRankIndex()
+	private volatile RankIndex itsRankIndex;
+	// below (cardinality * this) < nr distinct values Arrays.sort() is faster
+	private static final int COUNTING_SORT_MIN_RATIO = 8;
+	// LABEL_RANKING, the parsed ranking of every value, see getLabelRankIndex()
+	private volatile LabelRankIndex itsLabelRankIndex;
 
 //	private static final String falseFloat = "[-+]?0*(\\.0+)?"; // DO NOT REMOVE
 	private static final String trueFloat = "\\+?0*1(\\.0+)?";
@@ -232,6 +238,8 @@ public class Column implements XMLNodeInterface
 	{
 		Column aCopy = new Column(itsName, itsShort, itsType, itsIndex, itsSize);
 		aCopy.itsFloatz = itsFloatz;
+		aCopy.itsRankIndex = itsRankIndex; // immutable, shares itsFloatz
+		aCopy.itsLabelRankIndex = itsLabelRankIndex; // immutable
 		aCopy.itsNominalz = itsNominalz;
 		aCopy.itsBinaries = itsBinaries;
 		aCopy.itsDistinctValues = itsDistinctValues;
@@ -408,6 +416,7 @@ public class Column implements XMLNodeInterface
 
 		itsFloatz[itsSize] = theFloat;
 		itsSize++;
+		itsRankIndex = null;
 	}
 
 	/**
@@ -476,11 +485,71 @@ public class Column implements XMLNodeInterface
 			itsFloatz = Arrays.copyOf(itsFloatz, itsSize);
 	}
 
+	// package private, for use by FileWriterSDC only, do not modify
+	float[] getFloatData() { return itsFloatz; }
+	int[] getNominalData() { return itsNominalz; }
+	List<String> getDistinctValues() { return itsDistinctValues; }
+	BitSet getBinaryData() { return itsBinaries; }
+	BitSet getMissingData() { return itsMissing; }
+	boolean getMissingValueIsUnique() { getCardinality(); return itsMissingValueIsUnique; }
+
+	/*
+	 * package private, for use by FileLoaderSDC only
+	 * replaces all data of this Column, the arrays are not copied
+	 * only the data for the AttributeType of this Column is used
+	 * theCardinality, theMin and theMax are as computed for the data by
+	 * getCardinality(), getMin() and getMax(), so they are not computed again
+	 */
+	void setData(int theSize, float[] theFloats, int[] theNominals, List<String> theDistinctValues, BitSet theBinaries, BitSet theMissing,
+			boolean theMissingValueIsUnique, int theCardinality, float theMin, float theMax)
+	{
+		switch (itsType)
+		{
+			case NOMINAL :
+			{
+				itsNominalz = theNominals;
+				itsDistinctValues = new ArrayList<String>(theDistinctValues);
+				itsDistinctValuesMap = new HashMap<String, Integer>(theDistinctValues.size() * 2);
+				for (int i = 0, j = theDistinctValues.size(); i < j; ++i)
+					itsDistinctValuesMap.put(theDistinctValues.get(i), i);
+				break;
+			}
+			case NUMERIC :
+			{
+				itsFloatz = theFloats;
+				itsRankIndex = null;
+				break;
+			}
+			case ORDINAL :
+				throw new AssertionError(itsType);
+			case BINARY :
+			{
+				itsBinaries = theBinaries;
+				break;
+			}
+			default :
+			{
+				logTypeError("Column.setData()");
+				throw new AssertionError(itsType);
+			}
+		}
+
+		itsSize = theSize;
+		itsMissing = theMissing;
+		itsMissingValueIsUnique = theMissingValueIsUnique;
+		itsCardinality = theCardinality;
+		itsMin = theMin;
+		itsMax = theMax;
+	}
+
 	// package private, for use by FileLoaderGeneRank only
 	void set(int theIndex, float theValue)
 	{
 		if (!isOutOfBounds(theIndex))
+		{
 			itsFloatz[theIndex] = theValue;
+			itsRankIndex = null;
+		}
 	}
 
 	public int size() { return itsSize; }
@@ -1251,13 +1320,16 @@ public class Column implements XMLNodeInterface
 
 		BitSet aResult;
 		Operator anOperator = theCondition.getOperator();
+		// all set bits are members of theBitSet, so they can not exceed its
+		// length, this avoids BitSets of itsSize for Subgroups of a few rows
+		int aLength = theBitSet.length();
 
 		// methods do not return immediately, allows for assert below
 		switch (itsType)
 		{
 			case NOMINAL :
 			{
-				aResult = new BitSet(itsSize);
+				aResult = new BitSet(aLength);
 
 				switch (anOperator)
 				{
@@ -1274,7 +1346,7 @@ public class Column implements XMLNodeInterface
 			}
 			case NUMERIC :
 			{
-				aResult = new BitSet(itsSize);
+				aResult = new BitSet(aLength);
 
 				// the Condition constructor with float always sets sort index
 				// the Condition constructor with Interval does not
@@ -1340,11 +1412,12 @@ public class Column implements XMLNodeInterface
 	{
 		assert (itsType == AttributeType.BINARY);
 
+		// clone theBitSet, not itsBinaries, the result is no longer than it
 		BitSet aResult;
 		if (theValue)
 		{
-			aResult = (BitSet) itsBinaries.clone();
-			aResult.and(theBitSet);
+			aResult = (BitSet) theBitSet.clone();
+			aResult.and(itsBinaries);
 			return aResult;
 		}
 		else
@@ -1804,6 +1877,38 @@ public class Column implements XMLNodeInterface
 		return aCounts;
 	}
 
+	// as getUniqueNominalDomainCounts(), but only counts the members that are
+	// also in theTarget, the true positives for SINGLE_NOMINAL, the number of
+	// distinct values is not included
+	int[] getUniqueNominalDomainTruePositives(BitSet theBitSet, BitSet theTarget)
+	{
+		int[] aCounts = new int[itsCardinality];
+
+		for (int i = theBitSet.nextSetBit(0); i >= 0; i = theBitSet.nextSetBit(i + 1))
+			if (theTarget.get(i))
+				++aCounts[itsNominalz[i]];
+
+		return aCounts;
+	}
+
+	// as getUniqueNominalDomainTruePositives(), for each of theTargets, in a
+	// single pass over theBitSet, the result is indexed [target][value]
+	int[][] getUniqueNominalDomainTargetCounts(BitSet theBitSet, BitSet[] theTargets)
+	{
+		int aNrTargets = theTargets.length;
+		int[][] aCounts = new int[aNrTargets][itsCardinality];
+
+		for (int i = theBitSet.nextSetBit(0); i >= 0; i = theBitSet.nextSetBit(i + 1))
+		{
+			int v = itsNominalz[i];
+			for (int t = 0; t < aNrTargets; ++t)
+				if (theTargets[t].get(i))
+					++aCounts[t][v];
+		}
+
+		return aCounts;
+	}
+
 	static final class DomainMapNumeric
 	{
 		final int itsSize;       // itsSize indicates end-of-valid-input
@@ -1828,13 +1933,9 @@ public class Column implements XMLNodeInterface
 		if (!isValidCall("getUniqueNumericDomainMap", theBitSet))
 			return null;
 
-		float[] aDomain = new float[theBitSetCardinality];
+		// sorted, using a counting pass over the rank index
+		float[] aDomain = getSortedValues(theBitSet, theBitSetCardinality);
 		int[] aCounts = new int[theBitSetCardinality];
-		for (int i = 0, j = theBitSet.nextSetBit(0); j >= 0; j = theBitSet.nextSetBit(j + 1), ++i)
-			aDomain[i] = itsFloatz[j];
-
-		// sort
-		Arrays.sort(aDomain);
 
 		float x = Float.NaN; // comparison is always false
 		int idx = -1;
@@ -1858,27 +1959,139 @@ public class Column implements XMLNodeInterface
 	{
 		boolean isTargetNull = (theTarget == null);
 
-		itsSortedFloats = Function.getUniqueValues(itsFloatz);	//this might include a NaN at the end in case of missing values
-//		if (Float.isNaN(aSortedFloats[aSortedFloats.length-1]))		//are there missing values (placed at the end by getUniqueValues)?
-//		{
-//			itsSortedFloats = new float[aSortedFloats.length-1];
-//			for (int i=0; i<aSortedFloats.length-1; i++)
-//				itsSortedFloats[i] = aSortedFloats[i];
-//		}
-//		else
-//			itsSortedFloats = aSortedFloats;
-		
+		// the rank index holds the same values and indexes as the original
+		// code: getUniqueValues(itsFloatz) and a binarySearch() for each row
+		RankIndex r = getRankIndex();
+		itsSortedFloats = r.itsValues;	//this might include a NaN at the end in case of missing values
+
+		// neither array is ever modified, so no copy is needed
+		if (isTargetNull)
+		{
+			itsSortIndex = r.itsRanks;
+			return;
+		}
+
 		// determine sort-index for each value in Column.itsFloatz
-		itsSortIndex = new int[itsFloatz.length];
-		for (int i = 0; i < itsFloatz.length; ++i)
+		itsSortIndex = new int[r.itsRanks.length];
+		for (int i = 0; i < itsSortIndex.length; ++i)
 		{
-			int idx = Arrays.binarySearch(itsSortedFloats, itsFloatz[i]);
-			itsSortIndex[i] = (isTargetNull || theTarget.get(i)) ? idx : (MASK_ON | idx);
+			int idx = r.itsRanks[i];
+			itsSortIndex[i] = theTarget.get(i) ? idx : (MASK_ON | idx);
 		}
 	}
 
+	// the RankIndex remains, it does not depend on the target
 	final void removeSorted() { itsSortedFloats = null; itsSortIndex = null; }
 
+	/*
+	 * The rank of a row is the index of its value in the sorted unique values
+	 * of this Column, where -0.0 < 0.0, and NaN is last, as for Arrays.sort().
+	 * So the sorted values of any set of rows can be obtained in linear time
+	 * by counting, see getSortedValues().
+	 * Immutable, a new RankIndex is build when itsFloatz is modified.
+	 */
+	private static final class RankIndex
+	{
+		final float[] itsSource; // itsFloatz this index was build for
+		final float[] itsValues; // unique values, sorted
+		final int[] itsRanks;    // of size itsSource.length
+
+		RankIndex(float[] theSource)
+		{
+			itsSource = theSource;
+			itsValues = Function.getUniqueValues(theSource);
+			itsRanks = new int[theSource.length];
+			for (int i = 0; i < theSource.length; ++i)
+				itsRanks[i] = Arrays.binarySearch(itsValues, theSource[i]);
+		}
+
+		// for a RankIndex that was stored by FileWriterSDC
+		RankIndex(float[] theSource, float[] theValues, int[] theRanks)
+		{
+			itsSource = theSource;
+			itsValues = theValues;
+			itsRanks = theRanks;
+		}
+	}
+
+	// only for NUMERIC and ORDINAL, build once, shared by all Threads
+	private final RankIndex getRankIndex()
+	{
+		RankIndex r = itsRankIndex;
+		// itsFloatz is replaced by setData(), close() and AttributeType changes
+		if ((r != null) && (r.itsSource == itsFloatz))
+			return r;
+
+		synchronized (this)
+		{
+			r = itsRankIndex;
+			if ((r == null) || (r.itsSource != itsFloatz))
+				itsRankIndex = r = new RankIndex(itsFloatz);
+			return r;
+		}
+	}
+
+	// package private, for use by FileWriterSDC only, do not modify
+	float[] getRankValues() { return getRankIndex().itsValues; }
+	int[] getRanks() { return getRankIndex().itsRanks; }
+
+	// package private, for use by FileLoaderSDC only, the arrays are not copied
+	void setRankIndex(float[] theValues, int[] theRanks)
+	{
+		itsRankIndex = new RankIndex(itsFloatz, theValues, theRanks);
+	}
+
+	// builds the RankIndex now, so that copies made afterwards all share it
+	final void buildRankIndex()
+	{
+		if ((itsType == AttributeType.NUMERIC) || (itsType == AttributeType.ORDINAL))
+			getRankIndex();
+	}
+
+	/*
+	 * Returns the values of the rows selected by theBitSet, sorted as would
+	 * Arrays.sort(), but in O(cardinality + nr distinct values) using the
+	 * RankIndex, for small selections of Columns with many distinct values,
+	 * Arrays.sort() is used.
+	 */
+	final float[] getSortedValues(BitSet theBitSet, int theBitSetCardinality)
+	{
+		assert (theBitSetCardinality == theBitSet.cardinality());
+
+		RankIndex r = getRankIndex();
+		int[] aRanks = r.itsRanks;
+		float[] aValues = r.itsValues;
+
+		if (((long) theBitSetCardinality * COUNTING_SORT_MIN_RATIO) < aValues.length)
+			return sortValues(theBitSet, theBitSetCardinality);
+
+		int[] aCounts = new int[aValues.length];
+		for (int i = theBitSet.nextSetBit(0); i >= 0; i = theBitSet.nextSetBit(i + 1))
+			++aCounts[aRanks[i]];
+
+		float[] aResult = new float[theBitSetCardinality];
+		for (int i = 0, j = 0; i < aCounts.length; ++i)
+		{
+			float f = aValues[i];
+			for (int k = aCounts[i]; k > 0; --k)
+				aResult[j++] = f;
+		}
+
+		return aResult;
+	}
+
+	// original code, before RankIndex, also used by ColumnRankIndexBenchmark
+	final float[] sortValues(BitSet theBitSet, int theBitSetCardinality)
+	{
+		float[] aResult = new float[theBitSetCardinality];
+		for (int i = theBitSet.nextSetBit(0), j = -1; i >= 0; i = theBitSet.nextSetBit(i + 1))
+			aResult[++j] = itsFloatz[i];
+
+		Arrays.sort(aResult);
+
+		return aResult;
+	}
+
 	public final float getSortedValue(int index) { return itsSortedFloats[index]; }
 
 	public final int getSortedIndex(float theFloat) { return Arrays.binarySearch(itsSortedFloats, theFloat); }
@@ -1926,20 +2139,46 @@ public class Column implements XMLNodeInterface
 	}
 
 	// for t-statistic, maybe for explained variance
+	// itsCounts includes members with a missing target value, as it is used
+	// for the Subgroup coverage, the other arrays only count actual values
 	static final class ValueCountSumSquaresSum
 	{
-		final int[]    itsCounts;      // of size column.cardinality
-		final double[] itsSums;        // of size column.cardinality
-		final double[] itsSquaresSums; // of size column.cardinality
+		final int[]    itsCounts;       // of size column.cardinality
+		final int[]    itsTargetCounts; // of size column.cardinality
+		final double[] itsSums;         // of size column.cardinality
+		final double[] itsSquaresSums;  // of size column.cardinality
 
-		private ValueCountSumSquaresSum(int[] theCounts, double[] theSums, double[] theSquaresSums)
+		private ValueCountSumSquaresSum(int[] theCounts, int[] theTargetCounts, double[] theSums, double[] theSquaresSums)
 		{
 			itsCounts        = theCounts;
+			itsTargetCounts  = theTargetCounts;
 			itsSums          = theSums;
 			itsSquaresSums   = theSquaresSums;
 		}
 	}
 
+	// for DOUBLE_CORRELATION, the sums as kept by CorrelationMeasure, where
+	// like addObservation() Y is the primary and X is the secondary target
+	static final class ValueCountCoMoments
+	{
+		final int[]    itsCounts;         // of size column.cardinality
+		final double[] itsXSums;          // of size column.cardinality
+		final double[] itsYSums;          // of size column.cardinality
+		final double[] itsXYSums;         // of size column.cardinality
+		final double[] itsXSquaredSums;   // of size column.cardinality
+		final double[] itsYSquaredSums;   // of size column.cardinality
+
+		private ValueCountCoMoments(int theCardinality)
+		{
+			itsCounts       = new int[theCardinality];
+			itsXSums        = new double[theCardinality];
+			itsYSums        = new double[theCardinality];
+			itsXYSums       = new double[theCardinality];
+			itsXSquaredSums = new double[theCardinality];
+			itsYSquaredSums = new double[theCardinality];
+		}
+	}
+
 	public ValueCount getValueCount(BitSet theBitSet)
 	{
 		if (!isValidCall("getValueCount", theBitSet))
@@ -1954,6 +2193,29 @@ public class Column implements XMLNodeInterface
 		return new ValueCount(aCnt);
 	}
 
+	/*
+	 * returns the members of theBitSet ordered on their value (sort index), a
+	 * counting sort using theValueCount, as returned by getValueCount()
+	 * members with the same value are in ascending index order, the members
+	 * for sort index i start at the sum of theValueCount.itsCounts[0 .. i-1]
+	 */
+	int[] getMembersBySortIndex(BitSet theBitSet, ValueCount theValueCount)
+	{
+		int[] aCounts = theValueCount.itsCounts;
+		int[] anOffsets = new int[aCounts.length];
+		for (int i = 0, j = 0; i < aCounts.length; ++i)
+		{
+			anOffsets[i] = j;
+			j += aCounts[i];
+		}
+
+		int[] aMembers = new int[theBitSet.cardinality()];
+		for (int i = theBitSet.nextSetBit(0); i >= 0; i = theBitSet.nextSetBit(i + 1))
+			aMembers[anOffsets[MASK_OFF & itsSortIndex[i]]++] = i;
+
+		return aMembers;
+	}
+
 	ValueCountTP getUniqueNumericDomainMap(BitSet theBitSet)
 	{
 		if (!isValidCall("getUniqueNumericDomainMap", theBitSet))
@@ -2002,6 +2264,182 @@ public class Column implements XMLNodeInterface
 		return new ValueCountTP(aCnt, aPos, aMissingCount, aMissingPositiveCount);
 	}
 
+	/*
+	 * batched versions of getUniqueNominalDomainCounts(), getValueCount() and
+	 * getUniqueNumericDomainMap(), for SubgroupDiscovery.mineBatched()
+	 * the members of each parent are the words of BitSet.toLongArray(), all
+	 * parents are scanned together, block by block, so the data of this Column
+	 * is read from memory once, and stays in cache for the other parents
+	 * element k of the result is the same as the result of the single version
+	 * for parent k
+	 */
+	// 1024 rows per block, so 4KB of itsNominalz or itsSortIndex
+	private static final int BATCH_BLOCK_WORDS = 16;
+
+	private static final int getNrWords(long[][] theMembers)
+	{
+		int aNrWords = 0;
+		for (long[] aWords : theMembers)
+			aNrWords = Math.max(aNrWords, aWords.length);
+		return aNrWords;
+	}
+
+	int[][] getUniqueNominalDomainCounts(long[][] theMembers, int[] theCardinalities)
+	{
+		int aNrParents = theMembers.length;
+		int[][] aCounts = new int[aNrParents][];
+
+		// see single version for the special cases
+		for (int k = 0; k < aNrParents; ++k)
+		{
+			assert (theCardinalities[k] > 1);
+
+			if (itsCardinality == 0)
+				aCounts[k] = new int[] { 0 };
+			else if (itsCardinality == 1)
+				aCounts[k] = new int[] { theCardinalities[k], 1 };
+			else
+				aCounts[k] = new int[itsCardinality + 1];
+		}
+		if (itsCardinality <= 1)
+			return aCounts;
+
+		for (int b = 0, n = getNrWords(theMembers); b < n; b += BATCH_BLOCK_WORDS)
+		{
+			for (int k = 0; k < aNrParents; ++k)
+			{
+				long[] aWords = theMembers[k];
+				int[] aCnt = aCounts[k];
+				for (int w = b, e = Math.min(b + BATCH_BLOCK_WORDS, aWords.length); w < e; ++w)
+					for (long aWord = aWords[w]; aWord != 0L; aWord &= (aWord - 1))
+						++aCnt[itsNominalz[(w << 6) + Long.numberOfTrailingZeros(aWord)]];
+			}
+		}
+
+		// number of distinct values at [itsCardinality], see single version
+		for (int[] aCnt : aCounts)
+		{
+			int aNrDistinct = 0;
+			for (int i = 0; i < itsCardinality; ++i)
+				if (aCnt[i] != 0)
+					++aNrDistinct;
+			aCnt[itsCardinality] = aNrDistinct;
+		}
+
+		return aCounts;
+	}
+
+	int[][] getUniqueNominalDomainTruePositives(long[][] theMembers, long[] theTarget)
+	{
+		int aNrParents = theMembers.length;
+		int[][] aCounts = new int[aNrParents][itsCardinality];
+
+		for (int b = 0, n = Math.min(getNrWords(theMembers), theTarget.length); b < n; b += BATCH_BLOCK_WORDS)
+		{
+			for (int k = 0; k < aNrParents; ++k)
+			{
+				long[] aWords = theMembers[k];
+				int[] aCnt = aCounts[k];
+				for (int w = b, e = Math.min(Math.min(b + BATCH_BLOCK_WORDS, aWords.length), n); w < e; ++w)
+					for (long aWord = (aWords[w] & theTarget[w]); aWord != 0L; aWord &= (aWord - 1))
+						++aCnt[itsNominalz[(w << 6) + Long.numberOfTrailingZeros(aWord)]];
+			}
+		}
+
+		return aCounts;
+	}
+
+	ValueCount[] getValueCounts(long[][] theMembers)
+	{
+		int aNrParents = theMembers.length;
+		ValueCount[] aResult = new ValueCount[aNrParents];
+
+		if (!isValidCall("getValueCounts", null))
+		{
+			for (int k = 0; k < aNrParents; ++k)
+				aResult[k] = new ValueCount(new int[0]);
+			return aResult;
+		}
+
+		// NOTE (itsSortedFloats.length == itsCardinality)
+		int[][] aCounts = new int[aNrParents][itsSortedFloats.length];
+
+		for (int b = 0, n = getNrWords(theMembers); b < n; b += BATCH_BLOCK_WORDS)
+		{
+			for (int k = 0; k < aNrParents; ++k)
+			{
+				long[] aWords = theMembers[k];
+				int[] aCnt = aCounts[k];
+				for (int w = b, e = Math.min(b + BATCH_BLOCK_WORDS, aWords.length); w < e; ++w)
+					for (long aWord = aWords[w]; aWord != 0L; aWord &= (aWord - 1))
+						++aCnt[itsSortIndex[(w << 6) + Long.numberOfTrailingZeros(aWord)]];
+			}
+		}
+
+		for (int k = 0; k < aNrParents; ++k)
+			aResult[k] = new ValueCount(aCounts[k]);
+
+		return aResult;
+	}
+
+	ValueCountTP[] getUniqueNumericDomainMaps(long[][] theMembers)
+	{
+		int aNrParents = theMembers.length;
+		ValueCountTP[] aResult = new ValueCountTP[aNrParents];
+
+		if (!isValidCall("getUniqueNumericDomainMaps", null))
+		{
+			for (int k = 0; k < aNrParents; ++k)
+				aResult[k] = new ValueCountTP(new int[0], new int[0], 0, 0);
+			return aResult;
+		}
+
+		int[][] aCounts = new int[aNrParents][itsSortedFloats.length];
+		int[][] aPositives = new int[aNrParents][itsSortedFloats.length];
+		int[] aMissingCounts = new int[aNrParents];
+		int[] aMissingPositiveCounts = new int[aNrParents];
+
+		for (int b = 0, n = getNrWords(theMembers); b < n; b += BATCH_BLOCK_WORDS)
+		{
+			for (int k = 0; k < aNrParents; ++k)
+			{
+				long[] aWords = theMembers[k];
+				int[] aCnt = aCounts[k];
+				int[] aPos = aPositives[k];
+				for (int w = b, e = Math.min(b + BATCH_BLOCK_WORDS, aWords.length); w < e; ++w)
+				{
+					for (long aWord = aWords[w]; aWord != 0L; aWord &= (aWord - 1))
+					{
+						int i = (w << 6) + Long.numberOfTrailingZeros(aWord);
+						int idx = itsSortIndex[i];
+						// see single version, a set sign bit marks a negative
+						if (!getMissing(i))
+						{
+							if (idx >= 0)
+							{
+								++aCnt[idx];
+								++aPos[idx];
+							}
+							else
+								++aCnt[(MASK_OFF & idx)];
+						}
+						else
+						{
+							++aMissingCounts[k];
+							if (idx >= 0)
+								++aMissingPositiveCounts[k];
+						}
+					}
+				}
+			}
+		}
+
+		for (int k = 0; k < aNrParents; ++k)
+			aResult[k] = new ValueCountTP(aCounts[k], aPositives[k], aMissingCounts[k], aMissingPositiveCounts[k]);
+
+		return aResult;
+	}
+
 	//TODO fix this for missing values
 	ValueCountSum getUniqueNumericDomainMap(BitSet theBitSet, Column theTarget)
 	{
@@ -2022,27 +2460,67 @@ public class Column implements XMLNodeInterface
 		return new ValueCountSum(aCnt, aSum);
 	}
 
-	// see comment SubgroupDiscovery.evaluateNumericRegularSingleNumericSumSSD()
-	ValueCountSumSquaresSum getUniqueNumericDomainMapSq(BitSet theBitSet, Column theTarget)
+	// see comment SubgroupDiscovery.evaluateNumericRegularSingleNumeric()
+	// theShift is subtracted from every target value before it is summed, use
+	// the target average, so (sum of squares - squared sum / n) is stable
+	ValueCountSumSquaresSum getUniqueNumericDomainMapSq(BitSet theBitSet, Column theTarget, double theShift)
 	{
 		if (!isValidCall("getUniqueNumericDomainMap", theBitSet))
-			return new ValueCountSumSquaresSum(new int[0], new double[0], new double[0]);
+			return new ValueCountSumSquaresSum(new int[0], new int[0], new double[0], new double[0]);
 
 		// NOTE (itsSortedFloats.length == itsCardinality)
 		int[]    aCnt        = new int[itsSortedFloats.length];
+		int[]    aTargetCnt  = new int[itsSortedFloats.length];
 		double[] aSum        = new double[itsSortedFloats.length];
 		double[] aSquaresSum = new double[itsSortedFloats.length];
 
+		float[] aTarget = theTarget.itsFloatz;
 		for (int i = theBitSet.nextSetBit(0); i >= 0; i = theBitSet.nextSetBit(i + 1))
 		{
 			int idx = itsSortIndex[i];
 			++aCnt[idx];
-			double d          = theTarget.itsFloatz[i];
+
+			// like getStatistics(), missing target values are ignored
+			float f = aTarget[i];
+			if (Float.isNaN(f))
+				continue;
+
+			++aTargetCnt[idx];
+			double d          = (f - theShift);
 			aSum[idx]        += d;
 			aSquaresSum[idx] += (d * d);
 		}
 
-		return new ValueCountSumSquaresSum(aCnt, aSum, aSquaresSum);
+		return new ValueCountSumSquaresSum(aCnt, aTargetCnt, aSum, aSquaresSum);
+	}
+
+	// see comment SubgroupDiscovery.evaluateNumericRegularDoubleCorrelation()
+	// like SubgroupDiscovery.evaluateCandidateDoubleCorrelation() missing
+	// target values are not ignored, they make the sums of their value NaN
+	ValueCountCoMoments getUniqueNumericDomainMapCo(BitSet theBitSet, Column thePrimaryTarget, Column theSecondaryTarget)
+	{
+		if (!isValidCall("getUniqueNumericDomainMapCo", theBitSet))
+			return new ValueCountCoMoments(0);
+
+		// NOTE (itsSortedFloats.length == itsCardinality)
+		ValueCountCoMoments v = new ValueCountCoMoments(itsSortedFloats.length);
+
+		float[] aPrimary   = thePrimaryTarget.itsFloatz;
+		float[] aSecondary = theSecondaryTarget.itsFloatz;
+		for (int i = theBitSet.nextSetBit(0); i >= 0; i = theBitSet.nextSetBit(i + 1))
+		{
+			int idx  = itsSortIndex[i];
+			double y = aPrimary[i];
+			double x = aSecondary[i];
+			++v.itsCounts[idx];
+			v.itsXSums[idx]        += x;
+			v.itsYSums[idx]        += y;
+			v.itsXYSums[idx]       += (x * y);
+			v.itsXSquaredSums[idx] += (x * x);
+			v.itsYSquaredSums[idx] += (y * y);
+		}
+
+		return v;
 	}
 
 	// NOTE
@@ -2094,11 +2572,7 @@ public class Column implements XMLNodeInterface
 		if (theBitSetCardinality == 0)
 			return new DomainMapNumeric(0, 0, new float[theNrSplits], new int[theNrSplits]);
 
-		float[] aDomain = new float[theBitSetCardinality];
-		for (int i = theBitSet.nextSetBit(0), j = -1; i >= 0; i = theBitSet.nextSetBit(i + 1))
-			aDomain[++j] = itsFloatz[i];
-
-		Arrays.sort(aDomain);
+		float[] aDomain = getSortedValues(theBitSet, theBitSetCardinality);
 
 		// SEE NOTE ON BUG2, BUG3, BUG4 ABOVE
 		// N.B. Order matters to prevent integer division from yielding zero.
@@ -2262,21 +2736,27 @@ public class Column implements XMLNodeInterface
 			return null;
 		}
 
+		BitSet aMembers = (theSubgroup == null) ? null : theSubgroup.getMembers();
+		return getAverageRankingFromCounts(getLabelRankingCounts(aMembers));
+	}
+
+	// theCounts as returned by getLabelRankingCounts()
+	LabelRanking getAverageRankingFromCounts(int[] theCounts)
+	{
+		LabelRankIndex anIndex = getLabelRankIndex();
 		LabelRanking aResult = new LabelRanking(itsDistinctValues.get(itsNominalz[0]));
-		int aSize = aResult.getSize(); //number of labels
+		int aSize = anIndex.itsNrLabels; //number of labels
 		int[] aTotalRanks = new int[aSize];
 
-		BitSet aMembers = (theSubgroup == null) ? null : theSubgroup.getMembers();
 		//summation of rankings (not necessary to divide by aSize, when you just look at the order)
-		for (int i=0; i<itsSize; ++i)
+		for (int v = 0; v < theCounts.length; ++v)
 		{
-			if (aMembers == null || aMembers.get(i)) //part of the subgroup?
-			{
-				String aValue = itsDistinctValues.get(itsNominalz[i]);
-				LabelRanking aRanking = new LabelRanking(aValue);
-				for (int j=0; j<aSize; j++)
-					aTotalRanks[j] += aRanking.getRank(j);
-			}
+			int aCount = theCounts[v];
+			if (aCount == 0)
+				continue;
+			int[] aRanking = anIndex.itsRanks[v];
+			for (int j=0; j<aSize; j++)
+				aTotalRanks[j] += aCount * aRanking[j];
 		}
 
 		//make copy that can be sorted
@@ -2321,31 +2801,117 @@ public class Column implements XMLNodeInterface
 			return null;
 		}
 
+		BitSet aMembers = (theSubgroup == null) ? null : theSubgroup.getMembers();
+		return getAverageRankingMatrixFromCounts(getLabelRankingCounts(aMembers));
+	}
+
+	// theCounts as returned by getLabelRankingCounts()
+	LabelRankingMatrix getAverageRankingMatrixFromCounts(int[] theCounts)
+	{
 		//take the size of the first example as the total number of labels
-		LabelRankingMatrix aResult = new LabelRankingMatrix(itsDistinctValues.get(itsNominalz[0]).replace(">","").length());
-		// equivalent to below, as itsNominalz[0] should always be 0
-		//LabelRankingMatrix aResult = new LabelRankingMatrix(itsDistinctValues.get(0).length());
-		int aCount = 0;
+		LabelRankIndex anIndex = getLabelRankIndex();
+		int aSize = anIndex.itsNrLabels;
+		LabelRankingMatrix aResult = new LabelRankingMatrix(aSize);
 
-		BitSet aMembers = (theSubgroup == null) ? null : theSubgroup.getMembers();
-		//summation of rankings
-		for (int i=0; i<itsSize; ++i)
+		//summation of rankings, as the pairwise preferences of LabelRankingMatrix(LabelRanking)
+		int[][] aSums = new int[aSize][aSize];
+		int aCount = 0;
+		for (int v = 0; v < theCounts.length; ++v)
 		{
-			if (aMembers == null || aMembers.get(i)) //part of the subgroup?
+			int n = theCounts[v];
+			if (n == 0)
+				continue;
+			aCount += n;
+			int[] aRanking = anIndex.itsRanks[v];
+			for (int i=0; i<aSize; i++)
 			{
-				String aValue = itsDistinctValues.get(itsNominalz[i]);
-				LabelRanking aRanking = new LabelRanking(aValue);
-				LabelRankingMatrix aRankingMatrix = new LabelRankingMatrix(aRanking); //translate to LRM
-				aResult.add(aRankingMatrix);
-				aCount++;
+				int[] aRow = aSums[i];
+				int r = aRanking[i];
+				for (int j=0; j<aSize; j++)
+				{
+					if (r < aRanking[j])
+						aRow[j] += n;
+					else if (r > aRanking[j])
+						aRow[j] -= n;
+				}
 			}
 		}
+
+		// the sums are exact, so this equals adding the matrices one by one
+		for (int i=0; i<aSize; i++)
+			for (int j=0; j<aSize; j++)
+				aResult.itsMatrix[i][j] = aSums[i][j];
+
 		//divide by zero is not possible, subgroups always have members
 		aResult.divide(aCount);
 
 		return aResult;
 	}
 
+	/*
+	 * The number of times each value occurs in theMembers, all rows when
+	 * theMembers is null, indexed like itsDistinctValues.
+	 * Together with the LabelRankIndex this is all that is needed for the
+	 * average ranking (matrix) of a set of rows.
+	 */
+	int[] getLabelRankingCounts(BitSet theMembers)
+	{
+		int[] aCounts = new int[itsDistinctValues.size()];
+
+		if (theMembers == null)
+			for (int i = 0; i < itsSize; ++i)
+				++aCounts[itsNominalz[i]];
+		else
+			for (int i = theMembers.nextSetBit(0); i >= 0 && i < itsSize; i = theMembers.nextSetBit(i + 1))
+				++aCounts[itsNominalz[i]];
+
+		return aCounts;
+	}
+
+	/*
+	 * The ranks of the labels of every value of a LABEL_RANKING Column, as
+	 * set by LabelRanking(String), such that a ranking is only parsed once,
+	 * instead of once for every row of every evaluated Subgroup.
+	 * Immutable, a new LabelRankIndex is build when a value is added.
+	 */
+	private static final class LabelRankIndex
+	{
+		final List<String> itsSource; // itsDistinctValues this index was build for
+		final int itsNrLabels;        // of the ranking of the first row
+		final int[][] itsRanks;       // [value][label]
+
+		LabelRankIndex(List<String> theSource, String theFirstValue)
+		{
+			itsSource = theSource;
+			itsNrLabels = new LabelRanking(theFirstValue).getSize();
+			itsRanks = new int[theSource.size()][itsNrLabels];
+			for (int v = 0; v < itsRanks.length; ++v)
+			{
+				// getRank() returns 0 for labels not in a malformed ranking
+				LabelRanking aRanking = new LabelRanking(theSource.get(v));
+				for (int j = 0; j < itsNrLabels; ++j)
+					itsRanks[v][j] = aRanking.getRank(j);
+			}
+		}
+	}
+
+	// only for NOMINAL, build once, shared by all Threads
+	private final LabelRankIndex getLabelRankIndex()
+	{
+		LabelRankIndex r = itsLabelRankIndex;
+		// itsDistinctValues only grows, or is replaced
+		if ((r != null) && (r.itsSource == itsDistinctValues) && (r.itsRanks.length == itsDistinctValues.size()))
+			return r;
+
+		synchronized (this)
+		{
+			r = itsLabelRankIndex;
+			if ((r == null) || (r.itsSource != itsDistinctValues) || (r.itsRanks.length != itsDistinctValues.size()))
+				itsLabelRankIndex = r = new LabelRankIndex(itsDistinctValues, itsDistinctValues.get(itsNominalz[0]));
+			return r;
+		}
+	}
+
 	public LabelRankingMatrix getAverageRankingMatrix0(Subgroup theSubgroup)
 	{
 		if (itsType != AttributeType.NOMINAL)
@@ -2755,11 +3321,7 @@ public class Column implements XMLNodeInterface
 		if (size == 0)
 			return new float[0];
 
-		float[] aDomain = new float[size];
-		for (int i = theBitSet.nextSetBit(0), j = -1; i >= 0; i = theBitSet.nextSetBit(i + 1))
-			aDomain[++j] = itsFloatz[i];
-
-		Arrays.sort(aDomain);
+		float[] aDomain = getSortedValues(theBitSet, size);
 
 		// new - for LEQ, reverse sorted domain, then run old code on it
 		if (theOperator == Operator.LESS_THAN_OR_EQUAL)
@@ -2904,11 +3466,7 @@ public class Column implements XMLNodeInterface
 		if (size == 0)
 			return aSplitPoints;
 
-		float[] aDomain = new float[size];
-		for (int i = theBitSet.nextSetBit(0), j = -1; i >= 0; i = theBitSet.nextSetBit(i + 1))
-			aDomain[++j] = itsFloatz[i];
-
-		Arrays.sort(aDomain);
+		float[] aDomain = getSortedValues(theBitSet, size);
 
 		// N.B. Order matters to prevent integer division from yielding zero.
 		for (int j=0; j<theNrSplits; j++)
@@ -2980,11 +3538,7 @@ public class Column implements XMLNodeInterface
 		if (size == 0)
 			return Collections.emptySortedMap();
 
-		float[] aDomain = new float[size];
-		for (int i = theBitSet.nextSetBit(0), j = -1; i >= 0; i = theBitSet.nextSetBit(i + 1))
-			aDomain[++j] = itsFloatz[i];
-
-		Arrays.sort(aDomain);
+		float[] aDomain = getSortedValues(theBitSet, size);
 
 		// SEE NOTE ON BUG2, BUG3, BUG4 ABOVE
 		// N.B. Order matters to prevent integer division from yielding zero.
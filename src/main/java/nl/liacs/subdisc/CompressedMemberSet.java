@@ -0,0 +1,399 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/*
+ * Layout as in Roaring bitmaps (Chambi, Lemire, Kaser and Godin, 2016).
+ * The rows are split in chunks of 2^16, for every chunk that has at least one
+ * member, a Container holds the lower 16 bits of its members.
+ * Three types of Container are used, for every chunk the smallest is chosen:
+ *   ArrayContainer  sorted char[], 2 bytes per member (at most 4096 members)
+ *   BitmapContainer long[1024], fixed 8192 bytes
+ *   RunContainer    char[] starts and lengths, 4 bytes per run of members
+ * NOTE an empty chunk takes no space at all, so a Subgroup that covers 0.1% of
+ * 50M rows uses a few hundred KB, instead of the 6 MB of a BitSet.
+ */
+/**
+ * A CompressedMemberSet stores the members in compressed form, its size is
+ * determined by the number of members, and how they are clustered, not by
+ * the number of rows in the data.
+ *
+ * @see MemberSetType#COMPRESSED
+ */
+final class CompressedMemberSet implements MemberSet
+{
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_SIZE = (1 << CHUNK_BITS);
+	private static final int CHUNK_MASK = (CHUNK_SIZE - 1);
+	private static final int CHUNK_WORDS = (CHUNK_SIZE >>> 6);
+	// above this cardinality a BitmapContainer is always smaller
+	private static final int ARRAY_MAX_SIZE = 4096;
+
+	private final char[] itsKeys; // upper 16 bits of the rows in a chunk
+	private final Container[] itsContainers;
+	private final int itsCardinality;
+
+	private CompressedMemberSet(char[] theKeys, Container[] theContainers, int theCardinality)
+	{
+		itsKeys = theKeys;
+		itsContainers = theContainers;
+		itsCardinality = theCardinality;
+	}
+
+	/**
+	 * Creates a CompressedMemberSet with the same members as the
+	 * {@link BitSet} argument, the BitSet is not modified.
+	 *
+	 * @param theMembers the BitSet representing the members.
+	 *
+	 * @return a CompressedMemberSet.
+	 */
+	static CompressedMemberSet valueOf(BitSet theMembers)
+	{
+		long[] aWords = theMembers.toLongArray();
+		int aNrChunks = (aWords.length + CHUNK_WORDS - 1) / CHUNK_WORDS;
+
+		char[] aKeys = new char[aNrChunks];
+		Container[] aContainers = new Container[aNrChunks];
+		int aSize = 0;
+		int aCardinality = 0;
+
+		// last chunk may be partial, copy it to a full one
+		long[] aLast = null;
+		for (int i = 0; i < aNrChunks; ++i)
+		{
+			long[] w = aWords;
+			int anOffset = i * CHUNK_WORDS;
+			if (anOffset + CHUNK_WORDS > aWords.length)
+			{
+				aLast = new long[CHUNK_WORDS];
+				System.arraycopy(aWords, anOffset, aLast, 0, aWords.length - anOffset);
+				w = aLast;
+				anOffset = 0;
+			}
+
+			Container c = Container.fromWords(w, anOffset);
+			if (c == null)
+				continue;
+
+			aKeys[aSize] = (char) i;
+			aContainers[aSize] = c;
+			aCardinality += c.cardinality();
+			++aSize;
+		}
+
+		return new CompressedMemberSet(Arrays.copyOf(aKeys, aSize), Arrays.copyOf(aContainers, aSize), aCardinality);
+	}
+
+	@Override
+	public int cardinality()
+	{
+		return itsCardinality;
+	}
+
+	@Override
+	public boolean get(int theIndex)
+	{
+		if (theIndex < 0)
+			throw new IndexOutOfBoundsException("theIndex < 0: " + theIndex);
+
+		int k = Arrays.binarySearch(itsKeys, (char) (theIndex >>> CHUNK_BITS));
+		return (k >= 0) && itsContainers[k].contains(theIndex & CHUNK_MASK);
+	}
+
+	@Override
+	public int nextSetBit(int theFromIndex)
+	{
+		if (theFromIndex < 0)
+			throw new IndexOutOfBoundsException("theFromIndex < 0: " + theFromIndex);
+
+		int aKey = (theFromIndex >>> CHUNK_BITS);
+		int k = Arrays.binarySearch(itsKeys, (char) aKey);
+		if (k >= 0)
+		{
+			int aLow = itsContainers[k].nextSetBit(theFromIndex & CHUNK_MASK);
+			if (aLow >= 0)
+				return (aKey << CHUNK_BITS) | aLow;
+			++k;
+		}
+		else
+			k = -k - 1;
+
+		// first member of the next Container, Containers are never empty
+		if (k < itsKeys.length)
+			return (itsKeys[k] << CHUNK_BITS) | itsContainers[k].nextSetBit(0);
+
+		return -1;
+	}
+
+	@Override
+	public BitSet toBitSet()
+	{
+		if (itsKeys.length == 0)
+			return new BitSet();
+
+		long[] aWords = new long[(itsKeys[itsKeys.length - 1] + 1) * CHUNK_WORDS];
+		for (int i = 0; i < itsKeys.length; ++i)
+			itsContainers[i].toWords(aWords, itsKeys[i] * CHUNK_WORDS);
+
+		return BitSet.valueOf(aWords);
+	}
+
+	@Override
+	public long getSizeInBytes()
+	{
+		long aSize = 2L * itsKeys.length;
+		for (Container c : itsContainers)
+			aSize += c.getSizeInBytes();
+		return aSize;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("CompressedMemberSet[cardinality=%d, containers=%d, bytes=%d]", itsCardinality, itsKeys.length, getSizeInBytes());
+	}
+
+	////////////////////////////////////////////////////////////////////////////
+	///// Containers, all indices are the lower 16 bits of a row index     /////
+	////////////////////////////////////////////////////////////////////////////
+
+	private static abstract class Container
+	{
+		abstract int cardinality();
+		abstract boolean contains(int theLow);
+		// -1 if there is no member on or after theLow
+		abstract int nextSetBit(int theLow);
+		// sets the bits of the members in theWords, starting at theOffset
+		abstract void toWords(long[] theWords, int theOffset);
+		abstract long getSizeInBytes();
+
+		// returns the smallest Container, or null for an empty chunk
+		static Container fromWords(long[] theWords, int theOffset)
+		{
+			int aCardinality = 0;
+			int aNrRuns = 0;
+			long aPreviousTopBit = 0L;
+			for (int i = theOffset, j = theOffset + CHUNK_WORDS; i < j; ++i)
+			{
+				long w = theWords[i];
+				aCardinality += Long.bitCount(w);
+				// a run starts at every set bit that has no set bit before it
+				aNrRuns += Long.bitCount(w & ~((w << 1) | aPreviousTopBit));
+				aPreviousTopBit = (w >>> 63);
+			}
+
+			if (aCardinality == 0)
+				return null;
+
+			long anArraySize  = (aCardinality <= ARRAY_MAX_SIZE) ? (2L * aCardinality) : Long.MAX_VALUE;
+			long aBitmapSize  = 8L * CHUNK_WORDS;
+			long aRunSize     = 4L * aNrRuns;
+
+			if ((anArraySize <= aRunSize) && (anArraySize <= aBitmapSize))
+				return ArrayContainer.fromWords(theWords, theOffset, aCardinality);
+			if (aRunSize < aBitmapSize)
+				return RunContainer.fromWords(theWords, theOffset, aNrRuns);
+			return BitmapContainer.fromWords(theWords, theOffset, aCardinality);
+		}
+
+		// CHUNK_SIZE if there is no clear bit on or after theLow
+		static final int nextClearBit(long[] theWords, int theOffset, int theLow)
+		{
+			int u = (theLow >>> 6);
+			long w = ~theWords[theOffset + u] & (-1L << theLow);
+			while (true)
+			{
+				if (w != 0L)
+					return (u << 6) + Long.numberOfTrailingZeros(w);
+				if (++u == CHUNK_WORDS)
+					return CHUNK_SIZE;
+				w = ~theWords[theOffset + u];
+			}
+		}
+
+		// -1 if there is no set bit on or after theLow
+		static final int nextSetBit(long[] theWords, int theOffset, int theLow)
+		{
+			int u = (theLow >>> 6);
+			long w = theWords[theOffset + u] & (-1L << theLow);
+			while (true)
+			{
+				if (w != 0L)
+					return (u << 6) + Long.numberOfTrailingZeros(w);
+				if (++u == CHUNK_WORDS)
+					return -1;
+				w = theWords[theOffset + u];
+			}
+		}
+	}
+
+	private static final class ArrayContainer extends Container
+	{
+		private final char[] itsValues;
+
+		private ArrayContainer(char[] theValues) { itsValues = theValues; }
+
+		static ArrayContainer fromWords(long[] theWords, int theOffset, int theCardinality)
+		{
+			char[] aValues = new char[theCardinality];
+			int n = 0;
+			for (int i = 0; i < CHUNK_WORDS; ++i)
+			{
+				long w = theWords[theOffset + i];
+				while (w != 0L)
+				{
+					aValues[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+					w &= (w - 1);
+				}
+			}
+			return new ArrayContainer(aValues);
+		}
+
+		@Override
+		int cardinality() { return itsValues.length; }
+
+		@Override
+		boolean contains(int theLow) { return Arrays.binarySearch(itsValues, (char) theLow) >= 0; }
+
+		@Override
+		int nextSetBit(int theLow)
+		{
+			int i = Arrays.binarySearch(itsValues, (char) theLow);
+			if (i >= 0)
+				return theLow;
+			i = -i - 1;
+			return (i < itsValues.length) ? itsValues[i] : -1;
+		}
+
+		@Override
+		void toWords(long[] theWords, int theOffset)
+		{
+			for (char v : itsValues)
+				theWords[theOffset + (v >>> 6)] |= (1L << v);
+		}
+
+		@Override
+		long getSizeInBytes() { return 2L * itsValues.length; }
+	}
+
+	private static final class BitmapContainer extends Container
+	{
+		private final long[] itsWords;
+		private final int itsCardinality;
+
+		private BitmapContainer(long[] theWords, int theCardinality)
+		{
+			itsWords = theWords;
+			itsCardinality = theCardinality;
+		}
+
+		static BitmapContainer fromWords(long[] theWords, int theOffset, int theCardinality)
+		{
+			return new BitmapContainer(Arrays.copyOfRange(theWords, theOffset, theOffset + CHUNK_WORDS), theCardinality);
+		}
+
+		@Override
+		int cardinality() { return itsCardinality; }
+
+		@Override
+		boolean contains(int theLow) { return (itsWords[theLow >>> 6] & (1L << theLow)) != 0L; }
+
+		@Override
+		int nextSetBit(int theLow) { return Container.nextSetBit(itsWords, 0, theLow); }
+
+		@Override
+		void toWords(long[] theWords, int theOffset) { System.arraycopy(itsWords, 0, theWords, theOffset, CHUNK_WORDS); }
+
+		@Override
+		long getSizeInBytes() { return 8L * CHUNK_WORDS; }
+	}
+
+	private static final class RunContainer extends Container
+	{
+		// run i covers [itsStarts[i], itsStarts[i] + itsLengths[i]]
+		private final char[] itsStarts;
+		private final char[] itsLengths;
+		private final int itsCardinality;
+
+		private RunContainer(char[] theStarts, char[] theLengths)
+		{
+			itsStarts = theStarts;
+			itsLengths = theLengths;
+			int aCardinality = 0;
+			for (char l : theLengths)
+				aCardinality += (l + 1);
+			itsCardinality = aCardinality;
+		}
+
+		static RunContainer fromWords(long[] theWords, int theOffset, int theNrRuns)
+		{
+			char[] aStarts = new char[theNrRuns];
+			char[] aLengths = new char[theNrRuns];
+			int n = 0;
+			for (int i = nextSetBit(theWords, theOffset, 0); i >= 0; )
+			{
+				int j = nextClearBit(theWords, theOffset, i);
+				aStarts[n] = (char) i;
+				aLengths[n] = (char) (j - 1 - i);
+				++n;
+				i = (j < CHUNK_SIZE) ? nextSetBit(theWords, theOffset, j) : -1;
+			}
+			assert (n == theNrRuns);
+			return new RunContainer(aStarts, aLengths);
+		}
+
+		// index of the last run that starts on or before theLow, or -1
+		private int floorRun(int theLow)
+		{
+			int i = Arrays.binarySearch(itsStarts, (char) theLow);
+			return (i >= 0) ? i : (-i - 2);
+		}
+
+		@Override
+		int cardinality() { return itsCardinality; }
+
+		@Override
+		boolean contains(int theLow)
+		{
+			int r = floorRun(theLow);
+			return (r >= 0) && (theLow <= itsStarts[r] + itsLengths[r]);
+		}
+
+		@Override
+		int nextSetBit(int theLow)
+		{
+			int r = floorRun(theLow);
+			if ((r >= 0) && (theLow <= itsStarts[r] + itsLengths[r]))
+				return theLow;
+			++r;
+			return (r < itsStarts.length) ? itsStarts[r] : -1;
+		}
+
+		@Override
+		void toWords(long[] theWords, int theOffset)
+		{
+			for (int r = 0; r < itsStarts.length; ++r)
+			{
+				int aFrom = itsStarts[r];
+				int aTo = aFrom + itsLengths[r]; // inclusive
+				int u = (aFrom >>> 6);
+				int v = (aTo >>> 6);
+				long aFirstMask = (-1L << aFrom);
+				long aLastMask = (-1L >>> (63 - (aTo & 63)));
+				if (u == v)
+					theWords[theOffset + u] |= (aFirstMask & aLastMask);
+				else
+				{
+					theWords[theOffset + u] |= aFirstMask;
+					for (int i = u + 1; i < v; ++i)
+						theWords[theOffset + i] = -1L;
+					theWords[theOffset + v] |= aLastMask;
+				}
+			}
+		}
+
+		@Override
+		long getSizeInBytes() { return 4L * itsStarts.length; }
+	}
+}
@@ -39,6 +39,21 @@ public class CorrelationMeasure
 		itsType = theBase.itsType;
 	}
 
+	// for a subset of which the sums are already known, this is equivalent to
+	// calling addObservation() for each of its observations
+	// see SubgroupDiscovery.evaluateNumericRegularDoubleCorrelation()
+	CorrelationMeasure(CorrelationMeasure theBase, int theSampleSize, double theXSum, double theYSum, double theXYSum, double theXSquaredSum, double theYSquaredSum)
+	{
+		this(theBase);
+
+		itsSampleSize = theSampleSize;
+		itsXSum = theXSum;
+		itsYSum = theYSum;
+		itsXYSum = theXYSum;
+		itsXSquaredSum = theXSquaredSum;
+		itsYSquaredSum = theYSquaredSum;
+	}
+
 	private static boolean isValidCorrelationMeasureType(QM theType)
 	{
 		return QM.getQualityMeasures(TargetType.DOUBLE_CORRELATION).contains(theType);
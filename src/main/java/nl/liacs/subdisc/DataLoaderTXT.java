@@ -10,10 +10,18 @@ public class DataLoaderTXT implements FileLoaderInterface
 	private Table itsTable = null;
 	private int itsDelimiter = 0;
 	private int itsNrLines = 0;
+	private int itsChunkSize = TXTChunkParser.CHUNK_SIZE;
 
 	// default file loader
 	public DataLoaderTXT(File theFile)
 	{
+		this(theFile, TXTChunkParser.CHUNK_SIZE);
+	}
+
+	// for testing, the number of bytes per chunk, see TXTChunkParser
+	DataLoaderTXT(File theFile, int theChunkSize)
+	{
+		itsChunkSize = theChunkSize;
 		String aWarning = null;
 
 		if (theFile == null)
@@ -68,32 +76,42 @@ public class DataLoaderTXT implements FileLoaderInterface
 
 	private void loadFile(File theFile)
 	{
-		// this will get two BufferedReaders, prevents TOCTOE bugs
-		// analyse establishes the number of data lines and delimiter
-		if (!analyse(theFile))
-			return;
+		message("loadFile", "analysing " + theFile.getAbsolutePath());
 
-		BufferedReader aReader = null;
+		RandomAccessFile aFile = null;
 		try
 		{
-			aReader = new BufferedReader(new FileReader(theFile));
-			String aHeaderLine = null;
+			aFile = new RandomAccessFile(theFile, "r");
+			TXTChunkParser aParser = new TXTChunkParser(aFile.getChannel(), itsChunkSize);
+			String aHeaderLine;
 			String aLine;
-			int aLineNr = 0;
-			// print progress every once in a while
-			int aPrintTrigger = 1000;
-			int aPrintUpdate = 1000;
 
 			// skip header, make sure line is not empty/ null
-			while ((aLine = aReader.readLine()) != null)
+			while ((aHeaderLine = aParser.readLine()) != null)
+				if (!aHeaderLine.isEmpty())
+					break;
+
+			if (aHeaderLine == null)
 			{
-				++aLineNr;
+				message("loadFile", "no header line found in " + theFile.getAbsolutePath());
+				return;
+			}
+
+			// data starts after the header line
+			long aDataPosition = aParser.getPosition();
+			int aDataLineNr = aParser.getLineNr();
+
+			// find second non empty line (to determine delimiter)
+			while ((aLine = aParser.readLine()) != null)
 				if (!aLine.isEmpty())
-				{
-					aHeaderLine = aLine;
 					break;
-				}
-			}
+
+			if (aLine != null)
+				establishDelimiter(aHeaderLine, aLine);
+
+			// check on number of columns is deferred to TXTChunkParser.parse()
+			itsNrLines = aParser.countLines(aDataPosition);
+			message("loadFile", itsNrLines + " lines of data found");
 
 			// used for XML sanity check later
 			AttributeType[] anOriginalTypes = null;
@@ -104,25 +122,22 @@ public class DataLoaderTXT implements FileLoaderInterface
 				// something is seriously wrong
 				if (anOriginalTypes == null)
 					return;
+
+				// the first data line is not used by createTable()
+				aParser.setPosition(aDataPosition, aDataLineNr);
+				aLine = aHeaderLine;
 			}
-			else
+			else if (aLine == null)
 			{
-				// read first data line, create Table based on it
-				while ((aLine = aReader.readLine()) != null)
-				{
-					++aLineNr;
-					if (!aLine.isEmpty())
-					{
-						createTable(theFile, aHeaderLine, aLine);
-						break;
-					}
-				}
+				message("loadFile", "no data found in " + theFile.getAbsolutePath());
+				return;
 			}
+			// create Table based on first data line
+			else
+				createTable(theFile, aHeaderLine, aLine);
 
 			List<Column> aColumns = itsTable.getColumns();
 			final int aNrColumns = aColumns.size();
-			BitSet aBinaries = new BitSet(aNrColumns);
-			BitSet aFloats = new BitSet(aNrColumns);
 			String[] aTrueBinaryValues = new String[aNrColumns];
 			String[] aFalseBinaryValues = new String[aNrColumns];
 			// Scanner is faster for long lines, but it is harder to identify faulty lines. Using .split() this would be trivial.
@@ -148,124 +163,10 @@ public class DataLoaderTXT implements FileLoaderInterface
 				aColumn++;
 			}
 
-			for (int i=0; i<aNrColumns; i++)
-				if (AttributeType.BINARY == aColumns.get(i).getType())
-					aBinaries.set(i);
-				else if (AttributeType.NUMERIC == aColumns.get(i).getType())
-					aFloats.set(i);
-
 			message("loadFile", "loading data");
 			// code ignores AttributeType.ORDINAL
-			while ((aLine = aReader.readLine()) != null)
-			{
-				aLineNr++;
-				if (aLine.isEmpty())
-					continue;
-				if (aLine.charAt(0) == getDelimiter())			//is the first field missing?
-					aLine = " " + aLine;
-				if (aLine.charAt(aLine.length()-1) == getDelimiter())	//is the last field missing?
-					aLine = aLine + " ";
-				aScanner = new Scanner(aLine).useDelimiter(getDelimiterString());
-
-				//read fields
-				aColumn = -1;
-				while (aScanner.hasNext() && aColumn < aNrColumns)
-				{
-					aColumn++;
-					String s = aScanner.next();
-					if (opensQuotes(s)) //the delimiter came before the quote was closed
-					{
-						while (aScanner.hasNext())
-						{
-							String aNext = aScanner.next();
-							s = s + getDelimiterString() + aNext;
-							if (closesQuotes(aNext))
-								break;
-						}
-					}
-					s = removeQuotes(s.trim());
+			aParser.parse(aColumns, getDelimiter(), aTrueBinaryValues, aFalseBinaryValues);
 
-					if (aBinaries.get(aColumn)) // is it currently set to binary? (this may change as more lines are read)
-					{
-						// check if it is a missing value or a known binary value
-						if (isEmptyString(s))
-						{
-							aColumns.get(aColumn).addMissing();
-							continue;
-						}
-						else if (AttributeType.isValidBinaryValue(s))
-						{
-							boolean aValue = AttributeType.isValidBinaryTrueValue(s);
-							aColumns.get(aColumn).add(aValue);
-							if (aValue) //this was true
-								aTrueBinaryValues[aColumn] = s;
-							else
-								aFalseBinaryValues[aColumn] = s;
-							continue;
-						}
-
-						// if neither missing nor binary, then it shouldn't be binary
-						aBinaries.set(aColumn, false);
-						
-						try //if it is a float
-						{
-							float f = Float.parseFloat(s);
-							aFloats.set(aColumn, true);
-							aColumns.get(aColumn).setType(AttributeType.NUMERIC);
-							aColumns.get(aColumn).add(f);
-							Log.logCommandLine(aColumns.get(aColumn).getName() + " was binary, is numeric (line " + aLineNr + ")");
-						}
-						catch (NumberFormatException e) //guess it's a nominal then
-						{
-							aColumns.get(aColumn).toNominalType(aTrueBinaryValues[aColumn], aFalseBinaryValues[aColumn]);
-							aColumns.get(aColumn).add(s);
-							Log.logCommandLine(aColumns.get(aColumn).getName() + " was binary, is nominal (line " + aLineNr + ")");
-						}
-							
-					}
-					else if (aFloats.get(aColumn))
-					{
-						try //if it is a float
-						{
-							if (isEmptyString(s))
-								aColumns.get(aColumn).addMissing();
-							else
-							{
-								float f = Float.parseFloat(s);
-								aColumns.get(aColumn).add(f);
-							}
-						}
-						catch (NumberFormatException e) // guess it's a nominal then
-						{
-							aFloats.set(aColumn, false);
-							aColumns.get(aColumn).setType(AttributeType.NOMINAL);
-							aColumns.get(aColumn).add(s);
-							Log.logCommandLine(aColumns.get(aColumn).getName() + " was float, is nominal (line " + aLineNr + ")");
-						}
-					}
-					else //it was nominal
-					{
-						if (isEmptyString(s))
-							aColumns.get(aColumn).addMissing();
-						else
-							aColumns.get(aColumn).add(s);
-					}
-				}
-				if (aColumn != aNrColumns-1)
-					message("loadFile", "incorrect number of fields on line " + aLineNr +". " + aNrColumns + " expected, " + (aColumn+1) + " found.");
-				if (aLineNr == aPrintTrigger)
-				{
-					message("loadFile", aLineNr + " lines read");
-					aPrintTrigger += aPrintUpdate;
-					// increase print update interval, but
-					// print at least every 10,000 lines
-					if ((aPrintTrigger == (aPrintUpdate * 10)) && (aPrintUpdate != 10000))
-					{
-						aPrintUpdate *= 10;
-						message("loadFile", "number of lines for update interval changed to: " + aPrintUpdate);
-					}
-				}
-			}
 			for (Column c : aColumns)
 				System.out.println("Column " + c.getName() + " (" + c.getType() + ")");
 
@@ -282,8 +183,8 @@ public class DataLoaderTXT implements FileLoaderInterface
 		{
 			try
 			{
-				if (aReader != null)
-					aReader.close();
+				if (aFile != null)
+					aFile.close();
 			}
 			catch (IOException e)
 			{
@@ -293,66 +194,6 @@ public class DataLoaderTXT implements FileLoaderInterface
 		}
 	}
 
-	// cumbersome, but cleanly handles empty lines before/ after header line
-	private boolean analyse(File theFile)
-	{
-		message("analyse", "analysing " + theFile.getAbsolutePath());
-		boolean aSuccess = false;
-		BufferedReader aReader = null;
-
-		try
-		{
-			aReader = new BufferedReader(new FileReader(theFile));
-			String aHeaderLine;
-			String aLine;
-			int aNrDataLines = 0;
-
-			// find first non empty line (header line)
-			while ((aHeaderLine = aReader.readLine()) != null)
-				if (!aHeaderLine.isEmpty())
-					break;
-
-			// find second non empty line (to determine delimiter)
-			while ((aLine = aReader.readLine()) != null)
-			{
-				if (!aLine.isEmpty())
-				{
-					++aNrDataLines;
-					establishDelimiter(aHeaderLine, aLine);
-					break;
-				}
-			}
-
-			// check on number of columns is deferred to loadFile
-			while ((aLine = aReader.readLine()) != null)
-				if (!aLine.isEmpty())
-					++aNrDataLines;
-
-			message("analyse", aNrDataLines + " lines of data found");
-			itsNrLines = aNrDataLines;
-			aSuccess = true;
-		}
-		catch (IOException e)
-		{
-			message("analyse", "IOException caused by file: " + theFile.getAbsolutePath());
-			e.printStackTrace();
-		}
-		finally
-		{
-			try
-			{
-				if (aReader != null)
-					aReader.close();
-			}
-			catch (IOException e)
-			{
-				message("analyse", "IOException caused by file: " + theFile.getAbsolutePath());
-				e.printStackTrace();
-			}
-		}
-		return aSuccess;
-	}
-
 	private void establishDelimiter(String theFirstLine, String theSecondLine)
 	{
 		int aNrDelimiters = DELIMITERS.length;
@@ -507,36 +348,6 @@ public class DataLoaderTXT implements FileLoaderInterface
 		return theString;
 	}
 
-	private boolean opensQuotes(String theString) //only opens it, without closing?
-	{
-		if (theString.isEmpty())
-			return false;
-		char aStart = theString.charAt(0);
-		char anEnd = theString.charAt(theString.length()-1);
-
-		if (aStart != '\'' && aStart != '\"')	//doesn't open with a quote
-			return false;
-		if (aStart == '\"' && anEnd == '\"')	//opens and closes with a double quote
-			return false;
-		if (aStart == '\'' && anEnd == '\'')	//opens and closes with a single quote
-			return false;
-		return true;				//only opens with a quote
-	}
-
-	private boolean closesQuotes(String theString) //only closes it, without opening?
-	{
-		if (theString.isEmpty())
-			return false;
-		char aStart = theString.charAt(0);
-		char anEnd = theString.charAt(theString.length()-1);
-
-		if (aStart == '\"' && theString.length() > 1)	//opens with a double quote (and it's not the last part of the string)
-			return false;
-		if (aStart == '\'' && theString.length() > 1)	//opens with a single quote (and it's not the last part of the string)
-			return false;
-		return (anEnd == '\'' || anEnd == '\"');
-	}
-
 	// NOTE null is never passed as input parameter
 	private boolean isEmptyString(String s)
 	{
@@ -0,0 +1,73 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/*
+ * NOTE as in ECLAT (Zaki and Gouda, 2003), a refinement that removes few rows
+ * from its parent is stored as the difference with the parent.
+ * The parent MemberSet is shared by all refinements that refer to it, and can
+ * itself be a DiffsetMemberSet, so the chain is at most the search depth long.
+ * As long as a refinement is alive, so is the MemberSet of its parent, this is
+ * what makes the representation suited for depth first search, where the
+ * refinements of a Subgroup are processed before those of its siblings.
+ * A Subgroup that enters the result would keep the chain alive for the rest
+ * of the search, so its members are flattened, see Subgroup.flattenMemberSet().
+ */
+/**
+ * A DiffsetMemberSet stores the members as the rows of a parent
+ * {@link MemberSet}, minus a sorted array of removed rows (a diffset).
+ * It is the most compact MemberSet for refinements that keep most of the
+ * members of their parent.
+ *
+ * @see MemberSetType#DIFFSET
+ */
+final class DiffsetMemberSet implements MemberSet
+{
+	private final MemberSet itsParent;
+	private final int[] itsRemoved;
+	private final int itsCardinality;
+
+	/**
+	 * Creates a DiffsetMemberSet with the same members as the
+	 * {@link BitSet} argument, all members should be members of the
+	 * parent {@link MemberSet}, the BitSet is not modified.
+	 *
+	 * @param theMembers the BitSet representing the members.
+	 * @param theParent the MemberSet holding all members, and more.
+	 */
+	DiffsetMemberSet(BitSet theMembers, MemberSet theParent)
+	{
+		BitSet aRemoved = theParent.toBitSet();
+		aRemoved.andNot(theMembers);
+
+		itsParent = theParent;
+		itsCardinality = theMembers.cardinality();
+		itsRemoved = TidListMemberSet.toRows(aRemoved, theParent.cardinality() - itsCardinality);
+	}
+
+	@Override
+	public int cardinality()                 { return itsCardinality; }
+	@Override
+	public boolean get(int theIndex)         { return itsParent.get(theIndex) && (Arrays.binarySearch(itsRemoved, theIndex) < 0); }
+	// the parent is shared, and not included
+	@Override
+	public long getSizeInBytes()             { return 4L * itsRemoved.length; }
+
+	@Override
+	public int nextSetBit(int theFromIndex)
+	{
+		int i = itsParent.nextSetBit(theFromIndex);
+		while ((i >= 0) && (Arrays.binarySearch(itsRemoved, i) >= 0))
+			i = itsParent.nextSetBit(i + 1);
+		return i;
+	}
+
+	@Override
+	public BitSet toBitSet()
+	{
+		BitSet aBitSet = itsParent.toBitSet();
+		for (int i : itsRemoved)
+			aBitSet.clear(i);
+		return aBitSet;
+	}
+}
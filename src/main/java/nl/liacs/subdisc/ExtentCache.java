@@ -0,0 +1,214 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+import nl.liacs.subdisc.ConditionListBuilder.ConditionList;
+
+/*
+ * NOTE a Subgroup whose members were killed re-evaluates its Conditions when
+ * they are needed again, see Subgroup.killMembers(), for a deep search, and
+ * for the post-processing and ResultWindow that revive all results, this
+ * evaluation dominates when the Table has many rows
+ *
+ * this cache keeps the extents of recently killed and revived Subgroups, up to
+ * a maximum number of bytes, and evicts the least recently used ones first
+ * a Subgroup that misses the cache starts from the cached extent of its
+ * longest search order prefix, usually its parent, and evaluates only the
+ * remaining Conditions, instead of all of them on all rows
+ *
+ * ConditionLists are compared by their canonical order, as in
+ * CandidateQueue, so logically equal Subgroups share an extent
+ * extents are never modified, Column.evaluate() returns a new BitSet, so the
+ * cached BitSet is handed out as is, and may be shared by Subgroups
+ */
+/**
+ * An ExtentCache is a size-bounded, least recently used, cache of Subgroup
+ * members, shared by all {@link Subgroup}s of a {@link SubgroupSet}.
+ *
+ * All methods are thread safe.
+ *
+ * @see SubgroupSet#getExtentCache()
+ */
+final class ExtentCache
+{
+	// see SearchParameters.getExtentCacheCapacity()
+	static final long DEFAULT_CAPACITY = Runtime.getRuntime().maxMemory() / 32L;
+
+	private final long itsCapacity;
+	private final Map<ConditionList, Entry> itsEntries = new TreeMap<ConditionList, Entry>();
+	// sentinel of the circular list of Entries, most recently used first
+	private final Entry itsHead = new Entry(null, null);
+	private long itsSize;
+	private long itsNrHits;
+	private long itsNrMisses;
+
+	ExtentCache(long theCapacity)
+	{
+		if (theCapacity <= 0L)
+			throw new IllegalArgumentException("capacity must be > 0: " + theCapacity);
+
+		itsCapacity = theCapacity;
+		itsHead.itsPrevious = itsHead;
+		itsHead.itsNext = itsHead;
+	}
+
+	/**
+	 * Returns the cached members for the {@link ConditionList}, or
+	 * <code>null</code> if they are not in this cache.
+	 * The returned {@link BitSet} should not be modified.
+	 */
+	synchronized BitSet get(ConditionList theConditions)
+	{
+		Entry e = itsEntries.get(theConditions);
+		if (e == null)
+		{
+			++itsNrMisses;
+			return null;
+		}
+
+		++itsNrHits;
+		unlink(e);
+		link(e);
+		return e.itsMembers;
+	}
+
+	/**
+	 * Caches the members for the {@link ConditionList}, evicting the least
+	 * recently used members when this cache is full.
+	 * The {@link BitSet} should not be modified after it is put.
+	 */
+	synchronized void put(ConditionList theConditions, BitSet theMembers)
+	{
+		long aSize = getSizeInBytes(theMembers);
+		// would evict everything else
+		if (aSize > itsCapacity)
+			return;
+
+		Entry e = itsEntries.get(theConditions);
+		if (e != null)
+		{
+			unlink(e);
+			itsSize -= getSizeInBytes(e.itsMembers);
+			e.itsMembers = theMembers;
+		}
+		else
+		{
+			e = new Entry(theConditions, theMembers);
+			itsEntries.put(theConditions, e);
+		}
+		itsSize += aSize;
+		link(e);
+
+		while (itsSize > itsCapacity)
+		{
+			Entry anEldest = itsHead.itsPrevious;
+			unlink(anEldest);
+			itsEntries.remove(anEldest.itsConditions);
+			itsSize -= getSizeInBytes(anEldest.itsMembers);
+		}
+	}
+
+	/**
+	 * Returns the members for the {@link ConditionList}, by evaluating the
+	 * Conditions that follow the longest cached prefix, or those that
+	 * follow theStart.
+	 * The ConditionList itself is not looked up, call {@link #get} first.
+	 * The result, and that of every evaluated prefix, is cached, and
+	 * should not be modified.
+	 *
+	 * @param theConditions the Conditions to evaluate.
+	 * @param theStart the members of a search order prefix of theConditions, or all data.
+	 * @param theStartDepth the number of Conditions of the prefix, 0 for all data.
+	 *
+	 * @return the members.
+	 */
+	BitSet evaluate(ConditionList theConditions, BitSet theStart, int theStartDepth)
+	{
+		int aDepth = theConditions.size();
+		if (aDepth == theStartDepth)
+			return theStart;
+
+		// search order prefixes, the parent first
+		// the empty ConditionList is never cached, theStart is used instead
+		ConditionList[] aPrefixes = new ConditionList[aDepth];
+		aPrefixes[0] = ConditionListBuilder.emptyList();
+		for (int i = 1; i < aDepth; ++i)
+			aPrefixes[i] = ConditionListBuilder.createList(aPrefixes[i-1], theConditions.get(i-1));
+
+		int aStartDepth = theStartDepth;
+		BitSet aMembers = theStart;
+		for (int i = aDepth - 1; i > theStartDepth; --i)
+		{
+			BitSet b = get(aPrefixes[i]);
+			if (b != null)
+			{
+				aStartDepth = i;
+				aMembers = b;
+				break;
+			}
+		}
+
+		// the prefixes are cached too, for the siblings of theConditions
+		for (int i = aStartDepth; i < aDepth; ++i)
+		{
+			Condition c = theConditions.get(i);
+			aMembers = c.getColumn().evaluate(aMembers, c);
+			put((i == aDepth - 1) ? theConditions : aPrefixes[i + 1], aMembers);
+		}
+
+		return aMembers;
+	}
+
+	synchronized long getSizeInBytes()     { return itsSize; }
+	synchronized int size()                { return itsEntries.size(); }
+	synchronized long getNrHits()          { return itsNrHits; }
+	synchronized long getNrMisses()        { return itsNrMisses; }
+
+	synchronized void clear()
+	{
+		itsEntries.clear();
+		itsHead.itsPrevious = itsHead;
+		itsHead.itsNext = itsHead;
+		itsSize = 0L;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("extent cache: %d extents, %d bytes, %d hits, %d misses", itsEntries.size(), itsSize, itsNrHits, itsNrMisses);
+	}
+
+	// as in BitSetMemberSet
+	private static final long getSizeInBytes(BitSet theBitSet)
+	{
+		return theBitSet.size() >>> 3;
+	}
+
+	private final void link(Entry theEntry)
+	{
+		theEntry.itsPrevious = itsHead;
+		theEntry.itsNext = itsHead.itsNext;
+		itsHead.itsNext.itsPrevious = theEntry;
+		itsHead.itsNext = theEntry;
+	}
+
+	private static final void unlink(Entry theEntry)
+	{
+		theEntry.itsPrevious.itsNext = theEntry.itsNext;
+		theEntry.itsNext.itsPrevious = theEntry.itsPrevious;
+	}
+
+	private static final class Entry
+	{
+		private final ConditionList itsConditions;
+		private BitSet itsMembers;
+		private Entry itsPrevious;
+		private Entry itsNext;
+
+		Entry(ConditionList theConditions, BitSet theMembers)
+		{
+			itsConditions = theConditions;
+			itsMembers = theMembers;
+		}
+	}
+}
@@ -127,6 +127,16 @@ public class FileHandler
 					new FileLoaderARFF(itsFile, itsTable);
 				break;
 			}
+			case SDC :
+			{
+				// regular loading
+				if (itsTable == null )
+					itsTable = new FileLoaderSDC(itsFile).getTable();
+				// load from XML, see Table(XMLNode, pathToXML)
+				else
+					new FileLoaderSDC(itsFile, itsTable);
+				break;
+			}
 			case XML :
 			{
 				FileLoaderXML aLoader = new FileLoaderXML(itsFile, showWindows);
@@ -222,6 +232,7 @@ public class FileHandler
 		aChooser.addChoosableFileFilter(new FileTypeFilter(FileType.TXT));
 		aChooser.addChoosableFileFilter(new FileTypeFilter(FileType.ARFF));
 		aChooser.addChoosableFileFilter(new FileTypeFilter(FileType.XML));
+		aChooser.addChoosableFileFilter(new FileTypeFilter(FileType.SDC));
 		aChooser.setFileFilter(new FileTypeFilter(FileType.ALL_DATA_FILES));
 
 		int theOption = -1;
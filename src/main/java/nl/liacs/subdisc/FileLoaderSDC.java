@@ -0,0 +1,273 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * FileLoaderSDC loads a {@link Table} from a SubDisc columnar file (with
+ * extension <code>.sdc</code>), as written by {@link FileWriterSDC#write(Table, File)}.
+ * <p>
+ * Unlike the text based formats, no value is parsed. The data of every
+ * {@link Column} is stored in blocks of little-endian primitives, that are
+ * memory-mapped using {@link FileChannel#map(FileChannel.MapMode, long, long)}
+ * and copied into the arrays of the Column in bulk. The metadata also holds
+ * everything that is otherwise computed after loading: the missing values,
+ * the distinct values of NOMINAL Columns, the cardinality and the minimum and
+ * maximum, and the sort index (RankIndex) of NUMERIC Columns.
+ * <p>
+ * Layout of the file:
+ * <pre>
+ * header   int MAGIC, int VERSION, long offset of the metadata
+ * blocks   per Column, 8 byte aligned:
+ *          NUMERIC  float[size] data, long[] missing, float[] rank values, int[size] ranks
+ *          NOMINAL  int[size] data, long[] missing
+ *          BINARY   long[] data, long[] missing
+ * metadata table name, source, nr rows, nr columns, and per Column its
+ *          settings, distinct values, and the offset and length of each block
+ * </pre>
+ * The BINARY and missing blocks hold the words of a {@link BitSet}, see
+ * {@link BitSet#toLongArray()}.
+ * A String is written as its length and its UTF-8 bytes, a length of -1 means
+ * <code>null</code>, for example for a Table without a name.
+ */
+public class FileLoaderSDC implements FileLoaderInterface
+{
+	static final String EXTENSION = ".sdc";
+	static final int MAGIC = 0x53444346; // "SDCF"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final Charset CHARSET = Charset.forName("UTF-8");
+
+	// at most this number of bytes is mapped at once
+	private static final int MAP_SIZE = (1 << 30);
+
+	private Table itsTable = null;
+
+	public FileLoaderSDC(File theFile)
+	{
+		if (isReadable(theFile))
+			loadFile(theFile, null);
+	}
+
+	// XML-loader, Table is created based on XML, data is loaded here
+	public FileLoaderSDC(File theFile, Table theTable)
+	{
+		if (theTable == null)
+			message("<init>", "Table is null, attempting regular file-load.");
+		if (isReadable(theFile))
+			loadFile(theFile, theTable);
+	}
+
+	private boolean isReadable(File theFile)
+	{
+		String aWarning = null;
+
+		if (theFile == null)
+			aWarning = "file can not be null";
+		else if (!theFile.exists())
+			aWarning = theFile.getAbsolutePath() + ", file does not exist";
+		else if (!theFile.canRead())
+			aWarning = theFile.getAbsolutePath() + ", file not readable";
+
+		if (aWarning != null)
+			message("<init>", aWarning);
+
+		return (aWarning == null);
+	}
+
+	private void message(String theMethod, String theMessage)
+	{
+		Log.logCommandLine(String.format("%s.%s(): %s",
+							this.getClass().getSimpleName(),
+							theMethod,
+							theMessage));
+	}
+
+	@Override
+	public Table getTable()
+	{
+		return itsTable;
+	}
+
+	private void loadFile(File theFile, Table theTable)
+	{
+		RandomAccessFile aFile = null;
+		try
+		{
+			aFile = new RandomAccessFile(theFile, "r");
+			FileChannel aChannel = aFile.getChannel();
+
+			ByteBuffer aHeader = aChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if (aHeader.getInt() != MAGIC)
+				throw new IOException("not a SubDisc columnar file");
+			int aVersion = aHeader.getInt();
+			if (aVersion != VERSION)
+				throw new IOException("unsupported version: " + aVersion);
+			long aMetadataOffset = aHeader.getLong();
+
+			ByteBuffer aMetadata = map(aChannel, aMetadataOffset, aChannel.size() - aMetadataOffset);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(getBytes(aMetadata)));
+
+			String aName = readString(in);
+			String aSource = readString(in);
+			int aNrRows = in.readInt();
+			int aNrColumns = in.readInt();
+
+			if (theTable == null)
+			{
+				itsTable = new Table(theFile, aName, aNrRows, aNrColumns);
+				Log.logCommandLine(String.format("loading '%s', source '%s'", theFile.getName(), aSource));
+			}
+			else if (theTable.getColumns().size() != aNrColumns)
+				throw new IOException(String.format("Table has %d Columns, file has %d", theTable.getColumns().size(), aNrColumns));
+			else
+				itsTable = theTable;
+
+			for (int i = 0; i < aNrColumns; ++i)
+				loadColumn(aChannel, in, aNrRows, i, (theTable == null));
+		}
+		catch (IOException e)
+		{
+			message("loadFile", "error while reading " + theFile.getAbsolutePath() + ": " + e.getMessage());
+			itsTable = null;
+		}
+		finally
+		{
+			try
+			{
+				if (aFile != null)
+					aFile.close();
+			}
+			catch (IOException e)
+			{
+				message("loadFile", "error while closing " + theFile.getAbsolutePath());
+			}
+		}
+	}
+
+	private void loadColumn(FileChannel theChannel, DataInputStream in, int theNrRows, int theColumnIndex, boolean isNewColumn) throws IOException
+	{
+		AttributeType aType = AttributeType.fromString(readString(in));
+		String aName = readString(in);
+		String aShort = in.readBoolean() ? readString(in) : null;
+		int anIndex = in.readInt();
+		boolean isEnabled = in.readBoolean();
+		int aTargetStatus = in.readInt();
+		boolean isMissingValueUnique = in.readBoolean();
+		int aCardinality = in.readInt();
+		float aMin = in.readFloat();
+		float aMax = in.readFloat();
+
+		List<String> aDistinctValues = null;
+		if (aType == AttributeType.NOMINAL)
+		{
+			int aNrDistinct = in.readInt();
+			aDistinctValues = new ArrayList<String>(aNrDistinct);
+			for (int i = 0; i < aNrDistinct; ++i)
+				aDistinctValues.add(readString(in));
+		}
+
+		Column aColumn;
+		if (isNewColumn)
+		{
+			// minimal initial size, setData() replaces the data
+			aColumn = new Column(aName, aShort, aType, anIndex, 1);
+			aColumn.setIsEnabled(isEnabled);
+			aColumn.setTargetStatus(aTargetStatus);
+			itsTable.getColumns().add(aColumn);
+		}
+		else
+		{
+			// settings come from the XML
+			aColumn = itsTable.getColumn(theColumnIndex);
+			if (!aColumn.getName().equals(aName) || (aColumn.getType() != aType))
+				throw new IOException(String.format("Column %d is '%s' (%s), file has '%s' (%s)",
+									theColumnIndex, aColumn.getName(), aColumn.getType(), aName, aType));
+		}
+
+		float[] aFloats = null;
+		int[] aNominals = null;
+		BitSet aBinaries = null;
+		switch (aType)
+		{
+			case NUMERIC :
+				aFloats = readFloats(theChannel, in.readLong(), theNrRows);
+				break;
+			case NOMINAL :
+				aNominals = readInts(theChannel, in.readLong(), theNrRows);
+				break;
+			case BINARY :
+				aBinaries = readBitSet(theChannel, in.readLong(), in.readInt());
+				break;
+			default :
+				throw new AssertionError(aType);
+		}
+		BitSet aMissing = readBitSet(theChannel, in.readLong(), in.readInt());
+
+		aColumn.setData(theNrRows, aFloats, aNominals, aDistinctValues, aBinaries, aMissing, isMissingValueUnique, aCardinality, aMin, aMax);
+
+		if (aType == AttributeType.NUMERIC)
+		{
+			float[] aValues = readFloats(theChannel, in.readLong(), in.readInt());
+			int[] aRanks = readInts(theChannel, in.readLong(), theNrRows);
+			aColumn.setRankIndex(aValues, aRanks);
+		}
+	}
+
+	static String readString(DataInputStream in) throws IOException
+	{
+		int aLength = in.readInt();
+		if (aLength == -1)
+			return null;
+
+		byte[] aBytes = new byte[aLength];
+		in.readFully(aBytes);
+		return new String(aBytes, CHARSET);
+	}
+
+	private static ByteBuffer map(FileChannel theChannel, long theOffset, long theSize) throws IOException
+	{
+		return theChannel.map(FileChannel.MapMode.READ_ONLY, theOffset, theSize).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static byte[] getBytes(ByteBuffer theBuffer)
+	{
+		byte[] aBytes = new byte[theBuffer.remaining()];
+		theBuffer.get(aBytes);
+		return aBytes;
+	}
+
+	// a block larger than MAP_SIZE is mapped in parts
+	private static float[] readFloats(FileChannel theChannel, long theOffset, int theLength) throws IOException
+	{
+		float[] aFloats = new float[theLength];
+		for (int i = 0, n = (MAP_SIZE / 4); i < theLength; i += n)
+		{
+			int aLength = Math.min(n, theLength - i);
+			map(theChannel, theOffset + (4L * i), 4L * aLength).asFloatBuffer().get(aFloats, i, aLength);
+		}
+		return aFloats;
+	}
+
+	private static int[] readInts(FileChannel theChannel, long theOffset, int theLength) throws IOException
+	{
+		int[] anInts = new int[theLength];
+		for (int i = 0, n = (MAP_SIZE / 4); i < theLength; i += n)
+		{
+			int aLength = Math.min(n, theLength - i);
+			map(theChannel, theOffset + (4L * i), 4L * aLength).asIntBuffer().get(anInts, i, aLength);
+		}
+		return anInts;
+	}
+
+	// a BitSet of Integer.MAX_VALUE bits is at most 256 MB, always < MAP_SIZE
+	private static BitSet readBitSet(FileChannel theChannel, long theOffset, int theNrWords) throws IOException
+	{
+		if (theNrWords == 0)
+			return new BitSet();
+		return BitSet.valueOf(map(theChannel, theOffset, 8L * theNrWords).asLongBuffer());
+	}
+}
@@ -32,6 +32,22 @@ public enum FileType
 			return Collections.singletonList(".xml");
 		}
 	},
+	/**
+	 * SubDisc columnar files, see {@link FileLoaderSDC} and
+	 * {@link FileWriterSDC}.
+	 * <p>
+	 * NOTE loading is not zero-copy, the memory-mapped blocks are copied into
+	 * the arrays of the {@link Column}s, and ORDINAL Columns are not
+	 * supported, {@link FileWriterSDC} rejects them.
+	 */
+	SDC("SubDisc Columnar Files")
+	{
+		@Override
+		public List<String> getExtensions()
+		{
+			return Collections.singletonList(FileLoaderSDC.EXTENSION);
+		}
+	},
 	PLT("GnuPlot Files")
 	{
 		@Override
@@ -49,6 +65,7 @@ public enum FileType
 			returnList.addAll(TXT.getExtensions());
 			returnList.addAll(ARFF.getExtensions());
 			returnList.addAll(XML.getExtensions());
+			returnList.addAll(SDC.getExtensions());
 			return returnList;
 		}
 	};
@@ -0,0 +1,247 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * FileWriterSDC writes a {@link Table} to a SubDisc columnar file, that can
+ * be loaded again by {@link FileLoaderSDC}, see there for the layout of the
+ * file.
+ * <p>
+ * ORDINAL {@link Column}s are not supported, as no loader creates them.
+ */
+public class FileWriterSDC
+{
+	// size of the buffer used to write the blocks
+	private static final int BUFFER_SIZE = (1 << 20);
+
+	private final ByteBuffer itsBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private FileChannel itsChannel;
+	private long itsPosition;
+
+	/**
+	 * Writes the {@link Table} parameter to the <code>File</code>
+	 * parameter, an existing File is overwritten.
+	 *
+	 * @param theTable the Table to write.
+	 * @param theFile the File to write to.
+	 *
+	 * @return <code>true</code> if the Table was written,
+	 * <code>false</code> otherwise.
+	 */
+	public static boolean write(Table theTable, File theFile)
+	{
+		if (theTable == null || theFile == null)
+		{
+			Log.logCommandLine("FileWriterSDC.write(): parameters can not be null");
+			return false;
+		}
+
+		for (Column c : theTable.getColumns())
+		{
+			if (c.getType() == AttributeType.ORDINAL)
+			{
+				Log.logCommandLine(String.format("FileWriterSDC.write(): Column '%s' is ORDINAL, not supported", c.getName()));
+				return false;
+			}
+		}
+
+		RandomAccessFile aFile = null;
+		try
+		{
+			aFile = new RandomAccessFile(theFile, "rw");
+			aFile.setLength(0);
+			new FileWriterSDC(aFile.getChannel()).writeTable(theTable);
+			return true;
+		}
+		catch (IOException e)
+		{
+			Log.logCommandLine("FileWriterSDC.write(): error while writing " + theFile.getAbsolutePath() + ": " + e.getMessage());
+			return false;
+		}
+		finally
+		{
+			try
+			{
+				if (aFile != null)
+					aFile.close();
+			}
+			catch (IOException e)
+			{
+				Log.logCommandLine("FileWriterSDC.write(): error while closing " + theFile.getAbsolutePath());
+			}
+		}
+	}
+
+	private FileWriterSDC(FileChannel theChannel)
+	{
+		itsChannel = theChannel;
+	}
+
+	private void writeTable(Table theTable) throws IOException
+	{
+		// header is written last, when the offset of the metadata is known
+		itsPosition = FileLoaderSDC.HEADER_SIZE;
+
+		ByteArrayOutputStream aBytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(aBytes);
+
+		int aNrRows = theTable.getNrRows();
+		writeString(out, theTable.getName());
+		writeString(out, theTable.getSource());
+		out.writeInt(aNrRows);
+		out.writeInt(theTable.getNrColumns());
+
+		for (Column c : theTable.getColumns())
+			writeColumn(out, c, aNrRows);
+		out.flush();
+
+		long aMetadataOffset = itsPosition;
+		itsChannel.write(ByteBuffer.wrap(aBytes.toByteArray()), aMetadataOffset);
+
+		ByteBuffer aHeader = ByteBuffer.allocate(FileLoaderSDC.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		aHeader.putInt(FileLoaderSDC.MAGIC);
+		aHeader.putInt(FileLoaderSDC.VERSION);
+		aHeader.putLong(aMetadataOffset);
+		aHeader.flip();
+		itsChannel.write(aHeader, 0);
+	}
+
+	// metadata is written in the order FileLoaderSDC.loadColumn() reads it
+	private void writeColumn(DataOutputStream out, Column theColumn, int theNrRows) throws IOException
+	{
+		AttributeType aType = theColumn.getType();
+		boolean isNumeric = (aType == AttributeType.NUMERIC);
+
+		writeString(out, aType.toString());
+		writeString(out, theColumn.getName());
+		out.writeBoolean(theColumn.hasShort());
+		if (theColumn.hasShort())
+			writeString(out, theColumn.getShort());
+		out.writeInt(theColumn.getIndex());
+		out.writeBoolean(theColumn.getIsEnabled());
+		out.writeInt(theColumn.getTargetStatus());
+		out.writeBoolean(theColumn.getMissingValueIsUnique());
+		out.writeInt(theColumn.getCardinality());
+		// getMin() and getMax() are only meaningful for NUMERIC Columns
+		out.writeFloat(isNumeric ? theColumn.getMin() : Float.POSITIVE_INFINITY);
+		out.writeFloat(isNumeric ? theColumn.getMax() : Float.NEGATIVE_INFINITY);
+
+		if (aType == AttributeType.NOMINAL)
+		{
+			List<String> aDistinctValues = theColumn.getDistinctValues();
+			out.writeInt(aDistinctValues.size());
+			for (String s : aDistinctValues)
+				writeString(out, s);
+		}
+
+		switch (aType)
+		{
+			case NUMERIC :
+				out.writeLong(writeFloats(theColumn.getFloatData(), theNrRows));
+				break;
+			case NOMINAL :
+				out.writeLong(writeInts(theColumn.getNominalData(), theNrRows));
+				break;
+			case BINARY :
+				writeBitSet(out, theColumn.getBinaryData());
+				break;
+			default :
+				throw new AssertionError(aType);
+		}
+		writeBitSet(out, theColumn.getMissingData());
+
+		if (isNumeric)
+		{
+			float[] aValues = theColumn.getRankValues();
+			out.writeLong(writeFloats(aValues, aValues.length));
+			out.writeInt(aValues.length);
+			out.writeLong(writeInts(theColumn.getRanks(), theNrRows));
+		}
+	}
+
+	// a null String is written as length -1, see FileLoaderSDC.readString()
+	private static void writeString(DataOutputStream out, String theString) throws IOException
+	{
+		if (theString == null)
+		{
+			out.writeInt(-1);
+			return;
+		}
+
+		byte[] aBytes = theString.getBytes(FileLoaderSDC.CHARSET);
+		out.writeInt(aBytes.length);
+		out.write(aBytes);
+	}
+
+	// returns the offset of the block
+	private long writeFloats(float[] theFloats, int theLength) throws IOException
+	{
+		long anOffset = align();
+		FloatBuffer aFloats = view().asFloatBuffer();
+		for (int i = 0, n = aFloats.capacity(); i < theLength; i += n)
+		{
+			int aLength = Math.min(n, theLength - i);
+			aFloats.clear();
+			aFloats.put(theFloats, i, aLength);
+			flush(4 * aLength);
+		}
+		return anOffset;
+	}
+
+	private long writeInts(int[] theInts, int theLength) throws IOException
+	{
+		long anOffset = align();
+		IntBuffer anInts = view().asIntBuffer();
+		for (int i = 0, n = anInts.capacity(); i < theLength; i += n)
+		{
+			int aLength = Math.min(n, theLength - i);
+			anInts.clear();
+			anInts.put(theInts, i, aLength);
+			flush(4 * aLength);
+		}
+		return anOffset;
+	}
+
+	// writes the offset and number of words of the block to the metadata
+	private void writeBitSet(DataOutputStream out, BitSet theBitSet) throws IOException
+	{
+		long[] aWords = theBitSet.toLongArray();
+		long anOffset = align();
+		LongBuffer aLongs = view().asLongBuffer();
+		for (int i = 0, n = aLongs.capacity(); i < aWords.length; i += n)
+		{
+			int aLength = Math.min(n, aWords.length - i);
+			aLongs.clear();
+			aLongs.put(aWords, i, aLength);
+			flush(8 * aLength);
+		}
+		out.writeLong(anOffset);
+		out.writeInt(aWords.length);
+	}
+
+	// a view must cover the whole of itsBuffer, flush() changes its limit
+	private ByteBuffer view()
+	{
+		itsBuffer.clear();
+		return itsBuffer;
+	}
+
+	// writes theNrBytes of itsBuffer at itsPosition
+	private void flush(int theNrBytes) throws IOException
+	{
+		itsBuffer.clear();
+		itsBuffer.limit(theNrBytes);
+		while (itsBuffer.hasRemaining())
+			itsPosition += itsChannel.write(itsBuffer, itsPosition);
+	}
+
+	// every block starts at a multiple of 8 bytes
+	private long align()
+	{
+		itsPosition = (itsPosition + 7L) & ~7L;
+		return itsPosition;
+	}
+}
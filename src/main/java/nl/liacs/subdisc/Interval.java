@@ -19,6 +19,9 @@ public class Interval implements Comparable<Interval>
 		itsUpper = theUpper;
 	}
 
+	float getLower()                         { return itsLower; }
+	float getUpper()                         { return itsUpper; }
+
 	public boolean between(float theValue)
 	{
 		return (itsLower < theValue) && (theValue <= itsUpper);
@@ -0,0 +1,75 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/**
+ * A MemberSet is an immutable set of row indices, used by a {@link Subgroup}
+ * to keep a compact copy of its members after
+ * {@link Subgroup#killMembers()}, so they can be revived without evaluating
+ * its Conditions.
+ * <p>
+ * It is a storage format only, it is not used outside Subgroup.
+ * Refinement, {@link Column#evaluate(BitSet, Condition)} and the quality
+ * measures all work on a {@link BitSet}, which a revived Subgroup obtains
+ * through {@link #toBitSet()}.
+ * The other methods mirror those of BitSet, for lookups that do not revive
+ * the members, like {@link Subgroup#covers(int)}.
+ * <p>
+ * Implementations are created by a {@link MemberSetType}.
+ *
+ * @see MemberSetType
+ * @see BitSetMemberSet
+ * @see CompressedMemberSet
+ * @see DiffsetMemberSet
+ * @see TidListMemberSet
+ */
+interface MemberSet
+{
+	/**
+	 * Returns the number of members in this MemberSet.
+	 *
+	 * @return the number of members.
+	 *
+	 * @see BitSet#cardinality()
+	 */
+	public int cardinality();
+
+	/**
+	 * Returns whether the row with the specified index is a member.
+	 *
+	 * @param theIndex the row index.
+	 *
+	 * @return <code>true</code> if the row is a member, <code>false</code>
+	 * otherwise.
+	 *
+	 * @see BitSet#get(int)
+	 */
+	public boolean get(int theIndex);
+
+	/**
+	 * Returns the index of the first member that occurs on or after the
+	 * specified index, or <code>-1</code> if there is no such member.
+	 *
+	 * @param theFromIndex the index to start checking from (inclusive).
+	 *
+	 * @return the index of the next member, or <code>-1</code>.
+	 *
+	 * @see BitSet#nextSetBit(int)
+	 */
+	public int nextSetBit(int theFromIndex);
+
+	/**
+	 * Returns a new {@link BitSet} with a bit set for every member, changes
+	 * to the BitSet have no effect on this MemberSet.
+	 *
+	 * @return a new BitSet representing the members.
+	 */
+	public BitSet toBitSet();
+
+	/**
+	 * Returns an estimate of the number of bytes used to store the members.
+	 *
+	 * @return the estimated number of bytes.
+	 */
+	public long getSizeInBytes();
+}
@@ -0,0 +1,163 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/**
+ * MemberSetType contains all available {@link MemberSet} implementations, that
+ * are used by a killed {@link Subgroup} to keep a copy of its members.
+ * <p>
+ * The type only determines how the members are stored, it does not change
+ * what is searched for.
+ */
+public enum MemberSetType implements EnumInterface
+{
+	/**
+	 * Do not keep the members when they are not used, and recreate them by
+	 * evaluating all Conditions of the Subgroup when needed again.
+	 * This is the original behaviour, it uses the least memory, and a
+	 * {@link BitSet} of the number of rows in the data during refinement.
+	 */
+	BITSET("bitset"),
+	/**
+	 * Keep the members in a compressed form, when they are not used, so they
+	 * do not have to be recreated from the data.
+	 * Uses array, bitmap and run containers, see {@link CompressedMemberSet}.
+	 */
+	COMPRESSED("compressed"),
+	/**
+	 * Keep the members of a refinement relative to those of the Subgroup it
+	 * was refined from, as in ECLAT-style vertical mining.
+	 * Each member set is stored adaptively as a diffset of removed rows, a
+	 * sorted tid-list of rows, or a BitSet, whichever is smallest, see
+	 * {@link DiffsetMemberSet} and {@link TidListMemberSet}.
+	 * Killed members are revived by evaluating the Conditions on the members
+	 * of the parent only, refinements are still evaluated against a BitSet.
+	 * This is never chosen by {@link #AUTOMATIC}.
+	 */
+	DIFFSET("diffset"),
+	/**
+	 * Choose {@link #BITSET} or {@link #COMPRESSED} based on the number of
+	 * rows in the data, see {@link #resolve(int)}.
+	 * This is never chosen by default.
+	 */
+	AUTOMATIC("automatic");
+
+	// a single Container, a BitSet of at most 8 KB is not worth compressing
+	static final int AUTOMATIC_MINIMUM_NR_ROWS = (1 << 16);
+
+	/**
+	 * For each MemberSetType, this is the text that will be used in the GUI.
+	 * This is also the <code>String</code> that will be returned by the
+	 * {@link #toString()} method.
+	 */
+	public final String GUI_TEXT;
+
+	private MemberSetType(String theGuiText)
+	{
+		GUI_TEXT = theGuiText;
+	}
+
+	/**
+	 * Returns the MemberSetType corresponding to the <code>String</code>
+	 * parameter. This method is case insensitive.
+	 *
+	 * @param theText the <code>String</code>
+	 * ({@link MemberSetType#GUI_TEXT}) corresponding to a MemberSetType.
+	 *
+	 * @return the MemberSetType corresponding to the <code>String</code>
+	 * parameter, or the default MemberSetType
+	 * (as per {@link MemberSetType#getDefault()}) if no corresponding
+	 * MemberSetType can be found.
+	 */
+	public static MemberSetType fromString(String theText)
+	{
+		for (MemberSetType m : MemberSetType.values())
+			if (m.GUI_TEXT.equalsIgnoreCase(theText))
+				return m;
+
+		Log.logCommandLine(
+			String.format("'%s' is not a valid MemberSetType. Returning '%s'.",
+					theText,
+					MemberSetType.getDefault().GUI_TEXT));
+		return MemberSetType.getDefault();
+	}
+
+	/**
+	 * Returns the default MemberSetType {@link MemberSetType#BITSET}.
+	 * <p>
+	 * Refinements are evaluated against a BitSet of the members for every
+	 * MemberSetType, so a compact copy of killed members saves little memory
+	 * during mining, and the others have to be selected explicitly.
+	 *
+	 * @return the default MemberSetType.
+	 */
+	public static MemberSetType getDefault()
+	{
+		return MemberSetType.BITSET;
+	}
+
+	/**
+	 * Returns the MemberSetType to use for a data set with the specified
+	 * number of rows, this is never {@link #AUTOMATIC}.
+	 *
+	 * @param theNrRows the number of rows in the data.
+	 *
+	 * @return this MemberSetType, or for AUTOMATIC, {@link #COMPRESSED} for
+	 * data with at least 65536 rows, and {@link #BITSET} otherwise.
+	 */
+	public MemberSetType resolve(int theNrRows)
+	{
+		if (this != AUTOMATIC)
+			return this;
+
+		return (theNrRows >= AUTOMATIC_MINIMUM_NR_ROWS) ? COMPRESSED : BITSET;
+	}
+
+	/*
+	 * Returns a MemberSet with the same members as the BitSet argument, the
+	 * BitSet is not modified, and can be changed after this call.
+	 */
+	MemberSet create(BitSet theMembers)
+	{
+		switch (this)
+		{
+			case BITSET :
+				return new BitSetMemberSet((BitSet) theMembers.clone());
+			case COMPRESSED :
+				return CompressedMemberSet.valueOf(theMembers);
+			case DIFFSET :
+				return create(theMembers, null);
+			// should be resolved before use
+			default :
+				throw new AssertionError(this);
+		}
+	}
+
+	/*
+	 * For DIFFSET, returns the smallest of a DiffsetMemberSet relative to the
+	 * parent MemberSet, a TidListMemberSet, or a BitSetMemberSet, the parent
+	 * can be null, and should contain all members of the BitSet otherwise.
+	 */
+	MemberSet create(BitSet theMembers, MemberSet theParent)
+	{
+		assert (this == DIFFSET);
+
+		int aCardinality = theMembers.cardinality();
+		long aBitSetSize = (theMembers.length() + 7) >>> 3;
+		long aTidListSize = 4L * aCardinality;
+
+		if ((theParent != null) && (4L * (theParent.cardinality() - aCardinality) <= Math.min(aTidListSize, aBitSetSize)))
+			return new DiffsetMemberSet(theMembers, theParent);
+		if (aTidListSize < aBitSetSize)
+			return new TidListMemberSet(theMembers);
+
+		return new BitSetMemberSet((BitSet) theMembers.clone());
+	}
+
+	// uses Javadoc from EnumInterface
+	@Override
+	public String toString()
+	{
+		return GUI_TEXT;
+	}
+}
@@ -0,0 +1,373 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * NOTE the dispatch loop is that of the Semaphore engine, but a Test runs in a
+ * MiningWorker process, every worker Thread is a Semaphore permit
+ * the coordinator owns the CandidateQueue and SubgroupSet, workers return the
+ * contents of their AdmissionBuffer, see MiningProtocol
+ * as with multiple Semaphore Threads, the RESULTs are admitted in the order
+ * they arrive, when equivalent Subgroups (same members, different order of
+ * the same Conditions) are found, the first one is kept, so the result equals
+ * that of a single process up to the order of their Conditions
+ */
+/**
+ * A MiningCoordinator runs a {@link SubgroupDiscovery} that uses
+ * {@link MiningEngine#DISTRIBUTED}, it hands the Candidates to
+ * {@link MiningWorker}s and admits the refinements they return.
+ *
+ * @see MiningProtocol
+ */
+final class MiningCoordinator
+{
+	// a MiningWorker that does not connect within this time is not waited for
+	private static final int ACCEPT_TIMEOUT = 1000; // milliseconds, per attempt
+
+	private final SubgroupDiscovery itsSubgroupDiscovery;
+	private final Table itsTable;
+	private final SearchParameters itsSearchParameters;
+	private final String itsFingerprint;
+
+	MiningCoordinator(SubgroupDiscovery theSubgroupDiscovery, Table theTable, BitSet theSelection, SearchParameters theSearchParameters)
+	{
+		itsSubgroupDiscovery = theSubgroupDiscovery;
+		itsTable = theTable;
+		itsSearchParameters = theSearchParameters;
+		itsFingerprint = Checkpoint.getFingerprint(theTable, theSelection, theSearchParameters);
+	}
+
+	void mine()
+	{
+		List<RemoteWorker> aWorkers = acceptWorkers();
+		if (aWorkers.isEmpty())
+		{
+			Log.logCommandLine("no MiningWorker connected, nothing is mined");
+			return;
+		}
+
+		int aNrSlots = 0;
+		for (RemoteWorker w : aWorkers)
+			aNrSlots += w.itsNrThreads;
+
+		// one entry per idle worker Thread, there are as many as free permits
+		// the slots of a failed worker are removed when they are taken
+		BlockingQueue<RemoteWorker> aFreeSlots = new LinkedBlockingQueue<RemoteWorker>();
+		// the TASKs of a failed worker, they are sent again before any other
+		Deque<Candidate> aRetries = new LinkedBlockingDeque<Candidate>();
+		Semaphore s = new Semaphore(aNrSlots);
+		for (RemoteWorker w : aWorkers)
+		{
+			for (int i = 0; i < w.itsNrThreads; ++i)
+				aFreeSlots.add(w);
+			w.start(s, aFreeSlots, aRetries);
+		}
+
+		final SubgroupDiscovery sd = itsSubgroupDiscovery;
+		final CandidateQueue aCandidateQueue = sd.getCandidateQueue();
+		// the dispatcher holds a permit after a break only
+		boolean isHoldingPermit = false;
+		while (!sd.isTimeToStop())
+		{
+			s.acquireUninterruptibly();
+			isHoldingPermit = true;
+
+			// holding all permits, no TASK is running, see checkpoint()
+			// the retries are not in the CandidateQueue, so do not save it
+			if (aRetries.isEmpty() && sd.isCheckpointDue())
+			{
+				s.acquireUninterruptibly(aNrSlots-1);
+				sd.checkpoint();
+				s.release(aNrSlots-1);
+			}
+
+			// see SubgroupDiscovery.mine(long, int), including the NOTEs
+			// a retry is added before the permit of its TASK is returned, so
+			// retries are sent before the next level is started
+			Candidate aCandidate = null;
+			synchronized (aCandidateQueue)
+			{
+				int aTotalSize = aCandidateQueue.size();
+				boolean alone = (s.availablePermits() == aNrSlots-1);
+				if (!aRetries.isEmpty())
+					aCandidate = aRetries.pollFirst();
+				else if (aCandidateQueue.currentLevelQueueSize() > 0)
+					aCandidate = aCandidateQueue.removeFirst();
+				else if ((aTotalSize > 0) && alone)
+					aCandidate = aCandidateQueue.removeFirst();
+				else if ((aTotalSize == 0) && alone)
+					break;
+			}
+
+			isHoldingPermit = false;
+			if ((aCandidate != null) && sd.isPrunable(aCandidate))
+				s.release();
+			else if (aCandidate != null)
+			{
+				RemoteWorker w;
+				try { w = aFreeSlots.take(); }
+				catch (InterruptedException e) { Thread.currentThread().interrupt(); s.release(); break; }
+
+				// the RemoteWorker failed, remove the slot and its permit
+				if (!w.send(aCandidate))
+				{
+					aRetries.addFirst(aCandidate);
+					if (--aNrSlots == 0)
+					{
+						// fail loudly, the result would be incomplete
+						for (RemoteWorker r : aWorkers)
+							r.stop();
+						throw new IllegalStateException("all MiningWorkers failed, the search is not complete");
+					}
+				}
+			}
+			else
+			{
+				final int aNrFree = s.drainPermits();
+				if (aNrFree < aNrSlots-1)
+				{
+					s.acquireUninterruptibly();
+					s.release(aNrFree+2);
+				}
+				else
+					s.release(aNrFree+1);
+			}
+		}
+
+		// wait for the running TASKs
+		s.acquireUninterruptibly(isHoldingPermit ? aNrSlots-1 : aNrSlots);
+		for (RemoteWorker w : aWorkers)
+			w.stop();
+	}
+
+	// waits for SearchParameters.getDistributedWorkers() accepted workers
+	private List<RemoteWorker> acceptWorkers()
+	{
+		List<RemoteWorker> aWorkers = new ArrayList<RemoteWorker>();
+
+		ServerSocket aServerSocket = null;
+		try
+		{
+			// the loopback address by default, see SearchParameters
+			InetAddress anAddress = InetAddress.getByName(itsSearchParameters.getDistributedAddress());
+			aServerSocket = new ServerSocket(itsSearchParameters.getDistributedPort(), 0, anAddress);
+			aServerSocket.setSoTimeout(ACCEPT_TIMEOUT);
+			Log.logCommandLine(String.format("waiting for %d MiningWorker(s) on %s", itsSearchParameters.getDistributedWorkers(), aServerSocket.getLocalSocketAddress()));
+
+			while ((aWorkers.size() < itsSearchParameters.getDistributedWorkers()) && !itsSubgroupDiscovery.isTimeToStop())
+			{
+				Socket aSocket;
+				try { aSocket = aServerSocket.accept(); }
+				catch (SocketTimeoutException e) { continue; }
+
+				try
+				{
+					aSocket.setTcpNoDelay(true);
+					RemoteWorker w = new RemoteWorker(aSocket, aWorkers.size());
+					String anError = w.handshake(itsFingerprint);
+					if (anError == null)
+					{
+						Log.logCommandLine(String.format("MiningWorker %d connected from %s, %d threads", w.itsIndex, aSocket.getRemoteSocketAddress(), w.itsNrThreads));
+						aWorkers.add(w);
+					}
+					else
+					{
+						Log.logCommandLine("MiningWorker rejected: " + anError);
+						aSocket.close();
+					}
+				}
+				catch (IOException e)
+				{
+					Log.logCommandLine("MiningWorker handshake failed: " + e.getMessage());
+					aSocket.close();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			Log.logCommandLine("can not accept MiningWorkers: " + e.getMessage());
+		}
+		finally
+		{
+			try { if (aServerSocket != null) aServerSocket.close(); }
+			catch (IOException e) {}
+		}
+
+		return aWorkers;
+	}
+
+	/*
+	 * the coordinator side of a MiningWorker connection
+	 * TASKs are sent by the dispatcher, RESULTs are read by a Thread of its
+	 * own, that admits the refinements, and returns the permit and slot
+	 * for a failed connection, the TASKs without a RESULT are retried by
+	 * the other workers, without any, the search fails, as the result would
+	 * be incomplete
+	 */
+	private final class RemoteWorker implements Runnable
+	{
+		private final Socket itsSocket;
+		private final int itsIndex;
+		private final DataInputStream itsInput;
+		private final DataOutputStream itsOutput;
+		private int itsNrThreads;
+		private Semaphore itsSemaphore;
+		private BlockingQueue<RemoteWorker> itsFreeSlots;
+		private Deque<Candidate> itsRetries;
+		private Thread itsReader;
+		// guarded by this
+		private long itsNextId;
+		private final Map<Long, Candidate> itsRunning = new HashMap<Long, Candidate>();
+		private boolean isClosed;
+		// only accessed by itsReader, the total of the worker, see MiningProtocol
+		private long itsWorkerCandidateCount;
+
+		RemoteWorker(Socket theSocket, int theIndex) throws IOException
+		{
+			itsSocket = theSocket;
+			itsIndex = theIndex;
+			itsInput = new DataInputStream(new BufferedInputStream(theSocket.getInputStream(), 1 << 16));
+			itsOutput = new DataOutputStream(new BufferedOutputStream(theSocket.getOutputStream(), 1 << 16));
+		}
+
+		// returns null when accepted, or the reason for rejection
+		String handshake(String theFingerprint) throws IOException
+		{
+			String anError = null;
+			if ((itsInput.readByte() != MiningProtocol.HELLO) || (itsInput.readInt() != MiningProtocol.MAGIC))
+				anError = "not a MiningWorker";
+			else if (itsInput.readInt() != MiningProtocol.VERSION)
+				anError = "unsupported version";
+			else if (!theFingerprint.equals(itsInput.readUTF()))
+				anError = "different Table or SearchParameters";
+			else if ((itsNrThreads = itsInput.readInt()) <= 0)
+				anError = "no threads";
+
+			if (anError == null)
+				itsOutput.writeByte(MiningProtocol.ACCEPT);
+			else
+			{
+				itsOutput.writeByte(MiningProtocol.REJECT);
+				itsOutput.writeUTF(anError);
+			}
+			itsOutput.flush();
+
+			return anError;
+		}
+
+		void start(Semaphore theSemaphore, BlockingQueue<RemoteWorker> theFreeSlots, Deque<Candidate> theRetries)
+		{
+			itsSemaphore = theSemaphore;
+			itsFreeSlots = theFreeSlots;
+			itsRetries = theRetries;
+			itsReader = new Thread(this, "RemoteWorker-" + itsIndex);
+			itsReader.setDaemon(true);
+			itsReader.start();
+		}
+
+		// false when the connection failed, the slot is then not returned
+		synchronized boolean send(Candidate theCandidate)
+		{
+			if (isClosed)
+				return false;
+
+			try
+			{
+				long anId = itsNextId++;
+				itsOutput.writeByte(MiningProtocol.TASK);
+				itsOutput.writeLong(anId);
+				MiningProtocol.writeSubgroup(itsOutput, theCandidate.getSubgroup());
+				itsOutput.flush();
+				itsRunning.put(anId, theCandidate);
+				return true;
+			}
+			catch (IOException e)
+			{
+				fail(e);
+				return false;
+			}
+		}
+
+		// called by the dispatcher after all TASKs are done
+		void stop()
+		{
+			synchronized (this)
+			{
+				if (!isClosed)
+				{
+					isClosed = true;
+					try
+					{
+						itsOutput.writeByte(MiningProtocol.STOP);
+						itsOutput.flush();
+					}
+					catch (IOException e) {}
+				}
+			}
+
+			try { itsSocket.close(); }
+			catch (IOException e) {}
+			try { itsReader.join(); }
+			catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				while (true)
+				{
+					if (itsInput.readByte() != MiningProtocol.RESULT)
+						throw new IOException("unexpected message");
+
+					MiningProtocol.Result aResult = new MiningProtocol.Result(itsInput, itsTable, itsSubgroupDiscovery.getResult());
+					// before release, dispatcher may move to next level when alone
+					itsSubgroupDiscovery.admit(aResult.itsSubgroups, aResult.itsCandidates, aResult.itsCandidateCount - itsWorkerCandidateCount);
+					itsWorkerCandidateCount = aResult.itsCandidateCount;
+					synchronized (this)
+					{
+						if (itsRunning.remove(aResult.itsId) == null)
+							throw new IOException("unexpected RESULT " + aResult.itsId);
+					}
+					itsFreeSlots.add(this);
+					itsSemaphore.release();
+				}
+			}
+			catch (IOException e)
+			{
+				fail(e);
+			}
+		}
+
+		private void fail(IOException theException)
+		{
+			List<Candidate> aRunning;
+			synchronized (this)
+			{
+				// closed by stop(), all TASKs are done
+				if (isClosed)
+					return;
+
+				isClosed = true;
+				aRunning = new ArrayList<Candidate>(itsRunning.values());
+				itsRunning.clear();
+			}
+
+			Log.logCommandLine(String.format("MiningWorker %d failed, %d TASK(s) are retried: %s", itsIndex, aRunning.size(), theException));
+			try { itsSocket.close(); }
+			catch (IOException e) {}
+			// the TASKs are retried before their permits are returned, the
+			// dispatcher removes the slots, see mine()
+			for (Candidate c : aRunning)
+			{
+				itsRetries.addFirst(c);
+				itsFreeSlots.add(this);
+			}
+			itsSemaphore.release(aRunning.size());
+		}
+	}
+}
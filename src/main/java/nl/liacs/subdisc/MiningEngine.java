@@ -0,0 +1,111 @@
+package nl.liacs.subdisc;
+
+/**
+ * MiningEngine contains all available execution engines for
+ * {@link SubgroupDiscovery#mine(long, int)}.
+ * <p>
+ * The engine only determines how the work of a search is divided over the
+ * available Threads, or processes, it does not change what is searched for.
+ * For a search that completes without hitting the maximum time, every engine
+ * yields the same result as the default {@link #SEMAPHORE} engine, up to the
+ * order of the Conditions of equivalent Subgroups, of which the first one
+ * found is kept, as for {@link #SEMAPHORE} with multiple Threads.
+ */
+public enum MiningEngine implements EnumInterface
+{
+	/**
+	 * Original engine, a dispatcher hands each Candidate to a fixed pool of
+	 * Threads, the number of active Tests is controlled by a Semaphore.
+	 */
+	SEMAPHORE("semaphore"),
+	/**
+	 * Work-stealing engine, the refinement of each Candidate is split per
+	 * Column and executed on a ForkJoinPool, beam levels are synchronised
+	 * using a Phaser.
+	 * For strategies that are not beam strategies, see
+	 * {@link SearchStrategy#isBeam()}, there are no levels, the Candidates are
+	 * dispatched one at a time, as for {@link #SEMAPHORE}, and the refinement
+	 * of each Candidate is split per Column on the ForkJoinPool.
+	 */
+	FORK_JOIN("fork-join"),
+	/**
+	 * Coordinator engine, the dispatcher hands each Candidate to a worker
+	 * process, see {@link MiningWorker}, that loads the same Table and
+	 * returns the scored refinements, the number of workers and the port
+	 * they connect to are set in {@link SearchParameters}.
+	 * The refinements are admitted in the order the workers return them, so,
+	 * as for {@link #SEMAPHORE} with multiple Threads, the result equals that
+	 * of a single process up to the order of the Conditions of equivalent
+	 * Subgroups.
+	 */
+	DISTRIBUTED("distributed"),
+	/**
+	 * Level-wise engine for beam strategies, the Candidates of a level are
+	 * refined together, Column by Column, so the data of a Column is scanned
+	 * once for all Candidates, the Columns are evaluated concurrently.
+	 * For other strategies a batch would hold a single Candidate, so the
+	 * Candidates are refined as for {@link #FORK_JOIN}.
+	 */
+	BATCHED("batched"),
+	/**
+	 * Level-wise engine with reproducible output, the Candidates of a level
+	 * are refined concurrently, but the scored refinements are numbered,
+	 * logged and added to the result in the order of a single Thread, so the
+	 * output does not depend on the number of Threads, also not for ties.
+	 */
+	DETERMINISTIC("deterministic");
+
+	/**
+	 * For each MiningEngine, this is the text that will be used in the GUI.
+	 * This is also the <code>String</code> that will be returned by the
+	 * {@link #toString()} method.
+	 */
+	public final String GUI_TEXT;
+
+	private MiningEngine(String theGuiText)
+	{
+		GUI_TEXT = theGuiText;
+	}
+
+	/**
+	 * Returns the MiningEngine corresponding to the <code>String</code>
+	 * parameter. This method is case insensitive.
+	 *
+	 * @param theText the <code>String</code>
+	 * ({@link MiningEngine#GUI_TEXT}) corresponding to a MiningEngine.
+	 *
+	 * @return the MiningEngine corresponding to the <code>String</code>
+	 * parameter, or the default MiningEngine
+	 * (as per {@link MiningEngine#getDefault()}) if no corresponding
+	 * MiningEngine can be found.
+	 */
+	public static MiningEngine fromString(String theText)
+	{
+		for (MiningEngine m : MiningEngine.values())
+			if (m.GUI_TEXT.equalsIgnoreCase(theText))
+				return m;
+
+		Log.logCommandLine(
+			String.format("'%s' is not a valid MiningEngine. Returning '%s'.",
+					theText,
+					MiningEngine.getDefault().GUI_TEXT));
+		return MiningEngine.getDefault();
+	}
+
+	/**
+	 * Returns the default MiningEngine {@link MiningEngine#SEMAPHORE}.
+	 *
+	 * @return the default MiningEngine.
+	 */
+	public static MiningEngine getDefault()
+	{
+		return MiningEngine.SEMAPHORE;
+	}
+
+	// uses Javadoc from EnumInterface
+	@Override
+	public String toString()
+	{
+		return GUI_TEXT;
+	}
+}
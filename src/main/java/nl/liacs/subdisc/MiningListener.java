@@ -0,0 +1,23 @@
+package nl.liacs.subdisc;
+
+/**
+ * A MiningListener receives {@link MiningSnapshot}s of a running
+ * {@link SubgroupDiscovery}, see
+ * {@link SubgroupDiscovery#addMiningListener(MiningListener)}.
+ *
+ * Snapshots are delivered in order, on a Thread dedicated to this listener,
+ * so a slow listener never blocks the search, nor other listeners.
+ * While a snapshot is being handled, newer ones replace each other, and only
+ * the latest is delivered next, {@link MiningSnapshot#getNrSkipped()} tells
+ * how many were dropped.
+ */
+public interface MiningListener
+{
+	/**
+	 * Called for every delivered {@link MiningSnapshot}, the last one has
+	 * {@link MiningSnapshot#isLast()} set, and is never skipped.
+	 *
+	 * @param theSnapshot the state of the search.
+	 */
+	public void update(MiningSnapshot theSnapshot);
+}
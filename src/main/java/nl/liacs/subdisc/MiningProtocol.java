@@ -0,0 +1,146 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.util.*;
+
+import nl.liacs.subdisc.ConditionListBuilder.ConditionList;
+
+/*
+ * NOTE the messages between the coordinator (a SubgroupDiscovery using
+ * MiningEngine.DISTRIBUTED) and a MiningWorker, over a local socket
+ *
+ * worker      -> coordinator : HELLO magic, version, fingerprint, nr threads
+ * coordinator -> worker      : ACCEPT, or REJECT reason
+ * coordinator -> worker      : TASK id, Subgroup
+ * worker      -> coordinator : RESULT id, candidate count, Subgroups, Candidates
+ * coordinator -> worker      : STOP
+ *
+ * a worker runs up to nr threads TASKs at the same time, RESULTs may arrive in
+ * any order, the id of a RESULT is that of its TASK
+ * the candidate count is the total number of refinements the worker evaluated
+ * so far, not that of the TASK, as its Threads share the count
+ *
+ * a Subgroup is sent as in a Checkpoint, by its ConditionList (in search
+ * order) and statistics, every Condition by its Column index, Operator and
+ * value, its members are evaluated by the receiver when needed
+ * the Subgroups of a RESULT are those for the SubgroupSet, a Candidate refers
+ * to one of them by index, or carries a Subgroup of its own (index -1)
+ */
+/**
+ * MiningProtocol encodes the messages between the coordinator of a
+ * {@link MiningEngine#DISTRIBUTED} search and its {@link MiningWorker}s.
+ */
+final class MiningProtocol
+{
+	static final int MAGIC = 0x53444d50; // SDMP
+	static final int VERSION = 1;
+
+	static final byte HELLO  = 1;
+	static final byte ACCEPT = 2;
+	static final byte REJECT = 3;
+	static final byte TASK   = 4;
+	static final byte RESULT = 5;
+	static final byte STOP   = 6;
+
+	private MiningProtocol() {}
+
+	static void writeSubgroup(DataOutputStream out, Subgroup theSubgroup) throws IOException
+	{
+		ConditionList aConditions = theSubgroup.getConditions();
+		out.writeInt(aConditions.size());
+		// search order, not canonical order
+		for (int i = 0, j = aConditions.size(); i < j; ++i)
+			Checkpoint.writeCondition(out, aConditions.get(i));
+		out.writeInt(theSubgroup.getCoverage());
+		out.writeBoolean(theSubgroup.hasQuality());
+		out.writeDouble(theSubgroup.getMeasureValue());
+		out.writeDouble(theSubgroup.getSecondaryStatistic());
+		out.writeDouble(theSubgroup.getTertiaryStatistic());
+	}
+
+	static Subgroup readSubgroup(DataInputStream in, Table theTable, SubgroupSet theResult) throws IOException
+	{
+		try
+		{
+			ConditionList aConditions = ConditionListBuilder.emptyList();
+			for (int i = 0, j = in.readInt(); i < j; ++i)
+				aConditions = ConditionListBuilder.createList(aConditions, Checkpoint.readCondition(in, theTable));
+			int aCoverage = in.readInt();
+			boolean hasQuality = in.readBoolean();
+
+			return new Subgroup(aConditions, aCoverage, hasQuality, in.readDouble(), in.readDouble(), in.readDouble(), theResult);
+		}
+		// a Condition that is invalid for the Column, or an invalid Interval
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException("invalid Condition: " + e.getMessage());
+		}
+	}
+
+	// the caller synchronises on out, RESULTs of different Threads share it
+	static void writeResult(DataOutputStream out, long theId, long theCandidateCount, Collection<Subgroup> theSubgroups, Collection<Candidate> theCandidates) throws IOException
+	{
+		out.writeByte(RESULT);
+		out.writeLong(theId);
+		out.writeLong(theCandidateCount);
+
+		Map<Subgroup, Integer> anIndices = new IdentityHashMap<Subgroup, Integer>();
+		out.writeInt(theSubgroups.size());
+		for (Subgroup s : theSubgroups)
+		{
+			anIndices.put(s, anIndices.size());
+			writeSubgroup(out, s);
+		}
+
+		out.writeInt(theCandidates.size());
+		for (Candidate c : theCandidates)
+		{
+			out.writeDouble(c.getPriority());
+			out.writeDouble(c.getOptimisticEstimate());
+			Integer anIndex = anIndices.get(c.getSubgroup());
+			out.writeInt((anIndex == null) ? -1 : anIndex);
+			if (anIndex == null)
+				writeSubgroup(out, c.getSubgroup());
+		}
+		out.flush();
+	}
+
+	/**
+	 * A Result holds the refinements of a TASK, as read by the coordinator.
+	 */
+	static final class Result
+	{
+		final long itsId;
+		final long itsCandidateCount;
+		final List<Subgroup> itsSubgroups;
+		final List<Candidate> itsCandidates;
+
+		// the RESULT byte is read by the caller
+		Result(DataInputStream in, Table theTable, SubgroupSet theResult) throws IOException
+		{
+			itsId = in.readLong();
+			itsCandidateCount = in.readLong();
+
+			int aNrSubgroups = in.readInt();
+			itsSubgroups = new ArrayList<Subgroup>(aNrSubgroups);
+			for (int i = 0; i < aNrSubgroups; ++i)
+				itsSubgroups.add(readSubgroup(in, theTable, theResult));
+
+			int aNrCandidates = in.readInt();
+			itsCandidates = new ArrayList<Candidate>(aNrCandidates);
+			for (int i = 0; i < aNrCandidates; ++i)
+			{
+				double aPriority = in.readDouble();
+				double anOptimisticEstimate = in.readDouble();
+				int anIndex = in.readInt();
+				if (anIndex >= aNrSubgroups)
+					throw new IOException("invalid Subgroup index: " + anIndex);
+				Subgroup aSubgroup = (anIndex < 0) ? readSubgroup(in, theTable, theResult) : itsSubgroups.get(anIndex);
+				Candidate c = new Candidate(aSubgroup);
+				c.setPriority(aPriority);
+				c.setOptimisticEstimate(anOptimisticEstimate);
+				itsCandidates.add(c);
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/**
+ * A MiningSnapshot is the state of a running {@link SubgroupDiscovery} at
+ * some point in time: its current top-k {@link Subgroup}s, the difference
+ * with the previous snapshot delivered to the same {@link MiningListener},
+ * and search statistics.
+ *
+ * The Subgroups are those of the result {@link SubgroupSet}, they should not
+ * be modified.
+ */
+public final class MiningSnapshot
+{
+	private final long itsSequenceNumber;
+	private final long itsElapsedTime;
+	private final long itsNrCandidates;
+	private final int itsCandidateQueueSize;
+	private final boolean isLast;
+	private final List<Subgroup> itsSubgroups;
+	private final List<Subgroup> itsAdded;
+	private final List<Subgroup> itsRemoved;
+	private final long itsNrSkipped;
+
+	MiningSnapshot(long theSequenceNumber, long theElapsedTime, long theNrCandidates, int theCandidateQueueSize, boolean isLast, List<Subgroup> theSubgroups)
+	{
+		this(theSequenceNumber, theElapsedTime, theNrCandidates, theCandidateQueueSize, isLast, theSubgroups, theSubgroups, Collections.<Subgroup>emptyList(), 0L);
+	}
+
+	private MiningSnapshot(long theSequenceNumber, long theElapsedTime, long theNrCandidates, int theCandidateQueueSize, boolean isLast,
+				List<Subgroup> theSubgroups, List<Subgroup> theAdded, List<Subgroup> theRemoved, long theNrSkipped)
+	{
+		itsSequenceNumber = theSequenceNumber;
+		itsElapsedTime = theElapsedTime;
+		itsNrCandidates = theNrCandidates;
+		itsCandidateQueueSize = theCandidateQueueSize;
+		this.isLast = isLast;
+		itsSubgroups = Collections.unmodifiableList(theSubgroups);
+		itsAdded = Collections.unmodifiableList(theAdded);
+		itsRemoved = Collections.unmodifiableList(theRemoved);
+		itsNrSkipped = theNrSkipped;
+	}
+
+	/*
+	 * a copy of this snapshot, with the difference to the one delivered
+	 * before it, the snapshots in between were skipped
+	 * Subgroups are compared by identity, the result set holds each only once
+	 */
+	MiningSnapshot delta(MiningSnapshot thePrevious)
+	{
+		if (thePrevious == null)
+			return new MiningSnapshot(itsSequenceNumber, itsElapsedTime, itsNrCandidates, itsCandidateQueueSize, isLast, itsSubgroups, itsSubgroups, itsRemoved, itsSequenceNumber);
+
+		Set<Subgroup> aPrevious = Collections.newSetFromMap(new IdentityHashMap<Subgroup, Boolean>());
+		aPrevious.addAll(thePrevious.itsSubgroups);
+		List<Subgroup> anAdded = new ArrayList<Subgroup>();
+		for (Subgroup s : itsSubgroups)
+			if (!aPrevious.remove(s))
+				anAdded.add(s);
+		// in the order of the previous snapshot
+		List<Subgroup> aRemoved = new ArrayList<Subgroup>(aPrevious.size());
+		for (Subgroup s : thePrevious.itsSubgroups)
+			if (aPrevious.contains(s))
+				aRemoved.add(s);
+
+		return new MiningSnapshot(itsSequenceNumber, itsElapsedTime, itsNrCandidates, itsCandidateQueueSize, isLast, itsSubgroups, anAdded, aRemoved, itsSequenceNumber - thePrevious.itsSequenceNumber - 1);
+	}
+
+	/** Returns the number of this snapshot, the first is 0. */
+	public long getSequenceNumber()          { return itsSequenceNumber; }
+	/** Returns the mining time in milliseconds. */
+	public long getElapsedTime()             { return itsElapsedTime; }
+	/** Returns the number of candidates evaluated so far. */
+	public long getNrCandidates()            { return itsNrCandidates; }
+	/** Returns the number of candidates waiting to be refined. */
+	public int getCandidateQueueSize()       { return itsCandidateQueueSize; }
+	/** Returns whether this is the final result, no snapshots follow. */
+	public boolean isLast()                  { return isLast; }
+	/** Returns the current top-k, best first. */
+	public List<Subgroup> getSubgroups()     { return itsSubgroups; }
+	/** Returns the Subgroups that entered the top-k since the previous delivered snapshot. */
+	public List<Subgroup> getAdded()         { return itsAdded; }
+	/** Returns the Subgroups that left the top-k since the previous delivered snapshot. */
+	public List<Subgroup> getRemoved()       { return itsRemoved; }
+	/** Returns the number of snapshots dropped since the previous delivered one. */
+	public long getNrSkipped()               { return itsNrSkipped; }
+
+	/** Returns the best quality of the top-k, or NaN if it is empty. */
+	public double getBestScore()
+	{
+		return itsSubgroups.isEmpty() ? Double.NaN : itsSubgroups.get(0).getMeasureValue();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("snapshot %d: %d ms, %d candidates, %d queued, %d subgroups (+%d -%d)%s",
+					itsSequenceNumber, itsElapsedTime, itsNrCandidates, itsCandidateQueueSize,
+					itsSubgroups.size(), itsAdded.size(), itsRemoved.size(), (isLast ? ", last" : ""));
+	}
+}
@@ -0,0 +1,199 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.w3c.dom.*;
+
+/**
+ * A MiningWorker is a process that refines Candidates for a
+ * {@link SubgroupDiscovery} that uses {@link MiningEngine#DISTRIBUTED}, the
+ * coordinator.
+ * It loads the same experiment as the coordinator, from an
+ * <code>AutoRun File</code> (see {@link XMLAutoRun}), connects to it, and
+ * serves until the coordinator is done.
+ *
+ * @see MiningProtocol
+ */
+public class MiningWorker
+{
+	// the coordinator may not be listening yet
+	private static final long CONNECT_TIMEOUT = 60_000L; // milliseconds
+	private static final long CONNECT_RETRY_INTERVAL = 100L; // milliseconds
+
+	/**
+	 * Usage: <code>host port file.xml [experiment] [nrThreads]</code>.
+	 *
+	 * @param args the <code>String[]</code> containing the command-line
+	 * parameters.
+	 */
+	public static void main(String[] args)
+	{
+		if ((args.length < 3) || (args.length > 5) || !args[2].endsWith(".xml"))
+			showHelp();
+
+		int aPort = 0;
+		int anExperiment = 0;
+		int aNrThreads = Runtime.getRuntime().availableProcessors();
+		try
+		{
+			aPort = Integer.parseInt(args[1]);
+			if (args.length >= 4)
+				anExperiment = Integer.parseInt(args[3]);
+			if (args.length == 5)
+				aNrThreads = Integer.parseInt(args[4]);
+		}
+		catch (NumberFormatException e)
+		{
+			showHelp();
+		}
+
+		try
+		{
+			run(args[0], aPort, new File(args[2]), anExperiment, aNrThreads);
+		}
+		catch (IOException e)
+		{
+			Log.logCommandLine("MiningWorker stopped: " + e.getMessage());
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+
+	static void run(String theHost, int thePort, File theFile, int theExperiment, int theNrThreads) throws IOException
+	{
+		if (theNrThreads <= 0)
+			throw new IllegalArgumentException("theNrThreads must be > 0: " + theNrThreads);
+
+		// as XMLAutoRun.runSubgroupDiscovery()
+		NodeList allExperiments = XMLDocument.parseXMLFile(theFile).getLastChild().getChildNodes();
+		if ((theExperiment < 0) || (theExperiment >= allExperiments.getLength()))
+			throw new IOException("no experiment " + theExperiment + " in " + theFile);
+		NodeList aSettings = allExperiments.item(theExperiment).getChildNodes();
+		Table aTable = new Table(aSettings.item(2), theFile.getParent() == null ? "." : theFile.getParent(), false);
+		aTable.update();
+		SearchParameters aSearchParameters = new SearchParameters(aSettings.item(1));
+		aSearchParameters.setTargetConcept(new TargetConcept(aSettings.item(0), aTable));
+		// the coordinator writes checkpoints
+		aSearchParameters.setCheckpointFile("");
+
+		Socket aSocket = connect(theHost, thePort);
+		try
+		{
+			aSocket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(aSocket.getInputStream(), 1 << 16));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(aSocket.getOutputStream(), 1 << 16));
+
+			out.writeByte(MiningProtocol.HELLO);
+			out.writeInt(MiningProtocol.MAGIC);
+			out.writeInt(MiningProtocol.VERSION);
+			out.writeUTF(Checkpoint.getFingerprint(aTable, null, aSearchParameters));
+			out.writeInt(theNrThreads);
+			out.flush();
+
+			byte aReply = in.readByte();
+			if (aReply == MiningProtocol.REJECT)
+				throw new IOException("rejected by coordinator: " + in.readUTF());
+			if (aReply != MiningProtocol.ACCEPT)
+				throw new IOException("not a coordinator");
+
+			Log.logCommandLine(String.format("MiningWorker connected to %s:%d, %d threads", theHost, thePort, theNrThreads));
+			serve(Process.createSubgroupDiscovery(aTable, null, aSearchParameters, null), aTable, in, out, theNrThreads);
+		}
+		finally
+		{
+			aSocket.close();
+		}
+	}
+
+	/*
+	 * the MiningWorker side of a connection, see MiningProtocol
+	 * at most theNrThreads TASKs are sent before a RESULT is returned
+	 */
+	private static void serve(SubgroupDiscovery theSubgroupDiscovery, Table theTable, DataInputStream theInput, final DataOutputStream theOutput, int theNrThreads) throws IOException
+	{
+		final SubgroupDiscovery.TaskRefiner aRefiner = theSubgroupDiscovery.preServe(theNrThreads);
+		ExecutorService es = Executors.newFixedThreadPool(theNrThreads);
+		try
+		{
+			while (true)
+			{
+				byte aMessage = theInput.readByte();
+				if (aMessage == MiningProtocol.STOP)
+					break;
+				if (aMessage != MiningProtocol.TASK)
+					throw new IOException("unexpected message: " + aMessage);
+
+				final long anId = theInput.readLong();
+				final Subgroup aSubgroup = MiningProtocol.readSubgroup(theInput, theTable, theSubgroupDiscovery.getResult());
+				es.execute(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						Collection<Subgroup> aSubgroups = new ArrayList<Subgroup>();
+						Collection<Candidate> aCandidates = new ArrayList<Candidate>();
+						long aCandidateCount = aRefiner.refine(aSubgroup, aSubgroups, aCandidates);
+						try
+						{
+							synchronized (theOutput)
+							{
+								MiningProtocol.writeResult(theOutput, anId, aCandidateCount, aSubgroups, aCandidates);
+							}
+						}
+						// the coordinator is gone, the reading Thread finds out
+						catch (IOException e) {}
+					}
+				});
+			}
+		}
+		finally
+		{
+			es.shutdownNow();
+			try { es.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS); }
+			catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+			theSubgroupDiscovery.postServe();
+		}
+	}
+
+	private static Socket connect(String theHost, int thePort) throws IOException
+	{
+		long anEnd = System.currentTimeMillis() + CONNECT_TIMEOUT;
+		while (true)
+		{
+			try
+			{
+				return new Socket(theHost, thePort);
+			}
+			catch (ConnectException e)
+			{
+				if (System.currentTimeMillis() > anEnd)
+					throw e;
+			}
+
+			try { Thread.sleep(CONNECT_RETRY_INTERVAL); }
+			catch (InterruptedException e) { throw new InterruptedIOException(); }
+		}
+	}
+
+	private static void showHelp()
+	{
+		Log.logCommandLine("");
+		Log.logCommandLine("Usage: java -cp subdisc-gui-2.xxxx.jar nl.liacs.subdisc.MiningWorker host port /path/to/file.xml [experiment] [nrThreads]");
+		Log.logCommandLine("");
+		Log.logCommandLine("host and port of the coordinator, a search using mining_engine 'distributed'");
+		Log.logCommandLine("");
+		Log.logCommandLine("file.xml is the AutoRun file of the coordinator, the worker loads the same Table");
+		Log.logCommandLine("");
+		Log.logCommandLine("optional experiment:");
+		Log.logCommandLine("index of the experiment in file.xml, default is 0");
+		Log.logCommandLine("");
+		Log.logCommandLine("optional nrThreads:");
+		Log.logCommandLine("positive integer indicating the number of threads to use");
+		Log.logCommandLine("default is " + Runtime.getRuntime().availableProcessors());
+		Log.logCommandLine("");
+		System.exit(0);
+	}
+}
@@ -18,11 +18,20 @@ public class Process
 	public static SubgroupDiscovery runSubgroupDiscovery(Table theTable, int theFold, BitSet theSelection, SearchParameters theSearchParameters, 
 							     boolean showWindows, int theNrThreads, JFrame theMainWindow)
 	{
-		TargetType aTargetType = theSearchParameters.getTargetConcept().getTargetType();
+		return runSubgroupDiscovery(theTable, theFold, theSelection, theSearchParameters, showWindows, theNrThreads, theMainWindow, false);
+	}
 
-		if (!TargetType.isImplemented(aTargetType))
-			return null;
+	// as runSubgroupDiscovery(), continues from SearchParameters.getCheckpointFile() if it exists
+	public static SubgroupDiscovery resumeSubgroupDiscovery(Table theTable, int theFold, BitSet theSelection, SearchParameters theSearchParameters, 
+								boolean showWindows, int theNrThreads, JFrame theMainWindow)
+	{
+		return runSubgroupDiscovery(theTable, theFold, theSelection, theSearchParameters, showWindows, theNrThreads, theMainWindow, true);
+	}
 
+	// the SubgroupDiscovery for the TargetType, used by MiningWorker also
+	static SubgroupDiscovery createSubgroupDiscovery(Table theTable, BitSet theSelection, SearchParameters theSearchParameters, JFrame theMainWindow)
+	{
+		TargetType aTargetType = theSearchParameters.getTargetConcept().getTargetType();
 		SubgroupDiscovery aSubgroupDiscovery = null;
 
 		switch (aTargetType)
@@ -39,25 +48,10 @@ public class Process
 			}
 			case SINGLE_NUMERIC :
 			{
-				// new runCAUC() receives result after SD.mine()
-				// not fully implemented yet
-				if (CAUC_HEAVY)
-				{
-					caucHeavy(theTable, theFold, theSelection, theSearchParameters, showWindows, theNrThreads);
-					return null;
-				}
-				else if (SubgroupDiscovery.TEMPORARY_CODE)
-				{
-					temporaryCode(theTable, theSelection, theSearchParameters);
-					return null;
-				}
-				else
-				{
-					//recompute this number, as we may be dealing with cross-validation here, and hence a different value
-					float aTargetAverage = theSearchParameters.getTargetConcept().getPrimaryTarget().getAverage(theSelection);
-					Log.logCommandLine("average: " + aTargetAverage);
-					aSubgroupDiscovery = new SubgroupDiscovery(theSearchParameters, theTable, theSelection, aTargetAverage, theMainWindow);
-				}
+				//recompute this number, as we may be dealing with cross-validation here, and hence a different value
+				float aTargetAverage = theSearchParameters.getTargetConcept().getPrimaryTarget().getAverage(theSelection);
+				Log.logCommandLine("average: " + aTargetAverage);
+				aSubgroupDiscovery = new SubgroupDiscovery(theSearchParameters, theTable, theSelection, aTargetAverage, theMainWindow);
 				break;
 			}
 			case MULTI_NUMERIC :
@@ -102,6 +96,36 @@ public class Process
 			}
 		}
 
+		return aSubgroupDiscovery;
+	}
+
+	private static SubgroupDiscovery runSubgroupDiscovery(Table theTable, int theFold, BitSet theSelection, SearchParameters theSearchParameters, 
+							      boolean showWindows, int theNrThreads, JFrame theMainWindow, boolean isResume)
+	{
+		TargetType aTargetType = theSearchParameters.getTargetConcept().getTargetType();
+
+		if (!TargetType.isImplemented(aTargetType))
+			return null;
+
+		if (aTargetType == TargetType.SINGLE_NUMERIC)
+		{
+			// new runCAUC() receives result after SD.mine()
+			// not fully implemented yet
+			if (CAUC_HEAVY)
+			{
+				caucHeavy(theTable, theFold, theSelection, theSearchParameters, showWindows, theNrThreads);
+				return null;
+			}
+			else if (SubgroupDiscovery.TEMPORARY_CODE)
+			{
+				temporaryCode(theTable, theSelection, theSearchParameters);
+				return null;
+			}
+		}
+
+		SubgroupDiscovery aSubgroupDiscovery = createSubgroupDiscovery(theTable, theSelection, theSearchParameters, theMainWindow);
+
+		aSubgroupDiscovery.setResume(isResume);
 		long aBegin = System.currentTimeMillis();
 		aSubgroupDiscovery.mine(System.currentTimeMillis(), theNrThreads);
 		// if 2nd argument to above mine() is < 0, you effectively run:
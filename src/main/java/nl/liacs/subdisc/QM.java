@@ -335,6 +335,28 @@ public enum QM implements EnumInterface
 				requiredStats(qm);
 	}
 
+	private static final Set<QM> OPTIMISTIC_ESTIMATE = Collections.unmodifiableSet(EnumSet.of(
+			WRACC, CORTANA_QUALITY, CHI_SQUARED, BINOMIAL,
+			Z_SCORE, INVERSE_Z_SCORE, ABS_Z_SCORE, AVERAGE, INVERSE_AVERAGE, MEAN_TEST, INVERSE_MEAN_TEST, ABS_MEAN_TEST));
+
+	/**
+	 * Returns whether {@link QualityMeasure#getOptimisticEstimate} is
+	 * implemented for the supplied QM parameter.
+	 *
+	 * An optimistic estimate is an upper bound for the quality of all
+	 * subsets of a Subgroup, a Candidate can be pruned when the upper
+	 * bound can not enter the result set.
+	 *
+	 * @param theQM the QM to check.
+	 *
+	 * @return <code>true</code> if an optimistic estimate is available,
+	 * <code>false</code> otherwise.
+	 */
+	public static boolean hasOptimisticEstimate(QM theQM)
+	{
+		return OPTIMISTIC_ESTIMATE.contains(theQM);
+	}
+
 	@Override
 	public String toString() { return GUI_TEXT; }
 }
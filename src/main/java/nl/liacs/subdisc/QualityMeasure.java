@@ -33,12 +33,12 @@ public class QualityMeasure
 	private static float itsBeta;
 	private static boolean[][] itsVStructures;
 
-	// XXX MM - why are these static fields
 	//SCAPE
-	private static Column itsBinaryTarget;
-	private static Column itsNumericTarget;
-	private static int[] itsDescendingOrderingPermutation;
-	private static float itsOverallSubrankingLoss = 0.0f; // MUST BE 0.0f at first call
+	private Column itsBinaryTarget;
+	private Column itsNumericTarget;
+	private int[] itsDescendingOrderingPermutation;
+	private float itsOverallSubrankingLoss = 0.0f;
+	private SubrankingLoss itsSubrankingLoss;          // visits Subgroup members only
 
 	//LABEL_RANKING
 	private LabelRanking itsAverageRanking = null;
@@ -238,6 +238,54 @@ public class QualityMeasure
 		return calculate(itsQualityMeasure, itsNrRecords, itsTotalTargetCoverage, theCountHeadBody, theCoverage);
 	}
 
+	/**
+	 * Returns an optimistic estimate for the SINGLE_NOMINAL quality of all
+	 * subsets of a Subgroup with the supplied counts.
+	 * No refinement of such a Subgroup can have a quality that is higher
+	 * than the returned value.
+	 *
+	 * A subset has HB' <= HB positives, and B'-HB' <= B-HB negatives.
+	 * WRAcc, Cortana Quality and the Binomial test increase with HB' and
+	 * decrease with B'-HB', so the best subset would select all positives
+	 * and no negatives (B' = HB' = HB).
+	 * Chi-squared is convex in (B', HB'), so its maximum over the
+	 * parallelogram of possible subsets is at one of its vertices.
+	 *
+	 * @param theCountHeadBody the number of positives in the Subgroup.
+	 * @param theCoverage the size of the Subgroup.
+	 *
+	 * @return the optimistic estimate.
+	 *
+	 * @see QM#hasOptimisticEstimate(QM)
+	 */
+	public double getOptimisticEstimate(int theCountHeadBody, int theCoverage)
+	{
+		assert (theCountHeadBody >= 0);
+		assert (theCountHeadBody <= theCoverage);
+		assert (theCoverage <= itsNrRecords);
+
+		int N = itsNrRecords;
+		int H = itsTotalTargetCoverage;
+
+		switch (itsQualityMeasure)
+		{
+			case WRACC :
+			case CORTANA_QUALITY :
+			case BINOMIAL :
+				return calculate(itsQualityMeasure, N, H, theCountHeadBody, theCountHeadBody);
+			case CHI_SQUARED :
+			{
+				// vertex (0, 0) has quality 0.0, which chi-squared never undercuts
+				double aPositives = calculate(itsQualityMeasure, N, H, theCountHeadBody, theCountHeadBody);
+				double aNegatives = calculate(itsQualityMeasure, N, H, 0, theCoverage - theCountHeadBody);
+				double aSelf      = calculate(itsQualityMeasure, N, H, theCountHeadBody, theCoverage);
+				return Math.max(aSelf, Math.max(aPositives, aNegatives));
+			}
+			default :
+				throw new IllegalArgumentException("QualityMeasure: no optimistic estimate for " + itsQualityMeasure);
+		}
+	}
+
 	//SINGLE_NOMINAL =======================================================
 	/*
 	 * int counts are cast to double inside this method. Float should not be used to represent int counts
@@ -1179,6 +1227,96 @@ public class QualityMeasure
 		return aReturn;
 	}
 
+	/**
+	 * Returns an optimistic estimate for the SINGLE_NUMERIC quality of all
+	 * subsets of a Subgroup with the supplied target values.
+	 * No refinement of such a Subgroup can have a quality that is higher
+	 * than the returned value.
+	 *
+	 * For a fixed number of values k, the mean and z-score measures only
+	 * depend on the sum of the values, so the best subset of size k holds
+	 * the k highest (or for the inverse measures lowest) values.
+	 * The estimate is the maximum over all k, increased by the error that
+	 * the float summation of {@link #calculate(Statistics,
+	 * ProbabilityDensityFunction)} could introduce.
+	 *
+	 * @param theValues the non-missing target values of the Subgroup,
+	 * the array is sorted by this method.
+	 * @param theMinimumCount the minimum number of target values of a
+	 * subset that is relevant, values < 1 are treated as 1.
+	 *
+	 * @return the optimistic estimate, or
+	 * <code>Double.POSITIVE_INFINITY</code> if no estimate can be made.
+	 *
+	 * @see QM#hasOptimisticEstimate(QM)
+	 */
+	public double getOptimisticEstimate(float[] theValues, int theMinimumCount)
+	{
+		int n = theValues.length;
+		if (n == 0)
+			return Double.POSITIVE_INFINITY;
+
+		final boolean useTop;
+		final boolean useBottom;
+		final boolean isStandardised;
+		final boolean isMean;
+		switch (itsQualityMeasure)
+		{
+			case Z_SCORE :			useTop = true;  useBottom = false; isStandardised = true;  isMean = false; break;
+			case INVERSE_Z_SCORE :		useTop = false; useBottom = true;  isStandardised = true;  isMean = false; break;
+			case ABS_Z_SCORE :		useTop = true;  useBottom = true;  isStandardised = true;  isMean = false; break;
+			case MEAN_TEST :		useTop = true;  useBottom = false; isStandardised = false; isMean = false; break;
+			case INVERSE_MEAN_TEST :	useTop = false; useBottom = true;  isStandardised = false; isMean = false; break;
+			case ABS_MEAN_TEST :		useTop = true;  useBottom = true;  isStandardised = false; isMean = false; break;
+			case AVERAGE :			useTop = true;  useBottom = false; isStandardised = false; isMean = true;  break;
+			case INVERSE_AVERAGE :		useTop = false; useBottom = true;  isStandardised = false; isMean = true;  break;
+			default :
+				throw new IllegalArgumentException("QualityMeasure: no optimistic estimate for " + itsQualityMeasure);
+		}
+
+		// calculate() returns 0.0 for these, but the estimate is not needed
+		if (isStandardised && ((itsNrRecords <= 1) || !(itsTotalStandardDeviation > 0.0f)))
+			return Double.POSITIVE_INFINITY;
+
+		Arrays.sort(theValues);
+
+		// quality = (sum - k*aCentre) / aDivisor(k), see calculate()
+		double aCentre = (isMean ? 0.0 : itsTotalAverage);
+		double anAbsoluteSum = 0.0;
+		double aMaxAbsolute = 0.0;
+		for (float f : theValues)
+		{
+			anAbsoluteSum += Math.abs(f);
+			aMaxAbsolute = Math.max(aMaxAbsolute, Math.abs(f));
+		}
+
+		double aTop = 0.0;
+		double aBottom = 0.0;
+		double anEstimate = Double.NEGATIVE_INFINITY;
+		double u = Math.ulp(1.0f);
+		for (int k = 1, aMinimum = Math.min(Math.max(1, theMinimumCount), n); k <= n; ++k)
+		{
+			aTop    += theValues[n-k];
+			aBottom += theValues[k-1];
+
+			if (k < aMinimum)
+				continue;
+
+			double aDivisor = (isMean ? k : (isStandardised ? Math.sqrt(k) * itsTotalStandardDeviation : Math.sqrt(k)));
+			// float summation error of k values, plus that of the remaining operations
+			double aSlack = (k + 2) * u * (Math.min(anAbsoluteSum, k * aMaxAbsolute) + k * Math.abs(aCentre)) / aDivisor;
+
+			double aHigh = (aTop - (k * aCentre)) / aDivisor;
+			double aLow  = (aBottom - (k * aCentre)) / aDivisor;
+			if (useTop)
+				anEstimate = Math.max(anEstimate, (useBottom ? Math.abs(aHigh) : aHigh) + aSlack);
+			if (useBottom)
+				anEstimate = Math.max(anEstimate, (useTop ? Math.abs(aLow) : -aLow) + aSlack);
+		}
+
+		return anEstimate;
+	}
+
 	// FOR FUTURE USE - many calculations above are incorrect for large N
 	//                  see comment on coverage for SingleBinary calculate
 	private final double calculate2(Statistics theStatistics, ProbabilityDensityFunction thePDF)
@@ -1586,6 +1724,7 @@ public class QualityMeasure
 
 		itsDescendingOrderingPermutation = generateOrderingPermutation();
 		assert(generateOrderingPermutationTest());
+		itsSubrankingLoss = new SubrankingLoss(itsBinaryTarget, itsNumericTarget, itsDescendingOrderingPermutation);
 
 		setAverageSubrankingLoss();
 	}
@@ -1654,8 +1793,15 @@ public class QualityMeasure
 	}
 
 	// relies on itsOverallSubrankingLoss being 0.0f on first call
+	// so for NEGATIVE_SUBRANKING_LOSS and REVERSE_RELATIVE_SUBRANKING_LOSS it
+	// is minus the subranking loss of the whole dataset
+	// NOTE it used to be static, so a second QualityMeasure used the value
+	//      of the first, it is per QualityMeasure now
 	private void setAverageSubrankingLoss()
 	{
+		if (itsNrRecords <= 1)
+			return;
+
 		BitSet theWholeDataset = new BitSet(itsNrRecords);
 		theWholeDataset.set(0, itsNrRecords);
 		itsOverallSubrankingLoss = calculate(theWholeDataset, itsNrRecords, itsTotalTargetCoverage);
@@ -1668,16 +1814,42 @@ public class QualityMeasure
 		if (itsNrRecords <= 1)
 			return 0.0f;
 
+		return calculateScape(calculateSubrankingLoss(theSubgroup, theCoverage, theTargetCoverage));
+	}
+
+	/**
+	 * Returns the quality for a Subgroup with the specified ranking loss, as
+	 * obtained from a {@link SubrankingLoss.Sweep}, that scores all thresholds
+	 * of a numeric refinement in a single pass.
+	 *
+	 * @param theTotalRankingLoss twice the ranking loss, see
+	 * {@link SubrankingLoss}.
+	 * @param theNrPositives the number of positives in the Subgroup.
+	 *
+	 * @return the quality.
+	 */
+	public float calculate(long theTotalRankingLoss, int theNrPositives)
+	{
+		if (itsNrRecords <= 1)
+			return 0.0f;
+
+		return calculateScape(getSubrankingLoss(theTotalRankingLoss, theNrPositives));
+	}
+
+	SubrankingLoss getSubrankingLoss() { return itsSubrankingLoss; }
+
+	private float calculateScape(float theSubrankingLoss)
+	{
 		switch (itsQualityMeasure)
 		{
 			case SUBRANKING_LOSS :
-				return calculateSubrankingLoss(theSubgroup, theCoverage, theTargetCoverage);
+				return theSubrankingLoss;
 			case NEGATIVE_SUBRANKING_LOSS :
-				return -calculateSubrankingLoss(theSubgroup, theCoverage, theTargetCoverage);
+				return -theSubrankingLoss;
 			case RELATIVE_SUBRANKING_LOSS :
-				return (calculateSubrankingLoss(theSubgroup, theCoverage, theTargetCoverage) - itsOverallSubrankingLoss);
+				return (theSubrankingLoss - itsOverallSubrankingLoss);
 			case REVERSE_RELATIVE_SUBRANKING_LOSS :
-				return (itsOverallSubrankingLoss - calculateSubrankingLoss(theSubgroup, theCoverage, theTargetCoverage));
+				return (itsOverallSubrankingLoss - theSubrankingLoss);
 			default :
 			{
 				/*
@@ -1742,7 +1914,25 @@ public class QualityMeasure
 		return aTotalRankingLoss / (float) theNrPositives;
 	}*/
 
+	/*
+	 * Visits the members of theSubgroup only, in the order of the numeric
+	 * target, see SubrankingLoss, the result is the same as that of
+	 * calculateSubrankingLossFullScan(), but the loss is summed in a long
+	 */
 	public float calculateSubrankingLoss(BitSet theSubgroup, int theCoverage, int theNrPositives)
+	{
+		return getSubrankingLoss(itsSubrankingLoss.getTotalRankingLoss(theSubgroup), theNrPositives);
+	}
+
+	// theTotalRankingLoss is twice the loss, ties count 1/2
+	private static float getSubrankingLoss(long theTotalRankingLoss, int theNrPositives)
+	{
+		return (float) ((double) theTotalRankingLoss / (theNrPositives * 2.0));
+	}
+
+	// original version, walks all records in the order of the numeric target
+	// kept for comparison, the int loss overflows for large data
+	float calculateSubrankingLossFullScan(BitSet theSubgroup, int theCoverage, int theNrPositives)
 	{
 		// Statistics for the main loop, counting the results that have been completely handled so far
 		int aNrNegatives = theCoverage-theNrPositives;
@@ -1,6 +1,5 @@
 package nl.liacs.subdisc;
 
-import java.awt.geom.*;
 import java.util.*;
 
 import nl.liacs.subdisc.Jama.*;
@@ -13,17 +12,25 @@ public class RegressionMeasure
 	private double itsXYSum;// SUM(x*y)
 	private double itsXSquaredSum;// SUM(x*x)
 	private double itsYSquaredSum;// SUM(y*y)
+	// NOTE the sums above are of x-itsXShift and y-itsYShift, in double, the
+	//      shifts are the means of the base, so for large values the sums
+	//      (and those of a complement) do not cancel catastrophically
+	private double itsXShift;
+	private double itsYShift;
 
 	private double itsErrorTermSquaredSum;//Sum of all the squared error terms, changes whenever the regression function is updated
 	private double itsComplementErrorTermSquaredSum;//Sum of all the squared error terms of this complement, changes whenever the regression function is updated
+	// NOTE the error terms follow from the sums above, see updateErrorTerms()
+	//      so a non-base RM does not store its datapoints, nor those of its
+	//      complement, the complement sums are those of the base minus these
 
 	private double itsSlope; //The slope-value of the regression function
 	private double itsIntercept;//The intercept-value of the regression function
 
 	private double itsCorrelation;
 
-	private List<Point2D.Float> itsData;//Stores all the datapoints for this measure
-	private List<Point2D.Float> itsComplementData = new ArrayList<Point2D.Float>();//Stores all the datapoints for the complement
+	private float[] itsX;//Stores the X-values of all datapoints, for the base RM only
+	private float[] itsY;//Stores the Y-values of all datapoints, for the base RM only
 
 	final QM itsQualityMeasure;
 	private RegressionMeasure itsBase = null;
@@ -50,18 +57,25 @@ public class RegressionMeasure
 	{
 		itsQualityMeasure = theType;
 		itsSampleSize = thePrimaryColumn.size();
-		itsData = new ArrayList<Point2D.Float>(itsSampleSize);
+		itsX = new float[itsSampleSize];
+		itsY = new float[itsSampleSize];
 		for(int i=0; i<itsSampleSize; i++)
 		{
-			itsXSum += thePrimaryColumn.getFloat(i);
-			itsYSum += theSecondaryColumn.getFloat(i);
-			itsXYSum += thePrimaryColumn.getFloat(i)*theSecondaryColumn.getFloat(i);
-			itsXSquaredSum += thePrimaryColumn.getFloat(i)*thePrimaryColumn.getFloat(i);
-			itsYSquaredSum += theSecondaryColumn.getFloat(i)*theSecondaryColumn.getFloat(i);
-
-			itsData.add(new Point2D.Float(thePrimaryColumn.getFloat(i), theSecondaryColumn.getFloat(i)) );
+			itsX[i] = thePrimaryColumn.getFloat(i);
+			itsY[i] = theSecondaryColumn.getFloat(i);
+			itsXShift += itsX[i];
+			itsYShift += itsY[i];
+		}
+		if (itsSampleSize > 0)
+		{
+			itsXShift /= itsSampleSize;
+			itsYShift /= itsSampleSize;
 		}
 
+		itsSampleSize = 0;
+		for (int i = 0; i < itsX.length; ++i)
+			addObservation(itsX[i], itsY[i]);
+
 		switch (itsQualityMeasure)
 		{
 			//all require the same initialisation
@@ -71,7 +85,6 @@ public class RegressionMeasure
 			case REGRESSION_SSD_4:
 			{
 				itsBase = null; //this *is* the base
-				itsComplementData = null; //will remain empty for the base RM
 				updateRegressionFunction();
 				updateErrorTerms();
 				break;
@@ -84,13 +97,13 @@ public class RegressionMeasure
 				double[][] anXValues = new double[itsSampleSize][2];
 				for (int i=0; i<itsSampleSize; i++){
 					anXValues[i][0]=1;
-					anXValues[i][1]=itsData.get(i).getX();
+					anXValues[i][1]=itsX[i];
 					aData[i][0] = anXValues[i][1];
 				}
 				double[][] aYValues = new double[itsSampleSize][1];
 				for (int i=0; i<itsSampleSize; i++)
 				{
-					aYValues[i][0]=itsData.get(i).getY();
+					aYValues[i][0]=itsY[i];
 					aData[i][1] = aYValues[i][0];
 				}
 				Matrix anXMatrix = new Matrix(anXValues);
@@ -154,6 +167,7 @@ public class RegressionMeasure
 	}
 
 	//constructor for non-base RM. It derives from a base-RM
+	//only the members are visited, the complement follows from the base sums
 	public RegressionMeasure(RegressionMeasure theBase, BitSet theMembers)
 	{
 		itsQualityMeasure = theBase.itsQualityMeasure;
@@ -166,20 +180,13 @@ public class RegressionMeasure
 		itsXYSum = 0;
 		itsXSquaredSum = 0;
 		itsYSquaredSum = 0;
+		itsXShift = theBase.itsXShift;
+		itsYShift = theBase.itsYShift;
 
-		int aCoverage = theMembers.cardinality();
-		itsData = new ArrayList<Point2D.Float>(aCoverage);
-		itsComplementData =
-			new ArrayList<Point2D.Float>(itsBase.getSampleSize() - aCoverage); //create empty one. will be filled after update()
-
-		for (int i=0; i<itsBase.getSampleSize(); i++)
-		{
-			Point2D.Float anObservation = itsBase.getObservation(i);
-			if (theMembers.get(i))
-				addObservation(anObservation);
-			else //complement
-				itsComplementData.add(anObservation);
-		}
+		float[] anX = itsBase.itsX;
+		float[] aY = itsBase.itsY;
+		for (int i = theMembers.nextSetBit(0); i >= 0 && i < anX.length; i = theMembers.nextSetBit(i + 1))
+			addObservation(anX[i], aY[i]);
 	}
 
 	//TODO test and verify method
@@ -431,8 +438,9 @@ public class RegressionMeasure
 	 */
 	private void updateRegressionFunction()
 	{
-		double aXMean = itsXSum / itsSampleSize;
-		double aYMean = itsYSum / itsSampleSize;
+		double aXMean = itsXSum / itsSampleSize + itsXShift;
+		double aYMean = itsYSum / itsSampleSize + itsYShift;
+		// the slope does not depend on the shift
 		itsSlope = getSlope(itsXSum, itsYSum, itsXSquaredSum, itsXYSum, itsSampleSize);
 		itsIntercept = aYMean - itsSlope*aXMean;
 	}
@@ -449,92 +457,68 @@ public class RegressionMeasure
 	/**
 	 * Add a new datapoint to this measure, where the Y-value is the target variable.
 	 * Always call update() after all datapoints have been added.
-	 * @param theY the Y-value, the target
 	 * @param theX the X-value
+	 * @param theY the Y-value, the target
 	 */
-	// never used
-	@Deprecated
-	private void addObservation(float theY, float theX)
-	{
-		//adjust the sums
-		itsSampleSize++;
-		itsXSum += theX;
-		itsYSum += theY;
-		itsXYSum += theX*theY;
-		itsXSquaredSum += theX*theX;
-		itsYSquaredSum += theY*theY;
-
-		//Add to its own lists
-		Point2D.Float aDataPoint = new Point2D.Float(theX,theY);
-		itsData.add(aDataPoint);
-	}
-
-	private void addObservation(Point2D.Float theObservation)
+	private void addObservation(float theX, float theY)
 	{
-		float anX = (float) theObservation.getX();
-		float aY = (float) theObservation.getY();
-
-		//adjust the sums
+		double x = theX - itsXShift;
+		double y = theY - itsYShift;
+		//adjust the sums, in double, of the shifted values
 		itsSampleSize++;
-		itsXSum += anX;
-		itsYSum += aY;
-		itsXYSum += anX*aY;
-		itsXSquaredSum += anX*anX;
-		itsYSquaredSum += aY*aY;
-
-		//Add to its own lists
-		itsData.add(theObservation);
-	}
-
-	private Point2D.Float getObservation(int theIndex)
-	{
-		return itsData.get(theIndex);
+		itsXSum += x;
+		itsYSum += y;
+		itsXYSum += x*y;
+		itsXSquaredSum += x*x;
+		itsYSquaredSum += y*y;
 	}
 
 	/**
 	 * calculates the error terms for the distribution and recomputes the
 	 * sum of the squared error term
+	 * the complement uses the regression function of this measure also
 	 *
 	 */
 	private void updateErrorTerms()
 	{
-		itsErrorTermSquaredSum = 0;
-		for(int i=0; i<itsSampleSize; i++)
-		{
-			double anErrorTerm = getErrorTerm(itsData.get(i));
-			itsErrorTermSquaredSum += anErrorTerm*anErrorTerm;
-		}
+		itsErrorTermSquaredSum = getErrorTermSquaredSum(itsSampleSize, itsXSum, itsYSum, itsXSquaredSum, itsXYSum, itsYSquaredSum);
 
 		//update the error terms of the complement of this measure, if present
 		if(itsBase!=null)
 		{
-			itsComplementErrorTermSquaredSum=0;
-			for(int i=0; i<(itsBase.getSampleSize()-itsSampleSize); i++)
-			{
-				if(itsComplementData.size()!=itsBase.getSampleSize()-itsSampleSize)
-					System.err.println("incorrect computation of complement!");
-				double anErrorTerm = getErrorTerm(itsComplementData.get(i));
-				itsComplementErrorTermSquaredSum += anErrorTerm*anErrorTerm;
-			}
+			itsComplementErrorTermSquaredSum = getErrorTermSquaredSum(itsBase.getSampleSize()-itsSampleSize,
+										itsBase.getXSum()-itsXSum,
+										itsBase.getYSum()-itsYSum,
+										itsBase.getXSquaredSum()-itsXSquaredSum,
+										itsBase.getXYSum()-itsXYSum,
+										itsBase.itsYSquaredSum-itsYSquaredSum);
 		}
-
 	}
 
 	/**
-	 * Determine the error term for a given point
-	 *
-	 * @param theX the x-value
-	 * @param theY the y-value
-	 * @return the error term
+	 * Determine SUM( (y_n - (b*x_n + a))^2 ) for the current regression
+	 * function from the sums of a set of datapoints, instead of from the
+	 * datapoints themselves, with e_n = (y_n - y_mean) - b*(x_n - x_mean) + d
+	 * and d = y_mean - b*x_mean - a, this is
+	 * Syy - 2*b*Sxy + b*b*Sxx + n*d*d, where S are the sums of the centered
+	 * values
+	 * NOTE the sums are of the shifted values, see itsXShift, the S and the
+	 * result would be lost to cancellation for the plain sums of large values
 	 */
-	private double getErrorTerm(double theX, double theY)
+	private double getErrorTermSquaredSum(double theSampleSize, double theXSum, double theYSum, double theXSquaredSum, double theXYSum, double theYSquaredSum)
 	{
-		return theY - (itsSlope*theX+itsIntercept);
-	}
+		if (theSampleSize == 0)
+			return 0;
 
-	private double getErrorTerm(Point2D.Float theDataPoint)
-	{
-		return getErrorTerm(theDataPoint.getX(), theDataPoint.getY());
+		double aXMean = theXSum / theSampleSize;
+		double aYMean = theYSum / theSampleSize;
+		double aSxx = theXSquaredSum - theXSum*aXMean;
+		double aSxy = theXYSum - theXSum*aYMean;
+		double aSyy = theYSquaredSum - theYSum*aYMean;
+		double d = (aYMean + itsYShift) - itsSlope*(aXMean + itsXShift) - itsIntercept;
+
+		// rounding may make a (near) perfect fit slightly negative
+		return Math.max(0.0, aSyy - 2*itsSlope*aSxy + itsSlope*itsSlope*aSxx + theSampleSize*d*d);
 	}
 
 	private double getErrorTermVariance(double theErrorTermSquaredSum, double theSampleSize)
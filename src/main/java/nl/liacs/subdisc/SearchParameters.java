@@ -15,8 +15,11 @@ public class SearchParameters implements XMLNodeInterface
 	public static final float ALPHA_DEFAULT = 0.5f;
 	public static final float BETA_DEFAULT = 1.0f;
 	public static final int POST_PROCESSING_COUNT_DEFAULT = 20;
+	public static final float CHECKPOINT_INTERVAL_DEFAULT = 10.0f; // minutes
+	// only MiningWorkers on the same machine can connect, use 0.0.0.0 for all interfaces
+	public static final String DISTRIBUTED_ADDRESS_DEFAULT = java.net.InetAddress.getLoopbackAddress().getHostAddress();
 
-	// when adding/removing members be sure to update addNodeTo() and loadData()
+	// when adding/removing members be sure to update addNodeTo(), loadData() and copy()
 	private TargetConcept	itsTargetConcept;
 	private QM		itsQualityMeasure;
 	private float		itsQualityMeasureMinimum;
@@ -37,6 +40,13 @@ public class SearchParameters implements XMLNodeInterface
 	private NumericStrategy	itsNumericStrategy;
 	private int		itsNrBins;
 	private int		itsNrThreads;
+	private MiningEngine	itsMiningEngine = MiningEngine.getDefault();
+	private MemberSetType	itsMemberSetType = MemberSetType.getDefault();
+	private String		itsCheckpointFile = ""; // empty for no checkpoints
+	private float		itsCheckpointInterval = CHECKPOINT_INTERVAL_DEFAULT;
+	private String		itsDistributedAddress = DISTRIBUTED_ADDRESS_DEFAULT; // the coordinator binds to it
+	private int		itsDistributedPort = 0; // 0 for any free port
+	private int		itsDistributedWorkers = 1;
 
 	private float		itsAlpha;
 	private float		itsBeta;
@@ -48,6 +58,26 @@ public class SearchParameters implements XMLNodeInterface
 	// TODO MM add to loadData() + autorun.dtd
 	private List<ConditionList> itsBeamSeed;
 
+	// package-private settings, for testing, not in addNodeTo() and loadData()
+	// when > 0, mining stops after this number of checkpoints, as if the process died
+	private int		itsCheckpointStopAfter = 0;
+	// when false, Candidates are never pruned by their optimistic estimate
+	private boolean		itsUseOptimisticEstimates = true;
+	// when false, SINGLE_NUMERIC uses the generic code path, for comparisons
+	private boolean		itsUseDirectSingleNumeric = true;
+	// when false, SCAPE uses the generic code path, for comparisons
+	private boolean		itsUseDirectScape = true;
+	// when false, DOUBLE_CORRELATION uses the generic code path, for comparisons
+	private boolean		itsUseDirectDoubleCorrelation = true;
+	// when true, MULTI_LABEL Subgroups climb() from the DAG of the whole dataset
+	// instead of from an empty DAG
+	// not in the fingerprint, MULTI_LABEL has no checkpoints or MiningWorkers
+	private boolean		itsUseMultiLabelWarmStart = false;
+	// for non-beam SearchStrategies, see CandidateQueue
+	private int		itsMaximumInMemoryCandidates = CandidateQueue.MAXIMUM_IN_MEMORY_CANDIDATES;
+	// in bytes, when 0, no ExtentCache is used, for comparisons
+	private long		itsExtentCacheCapacity = ExtentCache.DEFAULT_CAPACITY;
+
 	public SearchParameters(Node theSearchParametersNode)
 	{
 		loadData(theSearchParametersNode);
@@ -69,6 +99,65 @@ public class SearchParameters implements XMLNodeInterface
 		itsPostProcessingDoAutoRun = true;
 	}
 
+	/**
+	 * Returns a copy of this SearchParameters, that uses the same
+	 * {@link TargetConcept}, use {@link #setTargetConcept(TargetConcept)}
+	 * on the copy to change it.
+	 *
+	 * @return a copy of this SearchParameters.
+	 */
+	public SearchParameters copy()
+	{
+		SearchParameters aCopy = new SearchParameters();
+		aCopy.itsTargetConcept = itsTargetConcept;
+		aCopy.itsQualityMeasure = itsQualityMeasure;
+		aCopy.itsQualityMeasureMinimum = itsQualityMeasureMinimum;
+
+		aCopy.itsSearchDepth = itsSearchDepth;
+		aCopy.itsMinimumCoverage = itsMinimumCoverage;
+		aCopy.itsMaximumCoverageFraction = itsMaximumCoverageFraction;
+		aCopy.itsMinimumSupport = itsMinimumSupport;
+		aCopy.itsMaximumSubgroups = itsMaximumSubgroups;
+		aCopy.itsFilterSubgroups = itsFilterSubgroups;
+		aCopy.itsMinimumImprovement = itsMinimumImprovement;
+		aCopy.itsMaximumTime = itsMaximumTime;
+
+		aCopy.itsSearchStrategy = itsSearchStrategy;
+		aCopy.itsSearchStrategyWidth = itsSearchStrategyWidth;
+		aCopy.itsNominalSets = itsNominalSets;
+		aCopy.itsNumericOperatorSetting = itsNumericOperatorSetting;
+		aCopy.itsNumericStrategy = itsNumericStrategy;
+		aCopy.itsNrBins = itsNrBins;
+		aCopy.itsNrThreads = itsNrThreads;
+		aCopy.itsMiningEngine = itsMiningEngine;
+		aCopy.itsMemberSetType = itsMemberSetType;
+		aCopy.itsCheckpointFile = itsCheckpointFile;
+		aCopy.itsCheckpointInterval = itsCheckpointInterval;
+		aCopy.itsDistributedAddress = itsDistributedAddress;
+		aCopy.itsDistributedPort = itsDistributedPort;
+		aCopy.itsDistributedWorkers = itsDistributedWorkers;
+
+		aCopy.itsAlpha = itsAlpha;
+		aCopy.itsBeta = itsBeta;
+		aCopy.itsPostProcessingDoAutoRun = itsPostProcessingDoAutoRun;
+		aCopy.itsPostProcessingCount = itsPostProcessingCount;
+
+		aCopy.itsOverallRankingLoss = itsOverallRankingLoss;
+
+		aCopy.itsBeamSeed = itsBeamSeed;
+
+		aCopy.itsCheckpointStopAfter = itsCheckpointStopAfter;
+		aCopy.itsUseOptimisticEstimates = itsUseOptimisticEstimates;
+		aCopy.itsUseDirectSingleNumeric = itsUseDirectSingleNumeric;
+		aCopy.itsUseDirectScape = itsUseDirectScape;
+		aCopy.itsUseDirectDoubleCorrelation = itsUseDirectDoubleCorrelation;
+		aCopy.itsUseMultiLabelWarmStart = itsUseMultiLabelWarmStart;
+		aCopy.itsMaximumInMemoryCandidates = itsMaximumInMemoryCandidates;
+		aCopy.itsExtentCacheCapacity = itsExtentCacheCapacity;
+
+		return aCopy;
+	}
+
 	// FIXME MM -> NONE OF THESE METHODS PERFORM INPUT VALIDATION
 	/* QUALITY MEASURE */
 	public TargetConcept getTargetConcept() { return itsTargetConcept; }
@@ -154,6 +243,20 @@ public class SearchParameters implements XMLNodeInterface
 	public void setNrBins(int theNrBins)				{ itsNrBins = theNrBins; }
 	public int getNrThreads()					{ return itsNrThreads; }
 	public void setNrThreads(int theNrThreads)			{ itsNrThreads = theNrThreads; }
+	public MiningEngine getMiningEngine()				{ return itsMiningEngine; }
+	public void setMiningEngine(MiningEngine theMiningEngine)	{ itsMiningEngine = theMiningEngine; }
+	public MemberSetType getMemberSetType()				{ return itsMemberSetType; }
+	public void setMemberSetType(MemberSetType theMemberSetType)	{ itsMemberSetType = theMemberSetType; }
+	public String getCheckpointFile()				{ return itsCheckpointFile; }
+	public void setCheckpointFile(String theCheckpointFile)	{ itsCheckpointFile = theCheckpointFile; }
+	public float getCheckpointInterval()				{ return itsCheckpointInterval; }
+	public void setCheckpointInterval(float theCheckpointInterval)	{ itsCheckpointInterval = theCheckpointInterval; }
+	public String getDistributedAddress()				{ return itsDistributedAddress; }
+	public void setDistributedAddress(String theDistributedAddress)	{ itsDistributedAddress = theDistributedAddress; }
+	public int getDistributedPort()					{ return itsDistributedPort; }
+	public void setDistributedPort(int theDistributedPort)		{ itsDistributedPort = theDistributedPort; }
+	public int getDistributedWorkers()				{ return itsDistributedWorkers; }
+	public void setDistributedWorkers(int theDistributedWorkers)	{ itsDistributedWorkers = theDistributedWorkers; }
 	public float getAlpha()						{ return itsAlpha; }
 	public void setAlpha(float theAlpha)				{ itsAlpha = theAlpha; }
 	public float getBeta()						{ return itsBeta; }
@@ -169,6 +272,23 @@ public class SearchParameters implements XMLNodeInterface
 	public float getOverallRankingLoss()				{ return itsOverallRankingLoss; }
 	public void setOverallRankingLoss(float theOverallRankingLoss)	{ itsOverallRankingLoss = theOverallRankingLoss; }
 
+	int getCheckpointStopAfter()					{ return itsCheckpointStopAfter; }
+	void setCheckpointStopAfter(int theNrCheckpoints)		{ itsCheckpointStopAfter = theNrCheckpoints; }
+	boolean getUseOptimisticEstimates()				{ return itsUseOptimisticEstimates; }
+	void setUseOptimisticEstimates(boolean theUseOptimisticEstimates)	{ itsUseOptimisticEstimates = theUseOptimisticEstimates; }
+	boolean getUseDirectSingleNumeric()				{ return itsUseDirectSingleNumeric; }
+	void setUseDirectSingleNumeric(boolean theUseDirectSingleNumeric)	{ itsUseDirectSingleNumeric = theUseDirectSingleNumeric; }
+	boolean getUseDirectScape()					{ return itsUseDirectScape; }
+	void setUseDirectScape(boolean theUseDirectScape)		{ itsUseDirectScape = theUseDirectScape; }
+	boolean getUseDirectDoubleCorrelation()				{ return itsUseDirectDoubleCorrelation; }
+	void setUseDirectDoubleCorrelation(boolean theUseDirectDoubleCorrelation)	{ itsUseDirectDoubleCorrelation = theUseDirectDoubleCorrelation; }
+	boolean getUseMultiLabelWarmStart()				{ return itsUseMultiLabelWarmStart; }
+	void setUseMultiLabelWarmStart(boolean theUseMultiLabelWarmStart)	{ itsUseMultiLabelWarmStart = theUseMultiLabelWarmStart; }
+	int getMaximumInMemoryCandidates()				{ return itsMaximumInMemoryCandidates; }
+	void setMaximumInMemoryCandidates(int theNrCandidates)		{ itsMaximumInMemoryCandidates = theNrCandidates; }
+	long getExtentCacheCapacity()					{ return itsExtentCacheCapacity; }
+	void setExtentCacheCapacity(long theCapacity)			{ itsExtentCacheCapacity = theCapacity; }
+
 	/**
 	 * Creates an {@link XMLNode XMLNode} representation of this
 	 * SearchParameters.
@@ -197,6 +317,13 @@ public class SearchParameters implements XMLNodeInterface
 		XMLNode.addNodeTo(aNode, "numeric_strategy", getNumericStrategy().GUI_TEXT);
 		XMLNode.addNodeTo(aNode, "nr_bins", getNrBins());
 		XMLNode.addNodeTo(aNode, "nr_threads", getNrThreads());
+		XMLNode.addNodeTo(aNode, "mining_engine", getMiningEngine().GUI_TEXT);
+		XMLNode.addNodeTo(aNode, "member_set_type", getMemberSetType().GUI_TEXT);
+		XMLNode.addNodeTo(aNode, "checkpoint_file", getCheckpointFile());
+		XMLNode.addNodeTo(aNode, "checkpoint_interval", getCheckpointInterval());
+		XMLNode.addNodeTo(aNode, "distributed_address", getDistributedAddress());
+		XMLNode.addNodeTo(aNode, "distributed_port", getDistributedPort());
+		XMLNode.addNodeTo(aNode, "distributed_workers", getDistributedWorkers());
 		XMLNode.addNodeTo(aNode, "alpha", getAlpha());
 		XMLNode.addNodeTo(aNode, "beta", getBeta());
 		XMLNode.addNodeTo(aNode, "post_processing_do_autorun", getPostProcessingDoAutoRun());
@@ -252,6 +379,20 @@ public class SearchParameters implements XMLNodeInterface
 				itsNrBins = Integer.parseInt(aSetting.getTextContent());
 			else if("nr_threads".equalsIgnoreCase(aNodeName))
 				itsNrThreads = Integer.parseInt(aSetting.getTextContent());
+			else if("mining_engine".equalsIgnoreCase(aNodeName))
+				itsMiningEngine = MiningEngine.fromString(aSetting.getTextContent());
+			else if("member_set_type".equalsIgnoreCase(aNodeName))
+				itsMemberSetType = MemberSetType.fromString(aSetting.getTextContent());
+			else if("checkpoint_file".equalsIgnoreCase(aNodeName))
+				itsCheckpointFile = aSetting.getTextContent();
+			else if("checkpoint_interval".equalsIgnoreCase(aNodeName))
+				itsCheckpointInterval = Float.parseFloat(aSetting.getTextContent());
+			else if("distributed_address".equalsIgnoreCase(aNodeName))
+				itsDistributedAddress = aSetting.getTextContent();
+			else if("distributed_port".equalsIgnoreCase(aNodeName))
+				itsDistributedPort = Integer.parseInt(aSetting.getTextContent());
+			else if("distributed_workers".equalsIgnoreCase(aNodeName))
+				itsDistributedWorkers = Integer.parseInt(aSetting.getTextContent());
 			else if("alpha".equalsIgnoreCase(aNodeName))
 				itsAlpha = Float.parseFloat(aSetting.getTextContent());
 			else if("beta".equalsIgnoreCase(aNodeName))
@@ -293,6 +434,13 @@ public class SearchParameters implements XMLNodeInterface
 		addLine(sb, "numeric_strategy", getNumericStrategy().GUI_TEXT);
 		addLine(sb, "nr_bins", Integer.toString(getNrBins()));
 		addLine(sb, "nr_threads", Integer.toString(getNrThreads()));
+		addLine(sb, "mining_engine", getMiningEngine().GUI_TEXT);
+		addLine(sb, "member_set_type", getMemberSetType().GUI_TEXT);
+		addLine(sb, "checkpoint_file", getCheckpointFile());
+		addLine(sb, "checkpoint_interval", Float.toString(getCheckpointInterval()));
+		addLine(sb, "distributed_address", getDistributedAddress());
+		addLine(sb, "distributed_port", Integer.toString(getDistributedPort()));
+		addLine(sb, "distributed_workers", Integer.toString(getDistributedWorkers()));
 		addLine(sb, "alpha", Float.toString(getAlpha()));
 		addLine(sb, "beta", Float.toString(getBeta()));
 		addLine(sb, "post_processing_do_autorun", Boolean.toString(getPostProcessingDoAutoRun()));
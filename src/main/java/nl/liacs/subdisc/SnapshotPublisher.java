@@ -0,0 +1,104 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+ * NOTE publish() never blocks, every listener has a slot for one pending
+ * MiningSnapshot and a Thread of its own, a new snapshot replaces the pending
+ * one, so a listener that can not keep up only sees the latest state
+ * (conflation), and memory use is bounded by the number of listeners
+ * a snapshot is scheduled for delivery only when the slot was empty, so at
+ * most one delivery is queued per listener
+ */
+/**
+ * A SnapshotPublisher delivers {@link MiningSnapshot}s to
+ * {@link MiningListener}s, without blocking the publishing Thread.
+ */
+final class SnapshotPublisher
+{
+	private final List<Subscription> itsSubscriptions = new ArrayList<Subscription>();
+
+	void subscribe(MiningListener theListener)
+	{
+		itsSubscriptions.add(new Subscription(theListener));
+	}
+
+	boolean isEmpty()
+	{
+		return itsSubscriptions.isEmpty();
+	}
+
+	void publish(MiningSnapshot theSnapshot)
+	{
+		for (Subscription s : itsSubscriptions)
+			s.offer(theSnapshot);
+	}
+
+	// delivers pending snapshots, no snapshots can be published afterwards
+	void close()
+	{
+		for (Subscription s : itsSubscriptions)
+			s.itsExecutor.shutdown();
+		try
+		{
+			for (Subscription s : itsSubscriptions)
+				s.itsExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Subscription implements Runnable
+	{
+		private final MiningListener itsListener;
+		private final ExecutorService itsExecutor;
+		private final AtomicReference<MiningSnapshot> itsPending = new AtomicReference<MiningSnapshot>();
+		// only accessed by itsExecutor
+		private MiningSnapshot itsPrevious;
+
+		Subscription(MiningListener theListener)
+		{
+			itsListener = theListener;
+			itsExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable theRunnable)
+				{
+					Thread aThread = new Thread(theRunnable, "MiningListener");
+					aThread.setDaemon(true);
+					return aThread;
+				}
+			});
+		}
+
+		void offer(MiningSnapshot theSnapshot)
+		{
+			if (itsPending.getAndSet(theSnapshot) == null)
+				itsExecutor.execute(this);
+		}
+
+		@Override
+		public void run()
+		{
+			MiningSnapshot aSnapshot = itsPending.getAndSet(null);
+			// taken by an earlier run()
+			if (aSnapshot == null)
+				return;
+
+			MiningSnapshot aDelta = aSnapshot.delta(itsPrevious);
+			itsPrevious = aSnapshot;
+			try
+			{
+				itsListener.update(aDelta);
+			}
+			catch (RuntimeException e)
+			{
+				Log.logCommandLine("MiningListener error: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -51,6 +51,10 @@ public class Subgroup implements Comparable<Subgroup>
 	private BitSet itsMembers;
 	// required for members (can be null at any moment, so not a ReadWriteLock)
 	private final Lock itsMembersLock = new ReentrantLock();
+	// optional - compact copy of itsMembers, kept by killMembers(), see MemberSetType
+	private MemberSet itsMemberSet;
+	// optional - MemberSet of the Subgroup this one was refined from, for MemberSetType.DIFFSET
+	private MemberSet itsParentMemberSet;
 
 	// not strictly required - but easier in current setup, might change one day
 	private int itsID = 0;
@@ -108,7 +112,7 @@ public class Subgroup implements Comparable<Subgroup>
 
 	/*
 	 * package private
-	 * used only by Validation.getValidSubgroup((int,) int, Random)
+	 * used only by Validation.getRandomQualities(boolean, int)
 	 * most Subgroup methods will not work when using this Constructor but Validation is only interested in:
 	 * getMembers() (they should never be null in the Validation setting)
 	 * getCoverage()
@@ -177,9 +181,10 @@ public class Subgroup implements Comparable<Subgroup>
 		// evaluate() should not modify input, else use getMembers()
 		int check             = theSubgroup.itsCoverage;
 		Column c              = theCondition.getColumn();
-		BitSet aParentBitSet  = theSubgroup.getMembersUnsafe();
+		BitSet aParentBitSet  = theSubgroup.getMembersForRefinement();
 
 		constructorMembersInit(c.evaluate(aParentBitSet, theCondition));
+		itsParentMemberSet    = theSubgroup.getMemberSetForRefinements();
 
 		assert (aParentBitSet.cardinality() == check);
 	}
@@ -245,6 +250,7 @@ public class Subgroup implements Comparable<Subgroup>
 		itsMembersLock.lock();
 		try     { itsMembers = theNewSubgroupMembers; }
 		finally { itsMembersLock.unlock(); }
+		itsParentMemberSet = theSubgroup.getMemberSetForRefinements();
 	}
 
 	// for direct computation of qualities scores, bypass BitSet evaluation
@@ -275,6 +281,118 @@ public class Subgroup implements Comparable<Subgroup>
 		// itsLabelRanking
 		// itsLabelRankingMatrix
 		// itsRegressionModel
+		itsParentMemberSet    = theParent.getMemberSetForRefinements();
+	}
+
+	// for MemberSetType.DIFFSET only, returns null otherwise
+	// the MemberSet of this Subgroup, created once, and shared by all of its
+	// refinements, which store their members relative to it
+	private final MemberSet getMemberSetForRefinements()
+	{
+		// itsParentSet is null for the Validation constructor
+		if ((itsParentSet == null) || (itsParentSet.getMemberSetType() != MemberSetType.DIFFSET))
+			return null;
+
+		itsMembersLock.lock();
+		try
+		{
+			if (itsMemberSet == null)
+			{
+				itsMemberSet = MemberSetType.DIFFSET.create(getMembersUnsafe(), itsParentMemberSet);
+				// itsMemberSet now refers to it, when it is a DiffsetMemberSet
+				itsParentMemberSet = null;
+			}
+
+			return itsMemberSet;
+		}
+		finally
+		{
+			itsMembersLock.unlock();
+		}
+	}
+
+	// for MemberSetType.DIFFSET only, does nothing otherwise
+	// a Subgroup in the result should not keep the MemberSets of all of its
+	// ancestors alive, so its members are stored without reference to those
+	// of its parent, as a tid-list or BitSet, see SubgroupSet.update()
+	final void flattenMemberSet()
+	{
+		// itsParentSet is null for the Validation constructor
+		if ((itsParentSet == null) || (itsParentSet.getMemberSetType() != MemberSetType.DIFFSET))
+			return;
+
+		itsMembersLock.lock();
+		try
+		{
+			if (itsMemberSet instanceof DiffsetMemberSet)
+				itsMemberSet = MemberSetType.DIFFSET.create(itsMemberSet.toBitSet(), null);
+			else if ((itsMemberSet == null) && (itsParentMemberSet != null))
+			{
+				// direct computation never set itsMembers, do not keep them
+				boolean isKilled = (itsMembers == null);
+				itsMemberSet = MemberSetType.DIFFSET.create(getMembersUnsafe(), null);
+				itsParentMemberSet = null;
+				if (isKilled)
+					itsMembers = null;
+			}
+		}
+		finally
+		{
+			itsMembersLock.unlock();
+		}
+	}
+
+	// for testing, whether the members are stored relative to those of the parent
+	final boolean hasParentMemberSet()
+	{
+		itsMembersLock.lock();
+		try     { return (itsParentMemberSet != null) || (itsMemberSet instanceof DiffsetMemberSet); }
+		finally { itsMembersLock.unlock(); }
+	}
+
+	// for CandidateRun: a Subgroup read back from disk, its members are
+	// revived on demand, as for a killed Subgroup
+	Subgroup(ConditionList theConditions, int theCoverage, boolean hasQuality, double theQuality, double theSecondaryStatistic, double theTertiaryStatistic, SubgroupSet theSubgroupSet)
+	{
+		// not a public method, assert is enough
+		assert (theConditions != null);
+		assert (theCoverage > 0);
+		assert (theSubgroupSet != null);
+
+		itsConditions         = theConditions;
+		itsCoverage           = theCoverage;
+		itsParentSet          = theSubgroupSet;
+		this.hasQuality       = hasQuality;
+		itsMeasureValue       = theQuality;
+		itsSecondaryStatistic = theSecondaryStatistic;
+		itsTertiaryStatistic  = theTertiaryStatistic;
+		// itsMembers
+		// itsId
+		// isPValueComputed
+		// itsPValue
+		// itsDAG
+		// itsLabelRanking
+		// itsLabelRankingMatrix
+		// itsRegressionModel
+	}
+
+	// private, does not revive killed members of a compressed Subgroup,
+	// so the parent stays compact after a refinement is created from it
+	// the returned BitSet should not be modified
+	private final BitSet getMembersForRefinement()
+	{
+		itsMembersLock.lock();
+		try
+		{
+			if ((itsMembers == null) && (itsMemberSet != null))
+				return itsMemberSet.toBitSet();
+		}
+		finally
+		{
+			itsMembersLock.unlock();
+		}
+
+		return getMembersUnsafe();
 	}
 
 	// private, for use within this class only, do no expose members
@@ -286,10 +404,18 @@ public class Subgroup implements Comparable<Subgroup>
 		itsMembersLock.lock();
 		try
 		{
+			// compact copy saved by killMembers(), no need to evaluate
+			if ((itsMembers == null) && (itsMemberSet != null))
+				itsMembers = itsMemberSet.toBitSet();
+
+			if ((itsMembers == null) && (itsParentSet.getExtentCache() != null))
+				itsMembers = getMembersFromExtentCache(itsParentSet.getExtentCache());
+
 			if (itsMembers == null)
 			{
 				// the default Constructor ensures SubgroupSet
-				BitSet b = itsParentSet.getAllDataBitSetClone();
+				// for DIFFSET, all members are members of the parent
+				BitSet b = (itsParentMemberSet != null) ? itsParentMemberSet.toBitSet() : itsParentSet.getAllDataBitSetClone();
 
 				// does nothing when ConditionList is empty
 				for (int i = 0, j = itsConditions.size(); i < j; ++i)
@@ -317,6 +443,20 @@ public class Subgroup implements Comparable<Subgroup>
 		}
 	}
 
+	// called with itsMembersLock held, the result is shared with the cache
+	private final BitSet getMembersFromExtentCache(ExtentCache theExtentCache)
+	{
+		BitSet aMembers = theExtentCache.get(itsConditions);
+		if (aMembers != null)
+			return aMembers;
+
+		// for DIFFSET, itsParentMemberSet holds the members of the parent
+		if (itsParentMemberSet != null)
+			return theExtentCache.evaluate(itsConditions, itsParentMemberSet.toBitSet(), itsConditions.size() - 1);
+		else
+			return theExtentCache.evaluate(itsConditions, itsParentSet.getAllDataBitSetClone(), 0);
+	}
+
 	public ConditionList getConditions() { return itsConditions; }
 	public int getDepth()                 { return itsConditions.size(); }
 	// could be out of sync with itsMembers in between addCondition() update
@@ -382,10 +522,61 @@ public class Subgroup implements Comparable<Subgroup>
 	 * The cost for this is re-evaluation every Condition in the ConditionList itsConditions (generally few) and the few evaluations this takes is far less than the number of
 	 * Refinements that is evaluated for the Subgroup.
 	 * So the re-evaluation does not substantially impact performance
+	 *
+	 * UPDATE for data with many rows, the re-evaluation against all rows of the Table does become expensive, and for MemberSetType.COMPRESSED, the members
+	 * are kept in a CompressedMemberSet, which for small Subgroups is only a fraction of the size of a BitSet, and revived without evaluating any Condition
+	 *
+	 * UPDATE for MemberSetType.DIFFSET, the members are kept relative to the MemberSet of the parent, as a diffset, tid-list or BitSet, whichever is smallest
+	 * when itsMembers was never set (direct computation), it is revived by evaluating the Conditions on the members of the parent, instead of on all rows
+	 *
+	 * UPDATE members without a compact copy are kept in the ExtentCache of the SubgroupSet, if any, which also holds the extents of recently revived Subgroups
+	 * a Subgroup that is not in the cache is revived from the cached extent of its longest prefix, usually its parent, by evaluating the remaining Conditions
 	 */
-	void killMembers()                { itsMembersLock.lock(); try { itsMembers = null; } finally { itsMembersLock.unlock(); }}
+	void killMembers()
+	{
+		itsMembersLock.lock();
+		try
+		{
+			// itsParentSet is null for the Validation constructor
+			if ((itsMembers != null) && (itsMemberSet == null) && (itsParentSet != null))
+			{
+				MemberSetType aType = itsParentSet.getMemberSetType();
+				if (aType == MemberSetType.COMPRESSED)
+					itsMemberSet = MemberSetType.COMPRESSED.create(itsMembers);
+				else if (aType == MemberSetType.DIFFSET)
+				{
+					itsMemberSet = MemberSetType.DIFFSET.create(itsMembers, itsParentMemberSet);
+					itsParentMemberSet = null;
+				}
+
+				// no compact copy, keep them for revival, see ExtentCache
+				if ((itsMemberSet == null) && (itsParentSet.getExtentCache() != null) && (itsConditions.size() > 0))
+					itsParentSet.getExtentCache().put(itsConditions, itsMembers);
+			}
+			itsMembers = null;
+		}
+		finally
+		{
+			itsMembersLock.unlock();
+		}
+	}
 	void reviveMembers()              { getMembersUnsafe(); }
-	public boolean covers(int theRow) { return getMembersUnsafe().get(theRow); }
+	public boolean covers(int theRow)
+	{
+		// do not revive for a single lookup
+		itsMembersLock.lock();
+		try
+		{
+			if ((itsMembers == null) && (itsMemberSet != null))
+				return itsMemberSet.get(theRow);
+		}
+		finally
+		{
+			itsMembersLock.unlock();
+		}
+
+		return getMembersUnsafe().get(theRow);
+	}
 
 	public int getID()                { return itsID; }
 	public void setID(int theID)      { itsID = theID; }
@@ -487,6 +678,28 @@ public class Subgroup implements Comparable<Subgroup>
 		finally { itsMembersLock.unlock(); }
 	}
 
+	// the number of members in each of theWords, as BitSet.toLongArray(),
+	// counted word by word, instead of by an and() on a clone of itsMembers
+	final int[] countCommon(long[][] theWords)
+	{
+		long[] aMembers;
+		itsMembersLock.lock();
+		try     { aMembers = getMembersUnsafe().toLongArray(); }
+		finally { itsMembersLock.unlock(); }
+
+		int[] aCounts = new int[theWords.length];
+		for (int i = 0; i < theWords.length; ++i)
+		{
+			long[] aWords = theWords[i];
+			int aCount = 0;
+			for (int w = 0, n = Math.min(aMembers.length, aWords.length); w < n; ++w)
+				aCount += Long.bitCount(aMembers[w] & aWords[w]);
+			aCounts[i] = aCount;
+		}
+
+		return aCounts;
+	}
+
 	// FIXME MM - there is a reasonable chance that an and() on the two BitSets
 	// is faster, as it operates on the underlying longs in the long[], instead
 	// of evaluating the individual bits (which requires visiting every long
@@ -1,5 +1,6 @@
 package nl.liacs.subdisc;
 
+import java.io.*;
 import java.text.*;
 import java.util.*;
 import java.util.Map.Entry;
@@ -11,6 +12,8 @@ import javax.swing.*;
 
 import nl.liacs.subdisc.Column.DomainMapNumeric;
 import nl.liacs.subdisc.Column.ValueCount;
+import nl.liacs.subdisc.Column.ValueCountCoMoments;
+import nl.liacs.subdisc.Column.ValueCountSumSquaresSum;
 import nl.liacs.subdisc.Column.ValueCountTP;
 import nl.liacs.subdisc.ColumnConditionBasesBuilder.ColumnConditionBases;
 import nl.liacs.subdisc.ColumnConditionBasesBuilder.ColumnConditionBasesBinary;
@@ -92,11 +95,17 @@ public class SubgroupDiscovery
 	private BitSet itsBinaryTarget;                 // SINGLE_NOMINAL
 	private Column itsTargetRankings;               // SINGLE_NOMINAL (label ranking)
 	private Column itsNumericTarget;                // SINGLE_NUMERIC
+	private double itsNumericTargetShift;           // SINGLE_NUMERIC, average, see evaluateNumericRegularSingleNumeric()
+	private int    itsNumericTargetCount;           // SINGLE_NUMERIC, non-missing target values in itsSelection
+	private double itsNumericTargetSum;             // SINGLE_NUMERIC, of (value - itsNumericTargetShift)
+	private double itsNumericTargetSquaresSum;      // SINGLE_NUMERIC, of (value - itsNumericTargetShift)^2
 	private Column itsPrimaryColumn;                // DOUBLE_CORRELATION / DOUBLE_REGRESSION / DOUBLE_BINARY / SCAPE
 	private Column itsSecondaryColumn;              // DOUBLE_CORRELATION / DOUBLE_REGRESSION / DOUBLE_BINARY / SCAPE
 	private CorrelationMeasure itsBaseCM;           // DOUBLE_CORRELATION
 	private RegressionMeasure itsBaseRM;            // DOUBLE_REGRESSION
+	private DoubleBinaryTable itsDoubleBinaryTable; // DOUBLE_BINARY
 	private BinaryTable itsBinaryTable;             // MULTI_LABEL
+	private DAG itsBaseDAG;                         // MULTI_LABEL, see evaluateCandidateMultiLabel()
 	private List<Column> itsTargets;                // MULTI_LABEL / MULTI_NUMERIC
 	public ProbabilityDensityFunction_ND itsPDF_ND; // MULTI_NUMERIC
 
@@ -118,10 +127,30 @@ public class SubgroupDiscovery
 	// candidate and result set - check() increments itsCandidateCount
 	private AtomicLong itsCandidateCount = new AtomicLong(0);
 	private CandidateQueue itsCandidateQueue;
+	private AdmissionBuffer itsAdmission; // per Thread additions to itsResult and itsCandidateQueue
 	private final SubgroupSet itsResult;
+	private boolean itsUseOptimisticEstimates;      // set by preMining(), see useOptimisticEstimates()
 
 	// for mining
-	private long itsEndTime = Long.MIN_VALUE;
+	// volatile: set by other Threads to stop mining, see RemoteWorker
+	private volatile long itsEndTime = Long.MIN_VALUE;
+
+	// for checkpoints, see checkpoint()
+	private boolean isResume = false;
+	private File itsCheckpointFile;                  // null when not checkpointing
+	private long itsCheckpointInterval;
+	private long itsNextCheckpointTime;
+	private long itsBeginTime;
+	private long itsElapsedTimeBeforeResume;         // mining time stored in the resumed checkpoint
+	private int itsNrCheckpoints;
+	private ExecutorService itsCheckpointWriter;
+
+	// for anytime results, see addMiningListener()
+	public static final long SNAPSHOT_INTERVAL_DEFAULT = 1000L; // milliseconds
+	private final SnapshotPublisher itsSnapshotPublisher = new SnapshotPublisher();
+	private long itsSnapshotInterval = SNAPSHOT_INTERVAL_DEFAULT;
+	private long itsNrSnapshots;
+	private ScheduledExecutorService itsSnapshotTimer;
 
 	// for feeding back progress info
 	// to throttle GUI update, only one thread can obtain lock and update time
@@ -189,6 +218,7 @@ public class SubgroupDiscovery
 
 		Statistics aStatistics = itsNumericTarget.getStatistics(theSelection, null, false, QM.requiredStats(itsSearchParameters.getQualityMeasure()).contains(Stat.COMPL));
 		aStatistics.print();
+		setNumericTargetTotals(aStatistics.getAverage());
 		ProbabilityDensityFunction2 aPDF = new ProbabilityDensityFunction2(itsNumericTarget, theSelection);
 		aPDF.smooth();
 
@@ -258,6 +288,8 @@ public class SubgroupDiscovery
                 		itsBaseCM = new CorrelationMeasure(itsSearchParameters.getQualityMeasure(), itsPrimaryColumn, itsSecondaryColumn);
 			}
         	}
+		else
+			itsDoubleBinaryTable = new DoubleBinaryTable(itsPrimaryColumn.getBinaries(), itsSecondaryColumn.getBinaries(), itsNrRows);
 
 		itsResult = new SubgroupSet(itsSearchParameters.getMaximumSubgroups(), theSelection, itsTable.getNrRows());
 	}
@@ -305,9 +337,10 @@ public class SubgroupDiscovery
 
 		Bayesian aBayesian = new Bayesian(itsBinaryTable, itsTargets);
 		aBayesian.climb();
+		itsBaseDAG = aBayesian.getDAG();
 
 		itsQualityMeasure = new QualityMeasure(itsSearchParameters,
-							aBayesian.getDAG(),
+							itsBaseDAG,
 							itsNrRows);
 		itsQualityMeasureMinimum = itsSearchParameters.getQualityMeasureMinimum();
 
@@ -400,6 +433,13 @@ public class SubgroupDiscovery
 		while ((itsCandidateQueue.size() > 0) && !isTimeToStop())
 		{
 			Candidate aCandidate = itsCandidateQueue.removeFirst(); // take off first Candidate from Queue
+			// itsResult may have improved since aCandidate was added
+			if (itsUseOptimisticEstimates && isPrunable(aCandidate.getOptimisticEstimate()))
+			{
+				if (itsCandidateQueue.size() == 0)
+					flushBuffer();
+				continue;
+			}
 			Subgroup aSubgroup = aCandidate.getSubgroup();
 
 			// Subgroup.getMembers() creates expensive clone, reuse
@@ -433,9 +473,12 @@ public class SubgroupDiscovery
 				else
 					evaluateNominalBinaryRefinements(aMembers, aCoverage, aRefinement);
 			}
+			itsAdmission.flush();
 
 			if (itsCandidateQueue.size() == 0)
 				flushBuffer();
+
+			checkpoint();
 		}
 
 		// TODO MM DEBUG only, set counts to 0
@@ -462,13 +505,58 @@ public class SubgroupDiscovery
 
 		if (theNrThreads == 0)
 			theNrThreads = Runtime.getRuntime().availableProcessors();
+
+		// a level of these engines is only a beam level for beam strategies,
+		// for other strategies the Candidates are dispatched one at a time, as
+		// below, and their refinement is split per Column, see CandidateTask
+		MiningEngine anEngine = itsSearchParameters.getMiningEngine();
+		boolean isPerCandidateForkJoin = ((anEngine == MiningEngine.FORK_JOIN) || (anEngine == MiningEngine.BATCHED)) && !itsSearchParameters.getSearchStrategy().isBeam();
+
+		if ((anEngine == MiningEngine.FORK_JOIN) && !isPerCandidateForkJoin)
+		{
+			mineForkJoin(theNrThreads, aColumnConditionBasesSet, aFilter);
+			postMining(theBeginTime);
+			postMiningStatistics();
+			return;
+		}
+
+		if (anEngine == MiningEngine.DETERMINISTIC)
+		{
+			mineDeterministic(theNrThreads, aColumnConditionBasesSet, aFilter);
+			postMining(theBeginTime);
+			postMiningStatistics();
+			return;
+		}
+
+		if ((anEngine == MiningEngine.BATCHED) && !isPerCandidateForkJoin)
+		{
+			mineBatched(theNrThreads, aColumnConditionBasesSet, aFilter);
+			postMining(theBeginTime);
+			postMiningStatistics();
+			return;
+		}
+
+		// Subgroups are sent as in a Checkpoint, see MiningProtocol
+		if (anEngine == MiningEngine.DISTRIBUTED)
+		{
+			if (Checkpoint.isSupported(itsSearchParameters.getTargetType()))
+			{
+				new MiningCoordinator(this, itsTable, itsSelection, itsSearchParameters).mine();
+				postMining(theBeginTime);
+				postMiningStatistics();
+				return;
+			}
+			Log.logCommandLine(String.format("%s is not supported for %s, using %s", MiningEngine.DISTRIBUTED, itsSearchParameters.getTargetType(), MiningEngine.SEMAPHORE));
+		}
+
 		/*
 		 * essential multi-thread setup
 		 * uses semaphores so only nrThreads can run at the same time
 		 * AND ExecutorService can only start new Test after old one
 		 * completes
 		 */
-		ExecutorService es = Executors.newFixedThreadPool(theNrThreads);
+		ForkJoinPool aPool = isPerCandidateForkJoin ? new ForkJoinPool(theNrThreads) : null;
+		ExecutorService es = isPerCandidateForkJoin ? aPool : Executors.newFixedThreadPool(theNrThreads);
 		Semaphore s = new Semaphore(theNrThreads);
 		int aSearchDepth = itsSearchParameters.getSearchDepth();
 
@@ -478,6 +566,14 @@ public class SubgroupDiscovery
 			try { s.acquire(); }
 			catch (InterruptedException e) { e.printStackTrace(); }
 
+			// holding all permits, no Test is running, see checkpoint()
+			if (isCheckpointDue())
+			{
+				s.acquireUninterruptibly(theNrThreads-1);
+				checkpoint();
+				s.release(theNrThreads-1);
+			}
+
 			/*
 			 * if other threads still have Candidates to add they
 			 * are blocked from doing so through this lock on
@@ -528,7 +624,10 @@ public class SubgroupDiscovery
 					break;
 			}
 
-			if (aCandidate != null)
+			// itsResult may have improved since aCandidate was added
+			if ((aCandidate != null) && itsUseOptimisticEstimates && isPrunable(aCandidate.getOptimisticEstimate()))
+				s.release();
+			else if (aCandidate != null)
 			{
 				Subgroup aSubgroup = aCandidate.getSubgroup();
 
@@ -536,7 +635,10 @@ public class SubgroupDiscovery
 				assert (aSubgroup.getDepth() < aSearchDepth);
 				assert (aSubgroup.getCoverage() > 1);
 
-				es.execute(new Test(aSubgroup, s, aColumnConditionBasesSet, aFilter));
+				if (isPerCandidateForkJoin)
+					aPool.execute(new CandidateTask(aSubgroup, s, aColumnConditionBasesSet, aFilter));
+				else
+					es.execute(new Test(aSubgroup, s, aColumnConditionBasesSet, aFilter));
 			}
 			// queue was empty, but other threads were running, they
 			// may be in the process of adding new Candidates
@@ -564,7 +666,11 @@ public class SubgroupDiscovery
 		while (!es.isTerminated()) {};
 
 		postMining(theBeginTime);
+		postMiningStatistics();
+	}
 
+	private final void postMiningStatistics()
+	{
 		// statistics - will move to a separate RunTimeStats class of some sort
 		if (DEBUG_PRINTS_FOR_BEST && EnumSet.of(NumericStrategy.NUMERIC_BEST, NumericStrategy.NUMERIC_BEST_BINS).contains(itsSearchParameters.getNumericStrategy()))
 			Log.logCommandLine("TWO DIFFERENT BEST SUBGROUPS: " + itsBestPairsDiffer + "/" + itsBestPairsCount);
@@ -620,6 +726,16 @@ public class SubgroupDiscovery
 			itsCandidateQueue = new CandidateQueue(itsSearchParameters, new Candidate(aStart));
 		else
 			itsCandidateQueue = getCandidateQueueFromBeamSeed();
+		itsAdmission = new AdmissionBuffer(itsResult, itsCandidateQueue, itsSearchParameters);
+		itsUseOptimisticEstimates = useOptimisticEstimates();
+
+		// killed members of Candidates and results are kept in this form
+		MemberSetType aMemberSetType = itsSearchParameters.getMemberSetType().resolve(itsTable.getNrRows());
+		itsResult.setMemberSetType(aMemberSetType);
+		Log.logCommandLine("member set type: " + aMemberSetType);
+		// shared by all Subgroups of the search, and the revival of the result
+		if (itsSearchParameters.getExtentCacheCapacity() > 0L)
+			itsResult.setExtentCache(new ExtentCache(itsSearchParameters.getExtentCacheCapacity()));
 
 		// SINGLE_NOMINAL with propensity scores does not use direct computation
 		prepareData(isDirectSingleBinary() ? itsBinaryTarget : null, itsTable.getColumns());
@@ -627,9 +743,201 @@ public class SubgroupDiscovery
 		long anEndTime = theBeginTime + (long) (((double) itsSearchParameters.getMaximumTime()) * 60.0 * 1000.0);
 		itsEndTime = (anEndTime <= theBeginTime) ? Long.MAX_VALUE : anEndTime;
 
+		preMiningCheckpoint(theBeginTime);
+		preMiningSnapshots(theBeginTime);
+
 		return aConditions;
 	}
 
+	/**
+	 * Adds a {@link MiningListener} that receives the current top-k
+	 * {@link Subgroup}s and search statistics every snapshot interval
+	 * while {@link #mine(long, int)} is running, and the final result when
+	 * it is done.
+	 * Listeners do not slow down the search, see {@link MiningListener}.
+	 * <p>
+	 * Call before <code>mine()</code>.
+	 *
+	 * @param theListener the MiningListener to add.
+	 */
+	public void addMiningListener(MiningListener theListener)
+	{
+		itsSnapshotPublisher.subscribe(theListener);
+	}
+
+	/**
+	 * Sets the time between two {@link MiningSnapshot}s, the default is
+	 * {@link #SNAPSHOT_INTERVAL_DEFAULT}.
+	 * <p>
+	 * Call before <code>mine()</code>.
+	 *
+	 * @param theMilliSeconds the interval, must be > 0.
+	 */
+	public void setSnapshotInterval(long theMilliSeconds)
+	{
+		if (theMilliSeconds <= 0L)
+			throw new IllegalArgumentException("snapshot interval must be > 0: " + theMilliSeconds);
+		itsSnapshotInterval = theMilliSeconds;
+	}
+
+	private final void preMiningSnapshots(final long theBeginTime)
+	{
+		if (itsSnapshotPublisher.isEmpty())
+			return;
+
+		itsSnapshotTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable theRunnable)
+			{
+				Thread aThread = new Thread(theRunnable, "MiningSnapshot");
+				aThread.setDaemon(true);
+				return aThread;
+			}
+		});
+		itsSnapshotTimer.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run() { publishSnapshot(theBeginTime, false); }
+		}, itsSnapshotInterval, itsSnapshotInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 * called by itsSnapshotTimer during mining, the workers only wait for the
+	 * copy of the result set, that is at most maximum_subgroups references
+	 * and by postMining(), for the last snapshot
+	 */
+	private final void publishSnapshot(long theBeginTime, boolean isLast)
+	{
+		long anElapsedTime = itsElapsedTimeBeforeResume + (System.currentTimeMillis() - theBeginTime);
+		itsSnapshotPublisher.publish(new MiningSnapshot(itsNrSnapshots++, anElapsedTime, itsCandidateCount.get(), itsCandidateQueue.size(), isLast, itsResult.snapshot()));
+	}
+
+	private final void postMiningSnapshots(long theBeginTime)
+	{
+		if (itsSnapshotTimer == null)
+			return;
+
+		itsSnapshotTimer.shutdown();
+		try { itsSnapshotTimer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS); }
+		catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+		itsSnapshotTimer = null;
+
+		publishSnapshot(theBeginTime, true);
+		// waits until all listeners have seen the last snapshot
+		itsSnapshotPublisher.close();
+	}
+
+	/*
+	 * called by Process.resumeSubgroupDiscovery(), before mine()
+	 * mining continues from the checkpoint in SearchParameters.getCheckpointFile()
+	 */
+	void setResume(boolean isResume)
+	{
+		this.isResume = isResume;
+	}
+
+	private final void preMiningCheckpoint(long theBeginTime)
+	{
+		String aFileName = itsSearchParameters.getCheckpointFile();
+		if ((aFileName == null) || aFileName.isEmpty())
+		{
+			if (isResume)
+				Log.logCommandLine("no checkpoint file set, can not resume, starting a new search");
+			return;
+		}
+
+		if (!Checkpoint.isSupported(itsSearchParameters.getTargetType()))
+		{
+			Log.logCommandLine("checkpoints are not supported for " + itsSearchParameters.getTargetType());
+			return;
+		}
+
+		File aFile = new File(aFileName);
+		if (isResume)
+		{
+			try
+			{
+				Checkpoint aCheckpoint = Checkpoint.read(aFile, itsTable, itsSelection, itsSearchParameters, itsCandidateQueue, itsResult);
+				itsCandidateCount.set(aCheckpoint.getCandidateCount());
+				itsElapsedTimeBeforeResume = aCheckpoint.getElapsedTime();
+				// the maximum time includes the time before the checkpoint
+				if (itsEndTime != Long.MAX_VALUE)
+					itsEndTime -= itsElapsedTimeBeforeResume;
+				Log.logCommandLine(String.format("resumed from checkpoint '%s': %d candidates, %d subgroups, %d ms",
+									aFile.getAbsolutePath(), aCheckpoint.getCandidateCount(), itsResult.size(), itsElapsedTimeBeforeResume));
+			}
+			catch (IOException e)
+			{
+				Log.logCommandLine("can not resume from checkpoint '" + aFile.getAbsolutePath() + "', starting a new search: " + e.getMessage());
+			}
+		}
+
+		itsCheckpointFile = aFile;
+		itsCheckpointInterval = (long) (itsSearchParameters.getCheckpointInterval() * 60.0 * 1000.0);
+		itsBeginTime = theBeginTime;
+		itsNextCheckpointTime = theBeginTime + itsCheckpointInterval;
+		// a single Thread, so checkpoints are written in order
+		itsCheckpointWriter = Executors.newSingleThreadExecutor();
+	}
+
+	final boolean isCheckpointDue()
+	{
+		return (itsCheckpointFile != null) && (System.currentTimeMillis() >= itsNextCheckpointTime);
+	}
+
+	/*
+	 * call only when no refinement is in progress, such that the
+	 * CandidateQueue, SubgroupSet and candidate count are consistent
+	 * the state is captured by this Thread, and written by itsCheckpointWriter
+	 * so mining continues while the checkpoint is written to disk
+	 */
+	final void checkpoint()
+	{
+		if (!isCheckpointDue())
+			return;
+
+		long anElapsedTime = itsElapsedTimeBeforeResume + (System.currentTimeMillis() - itsBeginTime);
+		final byte[] aCheckpoint;
+		try
+		{
+			aCheckpoint = Checkpoint.capture(itsTable, itsSelection, itsSearchParameters, itsCandidateQueue, itsResult, itsCandidateCount.get(), anElapsedTime);
+		}
+		catch (IOException e)
+		{
+			Log.logCommandLine("error while creating checkpoint: " + e.getMessage());
+			return;
+		}
+
+		final File aFile = itsCheckpointFile;
+		itsCheckpointWriter.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try { Checkpoint.write(aCheckpoint, aFile); }
+				catch (IOException e) { Log.logCommandLine("error while writing checkpoint '" + aFile.getAbsolutePath() + "': " + e.getMessage()); }
+			}
+		});
+		itsNextCheckpointTime = System.currentTimeMillis() + itsCheckpointInterval;
+
+		// see SearchParameters.getCheckpointStopAfter()
+		int aStopAfter = itsSearchParameters.getCheckpointStopAfter();
+		if ((aStopAfter > 0) && (++itsNrCheckpoints >= aStopAfter))
+			itsEndTime = Long.MIN_VALUE;
+	}
+
+	// waits until the last checkpoint is written
+	private final void postMiningCheckpoint()
+	{
+		if (itsCheckpointWriter == null)
+			return;
+
+		itsCheckpointWriter.shutdown();
+		try { itsCheckpointWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS); }
+		catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+	}
+
 	private final void loadExternalKnowledge(ConditionBaseSet theConditionBaseSet)
 	{
 		QM aQualityMeasure = itsSearchParameters.getQualityMeasure();
@@ -721,6 +1029,142 @@ public class SubgroupDiscovery
 				&& (s.getNumericStrategy() != NumericStrategy.NUMERIC_VIKAMINE_CONSECUTIVE_ALL && s.getNumericStrategy() != NumericStrategy.NUMERIC_VIKAMINE_CONSECUTIVE_BEST));
 	}
 
+	// direct computation for a DOUBLE_BINARY target, scores all = refinements
+	// of a NOMINAL description Attribute in a single pass over the parent
+	private final boolean isDirectDoubleBinary()
+	{
+		return (itsSearchParameters.getTargetType() == TargetType.DOUBLE_BINARY);
+	}
+
+	// direct computation for a SINGLE_NUMERIC target, scores <=, >= and =
+	// refinements of a NUMERIC description Attribute from per-value sums and
+	// sums of squares, see evaluateNumericRegularSingleNumeric()
+	//
+	// not possible for QMs that require a PDF, and for TEMPORARY_CODE (PMF)
+	// the discretisers and other NumericStrategies use their own code paths
+	private final boolean isDirectSingleNumeric()
+	{
+		// checking this all the time is a bit wasteful, but fine for now
+		SearchParameters s = itsSearchParameters;
+		if ((s.getTargetType() != TargetType.SINGLE_NUMERIC) || TEMPORARY_CODE || !s.getUseDirectSingleNumeric())
+			return false;
+
+		Set<Stat> aRequiredStats = QM.requiredStats(s.getQualityMeasure());
+		return (!aRequiredStats.contains(Stat.PDF) && !aRequiredStats.contains(Stat.MEDIAN)
+				&& (s.getNumericStrategy() == NumericStrategy.NUMERIC_ALL || s.getNumericStrategy() == NumericStrategy.NUMERIC_BEST));
+	}
+
+	// direct computation for a SCAPE target, all <= and >= refinements of a
+	// NUMERIC description Attribute are scored in a single sweep, and =
+	// refinements visit only their own members, see SubrankingLoss
+	private final boolean isDirectScape()
+	{
+		SearchParameters s = itsSearchParameters;
+		return ((s.getTargetType() == TargetType.SCAPE) && s.getUseDirectScape()
+				&& (s.getNumericStrategy() == NumericStrategy.NUMERIC_ALL || s.getNumericStrategy() == NumericStrategy.NUMERIC_BEST));
+	}
+
+	// direct computation for a DOUBLE_CORRELATION target, scores <=, >= and =
+	// refinements of a NUMERIC description Attribute from per-value sums of
+	// both targets, see evaluateNumericRegularDoubleCorrelation()
+	private final boolean isDirectDoubleCorrelation()
+	{
+		SearchParameters s = itsSearchParameters;
+		return ((s.getTargetType() == TargetType.DOUBLE_CORRELATION) && s.getUseDirectDoubleCorrelation()
+				&& (s.getNumericStrategy() == NumericStrategy.NUMERIC_ALL || s.getNumericStrategy() == NumericStrategy.NUMERIC_BEST));
+	}
+
+	// pruning by optimistic estimate: a Candidate is not refined when none of
+	// its refinements could enter itsResult, see QM.hasOptimisticEstimate()
+	//
+	// the lowest score of a full itsResult only increases, so a refinement of
+	// a pruned Candidate would not have been in the final result either
+	// this does not hold for beam strategies, a pruned Candidate would leave
+	// room in the beam for another Candidate, so the search would change
+	private final boolean useOptimisticEstimates()
+	{
+		SearchParameters s = itsSearchParameters;
+		if (!s.getUseOptimisticEstimates() || !QM.hasOptimisticEstimate(s.getQualityMeasure()) || s.getSearchStrategy().isBeam())
+			return false;
+
+		// TEMPORARY_CODE evaluates SINGLE_NUMERIC using a PMF
+		return ((s.getTargetType() == TargetType.SINGLE_NOMINAL) || ((s.getTargetType() == TargetType.SINGLE_NUMERIC) && !TEMPORARY_CODE));
+	}
+
+	// requires the members of theChild, so call before killMembers()
+	private final double getOptimisticEstimate(Subgroup theChild)
+	{
+		switch (itsSearchParameters.getTargetType())
+		{
+			case SINGLE_NOMINAL :
+			{
+				// in SINGLE_NOMINAL the tertiary statistic is the number of positives
+				return itsQualityMeasure.getOptimisticEstimate((int) theChild.getTertiaryStatistic(), theChild.getCoverage());
+			}
+			case SINGLE_NUMERIC :
+			{
+				BitSet aMembers = theChild.getMembers();
+				float[] aValues = new float[theChild.getCoverage()];
+				int n = 0;
+				for (int i = aMembers.nextSetBit(0); i >= 0; i = aMembers.nextSetBit(i + 1))
+				{
+					float f = itsNumericTarget.getFloat(i);
+					if (!Float.isNaN(f))
+						aValues[n++] = f;
+				}
+
+				// a refinement of minimum coverage might hold all missing values
+				int aNrMissing = (aValues.length - n);
+				return itsQualityMeasure.getOptimisticEstimate(Arrays.copyOf(aValues, n), itsMinimumCoverage - aNrMissing);
+			}
+			default :
+				throw new AssertionError(itsSearchParameters.getTargetType());
+		}
+	}
+
+	// unsynchronised, like AdmissionBuffer.hasPotential(), an outdated lowest
+	// score of itsResult only means that less Candidates are pruned
+	private final boolean isPrunable(double theOptimisticEstimate)
+	{
+		if (Double.isNaN(theOptimisticEstimate))
+			return false;
+
+		// qualities are floats, allow for rounding of the estimate
+		float anEstimate = Math.nextUp((float) theOptimisticEstimate);
+
+		if (!ignoreQualityMinimum && !(anEstimate > itsQualityMeasureMinimum))
+			return true;
+
+		return !itsResult.hasPotential(anEstimate);
+	}
+
+	// totals for the complement and data set in evaluateCandidate() used by
+	// evaluateNumericRegularSingleNumeric(), computed once, for itsSelection
+	private final void setNumericTargetTotals(double theShift)
+	{
+		int n = 0;
+		double aSum = 0.0;
+		double aSquaresSum = 0.0;
+
+		int aNrRows = itsTable.getNrRows();
+		for (int i = (itsSelection == null) ? 0 : itsSelection.nextSetBit(0); i >= 0 && i < aNrRows; i = (itsSelection == null) ? i + 1 : itsSelection.nextSetBit(i + 1))
+		{
+			float f = itsNumericTarget.getFloat(i);
+			if (Float.isNaN(f))
+				continue;
+
+			++n;
+			double d     = (f - theShift);
+			aSum        += d;
+			aSquaresSum += (d * d);
+		}
+
+		itsNumericTargetShift      = theShift;
+		itsNumericTargetCount      = n;
+		itsNumericTargetSum        = aSum;
+		itsNumericTargetSquaresSum = aSquaresSum;
+	}
+
 	private static final void deleteSortData(List<Column> theColumns)
 	{
 		for (Column c : theColumns)
@@ -765,7 +1209,7 @@ public class SubgroupDiscovery
 		return aSeededCandidateQueue;
 	}
 
-	private final boolean isTimeToStop()
+	final boolean isTimeToStop()
 	{
 		if (System.currentTimeMillis() > itsEndTime)
 			return true;
@@ -814,6 +1258,52 @@ public class SubgroupDiscovery
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
 
+	/*
+	 * evaluates all refinements of theSubgroup, accepted ones go to the
+	 * AdmissionBuffer of the calling Thread, used by Test and MiningWorker
+	 */
+	private final void refine(Subgroup theSubgroup, List<ColumnConditionBases> theColumnConditionBasesSet, Fltr theFilter)
+	{
+		// Subgroup.getMembers() creates expensive clone, reuse
+		BitSet aParentMembers = theSubgroup.getMembers();
+		int aParentCoverage   = theSubgroup.getCoverage();
+		assert (aParentMembers.cardinality() == aParentCoverage);
+
+		ConditionList aConditionList = theSubgroup.getConditions();
+		int nextSkipSG = theFilter.nextSkip(aConditionList, 0);
+		assert ((nextSkipSG == Fltr.NOTHING_TO_SKIP) || ((nextSkipSG >= 0) && (nextSkipSG < aConditionList.size())));
+		Column toSkip = (nextSkipSG != Fltr.NOTHING_TO_SKIP ?  aConditionList.getCanonical(nextSkipSG).getColumn() : null);
+
+		for (int i = 0, j = theColumnConditionBasesSet.size(); i < j && !isTimeToStop(); ++i)
+		{
+			ColumnConditionBases ccb = theColumnConditionBasesSet.get(i);
+			// FIXME one time operation per mine(), but cumbersome, optimise
+			ConditionBase cb = ccb.get(0);
+			if (cb == null) cb = ccb.get(1);
+			if (cb == null) cb = ccb.get(2);
+
+			// temporary: during testing do not actually continue OUT
+			boolean skipThisCB = false;
+			if (cb.getColumn() == toSkip)
+			{
+				skipThisCB = true;
+				itsSkipCount.incrementAndGet();
+				nextSkipSG = theFilter.nextSkip(aConditionList, nextSkipSG+1);
+				assert ((nextSkipSG == Fltr.NOTHING_TO_SKIP) || ((nextSkipSG >= 0) && (nextSkipSG < aConditionList.size())));
+				toSkip = (nextSkipSG != Fltr.NOTHING_TO_SKIP ?  aConditionList.getCanonical(nextSkipSG).getColumn() : null);
+				if (DEBUG_PRINTS_FOR_SKIP)
+					Log.logCommandLine(String.format("EC-SKIP\t%s AND %s%n", theSubgroup, cb));
+				if (USE_SKIP_FILTER)
+					continue;
+			}
+
+			if (!skipThisCB && DEBUG_PRINTS_FOR_SKIP)
+				Log.logCommandLine(String.format("NO-SKIP\t%s AND %s%n", theSubgroup, cb));
+
+			evaluateColumnConditionBases(theSubgroup, aParentMembers, ccb);
+		}
+	}
+
 	/*
 	 * After Test is done, it releases its semaphore, so ExecutorService can start a new Test.
 	 */
@@ -838,62 +1328,10 @@ public class SubgroupDiscovery
 		{
 			if (false) { runX(); return; }
 
-			// Subgroup.getMembers() creates expensive clone, reuse
-			BitSet aParentMembers = itsSubgroup.getMembers();
-			int aParentCoverage   = itsSubgroup.getCoverage();
-			assert (aParentMembers.cardinality() == aParentCoverage);
-
-			ConditionList aConditionList = itsSubgroup.getConditions();
-			int nextSkipSG = itsFilter.nextSkip(aConditionList, 0);
-			assert ((nextSkipSG == Fltr.NOTHING_TO_SKIP) || ((nextSkipSG >= 0) && (nextSkipSG < aConditionList.size())));
-			Column toSkip = (nextSkipSG != Fltr.NOTHING_TO_SKIP ?  aConditionList.getCanonical(nextSkipSG).getColumn() : null);
-
-			for (int i = 0, j = itsColumnConditionBasesSet.size(); i < j && !isTimeToStop(); ++i)
-			{
-				ColumnConditionBases ccb = itsColumnConditionBasesSet.get(i);
-				// FIXME one time operation per mine(), but cumbersome, optimise
-				ConditionBase cb = ccb.get(0);
-				if (cb == null) cb = ccb.get(1);
-				if (cb == null) cb = ccb.get(2);
-
-				// temporary: during testing do not actually continue OUT
-				boolean skipThisCB = false;
-				if (cb.getColumn() == toSkip)
-				{
-					skipThisCB = true;
-					itsSkipCount.incrementAndGet();
-					nextSkipSG = itsFilter.nextSkip(aConditionList, nextSkipSG+1);
-					assert ((nextSkipSG == Fltr.NOTHING_TO_SKIP) || ((nextSkipSG >= 0) && (nextSkipSG < aConditionList.size())));
-					toSkip = (nextSkipSG != Fltr.NOTHING_TO_SKIP ?  aConditionList.getCanonical(nextSkipSG).getColumn() : null);
-					if (DEBUG_PRINTS_FOR_SKIP)
-						Log.logCommandLine(String.format("EC-SKIP\t%s AND %s%n", itsSubgroup, cb));
-					if (USE_SKIP_FILTER)
-						continue;
-				}
-
-				if (!skipThisCB && DEBUG_PRINTS_FOR_SKIP)
-					Log.logCommandLine(String.format("NO-SKIP\t%s AND %s%n", itsSubgroup, cb));
-
-				// using a TestFactory some of the if-checks could be removed
-				// ValueSets would never occur when !useBestValueSets
-				// for BestInterval the reasoning is the same
-				// TODO assert mutual-exclusivity of:
-				//   ClassLabel+EQUALS                v. ValueSet+ELEMENT_OF
-				//   regular+(EQUALS/BETWEEN,LEQ,GEQ) v. BestInterval+BETWEEN
-				if (ccb instanceof ColumnConditionBasesBinary)
-					evaluateBinary(itsSubgroup, aParentMembers, (ColumnConditionBasesBinary) ccb);
-				else if (ccb instanceof ColumnConditionBasesNominalEquals)
-					evaluateNominalEquals(itsSubgroup, aParentMembers, (ColumnConditionBasesNominalEquals) ccb);
-				else if (ccb instanceof ColumnConditionBasesNominalElementOf)
-					evaluateNominalElementOf(itsSubgroup, aParentMembers, (ColumnConditionBasesNominalElementOf) ccb);
-				else if (ccb instanceof ColumnConditionBasesNumericRegular)
-					evaluateNumericRegular(itsSubgroup, aParentMembers, (ColumnConditionBasesNumericRegular) ccb);
-				else if (ccb instanceof ColumnConditionBasesNumericIntervals)
-					evaluateNumericIntervals(itsSubgroup, aParentMembers, (ColumnConditionBasesNumericIntervals) ccb);
-				else
-					throw new AssertionError("Test.run() unexpected subclass of ColumnConditionBases");
-			}
+			refine(itsSubgroup, itsColumnConditionBasesSet, itsFilter);
 
+			// before release, dispatcher may move to next level when alone
+			itsAdmission.flush();
 			itsSemaphore.release();
 		}
 
@@ -1181,468 +1619,1403 @@ public class SubgroupDiscovery
 					throw new AssertionError("Test.run() unexpected subclass of ColumnConditionBases");
 			}
 
+			itsAdmission.flush();
 			itsSemaphore.release();
 		}
 	}
 
+	// shared by Test and the ForkJoin engine, all state is in the arguments
+	private final void evaluateColumnConditionBases(Subgroup theParent, BitSet theParentMembers, ColumnConditionBases theColumnConditionBases)
+	{
+		// using a TestFactory some of the if-checks could be removed
+		// ValueSets would never occur when !useBestValueSets
+		// for BestInterval the reasoning is the same
+		// TODO assert mutual-exclusivity of:
+		//   ClassLabel+EQUALS                v. ValueSet+ELEMENT_OF
+		//   regular+(EQUALS/BETWEEN,LEQ,GEQ) v. BestInterval+BETWEEN
+		ColumnConditionBases ccb = theColumnConditionBases;
+		if (ccb instanceof ColumnConditionBasesBinary)
+			evaluateBinary(theParent, theParentMembers, (ColumnConditionBasesBinary) ccb);
+		else if (ccb instanceof ColumnConditionBasesNominalEquals)
+			evaluateNominalEquals(theParent, theParentMembers, (ColumnConditionBasesNominalEquals) ccb);
+		else if (ccb instanceof ColumnConditionBasesNominalElementOf)
+			evaluateNominalElementOf(theParent, theParentMembers, (ColumnConditionBasesNominalElementOf) ccb);
+		else if (ccb instanceof ColumnConditionBasesNumericRegular)
+			evaluateNumericRegular(theParent, theParentMembers, (ColumnConditionBasesNumericRegular) ccb);
+		else if (ccb instanceof ColumnConditionBasesNumericIntervals)
+			evaluateNumericIntervals(theParent, theParentMembers, (ColumnConditionBasesNumericIntervals) ccb);
+		else
+			throw new AssertionError("Test.run() unexpected subclass of ColumnConditionBases");
+	}
+
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
-	///// when done                                                        /////
+	///// ForkJoin engine - MiningEngine.FORK_JOIN                         /////
+	///// the Candidates of a (beam) level are refined concurrently, and   /////
+	///// the refinement of a single Candidate is split per Column, idle   /////
+	///// workers steal Column ranges from busy ones                       /////
+	///// a Phaser replaces the Semaphore and busy-wait of the original    /////
+	///// for other strategies, the Semaphore dispatch loop of mine()      /////
+	///// hands each Candidate to a CandidateTask                          /////
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
 
-	private void postMining(long theBeginTime)
-	{
-		if (itsSearchParameters.getFilterSubgroups())
-			itsResult.filterSubgroups(itsSearchParameters.getMinimumImprovement());
+	// Column ranges of at most this size are not split any further
+	private static final int FORK_JOIN_COLUMN_THRESHOLD = 1;
+	// a Phaser supports at most 65535 parties, larger levels are split up
+	private static final int FORK_JOIN_MAX_LEVEL_SIZE   = (1 << 15);
 
-		int aNrSubgroups = getNumberOfSubgroups();
+	/*
+	 * Each loop takes all Candidates of the current level from the Queue, and
+	 * refines them concurrently, the next level is only started after all
+	 * Tasks of the current level arrived at the Phaser.
+	 * This is the same as the original algorithm, as for beam strategies
+	 * CandidateQueue.removeFirst() only moves to the next level after the
+	 * current one is depleted.
+	 * For other strategies all Candidates in the Queue would form a level,
+	 * changing the expansion order, for those, mine() dispatches Candidates
+	 * as the SEMAPHORE engine, to a CandidateTask on a ForkJoinPool.
+	 */
+	private final void mineForkJoin(int theNrThreads, List<ColumnConditionBases> theColumnConditionBasesSet, Fltr theFilter)
+	{
+		ForkJoinPool aPool = new ForkJoinPool(theNrThreads);
+		// the dispatching (this) Thread is the only permanent party
+		Phaser aPhaser = new Phaser(1);
+		int aSearchDepth = itsSearchParameters.getSearchDepth();
 
-		// before mining end: post-processing must be included in total run time
-		if (itsSearchParameters.getSearchStrategy() == SearchStrategy.COVER_BASED_BEAM_SELECTION)
+		try
 		{
-			itsCandidateQueueSizes.add(-aNrSubgroups);
-			postProcessCBSS();
-		}
+			while (!isTimeToStop())
+			{
+				// previous level has completed, no Task is running
+				checkpoint();
 
-		// for CBSS this reports aNrSubgroups, not 100 (might change one day)
-		long anElapsedTime = (System.currentTimeMillis() - theBeginTime);
-		Process.echoMiningEnd(anElapsedTime, aNrSubgroups);
+				List<Candidate> aLevel = removeLevel(FORK_JOIN_MAX_LEVEL_SIZE);
+				if (aLevel == null)
+					break;
+				if (aLevel.isEmpty())
+					continue;
 
-		long aNrCandidates = itsCandidateCount.get();
-		setTitle(itsMainWindow, anElapsedTime, aNrCandidates);
+				aPhaser.bulkRegister(aLevel.size());
+				for (Candidate c : aLevel)
+				{
+					Subgroup aSubgroup = c.getSubgroup();
 
-		deleteSortData(itsTable.getColumns());
+					// Candidate should not be in CandidateQueue
+					assert (aSubgroup.getDepth() < aSearchDepth);
+					assert (aSubgroup.getCoverage() > 1);
 
-		// postProcessCook() output is supposed to go in between
-		Log.logCommandLine("number of candidates: " + aNrCandidates);
-		postProcessCook();
-		// for CBSS this reports 100, not aNrSubgroups
-		Log.logCommandLine("number of subgroups : " + getNumberOfSubgroups());
-
-		// assign 1 to n to subgroups, for future reference in subsets
-		itsResult.setIDs();
+					aPool.execute(new CandidateTask(aSubgroup, aPhaser, theColumnConditionBasesSet, theFilter));
+				}
 
-		// TODO probably also should be called before Process.echoMiningEnd()
-		postProcessMultiLabelAutoRun(); // IDs must be set first,  might set new
+				// blocks until all Tasks of this level arrived
+				aPhaser.arriveAndAwaitAdvance();
+			}
+		}
+		finally
+		{
+			aPhaser.arriveAndDeregister();
+			aPool.shutdown();
+			try { aPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS); }
+			catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+		}
 	}
 
-	private static final void setTitle(JFrame theMainWindow, long theElapsedTime, long theNrCandidates)
+	/*
+	 * For the level-wise engines, removes at most theMaximumSize Candidates of
+	 * the current level from the Queue, no Tasks should be running, so there
+	 * are no concurrent additions to the Queue.
+	 * Returns null when the Queue is empty, the result is empty when all
+	 * Candidates were pruned, or the next level is not available yet.
+	 */
+	private final List<Candidate> removeLevel(int theMaximumSize)
 	{
-		if (theMainWindow == null)
-			return;
-
-		long minutes = theElapsedTime / 60_000l;
-		float seconds = (theElapsedTime % 60_000l) / 1_000.0f;
+		List<Candidate> aLevel = new ArrayList<Candidate>();
 
-		String aMessage = (minutes == 0 ? "" : (String.format(" %d minute%s and", minutes, (minutes == 1 ? "" : "s"))));
-		aMessage = String.format(Locale.US, "%s %.3f seconds", aMessage, seconds);
-		aMessage = String.format("Finished: evaluated %s candidate%s in%s.",
-									FORMATTER.format(theNrCandidates),
-									(theNrCandidates == 1 ? "" : "s"),
-									aMessage);
+		while ((itsCandidateQueue.currentLevelQueueSize() > 0) && (aLevel.size() < theMaximumSize))
+			aLevel.add(itsCandidateQueue.removeFirst());
 
-		theMainWindow.setTitle(aMessage);
-	}
+		// current level is depleted, removeFirst() moves to next level
+		if (aLevel.isEmpty())
+		{
+			if (itsCandidateQueue.size() == 0)
+				return null;
+
+			Candidate aFirst = itsCandidateQueue.removeFirst();
+			if (aFirst == null)
+				return aLevel;
+			aLevel.add(aFirst);
+			while ((itsCandidateQueue.currentLevelQueueSize() > 0) && (aLevel.size() < theMaximumSize))
+				aLevel.add(itsCandidateQueue.removeFirst());
+		}
 
-	private void postProcessCook()
-	{
-		if (itsSearchParameters.getQualityMeasure() != QM.COOKS_DISTANCE)
-			return;
+		// itsResult may have improved since these Candidates were added
+		if (itsUseOptimisticEstimates)
+		{
+			for (Iterator<Candidate> i = aLevel.iterator(); i.hasNext(); )
+				if (isPrunable(i.next().getOptimisticEstimate()))
+					i.remove();
+		}
 
-		Log.logCommandLine("Bound seven computed "   + itsBoundSevenCount + " times");
-		Log.logCommandLine("Bound six   computed "   + itsBoundSixCount   + " times");
-		Log.logCommandLine("Bound five  computed "   + itsBoundFiveCount  + " times");
-		Log.logCommandLine("Bound four  computed "   + itsBoundFourCount  + " times");
-		Log.logCommandLine("Bound seven fired "      + itsBoundSevenFired + " times");
-		Log.logCommandLine("Bound six   fired "      + itsBoundSixFired   + " times");
-		Log.logCommandLine("Bound five  fired "      + itsBoundFiveFired  + " times");
-		Log.logCommandLine("Bound four  fired "      + itsBoundFourFired  + " times");
-		Log.logCommandLine("Rank deficient models: " + itsRankDefCount);
-	}
-/*
-TODO for stable jar, disabled, causes compile errors, reinstate later
-	private void addToBuffer(Subgroup theSubgroup )
-	{
-		int aCoverage = theSubgroup.getCoverage();
-		itsBaseRM.computeRemovedIndices(theSubgroup.getMembers(), aCoverage);
-		itsBaseRM.updateSquaredResidualSum();
-		itsBaseRM.updateRemovedTrace();
-		double aPriority = itsBaseRM.computeBoundFour(aCoverage);
-		Log.logCommandLine(theSubgroup.getConditions().toString() + " --- bound : " + aPriority);
-		// @deprecated constructor
-		itsBuffer.add(new Candidate(theSubgroup, aPriority));
+		return aLevel;
 	}
-*/
 
-	private void flushBuffer()
+	/*
+	 * The set of Columns skipped by Test.run() for theConditionList, obtained
+	 * up front, as the Column ranges of a CandidateTask run in no fixed order.
+	 */
+	private final Set<Column> getColumnsToSkip(ConditionList theConditionList, Fltr theFilter)
 	{
-		if (itsBuffer == null)
-			return;
-		for (Iterator<Candidate> it = itsBuffer.iterator(); it.hasNext(); )
+		Set<Column> aColumns = null;
+
+		for (int i = theFilter.nextSkip(theConditionList, 0); i != Fltr.NOTHING_TO_SKIP; i = theFilter.nextSkip(theConditionList, i+1))
 		{
-			Candidate aCandidate = it.next();
-			Subgroup aSubgroup = aCandidate.getSubgroup();
-			checkAndLog(aSubgroup, itsNrRows);
+			if (aColumns == null)
+				aColumns = new HashSet<Column>();
+			aColumns.add(theConditionList.getCanonical(i).getColumn());
 		}
-		itsBuffer = new TreeSet<Candidate>();
+
+		return (aColumns == null) ? Collections.<Column>emptySet() : aColumns;
 	}
 
-	private void postProcessCBSS()
+	/*
+	 * Root Task for a single Candidate, obtains the parent members once, and
+	 * shares them (read-only) with the ColumnRangeTasks.
+	 * Arrives at the Phaser, or for non-beam strategies releases the
+	 * Semaphore, as Test does, when all refinements are evaluated, also when
+	 * the evaluation fails, else the dispatcher would wait forever.
+	 */
+	private final class CandidateTask extends RecursiveAction
 	{
-		assert (itsSearchParameters.getSearchStrategy() == SearchStrategy.COVER_BASED_BEAM_SELECTION);
+		private static final long serialVersionUID = 1L;
 
-		// just for cover-based beam search post selection
-		SubgroupSet aSet = itsResult.postProcess(itsSearchParameters.getSearchStrategy());
+		private final Subgroup itsSubgroup;
+		// one of these is null
+		private final Phaser itsPhaser;
+		private final Semaphore itsSemaphore;
+		private final List<ColumnConditionBases> itsColumnConditionBasesSet;
+		private final Fltr itsFilter;
 
-		// FIXME MM hack to deal with strange postProcess implementation
-		if (itsResult != aSet)
+		CandidateTask(Subgroup theSubgroup, Phaser thePhaser, List<ColumnConditionBases> theColumnConditionBasesSet, Fltr theFilter)
 		{
-			// no reassign, we want itsResult to be final
-			itsResult.clear();
-			itsResult.addAll(aSet);
-//			// in COVER_BASED_BEAM_SELECTION, subgroups may have been removed
-//			itsResult.setIDs();
+			itsSubgroup                = theSubgroup;
+			itsPhaser                  = thePhaser;
+			itsSemaphore               = null;
+			itsColumnConditionBasesSet = theColumnConditionBasesSet;
+			itsFilter                  = theFilter;
+		}
+
+		CandidateTask(Subgroup theSubgroup, Semaphore theSemaphore, List<ColumnConditionBases> theColumnConditionBasesSet, Fltr theFilter)
+		{
+			itsSubgroup                = theSubgroup;
+			itsPhaser                  = null;
+			itsSemaphore               = theSemaphore;
+			itsColumnConditionBasesSet = theColumnConditionBasesSet;
+			itsFilter                  = theFilter;
+		}
+
+		@Override
+		protected void compute()
+		{
+			try
+			{
+				// Subgroup.getMembers() creates expensive clone, reuse
+				BitSet aParentMembers = itsSubgroup.getMembers();
+				assert (aParentMembers.cardinality() == itsSubgroup.getCoverage());
+
+				Set<Column> aSkip = getColumnsToSkip(itsSubgroup.getConditions(), itsFilter);
+
+				new ColumnRangeTask(itsSubgroup, aParentMembers, itsColumnConditionBasesSet, aSkip, 0, itsColumnConditionBasesSet.size()).invoke();
+			}
+			finally
+			{
+				if (itsPhaser != null)
+					itsPhaser.arriveAndDeregister();
+				else
+					itsSemaphore.release();
+			}
 		}
 	}
 
-	private void postProcessMultiLabelAutoRun()
+	/*
+	 * Evaluates the refinements of a single Candidate for the Columns in the
+	 * range [from, to), splitting the range in halves, the forked half can be
+	 * stolen by an idle worker.
+	 */
+	private final class ColumnRangeTask extends RecursiveAction
 	{
-		if (!((itsSearchParameters.getTargetType() == TargetType.MULTI_LABEL) && itsSearchParameters.getPostProcessingDoAutoRun()))
-			return;
-
-		if (itsResult.isEmpty())
-			return;
+		private static final long serialVersionUID = 1L;
 
-		// Create quality measures on whole dataset
-		Log.logCommandLine("Creating quality measures.");
-		int aPostProcessingCount = itsSearchParameters.getPostProcessingCount();
-		double aPostProcessingCountSquare = Math.pow(aPostProcessingCount, 2.0);
+		private final Subgroup itsSubgroup;
+		private final BitSet itsParentMembers;
+		private final List<ColumnConditionBases> itsColumnConditionBasesSet;
+		private final Set<Column> itsSkip;
+		private final int itsFrom;
+		private final int itsTo;
 
-		QualityMeasure[] aQMs = new QualityMeasure[aPostProcessingCount];
-		for (int i = 0; i < aPostProcessingCount; i++)
+		ColumnRangeTask(Subgroup theSubgroup, BitSet theParentMembers, List<ColumnConditionBases> theColumnConditionBasesSet, Set<Column> theSkip, int theFrom, int theTo)
 		{
-			Bayesian aGlobalBayesian = new Bayesian(itsBinaryTable);
-			aGlobalBayesian.climb();
-			aQMs[i] = new QualityMeasure(itsSearchParameters, aGlobalBayesian.getDAG(), itsNrRows);
+			itsSubgroup                = theSubgroup;
+			itsParentMembers           = theParentMembers;
+			itsColumnConditionBasesSet = theColumnConditionBasesSet;
+			itsSkip                    = theSkip;
+			itsFrom                    = theFrom;
+			itsTo                      = theTo;
 		}
 
-		// Iterate over subgroups
-		SubgroupSet aNewSubgroupSet = new SubgroupSet(itsSearchParameters.getMaximumSubgroups(), itsSelection, itsNrRows);
-		// most methods of SubgroupSet are not thread save, but this is
-		// no problem for this method as it is run by a single thread
-		// however all itsResult sets, of all refinement depths,  will
-		// be kept in memory
-		// see comment in SubgroupSet.postProcess()
-		for (Subgroup s : itsResult)
+		@Override
+		protected void compute()
 		{
-			// FIXME
-			// because s.getID() is used this method can not be called before
-			// Process.echoMiningEnd() in postMining()
-			// this is unnecessary, as the same output can be achieved by using
-			// an old style (non-enhanced) for loop replacing s.getId() by i+1
-			// then the post-processing time can be included in the run time
-			Log.logCommandLine("Postprocessing subgroup " + s.getID());
-			double aTotalQuality = 0.0;
-			BinaryTable aSubgroupTable = itsBinaryTable.selectRows(s.getMembers());
-			for (int i = 0; i < aPostProcessingCount; i++)
+			if ((itsTo - itsFrom) > FORK_JOIN_COLUMN_THRESHOLD)
 			{
-				Bayesian aLocalBayesian = new Bayesian(aSubgroupTable);
-				aLocalBayesian.climb();
-				s.setDAG(aLocalBayesian.getDAG());
-				for (int j = 0; j < aPostProcessingCount; j++)
-					aTotalQuality += aQMs[j].calculate(s);
+				int aMiddle = (itsFrom + itsTo) >>> 1;
+				invokeAll(new ColumnRangeTask(itsSubgroup, itsParentMembers, itsColumnConditionBasesSet, itsSkip, itsFrom, aMiddle),
+						new ColumnRangeTask(itsSubgroup, itsParentMembers, itsColumnConditionBasesSet, itsSkip, aMiddle, itsTo));
+				return;
+			}
+
+			try
+			{
+				for (int i = itsFrom; i < itsTo && !isTimeToStop(); ++i)
+				{
+					ColumnConditionBases ccb = itsColumnConditionBasesSet.get(i);
+					ConditionBase cb = ccb.get(0);
+					if (cb == null) cb = ccb.get(1);
+					if (cb == null) cb = ccb.get(2);
+
+					// see Test.run(), during testing skipping is not performed
+					if (itsSkip.contains(cb.getColumn()))
+					{
+						itsSkipCount.incrementAndGet();
+						if (USE_SKIP_FILTER)
+							continue;
+					}
+
+					evaluateColumnConditionBases(itsSubgroup, itsParentMembers, ccb);
+				}
+			}
+			finally
+			{
+				// leafs run on any worker, flush before CandidateTask arrives
+				itsAdmission.flush();
 			}
-			s.setMeasureValue(aTotalQuality / aPostProcessingCountSquare);
-			s.renouncePValue();
-			aNewSubgroupSet.add(s);
 		}
-		aNewSubgroupSet.setIDs();
-		itsResult.clear();
-		itsResult.addAll(aNewSubgroupSet);
 	}
 
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
-	///// start of Refinement generation and related methods               /////
-	///// after Refinement generation follows evaluateCandidate()          /////
-	///// but some methods bypass it and compute the result directly       /////
-	///// binary                                                           /////
-	///// nominal                                                          /////
-	///// numeric                                                          /////
+	///// batched engine - MiningEngine.BATCHED                            /////
+	///// the Candidates of a (beam) level are refined together, Column by /////
+	///// Column, the counts for all Candidates are obtained in one scan   /////
+	///// of the Column data, instead of one scan per Candidate            /////
+	///// Columns are evaluated concurrently, one Column per Task          /////
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
 
+	// the members of a batch are also held as long[], see Column.getValueCounts()
+	private static final int BATCH_MAX_LEVEL_SIZE = 1024;
+
 	/*
-	 * NOTE
-	 * itsSubgroup / theMembers for each Refinement from the same RefinementList
-	 * are always the same, supply a cached version of theMembers, as
-	 * Subgroup.getMembers() creates a clone on each call
-	 *
-	 * NOTE
-	 * all required data can come from a single Refinement parameter, but
-	 * theParentMembers are obtained through an expensive Subgroup.getMembers()
-	 * call, which creates a new copy every time, therefore it is cached
-	 *
-	 * NOTE
-	 * these asserts are omitted as only the two mine() methods call this one:
-	 * (theParentMembers.cardinality() == theParentCoverage)
-	 * (theRefinement.getSubgroup().getMembers().equals(theParentMembers))
+	 * Levels are taken from the Queue as for the ForkJoin engine, so for beam
+	 * strategies the result is the same as for the other engines, see
+	 * mineForkJoin(), for other strategies a batch would hold a single
+	 * Candidate, mine() uses the per-Candidate tasks of FORK_JOIN for those.
+	 * The Column-major order is what makes the difference: with a beam width
+	 * of w, a Test scans every Column w times per level, each time for a
+	 * single Candidate, when the Column data is no longer in cache.
 	 */
-	private final void evaluateNominalBinaryRefinements(BitSet theParentMembers, int theParentCoverage, Refinement theRefinement)
+	private final void mineBatched(int theNrThreads, final List<ColumnConditionBases> theColumnConditionBasesSet, Fltr theFilter)
 	{
-		assert (false); // code should never get here
-
-		ConditionBase aConditionBase = theRefinement.getConditionBase();
+		ExecutorService es = Executors.newFixedThreadPool(theNrThreads);
+		int aSearchDepth = itsSearchParameters.getSearchDepth();
 
-		// split code paths for ValueSet/class labels (nominal/numeric/binary)
-		if (aConditionBase.getOperator() == Operator.ELEMENT_OF)
+		try
 		{
+			while (!isTimeToStop())
+			{
+				// previous level has completed, no Task is running
+				checkpoint();
 
-			// currently BestValueSet implies the target type is SINGLE_NOMINAL
-			assert (itsSearchParameters.getTargetType() == TargetType.SINGLE_NOMINAL);
-			assert (itsSearchParameters.getNominalSets());
+				List<Candidate> aLevel = removeLevel(BATCH_MAX_LEVEL_SIZE);
+				if (aLevel == null)
+					break;
+				if (aLevel.isEmpty())
+					continue;
 
-			//evaluateNominalElementOf(theParentMembers, theParentCoverage, theRefinement);
-			return;
-		}
+				final Batch aBatch = new Batch(aLevel, theFilter);
+				assert (aBatch.itsMaximumDepth < aSearchDepth);
 
-		assert (aConditionBase.getOperator() == Operator.EQUALS);
+				List<Callable<Void>> aTasks = new ArrayList<Callable<Void>>(theColumnConditionBasesSet.size());
+				for (final ColumnConditionBases ccb : theColumnConditionBasesSet)
+				{
+					aTasks.add(new Callable<Void>()
+					{
+						@Override
+						public Void call()
+						{
+							try
+							{
+								evaluateBatch(aBatch, ccb);
+							}
+							finally
+							{
+								// Tasks run on any Thread, flush before the level ends
+								itsAdmission.flush();
+							}
+							return null;
+						}
+					});
+				}
 
-		switch (aConditionBase.getColumn().getType())
+				for (Future<Void> f : es.invokeAll(aTasks))
+					f.get();
+			}
+		}
+		catch (InterruptedException e)
 		{
-			case ORDINAL : throw new AssertionError(AttributeType.ORDINAL);
-			default      : throw new AssertionError(aConditionBase.getColumn().getType());
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			es.shutdown();
 		}
 	}
 
-	// XXX (c = false) is checked first, (c = true) is conditionally, it depends on data and search characteristics  whether this is the best order
-	private final void evaluateBinary(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesBinary theColumnConditionBases)
+	/*
+	 * The Candidates of a level, with their members in both representations,
+	 * and the Columns that are skipped for each of them, see Test.run().
+	 * All arrays are read-only after construction, and shared by the Tasks.
+	 */
+	private final class Batch
 	{
-		assert (theColumnConditionBases.get(0).getOperator() == Operator.EQUALS);
-
-		int aParentCoverage = theParent.getCoverage();
-		// members-based domain, no empty Subgroups will occur
-		ConditionBase aConditionBase = theColumnConditionBases.get(0);
-		Column aColumn = aConditionBase.getColumn();
+		private final Subgroup[] itsSubgroups;
+		private final BitSet[] itsMembers;
+		private final long[][] itsWords;
+		private final int[] itsCoverages;
+		private final List<Set<Column>> itsSkip;
+		private final int itsMaximumDepth;
+
+		Batch(List<Candidate> theLevel, Fltr theFilter)
+		{
+			int aSize = theLevel.size();
+			itsSubgroups = new Subgroup[aSize];
+			itsMembers   = new BitSet[aSize];
+			itsWords     = new long[aSize][];
+			itsCoverages = new int[aSize];
+			itsSkip      = new ArrayList<Set<Column>>(aSize);
+
+			int aMaximumDepth = 0;
+			for (int k = 0; k < aSize; ++k)
+			{
+				Subgroup aSubgroup = theLevel.get(k).getSubgroup();
+				assert (aSubgroup.getCoverage() > 1);
 
-		BitSet aChildMembers = aColumn.evaluateBinary(theParentMembers, false);
-		int aChildCoverage = (aChildMembers == null ? 0 : aChildMembers.cardinality());
+				// Subgroup.getMembers() creates expensive clone, once per level
+				itsSubgroups[k] = aSubgroup;
+				itsMembers[k]   = aSubgroup.getMembers();
+				itsWords[k]     = itsMembers[k].toLongArray();
+				itsCoverages[k] = aSubgroup.getCoverage();
+				itsSkip.add(getColumnsToSkip(aSubgroup.getConditions(), theFilter));
+				aMaximumDepth = Math.max(aMaximumDepth, aSubgroup.getDepth());
+			}
+			itsMaximumDepth = aMaximumDepth;
+		}
+	}
 
-		// ignore both f and t
-		if ((aChildCoverage == 0) || (aChildCoverage == aParentCoverage))
-			return;
-
-		int aNrTruePositives = INVALID_NR_TRUE_POSITIVES;
-
-		// check for (aColumn = false)
-		if (aChildCoverage >= itsMinimumCoverage)
-			aNrTruePositives = evaluateBinaryRefinementsHelper(theParent, new Condition(aConditionBase, false), aChildMembers, aChildCoverage);
-
-		if (isTimeToStop())
+	/*
+	 * Evaluates the refinements of all Candidates in theBatch for a single
+	 * Column, the count based Column types get their counts in a single scan
+	 * of the Column data, the others are evaluated per Candidate, as by
+	 * evaluateColumnConditionBases(), the order of the Candidates is kept.
+	 */
+	private final void evaluateBatch(Batch theBatch, ColumnConditionBases theColumnConditionBases)
+	{
+		ColumnConditionBases ccb = theColumnConditionBases;
+		ConditionBase cb = ccb.get(0);
+		if (cb == null) cb = ccb.get(1);
+		if (cb == null) cb = ccb.get(2);
+		Column aColumn = cb.getColumn();
+
+		// the Candidates for which aColumn is not skipped
+		int aSize = 0;
+		int[] anIndices = new int[theBatch.itsSubgroups.length];
+		for (int k = 0; k < anIndices.length; ++k)
+		{
+			if (theBatch.itsSkip.get(k).contains(aColumn))
+			{
+				itsSkipCount.incrementAndGet();
+				if (USE_SKIP_FILTER)
+					continue;
+			}
+			anIndices[aSize++] = k;
+		}
+		if (aSize == 0)
 			return;
 
-		// check for (aColumn = true), do this only when useful
-		// everything that is not positive is negative
-		aChildCoverage = (aParentCoverage - aChildCoverage);
-		if (aChildCoverage >= itsMinimumCoverage)
-		{
-			Condition aCondition = new Condition(aConditionBase, true);
+		long[][] aWords = new long[aSize][];
+		for (int k = 0; k < aSize; ++k)
+			aWords[k] = theBatch.itsWords[anIndices[k]];
 
-			// (aColumn = false) is not evaluated when < itsMinimumCoverage
-			// NOTE if-check can never be true unless isDirectSetting()
-			if (aNrTruePositives != INVALID_NR_TRUE_POSITIVES)
+		if (ccb instanceof ColumnConditionBasesNominalEquals)
+		{
+			int[] aCoverages = new int[aSize];
+			for (int k = 0; k < aSize; ++k)
+				aCoverages[k] = theBatch.itsCoverages[anIndices[k]];
+
+			int[][] aCounts = aColumn.getUniqueNominalDomainCounts(aWords, aCoverages);
+			int[][] aTruePositives = (isDirectSingleBinary() && !aColumn.getHasMissingValues()) ? aColumn.getUniqueNominalDomainTruePositives(aWords, itsBinaryTarget.toLongArray()) : null;
+			// DOUBLE_BINARY, [mask][Candidate][value], masks as DoubleBinaryTable.itsWords
+			int[][][] aCells = null;
+			if (isDirectDoubleBinary() && !aColumn.getHasMissingValues())
 			{
-				aNrTruePositives = ((int) theParent.getTertiaryStatistic()) - aNrTruePositives;
-				Subgroup aChildSubgroup = directComputation(theParent, aCondition, itsQualityMeasure, aChildCoverage, aNrTruePositives);
-				checkAndLog(aChildSubgroup, aParentCoverage);
+				aCells = new int[DoubleBinaryTable.NR_MASKS][][];
+				for (int m = 0; m < DoubleBinaryTable.NR_MASKS; ++m)
+					aCells[m] = aColumn.getUniqueNominalDomainTruePositives(aWords, itsDoubleBinaryTable.itsWords[m]);
 			}
-			else
+			for (int k = 0; k < aSize && !isTimeToStop(); ++k)
 			{
-				aChildMembers = aColumn.evaluateBinary(theParentMembers, true);
-				evaluateBinaryRefinementsHelper(theParent, aCondition, aChildMembers, aChildCoverage);
+				int[][] aChildCells = null;
+				if (aCells != null)
+					aChildCells = new int[][] { aCells[0][k], aCells[1][k], aCells[2][k] };
+				evaluateNominalEquals(theBatch.itsSubgroups[anIndices[k]], (ColumnConditionBasesNominalEquals) ccb, aCounts[k], (aTruePositives == null) ? null : aTruePositives[k], aChildCells);
 			}
 		}
+		// see evaluateNumericRegular() for the code paths
+		else if ((ccb instanceof ColumnConditionBasesNumericRegular) && isDirectSingleBinary())
+		{
+			ValueCountTP[] v = aColumn.getUniqueNumericDomainMaps(aWords);
+			for (int k = 0; k < aSize && !isTimeToStop(); ++k)
+				for (int i = 0; i < 3; ++i)
+					if (ccb.get(i) != null)
+						evaluateNumericRegularSingleBinary(theBatch.itsSubgroups[anIndices[k]], ccb.get(i), v[k]);
+		}
+		else if ((ccb instanceof ColumnConditionBasesNumericRegular) && (aColumn.getHasMissingValues() || !(isDirectSingleNumeric() || isDirectScape() || isDirectDoubleCorrelation())))
+		{
+			ValueCount[] v = aColumn.getValueCounts(aWords);
+			for (int k = 0; k < aSize && !isTimeToStop(); ++k)
+				for (int i = 0; i < 3; ++i)
+					if (ccb.get(i) != null)
+						evaluateNumericRegularGeneric(theBatch.itsSubgroups[anIndices[k]], ccb.get(i), v[k]);
+		}
+		else
+		{
+			for (int k = 0; k < aSize && !isTimeToStop(); ++k)
+				evaluateColumnConditionBases(theBatch.itsSubgroups[anIndices[k]], theBatch.itsMembers[anIndices[k]], ccb);
+		}
 	}
 
-	// return is always INVALID_NR_TRUE_POSITIVES when !isDirectSetting()
-	private static final int INVALID_NR_TRUE_POSITIVES = -1;
-	private final int evaluateBinaryRefinementsHelper(Subgroup theParent, Condition theAddedCondition, BitSet theChildMembers, int theChildCoverage)
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+	///// deterministic engine - MiningEngine.DETERMINISTIC                /////
+	///// the Candidates of a level are refined concurrently, but the      /////
+	///// outcomes of checkAndLog() are committed in a canonical order:    /////
+	///// level, parent rank, Column index, and the order within a Column  /////
+	///// so numbering, log and result do not depend on the nr. Threads    /////
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+
+	// the outcomes of a level are held until they are committed
+	private static final int DETERMINISTIC_MAX_LEVEL_SIZE      = 1024;
+	// small levels are split into Column ranges, to keep all Threads busy
+	private static final int DETERMINISTIC_TASKS_PER_THREAD    = 4;
+
+	// for the running Task, null for the other engines, see checkAndLog()
+	private final ThreadLocal<List<Outcome>> itsOutcomes = new ThreadLocal<List<Outcome>>();
+
+	/*
+	 * Levels are taken from the Queue as for the ForkJoin engine, and the
+	 * Tasks of a level are committed in submission order, while later Tasks
+	 * are still running.
+	 * The commit only adds to the AdmissionBuffer of the dispatching Thread,
+	 * it is merged when the level is done, so during a level all Tasks see
+	 * the same itsResult, and pruning does not depend on timing either.
+	 * For beam strategies the result, numbering and log are those of a
+	 * single Thread, for the other strategies a level is everything in the
+	 * Queue, the final result is the same, the numbering is not.
+	 */
+	private final void mineDeterministic(int theNrThreads, final List<ColumnConditionBases> theColumnConditionBasesSet, final Fltr theFilter)
 	{
-		boolean isDirectSetting = isDirectSingleBinary();
-		final Subgroup aChild;
-		int aNrTruePositives = INVALID_NR_TRUE_POSITIVES;
+		ExecutorService es = Executors.newFixedThreadPool(theNrThreads);
+		int aSearchDepth = itsSearchParameters.getSearchDepth();
+		int aNrColumns = theColumnConditionBasesSet.size();
 
-		if (isDirectSetting)
+		try
 		{
-			// safe: it is a clone, and subgroup coverage is stored: theCoverage
-			theChildMembers.and(itsBinaryTarget);
-			aNrTruePositives = theChildMembers.cardinality();
+			while (!isTimeToStop())
+			{
+				// previous level has completed, no Task is running
+				checkpoint();
+
+				List<Candidate> aLevel = removeLevel(DETERMINISTIC_MAX_LEVEL_SIZE);
+				if (aLevel == null)
+					break;
+				if (aLevel.isEmpty())
+					continue;
 
-			aChild = directComputation(theParent, theAddedCondition, itsQualityMeasure, theChildCoverage, aNrTruePositives);
+				int aNrTasks = (DETERMINISTIC_TASKS_PER_THREAD * theNrThreads);
+				int aNrRanges = Math.max(1, Math.min(aNrColumns, (aNrTasks + aLevel.size() - 1) / aLevel.size()));
+
+				// in canonical order, Candidates are in Queue order
+				List<Future<List<Outcome>>> aFutures = new ArrayList<Future<List<Outcome>>>(aLevel.size() * aNrRanges);
+				for (Candidate c : aLevel)
+				{
+					final Subgroup aSubgroup = c.getSubgroup();
+
+					// Candidate should not be in CandidateQueue
+					assert (aSubgroup.getDepth() < aSearchDepth);
+					assert (aSubgroup.getCoverage() > 1);
+
+					for (int i = 0; i < aNrRanges; ++i)
+					{
+						final int aFrom = (int) (((long) i * aNrColumns) / aNrRanges);
+						final int aTo   = (int) (((long) (i + 1) * aNrColumns) / aNrRanges);
+						aFutures.add(es.submit(new Callable<List<Outcome>>()
+						{
+							@Override
+							public List<Outcome> call() { return refine(aSubgroup, theColumnConditionBasesSet, theFilter, aFrom, aTo); }
+						}));
+					}
+				}
+
+				for (Future<List<Outcome>> f : aFutures)
+					commit(f.get());
+
+				// before the next level is taken from the Queue
+				itsAdmission.flush();
+			}
 		}
-		else
+		catch (InterruptedException e)
 		{
-			if ((itsFilter != null) && !itsFilter.isUseful(theParent.getConditions(), theAddedCondition))
-				return INVALID_NR_TRUE_POSITIVES;
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			es.shutdownNow();
+		}
+	}
 
-			aChild = theParent.getRefinedSubgroup(theAddedCondition, theChildMembers, theChildCoverage);
+	/*
+	 * As refine(Subgroup, List, Fltr), for the Columns in the range
+	 * [theFrom, theTo), returns the outcomes of checkAndLog() in the order in
+	 * which they occurred.
+	 * Each Task clones the parent members, more than one Task per Candidate
+	 * only occurs for small levels.
+	 */
+	private final List<Outcome> refine(Subgroup theSubgroup, List<ColumnConditionBases> theColumnConditionBasesSet, Fltr theFilter, int theFrom, int theTo)
+	{
+		List<Outcome> anOutcomes = new ArrayList<Outcome>();
+		itsOutcomes.set(anOutcomes);
 
-			// SINGLE_NOMINAL only, not for PROP_SCORE_WRACC and PROP_SCORE_RATIO
-			if (isDirectSetting)
-				aNrTruePositives = (int) aChild.getTertiaryStatistic();
-		}
+		try
+		{
+			// Subgroup.getMembers() creates expensive clone, reuse
+			BitSet aParentMembers = theSubgroup.getMembers();
+			assert (aParentMembers.cardinality() == theSubgroup.getCoverage());
 
-		checkAndLog(aChild, theParent.getCoverage());
+			Set<Column> aSkip = getColumnsToSkip(theSubgroup.getConditions(), theFilter);
 
-		return aNrTruePositives;
+			for (int i = theFrom; i < theTo && !isTimeToStop(); ++i)
+			{
+				ColumnConditionBases ccb = theColumnConditionBasesSet.get(i);
+				ConditionBase cb = ccb.get(0);
+				if (cb == null) cb = ccb.get(1);
+				if (cb == null) cb = ccb.get(2);
+
+				// see Test.run(), during testing skipping is not performed
+				if (aSkip.contains(cb.getColumn()))
+				{
+					itsSkipCount.incrementAndGet();
+					if (USE_SKIP_FILTER)
+						continue;
+				}
+
+				evaluateColumnConditionBases(theSubgroup, aParentMembers, ccb);
+			}
+		}
+		finally
+		{
+			itsOutcomes.remove();
+		}
+
+		return anOutcomes;
 	}
 
-	// two methods, as BestValueSet and BestInterval already computed the score
-	private static final Subgroup directComputation(Subgroup theParent, Condition theAddedCondition, QualityMeasure theQualityMeasure, int theChildCoverage, int theNrTruePositives)
+	// the part of checkAndLog() that depends on the order of the calls
+	private final void commit(List<Outcome> theOutcomes)
 	{
-		double aQualityScore = theQualityMeasure.calculate(theNrTruePositives, theChildCoverage);
-		return directComputation(theParent, theAddedCondition, aQualityScore, theChildCoverage, theNrTruePositives);
+		for (Outcome o : theOutcomes)
+		{
+			if ((o.itsResultAddition != null) || (o.itsCandidateAddition != null))
+				itsAdmission.add(o.itsResultAddition, o.itsCandidateAddition);
+
+			long count = itsCandidateCount.getAndIncrement();
+
+			if (o.itsConditions != null)
+				logCandidateAddition(o.itsConditions, o.itsCoverage, o.itsQuality, count);
+		}
 	}
 
-	private static final Subgroup directComputation(Subgroup theParent, Condition theAddedCondition, double theQualityScore, int theChildCoverage, int theNrTruePositives)
+	// the outcome of a single checkAndLog() or discard() call, itsConditions,
+	// itsCoverage and itsQuality are what is logged, null when not logged
+	private static final class Outcome
 	{
-		// FIXME MM q is only cast to float to make historic results comparable
-		float  q = (float) theQualityScore;
-		double s = ((double) theNrTruePositives) / theChildCoverage;
-		double t = ((double) theNrTruePositives);
+		private final ConditionList itsConditions;
+		private final int itsCoverage;
+		private final double itsQuality;
+		private final Subgroup itsResultAddition;
+		private final Candidate itsCandidateAddition;
 
-		return theParent.getRefinedSubgroup(theAddedCondition, q, s, t, theChildCoverage);
+		Outcome(ConditionList theConditions, int theCoverage, double theQuality, Subgroup theResultAddition, Candidate theCandidateAddition)
+		{
+			itsConditions        = theConditions;
+			itsCoverage          = theCoverage;
+			itsQuality           = theQuality;
+			itsResultAddition    = theResultAddition;
+			itsCandidateAddition = theCandidateAddition;
+		}
 	}
 
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
-	///// nominal                                                          /////
+	///// distributed engine - MiningEngine.DISTRIBUTED                    /////
+	///// the coordinator and worker loops are in MiningCoordinator and   /////
+	///// MiningWorker, these are the parts of the search they use        /////
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
 
-	private final void evaluateNominalEquals(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesNominalEquals theColumnConditionBases)
-	{
-		assert (!itsSearchParameters.getNominalSets());
-		assert (theColumnConditionBases.get(0).getOperator() == Operator.EQUALS);
-
-		////////////////////////////////////////////////////////////////////////
-		boolean isFilterNull = (itsFilter == null);
-		int aParentCoverage = theParent.getCoverage();
-		// members-based domain, no empty Subgroups will occur
-		ConditionBase aConditionBase = theColumnConditionBases.get(0);
-		Column aColumn = aConditionBase.getColumn();
-		ConditionList aParentConditions = (isFilterNull ? null : theParent.getConditions());
-		////////////////////////////////////////////////////////////////////////
-
-		int[] aCounts = aColumn.getUniqueNominalDomainCounts(theParentMembers, aParentCoverage);
-
-		// avoid entering loop and checking 0-count values, no useful Refinement
-		// is possible, as it would have the same coverage as anOldCoverage
-		int aNrDistinct = aCounts[aCounts.length-1];
-		if (aNrDistinct <= 1)
-			return;
+	final CandidateQueue getCandidateQueue() { return itsCandidateQueue; }
 
-		List<String> aDomain = aColumn.itsDistinctValuesU;
-		for (int i = 0, j = aNrDistinct; j > 0 && !isTimeToStop(); ++i)
-		{
-			int aCount = aCounts[i];
-			if (aCount == 0)
-					continue;
+	final boolean isPrunable(Candidate theCandidate)
+	{
+		return itsUseOptimisticEstimates && isPrunable(theCandidate.getOptimisticEstimate());
+	}
 
-			j--;
+	// the RESULT of a TASK, theNrCandidates were created since the previous one
+	final void admit(Collection<Subgroup> theSubgroups, Collection<Candidate> theCandidates, long theNrCandidates)
+	{
+		// as checkAndLog(), the SubgroupSet prunes in AdmissionBuffer.flush()
+		for (Subgroup s : theSubgroups)
+			itsAdmission.add(s, null);
+		for (Candidate c : theCandidates)
+			if (!isPrunable(c))
+				itsAdmission.add(null, c);
+		itsCandidateCount.addAndGet(theNrCandidates);
+		itsAdmission.flush();
+	}
 
-			if (aCount < itsMinimumCoverage)
-				continue;
+	/*
+	 * the MiningWorker side of a connection, see MiningWorker.serve()
+	 * this SubgroupDiscovery is created for the same Table and
+	 * SearchParameters as the coordinator, its own CandidateQueue and
+	 * SubgroupSet are not used, each TASK is refined as by a Test, and the
+	 * AdmissionBuffer of its Thread is returned instead of merged
+	 */
+	final TaskRefiner preServe(int theNrThreads)
+	{
+		preMining(System.currentTimeMillis(), theNrThreads);
+		// the coordinator decides when to stop
+		itsEndTime = Long.MAX_VALUE;
+		return new TaskRefiner();
+	}
 
-			if (aCount == aParentCoverage)
-				break;
+	final void postServe()
+	{
+		deleteSortData(itsTable.getColumns());
+	}
 
-			Condition aCondition = new Condition(aConditionBase, aDomain.get(i));
+	final class TaskRefiner
+	{
+		private final List<ColumnConditionBases> itsColumnConditionBasesSet = ColumnConditionBasesBuilder.FACTORY.getColumnConditionBasesSet(itsTable, itsSearchParameters);
+		private final Fltr itsFilter = Fltr.get(itsColumnConditionBasesSet, itsSearchParameters);
 
-			if (!isFilterNull && !itsFilter.isUseful(aParentConditions, aCondition))
-				continue;
+		private TaskRefiner() {}
 
-			Subgroup aNewSubgroup = theParent.getRefinedSubgroup(aCondition);
-			checkAndLog(aNewSubgroup, aParentCoverage);
+		// returns the candidate count of this SubgroupDiscovery, see MiningProtocol
+		long refine(Subgroup theSubgroup, Collection<Subgroup> theSubgroups, Collection<Candidate> theCandidates)
+		{
+			SubgroupDiscovery.this.refine(theSubgroup, itsColumnConditionBasesSet, itsFilter);
+			itsAdmission.drainTo(theSubgroups, theCandidates);
+			return itsCandidateCount.get();
 		}
 	}
 
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
-	///// BestValueSet algorithm                                           /////
-	///// only works for SINGLE NOMINAL, other types not are implemented   /////
-	///// BestValueSet is actually applicable to any convex measure        /////
-	///// TODO not sure if this requirement is checked by the code below   /////
-	///// FIXME this does not take maximum coverage into account           /////
+	///// when done                                                        /////
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
 
-//	private final void evaluateNominalBestValueSet(BitSet theParentMembers, int theParentCoverage, Refinement theRefinement)
-	private final void evaluateNominalElementOf(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesNominalElementOf theColumnConditionBases)
+	private void postMining(long theBeginTime)
 	{
-		// currently BestValueSet implies the target type is SINGLE_NOMINAL
-		assert (itsSearchParameters.getTargetType() == TargetType.SINGLE_NOMINAL);
-		assert (itsSearchParameters.getNominalSets());
-		assert (isDirectSingleBinary());
-		assert (theColumnConditionBases.get(0).getOperator() == Operator.ELEMENT_OF);
-		// when last added Condition is 'Column_x in ValueSet', ConditionBase
-		// for Column_x should be skipped, as no useful Refinement is possible
-		// assumes only one Operator for Columns in ValueSet-scenario
-		assert (!BEST_VALUESET_AT_LAST_POSITION_SKIP || 
-			(ConditionListBuilder.toCanonicalOrder(theParent.getConditions())[theParent.getDepth()-1].getColumn() != theColumnConditionBases.get(0).getColumn()));
-
-		int aParentCoverage = theParent.getCoverage();
-		ConditionBase aConditionBase = theColumnConditionBases.get(0);
+		postMiningCheckpoint();
+		// the search may have stopped before the Queue was depleted
+		itsCandidateQueue.deleteRuns();
 
-		// as for BestIntervals -> use new half-interval code, it is 70x faster
-		NominalCrossTable aNCT = new NominalCrossTable(aConditionBase.getColumn(), theParentMembers, itsBinaryTarget);
-		SortedSet<String> aDomainBestSubSet = new TreeSet<String>();
+		if (itsSearchParameters.getFilterSubgroups())
+			itsResult.filterSubgroups(itsSearchParameters.getMinimumImprovement());
 
-		// final: if-else is long, ensure value is set before creating Subgroup
-		final int aCountHeadBody;
-		final int aChildCoverage;
-		final double aFinalBestQuality;
+		int aNrSubgroups = getNumberOfSubgroups();
 
-		QM aQualityMeasure = itsSearchParameters.getQualityMeasure();
-		if (aQualityMeasure == QM.WRACC || aQualityMeasure == QM.CORTANA_QUALITY)
+		// before mining end: post-processing must be included in total run time
+		if (itsSearchParameters.getSearchStrategy() == SearchStrategy.COVER_BASED_BEAM_SELECTION)
 		{
-			// NOTE
-			// this path did not set aBestQuality, by keeping track of the sum
-			// of both aPi and (aPi + aNi) the aBestQuality score can be
-			// computed using: itsQualityMeasure.calculate(aPiSum, aPiPlusNiSum)
-			//
-			// NOTE
-			// Michael used imprecise (and slower) floating-point calculation
-			// by rewriting, the result can be computed using integer arithmetic
-			long T = itsQualityMeasure.getNrPositives();
-			long N = itsQualityMeasure.getNrRecords();
-			int aP = 0;
-			int aN = 0;
+			itsCandidateQueueSizes.add(-aNrSubgroups);
+			postProcessCBSS();
+		}
 
-//			double aRatio = itsQualityMeasure.getNrPositives() / (double)(itsQualityMeasure.getNrRecords());
-			for (int i = 0; i < aNCT.size() && !isTimeToStop(); i++)
-			{
-				int aPi = aNCT.getPositiveCount(i);
-				int aNi = aNCT.getNegativeCount(i);
-				// include values with WRAcc=0 too, result has same WRAcc but higher support
-				// NOTE
-				// with respect to the remark above, see the end of this method
-				// including such values might result in a subgroup size that is
-				// > maximum_coverage
-//				if (aPi >= aRatio * (aPi + aNi))
-//					aDomainBestSubSet.add(aNCT.getValue(i));
-				int aCount = (aPi + aNi);
-				if ((aPi * N) >= (T * aCount))
-				{
-					aP += aPi;
-					aN += aNi;
-					aDomainBestSubSet.add(aNCT.getValue(i));
-				}
+		// for CBSS this reports aNrSubgroups, not 100 (might change one day)
+		long anElapsedTime = (System.currentTimeMillis() - theBeginTime);
+		Process.echoMiningEnd(anElapsedTime, aNrSubgroups);
 
-				// NOTE could happen because of floating-point rounding errors
-				assert ((aPi >= ((T / ((double) N)) * aCount)) == ((aPi * N) >= (T * aCount)));
-			}
+		long aNrCandidates = itsCandidateCount.get();
+		setTitle(itsMainWindow, anElapsedTime, aNrCandidates);
+
+		deleteSortData(itsTable.getColumns());
+
+		// postProcessCook() output is supposed to go in between
+		Log.logCommandLine("number of candidates: " + aNrCandidates);
+		if (itsResult.getExtentCache() != null)
+			Log.logCommandLine(itsResult.getExtentCache().toString());
+		postProcessCook();
+		// for CBSS this reports 100, not aNrSubgroups
+		Log.logCommandLine("number of subgroups : " + getNumberOfSubgroups());
+
+		// assign 1 to n to subgroups, for future reference in subsets
+		itsResult.setIDs();
+
+		// TODO probably also should be called before Process.echoMiningEnd()
+		postProcessMultiLabelAutoRun(); // IDs must be set first,  might set new
+
+		postMiningSnapshots(theBeginTime);
+	}
+
+	private static final void setTitle(JFrame theMainWindow, long theElapsedTime, long theNrCandidates)
+	{
+		if (theMainWindow == null)
+			return;
+
+		long minutes = theElapsedTime / 60_000l;
+		float seconds = (theElapsedTime % 60_000l) / 1_000.0f;
+
+		String aMessage = (minutes == 0 ? "" : (String.format(" %d minute%s and", minutes, (minutes == 1 ? "" : "s"))));
+		aMessage = String.format(Locale.US, "%s %.3f seconds", aMessage, seconds);
+		aMessage = String.format("Finished: evaluated %s candidate%s in%s.",
+									FORMATTER.format(theNrCandidates),
+									(theNrCandidates == 1 ? "" : "s"),
+									aMessage);
+
+		theMainWindow.setTitle(aMessage);
+	}
+
+	private void postProcessCook()
+	{
+		if (itsSearchParameters.getQualityMeasure() != QM.COOKS_DISTANCE)
+			return;
+
+		Log.logCommandLine("Bound seven computed "   + itsBoundSevenCount + " times");
+		Log.logCommandLine("Bound six   computed "   + itsBoundSixCount   + " times");
+		Log.logCommandLine("Bound five  computed "   + itsBoundFiveCount  + " times");
+		Log.logCommandLine("Bound four  computed "   + itsBoundFourCount  + " times");
+		Log.logCommandLine("Bound seven fired "      + itsBoundSevenFired + " times");
+		Log.logCommandLine("Bound six   fired "      + itsBoundSixFired   + " times");
+		Log.logCommandLine("Bound five  fired "      + itsBoundFiveFired  + " times");
+		Log.logCommandLine("Bound four  fired "      + itsBoundFourFired  + " times");
+		Log.logCommandLine("Rank deficient models: " + itsRankDefCount);
+	}
+/*
+TODO for stable jar, disabled, causes compile errors, reinstate later
+	private void addToBuffer(Subgroup theSubgroup )
+	{
+		int aCoverage = theSubgroup.getCoverage();
+		itsBaseRM.computeRemovedIndices(theSubgroup.getMembers(), aCoverage);
+		itsBaseRM.updateSquaredResidualSum();
+		itsBaseRM.updateRemovedTrace();
+		double aPriority = itsBaseRM.computeBoundFour(aCoverage);
+		Log.logCommandLine(theSubgroup.getConditions().toString() + " --- bound : " + aPriority);
+		// @deprecated constructor
+		itsBuffer.add(new Candidate(theSubgroup, aPriority));
+	}
+*/
+
+	private void flushBuffer()
+	{
+		if (itsBuffer == null)
+			return;
+		for (Iterator<Candidate> it = itsBuffer.iterator(); it.hasNext(); )
+		{
+			Candidate aCandidate = it.next();
+			Subgroup aSubgroup = aCandidate.getSubgroup();
+			checkAndLog(aSubgroup, itsNrRows);
+		}
+		itsAdmission.flush();
+		itsBuffer = new TreeSet<Candidate>();
+	}
+
+	private void postProcessCBSS()
+	{
+		assert (itsSearchParameters.getSearchStrategy() == SearchStrategy.COVER_BASED_BEAM_SELECTION);
+
+		// just for cover-based beam search post selection
+		SubgroupSet aSet = itsResult.postProcess(itsSearchParameters.getSearchStrategy());
+
+		// FIXME MM hack to deal with strange postProcess implementation
+		if (itsResult != aSet)
+		{
+			// no reassign, we want itsResult to be final
+			itsResult.clear();
+			itsResult.addAll(aSet);
+//			// in COVER_BASED_BEAM_SELECTION, subgroups may have been removed
+//			itsResult.setIDs();
+		}
+	}
+
+	private void postProcessMultiLabelAutoRun()
+	{
+		if (!((itsSearchParameters.getTargetType() == TargetType.MULTI_LABEL) && itsSearchParameters.getPostProcessingDoAutoRun()))
+			return;
+
+		if (itsResult.isEmpty())
+			return;
+
+		// Create quality measures on whole dataset
+		Log.logCommandLine("Creating quality measures.");
+		int aPostProcessingCount = itsSearchParameters.getPostProcessingCount();
+		double aPostProcessingCountSquare = Math.pow(aPostProcessingCount, 2.0);
+
+		// all climb()s on the same data share their family scores
+		QualityMeasure[] aQMs = new QualityMeasure[aPostProcessingCount];
+		Bayesian.FamilyScores aGlobalScores = new Bayesian.FamilyScores(itsBinaryTable, null);
+		for (int i = 0; i < aPostProcessingCount; i++)
+		{
+			Bayesian aGlobalBayesian = new Bayesian(aGlobalScores, null);
+			aGlobalBayesian.climb();
+			aQMs[i] = new QualityMeasure(itsSearchParameters, aGlobalBayesian.getDAG(), itsNrRows);
+		}
+
+		// Iterate over subgroups
+		SubgroupSet aNewSubgroupSet = new SubgroupSet(itsSearchParameters.getMaximumSubgroups(), itsSelection, itsNrRows);
+		// most methods of SubgroupSet are not thread save, but this is
+		// no problem for this method as it is run by a single thread
+		// however all itsResult sets, of all refinement depths,  will
+		// be kept in memory
+		// see comment in SubgroupSet.postProcess()
+		for (Subgroup s : itsResult)
+		{
+			// FIXME
+			// because s.getID() is used this method can not be called before
+			// Process.echoMiningEnd() in postMining()
+			// this is unnecessary, as the same output can be achieved by using
+			// an old style (non-enhanced) for loop replacing s.getId() by i+1
+			// then the post-processing time can be included in the run time
+			Log.logCommandLine("Postprocessing subgroup " + s.getID());
+			double aTotalQuality = 0.0;
+			Bayesian.FamilyScores aSubgroupScores = new Bayesian.FamilyScores(itsBinaryTable, s.getMembers());
+			for (int i = 0; i < aPostProcessingCount; i++)
+			{
+				Bayesian aLocalBayesian = new Bayesian(aSubgroupScores, null);
+				aLocalBayesian.climb();
+				s.setDAG(aLocalBayesian.getDAG());
+				for (int j = 0; j < aPostProcessingCount; j++)
+					aTotalQuality += aQMs[j].calculate(s);
+			}
+			s.setMeasureValue(aTotalQuality / aPostProcessingCountSquare);
+			s.renouncePValue();
+			aNewSubgroupSet.add(s);
+		}
+		aNewSubgroupSet.setIDs();
+		itsResult.clear();
+		itsResult.addAll(aNewSubgroupSet);
+	}
+
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+	///// start of Refinement generation and related methods               /////
+	///// after Refinement generation follows evaluateCandidate()          /////
+	///// but some methods bypass it and compute the result directly       /////
+	///// binary                                                           /////
+	///// nominal                                                          /////
+	///// numeric                                                          /////
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+
+	/*
+	 * NOTE
+	 * itsSubgroup / theMembers for each Refinement from the same RefinementList
+	 * are always the same, supply a cached version of theMembers, as
+	 * Subgroup.getMembers() creates a clone on each call
+	 *
+	 * NOTE
+	 * all required data can come from a single Refinement parameter, but
+	 * theParentMembers are obtained through an expensive Subgroup.getMembers()
+	 * call, which creates a new copy every time, therefore it is cached
+	 *
+	 * NOTE
+	 * these asserts are omitted as only the two mine() methods call this one:
+	 * (theParentMembers.cardinality() == theParentCoverage)
+	 * (theRefinement.getSubgroup().getMembers().equals(theParentMembers))
+	 */
+	private final void evaluateNominalBinaryRefinements(BitSet theParentMembers, int theParentCoverage, Refinement theRefinement)
+	{
+		assert (false); // code should never get here
+
+		ConditionBase aConditionBase = theRefinement.getConditionBase();
+
+		// split code paths for ValueSet/class labels (nominal/numeric/binary)
+		if (aConditionBase.getOperator() == Operator.ELEMENT_OF)
+		{
+
+			// currently BestValueSet implies the target type is SINGLE_NOMINAL
+			assert (itsSearchParameters.getTargetType() == TargetType.SINGLE_NOMINAL);
+			assert (itsSearchParameters.getNominalSets());
+
+			//evaluateNominalElementOf(theParentMembers, theParentCoverage, theRefinement);
+			return;
+		}
+
+		assert (aConditionBase.getOperator() == Operator.EQUALS);
+
+		switch (aConditionBase.getColumn().getType())
+		{
+			case ORDINAL : throw new AssertionError(AttributeType.ORDINAL);
+			default      : throw new AssertionError(aConditionBase.getColumn().getType());
+		}
+	}
+
+	// XXX (c = false) is checked first, (c = true) is conditionally, it depends on data and search characteristics  whether this is the best order
+	private final void evaluateBinary(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesBinary theColumnConditionBases)
+	{
+		assert (theColumnConditionBases.get(0).getOperator() == Operator.EQUALS);
+
+		int aParentCoverage = theParent.getCoverage();
+		// members-based domain, no empty Subgroups will occur
+		ConditionBase aConditionBase = theColumnConditionBases.get(0);
+		Column aColumn = aConditionBase.getColumn();
+
+		BitSet aChildMembers = aColumn.evaluateBinary(theParentMembers, false);
+		int aChildCoverage = (aChildMembers == null ? 0 : aChildMembers.cardinality());
+
+		// ignore both f and t
+		if ((aChildCoverage == 0) || (aChildCoverage == aParentCoverage))
+			return;
+
+		int aNrTruePositives = INVALID_NR_TRUE_POSITIVES;
+
+		// check for (aColumn = false)
+		if (aChildCoverage >= itsMinimumCoverage)
+			aNrTruePositives = evaluateBinaryRefinementsHelper(theParent, new Condition(aConditionBase, false), aChildMembers, aChildCoverage);
+
+		if (isTimeToStop())
+			return;
+
+		// check for (aColumn = true), do this only when useful
+		// everything that is not positive is negative
+		aChildCoverage = (aParentCoverage - aChildCoverage);
+		if (aChildCoverage >= itsMinimumCoverage)
+		{
+			Condition aCondition = new Condition(aConditionBase, true);
+
+			// (aColumn = false) is not evaluated when < itsMinimumCoverage
+			// NOTE if-check can never be true unless isDirectSetting()
+			if (aNrTruePositives != INVALID_NR_TRUE_POSITIVES)
+			{
+				aNrTruePositives = ((int) theParent.getTertiaryStatistic()) - aNrTruePositives;
+				float aQuality = (float) itsQualityMeasure.calculate(aNrTruePositives, aChildCoverage);
+				if (isDiscardable(aChildCoverage, aParentCoverage, theParent.getDepth() + 1, aQuality, aNrTruePositives))
+					discard(theParent, aCondition, aChildCoverage, aQuality);
+				else
+					checkAndLog(directComputation(theParent, aCondition, aQuality, aChildCoverage, aNrTruePositives), aParentCoverage);
+			}
+			else
+			{
+				aChildMembers = aColumn.evaluateBinary(theParentMembers, true);
+				evaluateBinaryRefinementsHelper(theParent, aCondition, aChildMembers, aChildCoverage);
+			}
+		}
+	}
+
+	// return is always INVALID_NR_TRUE_POSITIVES when !isDirectSetting()
+	private static final int INVALID_NR_TRUE_POSITIVES = -1;
+	private final int evaluateBinaryRefinementsHelper(Subgroup theParent, Condition theAddedCondition, BitSet theChildMembers, int theChildCoverage)
+	{
+		boolean isDirectSetting = isDirectSingleBinary();
+		final Subgroup aChild;
+		int aNrTruePositives = INVALID_NR_TRUE_POSITIVES;
+
+		if (isDirectSetting)
+		{
+			// safe: it is a clone, and subgroup coverage is stored: theCoverage
+			theChildMembers.and(itsBinaryTarget);
+			aNrTruePositives = theChildMembers.cardinality();
+
+			float aQuality = (float) itsQualityMeasure.calculate(aNrTruePositives, theChildCoverage);
+			if (isDiscardable(theChildCoverage, theParent.getCoverage(), theParent.getDepth() + 1, aQuality, aNrTruePositives))
+			{
+				discard(theParent, theAddedCondition, theChildCoverage, aQuality);
+				return aNrTruePositives;
+			}
+
+			aChild = directComputation(theParent, theAddedCondition, aQuality, theChildCoverage, aNrTruePositives);
+		}
+		else
+		{
+			if ((itsFilter != null) && !itsFilter.isUseful(theParent.getConditions(), theAddedCondition))
+				return INVALID_NR_TRUE_POSITIVES;
+
+			aChild = theParent.getRefinedSubgroup(theAddedCondition, theChildMembers, theChildCoverage);
+
+			// SINGLE_NOMINAL only, not for PROP_SCORE_WRACC and PROP_SCORE_RATIO
+			if (isDirectSetting)
+				aNrTruePositives = (int) aChild.getTertiaryStatistic();
+		}
+
+		checkAndLog(aChild, theParent.getCoverage());
+
+		return aNrTruePositives;
+	}
+
+	// two methods, as BestValueSet and BestInterval already computed the score
+	private static final Subgroup directComputation(Subgroup theParent, Condition theAddedCondition, QualityMeasure theQualityMeasure, int theChildCoverage, int theNrTruePositives)
+	{
+		double aQualityScore = theQualityMeasure.calculate(theNrTruePositives, theChildCoverage);
+		return directComputation(theParent, theAddedCondition, aQualityScore, theChildCoverage, theNrTruePositives);
+	}
+
+	private static final Subgroup directComputation(Subgroup theParent, Condition theAddedCondition, double theQualityScore, int theChildCoverage, int theNrTruePositives)
+	{
+		// FIXME MM q is only cast to float to make historic results comparable
+		float  q = (float) theQualityScore;
+		double s = ((double) theNrTruePositives) / theChildCoverage;
+		double t = ((double) theNrTruePositives);
+
+		return theParent.getRefinedSubgroup(theAddedCondition, q, s, t, theChildCoverage);
+	}
+
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+	///// nominal                                                          /////
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+
+	private final void evaluateNominalEquals(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesNominalEquals theColumnConditionBases)
+	{
+		Column aColumn = theColumnConditionBases.get(0).getColumn();
+		int[] aCounts = aColumn.getUniqueNominalDomainCounts(theParentMembers, theParent.getCoverage());
+		// SINGLE_NOMINAL, the qualities follow from the counts, see isDiscardable()
+		// Column.evaluate() excludes missing values, the counts do not
+		int[] aTruePositives = ((aCounts[aCounts.length-1] > 1) && isDirectSingleBinary() && !aColumn.getHasMissingValues()) ? aColumn.getUniqueNominalDomainTruePositives(theParentMembers, itsBinaryTarget) : null;
+		// DOUBLE_BINARY, the 2x2 tables of all values in a single pass
+		int[][] aCells = ((aCounts[aCounts.length-1] > 1) && isDirectDoubleBinary() && !aColumn.getHasMissingValues()) ? aColumn.getUniqueNominalDomainTargetCounts(theParentMembers, itsDoubleBinaryTable.itsMasks) : null;
+
+		evaluateNominalEquals(theParent, theColumnConditionBases, aCounts, aTruePositives, aCells);
+	}
+
+	// theCounts as returned by Column.getUniqueNominalDomainCounts(), theTruePositives is null when !isDirectSingleBinary()
+	// theCells is null when !isDirectDoubleBinary(), else the counts per value for each of DoubleBinaryTable.itsMasks
+	private final void evaluateNominalEquals(Subgroup theParent, ColumnConditionBasesNominalEquals theColumnConditionBases, int[] theCounts, int[] theTruePositives, int[][] theCells)
+	{
+		assert (!itsSearchParameters.getNominalSets());
+		assert (theColumnConditionBases.get(0).getOperator() == Operator.EQUALS);
+
+		////////////////////////////////////////////////////////////////////////
+		boolean isFilterNull = (itsFilter == null);
+		int aParentCoverage = theParent.getCoverage();
+		// members-based domain, no empty Subgroups will occur
+		ConditionBase aConditionBase = theColumnConditionBases.get(0);
+		Column aColumn = aConditionBase.getColumn();
+		ConditionList aParentConditions = (isFilterNull ? null : theParent.getConditions());
+		int aChildDepth = theParent.getDepth() + 1;
+		////////////////////////////////////////////////////////////////////////
+
+		int[] aCounts = theCounts;
+
+		// avoid entering loop and checking 0-count values, no useful Refinement
+		// is possible, as it would have the same coverage as anOldCoverage
+		int aNrDistinct = aCounts[aCounts.length-1];
+		if (aNrDistinct <= 1)
+			return;
+
+		List<String> aDomain = aColumn.itsDistinctValuesU;
+		for (int i = 0, j = aNrDistinct; j > 0 && !isTimeToStop(); ++i)
+		{
+			int aCount = aCounts[i];
+			if (aCount == 0)
+					continue;
+
+			j--;
+
+			if (aCount < itsMinimumCoverage)
+				continue;
+
+			if (aCount == aParentCoverage)
+				break;
+
+			Condition aCondition = null;
+
+			if (!isFilterNull && !itsFilter.isUseful(aParentConditions, (aCondition = new Condition(aConditionBase, aDomain.get(i)))))
+				continue;
+
+			if (theCells != null)
+			{
+				evaluateNominalEqualsDoubleBinary(theParent, aCondition, aConditionBase, aDomain.get(i), aCount, theCells[0][i], theCells[1][i], theCells[2][i]);
+				continue;
+			}
+
+			if (theTruePositives == null)
+			{
+				Subgroup aNewSubgroup = theParent.getRefinedSubgroup((aCondition != null) ? aCondition : new Condition(aConditionBase, aDomain.get(i)));
+				checkAndLog(aNewSubgroup, aParentCoverage);
+				continue;
+			}
+
+			// flyweight scoring, no Condition or Subgroup for discarded refinements
+			int aNrTruePositives = theTruePositives[i];
+			float aQuality = (float) itsQualityMeasure.calculate(aNrTruePositives, aCount);
+			if (isDiscardable(aCount, aParentCoverage, aChildDepth, aQuality, aNrTruePositives))
+			{
+				discard(theParent, aCondition, aConditionBase, aDomain.get(i), aCount, aQuality);
+				continue;
+			}
+
+			if (aCondition == null)
+				aCondition = new Condition(aConditionBase, aDomain.get(i));
+			checkAndLog(directComputation(theParent, aCondition, aQuality, aCount, aNrTruePositives), aParentCoverage);
+		}
+	}
+
+	// DOUBLE_BINARY, as evaluateCandidateDoubleBinary(), but from the counts
+	// of a single value, theCondition is null when it was not created yet
+	private final void evaluateNominalEqualsDoubleBinary(Subgroup theParent, Condition theCondition, ConditionBase theConditionBase, String theValue, int theChildCoverage, int theCountA, int theCountAT, int theCountBT)
+	{
+		DoubleBinaryTable t = itsDoubleBinaryTable;
+		int aParentCoverage = theParent.getCoverage();
+		int aCountB = theChildCoverage - theCountA;
+
+		// see evaluateCandidateDoubleBinary() for the statistics of the
+		// degenerate cases, the Subgroup constructor copies the tertiary
+		// statistic from the parent
+		boolean isDegenerate = (theCountA == 0) || (aCountB == 0);
+		float  q = isDegenerate ? 0f : t.calculate(itsSearchParameters.getQualityMeasure(), theCountA, theCountAT, aCountB, theCountBT);
+		double s = isDegenerate ? 0.0 : t.getRelativeLift(theCountA, theCountAT);
+		double u = (theCountA == 0) ? theParent.getTertiaryStatistic() : t.getSubgroupTargetA(theCountA, theCountAT);
+
+		if (isDiscardable(theChildCoverage, aParentCoverage, theParent.getDepth() + 1, q, u))
+		{
+			discard(theParent, theCondition, theConditionBase, theValue, theChildCoverage, q);
+			return;
+		}
+
+		Condition aCondition = (theCondition != null) ? theCondition : new Condition(theConditionBase, theValue);
+		checkAndLog(theParent.getRefinedSubgroup(aCondition, q, s, u, theChildCoverage), aParentCoverage);
+	}
+
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+	///// BestValueSet algorithm                                           /////
+	///// only works for SINGLE NOMINAL, other types not are implemented   /////
+	///// BestValueSet is actually applicable to any convex measure        /////
+	///// TODO not sure if this requirement is checked by the code below   /////
+	///// FIXME this does not take maximum coverage into account           /////
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+
+//	private final void evaluateNominalBestValueSet(BitSet theParentMembers, int theParentCoverage, Refinement theRefinement)
+	private final void evaluateNominalElementOf(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesNominalElementOf theColumnConditionBases)
+	{
+		// currently BestValueSet implies the target type is SINGLE_NOMINAL
+		assert (itsSearchParameters.getTargetType() == TargetType.SINGLE_NOMINAL);
+		assert (itsSearchParameters.getNominalSets());
+		assert (isDirectSingleBinary());
+		assert (theColumnConditionBases.get(0).getOperator() == Operator.ELEMENT_OF);
+		// when last added Condition is 'Column_x in ValueSet', ConditionBase
+		// for Column_x should be skipped, as no useful Refinement is possible
+		// assumes only one Operator for Columns in ValueSet-scenario
+		assert (!BEST_VALUESET_AT_LAST_POSITION_SKIP || 
+			(ConditionListBuilder.toCanonicalOrder(theParent.getConditions())[theParent.getDepth()-1].getColumn() != theColumnConditionBases.get(0).getColumn()));
+
+		int aParentCoverage = theParent.getCoverage();
+		ConditionBase aConditionBase = theColumnConditionBases.get(0);
+
+		// as for BestIntervals -> use new half-interval code, it is 70x faster
+		NominalCrossTable aNCT = new NominalCrossTable(aConditionBase.getColumn(), theParentMembers, itsBinaryTarget);
+		SortedSet<String> aDomainBestSubSet = new TreeSet<String>();
+
+		// final: if-else is long, ensure value is set before creating Subgroup
+		final int aCountHeadBody;
+		final int aChildCoverage;
+		final double aFinalBestQuality;
+
+		QM aQualityMeasure = itsSearchParameters.getQualityMeasure();
+		if (aQualityMeasure == QM.WRACC || aQualityMeasure == QM.CORTANA_QUALITY)
+		{
+			// NOTE
+			// this path did not set aBestQuality, by keeping track of the sum
+			// of both aPi and (aPi + aNi) the aBestQuality score can be
+			// computed using: itsQualityMeasure.calculate(aPiSum, aPiPlusNiSum)
+			//
+			// NOTE
+			// Michael used imprecise (and slower) floating-point calculation
+			// by rewriting, the result can be computed using integer arithmetic
+			long T = itsQualityMeasure.getNrPositives();
+			long N = itsQualityMeasure.getNrRecords();
+			int aP = 0;
+			int aN = 0;
+
+//			double aRatio = itsQualityMeasure.getNrPositives() / (double)(itsQualityMeasure.getNrRecords());
+			for (int i = 0; i < aNCT.size() && !isTimeToStop(); i++)
+			{
+				int aPi = aNCT.getPositiveCount(i);
+				int aNi = aNCT.getNegativeCount(i);
+				// include values with WRAcc=0 too, result has same WRAcc but higher support
+				// NOTE
+				// with respect to the remark above, see the end of this method
+				// including such values might result in a subgroup size that is
+				// > maximum_coverage
+//				if (aPi >= aRatio * (aPi + aNi))
+//					aDomainBestSubSet.add(aNCT.getValue(i));
+				int aCount = (aPi + aNi);
+				if ((aPi * N) >= (T * aCount))
+				{
+					aP += aPi;
+					aN += aNi;
+					aDomainBestSubSet.add(aNCT.getValue(i));
+				}
+
+				// NOTE could happen because of floating-point rounding errors
+				assert ((aPi >= ((T / ((double) N)) * aCount)) == ((aPi * N) >= (T * aCount)));
+			}
+
+			if (aDomainBestSubSet.size() == 0)
+				return;
+
+			// NOTE
+			// when (aDomainBestSubSet.size() == oldValueSet.size()) the
+			// subgroup size or ratios might have changed, yielding a different
+			// aFinalBestQuality
+			//
+			// when (aDomainBestSubSet.size() < oldValueSet.size()) the new
+			// ValueSet might still be a redundant addition, when an
+			// 'intermediate' Condition has reduced the domain of oldValueSet,
+			// the size-check below essentially includes a test for that also
+			if ((aP + aN) == aParentCoverage) // (aP + aN) is aChildCoverage
+			{
+				itsSkipCount.incrementAndGet();
+//				if (DEBUG_PRINTS_FOR_SKIP)
+//					Log.logCommandLine(String.format("SZ-SKIP\t%s AND %s%n", theParent, aDomainBestSubSet));
+				if (BEST_VALUESET_NO_REFINEMENT_SKIP)
+					return;
+			}
+
+			aCountHeadBody    = aP;
+			aChildCoverage    = (aP + aN);
+			aFinalBestQuality = itsQualityMeasure.calculate(aCountHeadBody, aChildCoverage);
+		}
+		else // not WRACC
+		{
+			double aBestQuality = Double.NEGATIVE_INFINITY;
+			int aBestP = Integer.MIN_VALUE;
+			int aBestN = Integer.MIN_VALUE;
+
+			// construct and check all subsets on the convex hull
+			List<Integer> aSortedDomainIndices = aNCT.getSortedDomainIndices();
+			int aSortedDomainIndicesSize = aSortedDomainIndices.size();
+
+			// upper part of the hull
+			int aP = 0;
+			int aN = 0;
+			int aPrevBestI = -1;
+			for (int i = 0; i < aSortedDomainIndicesSize - 1 && !isTimeToStop(); i++)
+			{
+				int anIndex = aSortedDomainIndices.get(i);
+				int aPi = aNCT.getPositiveCount(anIndex);
+				int aNi = aNCT.getNegativeCount(anIndex);
+				aP += aPi;
+				aN += aNi;
+				int aNextIndex = aSortedDomainIndices.get(i+1);
+				// FIXME multiplications might overflow, though == remains valid
+				if (i < aSortedDomainIndicesSize-2 && aPi * aNCT.getNegativeCount(aNextIndex) == aNCT.getPositiveCount(aNextIndex) * aNi) // skip checking degenerate hull points
+					continue;
+				double aQuality = itsQualityMeasure.calculate(aP, aP + aN);
+				if (aQuality > aBestQuality)
+				{
+					aBestQuality = aQuality;
+					aBestP = aP;
+					aBestN = aN;
+
+					for (int j = aPrevBestI+1; j <= i; j++)
+					{
+						String aValue = aNCT.getValue(aSortedDomainIndices.get(j));
+						aDomainBestSubSet.add(aValue);
+					}
+					aPrevBestI = i;
+				}
+			}
+
+			// lower part of the hull
+			// TODO: complete list of QMs
+			boolean aLowIsDominatedQM = false;
+			boolean anAsymmetricQM = true;
+			if (aQualityMeasure == QM.BINOMIAL)
+				aLowIsDominatedQM = true;
+			if (aQualityMeasure == QM.CHI_SQUARED || aQualityMeasure == QM.INFORMATION_GAIN)
+				anAsymmetricQM = false;
+
+			// NOTE if ever enabled: set aBestQuality, aCountHeadBody, aCoverage
+			if (false && !anAsymmetricQM) // TODO: fix this for depth > 1, check only upper OR lower hull
+			{
+				if (aDomainBestSubSet.size() > aNCT.size()/2) // prefer complement if smaller
+				{
+					aDomainBestSubSet.clear();
+					for (int j = aPrevBestI + 1; j < aSortedDomainIndicesSize; j++)
+					{
+						String aValue = aNCT.getValue(aSortedDomainIndices.get(j));
+						aDomainBestSubSet.add(aValue);
+					}
+				}
+			}
+			else if (true || !aLowIsDominatedQM)
+			{
+				aP = 0;
+				aN = 0;
+				aPrevBestI = -1;
+				for (int i = aSortedDomainIndicesSize - 1; i > 0 && !isTimeToStop(); i--)
+				{
+					int anIndex = aSortedDomainIndices.get(i).intValue();
+					int aPi = aNCT.getPositiveCount(anIndex);
+					int aNi = aNCT.getNegativeCount(anIndex);
+					aP += aPi;
+					aN += aNi;
+					int aPrevIndex = aSortedDomainIndices.get(i-1);
+					if (i > 1 && aPi * aNCT.getNegativeCount(aPrevIndex) == aNCT.getPositiveCount(aPrevIndex) * aNi)
+						continue; // skip degenerate hull points
+					double aQuality = itsQualityMeasure.calculate(aP, aP + aN);
+					if (aQuality > aBestQuality)
+					{
+						aBestQuality = aQuality;
+						aBestP = aP;
+						aBestN = aN;
+
+						if (aPrevBestI == -1)
+						{
+							aDomainBestSubSet.clear();
+							aPrevBestI = aSortedDomainIndicesSize;
+						}
+						for (int j = aPrevBestI-1; j >= i; j--)
+						{
+							String aValue = aNCT.getValue(aSortedDomainIndices.get(j));
+							aDomainBestSubSet.add(aValue);
+						}
+						aPrevBestI = i;
+					}
+				}
+			}
 
 			if (aDomainBestSubSet.size() == 0)
 				return;
@@ -1665,247 +3038,517 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 					return;
 			}
 
-			aCountHeadBody    = aP;
-			aChildCoverage    = (aP + aN);
-			aFinalBestQuality = itsQualityMeasure.calculate(aCountHeadBody, aChildCoverage);
+			aCountHeadBody    = aBestP;
+			aChildCoverage    = (aBestP + aBestN);
+			aFinalBestQuality = aBestQuality;
+		}
+
+		// FIXME MM this does not take maximum coverage into account
+		// the best ValueSet might be > maxCov, and thus not be used
+		// but when this is the last search level, the refined version
+		// will also never be created
+		// a better solution is to obtain the best VALID ValueSet for
+		// this level, add it to the result set (possibly), and add the
+		// BEST (valid or not) Candidate to the CandidateQueue
+		// and then never refine a nominal attribute with itself
+		//
+		// this is especially relevant because for WRAcc the original
+		// includes values with a score of 0, this increases the
+		// support
+		// in general this is a good approach, as larger Subgroups have
+		// more possibilities as refinement seeds
+		// but obviously, when having to choose between not returning a
+		// ValueSet, and one that omits some 0-score labels the latter
+		// seems the logical choice
+		//
+		// so before returning the ValueSet, as simple solution for now
+		// is to reduce the ValueSet if it is too large, by removing
+		// 0-score and labels, and, if needed, those with the worst
+		// ratios, until the ValueSet < maximimum_coverage
+		// then this method calls checkAndLog() twice, once with the
+		// BEST VALID ValueSet (which can be added to the ResultSet)
+		// and the BEST (even if too large) ValueSet, which will never
+		// be added to the ResultSet, but could be added to the
+		// CandidateSet
+		ValueSet aBestSubset = new ValueSet(aDomainBestSubSet);
+		Condition anAddedCondition = new Condition(aConditionBase, aBestSubset);
+		Subgroup aChild = directComputation(theParent, anAddedCondition, aFinalBestQuality, aChildCoverage, aCountHeadBody);
+		checkAndLog(aChild, aParentCoverage);
+	}
+
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+	///// numeric                                                          /////
+	////////////////////////////////////////////////////////////////////////////
+	////////////////////////////////////////////////////////////////////////////
+
+	/*
+	 * NOTE
+	 * all required data can come from a single Refinement parameter, but
+	 * theParentMembers are obtained through an expensive Subgroup.getMembers()
+	 * call, which creates a new copy every time, therefore it is cached
+	 *
+	 * NOTE
+	 * these asserts are omitted as only the two mine() methods call this one:
+	 * (theParentMembers.cardinality() == theParentCoverage)
+	 * (theRefinement.getSubgroup().getMembers().equals(theParentMembers))
+	 *
+	 * TODO
+	 * for *_BEST strategies, in case of ties, multiple subgroups
+	 * attaining the best score, implementations retain only the first
+	 * instead it could retain all best scoring subgroups
+	 *
+	 * moreover, the treatment of <= and >= is dubious
+	 * for <= the first, and therefore smallest best Subgroup is retained
+	 * for >= the first, and therefore largest best Subgroup is retained
+	 */
+	private final void evaluateNumericRegular(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesNumericRegular theColumnConditionBases)
+	{
+		assert (EnumSet.of(NumericStrategy.NUMERIC_ALL, NumericStrategy.NUMERIC_BEST,
+							NumericStrategy.NUMERIC_BEST_BINS, NumericStrategy.NUMERIC_BINS).contains(itsSearchParameters.getNumericStrategy()));
+
+		ConditionBase e = theColumnConditionBases.get(0);
+		ConditionBase l = theColumnConditionBases.get(1);
+		ConditionBase g = theColumnConditionBases.get(2);
+
+		// SearchSettings should not change, but checking all the time is cheap
+		boolean doEq_Test = (e != null);
+		boolean doLeqTest = (l != null);
+		boolean doGeqTest = (g != null);
+
+		assert (!doEq_Test || (e.getOperator() == (itsSearchParameters.getNumericStrategy().isDiscretiser() ? Operator.BETWEEN : Operator.EQUALS)));
+		assert (!doLeqTest || (l.getOperator() == Operator.LESS_THAN_OR_EQUAL));
+		assert (!doGeqTest || (g.getOperator() == Operator.GREATER_THAN_OR_EQUAL));
+
+		final Column aColumn = (doEq_Test ? e.getColumn() : (doLeqTest ? l.getColumn() : g.getColumn()));
+
+		// currently only for SINGLE_NOMINAL (and not for propensity scores)
+		// but expect there to be more optimised settings, so keep split here
+		if (isDirectSingleBinary())
+		{
+			ValueCountTP v = aColumn.getUniqueNumericDomainMap(theParentMembers);
+			if (doEq_Test) evaluateNumericRegularSingleBinary(theParent, e, v);
+			if (doLeqTest) evaluateNumericRegularSingleBinary(theParent, l, v);
+			if (doGeqTest) evaluateNumericRegularSingleBinary(theParent, g, v);
+		}
+		// SINGLE_NUMERIC, missing values are not counted by Column.evaluate()
+		// so for now Columns with missing values use the generic code path
+		else if (isDirectSingleNumeric() && !aColumn.getHasMissingValues())
+		{
+			ValueCountSumSquaresSum v = aColumn.getUniqueNumericDomainMapSq(theParentMembers, itsNumericTarget, itsNumericTargetShift);
+			if (doEq_Test) evaluateNumericRegularSingleNumeric(theParent, e, v);
+			if (doLeqTest) evaluateNumericRegularSingleNumeric(theParent, l, v);
+			if (doGeqTest) evaluateNumericRegularSingleNumeric(theParent, g, v);
+		}
+		// SCAPE, same restriction for missing values as for SINGLE_NUMERIC
+		else if (isDirectScape() && !aColumn.getHasMissingValues())
+		{
+			ValueCount v = aColumn.getValueCount(theParentMembers);
+			int[] m = aColumn.getMembersBySortIndex(theParentMembers, v);
+			if (doEq_Test) evaluateNumericRegularScape(theParent, theParentMembers, e, v, m);
+			if (doLeqTest) evaluateNumericRegularScape(theParent, theParentMembers, l, v, m);
+			if (doGeqTest) evaluateNumericRegularScape(theParent, theParentMembers, g, v, m);
+		}
+		// DOUBLE_CORRELATION, same restriction for missing values as for SINGLE_NUMERIC
+		else if (isDirectDoubleCorrelation() && !aColumn.getHasMissingValues())
+		{
+			ValueCountCoMoments v = aColumn.getUniqueNumericDomainMapCo(theParentMembers, itsPrimaryColumn, itsSecondaryColumn);
+			if (doEq_Test) evaluateNumericRegularDoubleCorrelation(theParent, e, v);
+			if (doLeqTest) evaluateNumericRegularDoubleCorrelation(theParent, l, v);
+			if (doGeqTest) evaluateNumericRegularDoubleCorrelation(theParent, g, v);
+		}
+		else
+		{
+			ValueCount v = aColumn.getValueCount(theParentMembers);
+			if (doEq_Test) evaluateNumericRegularGeneric(theParent, e, v);
+			if (doLeqTest) evaluateNumericRegularGeneric(theParent, l, v);
+			if (doGeqTest) evaluateNumericRegularGeneric(theParent, g, v);
+		}
+	}
+
+	// generic version, use plain ValueCount, no model-specific info
+	private final void evaluateNumericRegularGeneric(Subgroup theParent, ConditionBase theConditionBase, ValueCount theValueInfo)
+	{
+		NumericStrategy ns = itsSearchParameters.getNumericStrategy();
+
+		// split code path - BEST_BINS/BINS use substantially different loop
+		if (ns.isDiscretiser())
+		{
+			evaluateNumericRegularGenericCoarse(theParent, theConditionBase, theValueInfo);
+			return;
+		}
+
+		////////////////////////////////////////////////////////////////////////
+		int aParentCoverage  = theParent.getCoverage();
+		Column aColumn        = theConditionBase.getColumn();
+		Operator anOperator   = theConditionBase.getOperator();
+		// might require update when more strategies are added
+		boolean isAllStrategy = (ns == NumericStrategy.NUMERIC_ALL);
+		BestSubgroupsForCandidateSetAndResultSet aBestSubgroups = (isAllStrategy ? null : new BestSubgroupsForCandidateSetAndResultSet());
+		////////////////////////////////////////////////////////////////////////
+
+		int[] aCounts = theValueInfo.itsCounts;
+
+		// a lot of code, but keep it together for now, loops differ in subtle
+		// ways, keeping them together for now aids interpretation
+		if (anOperator == Operator.EQUALS)
+		{
+			for (int i = 0, j = aCounts.length; i < j && !isTimeToStop(); ++i)
+			{
+				int aCount =  aCounts[i];
+
+				// no need to evaluate, it includes the (aCounts[i] == 0) check,
+				//  assuming itsMinimumCoverage >= 1
+				if (aCount < itsMinimumCoverage)
+					continue;
+
+				// no useful refinement possible, counts are 0 for other values
+				if (aCount == aParentCoverage)
+					break;
+
+				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+				evaluateCandidate(theParent, anAddedCondition, aCount, isAllStrategy, aBestSubgroups);
+			}
 		}
-		else // not WRACC
+		else if (anOperator == Operator.LESS_THAN_OR_EQUAL)
 		{
-			double aBestQuality = Double.NEGATIVE_INFINITY;
-			int aBestP = Integer.MIN_VALUE;
-			int aBestN = Integer.MIN_VALUE;
+			for (int i = 0, j = aCounts.length, cover = 0; i < j && !isTimeToStop(); ++i)
+			{
+				int aCount = aCounts[i];
+				if (aCount == 0)
+					continue;
 
-			// construct and check all subsets on the convex hull
-			List<Integer> aSortedDomainIndices = aNCT.getSortedDomainIndices();
-			int aSortedDomainIndicesSize = aSortedDomainIndices.size();
+				cover += aCount;
 
-			// upper part of the hull
-			int aP = 0;
-			int aN = 0;
-			int aPrevBestI = -1;
-			for (int i = 0; i < aSortedDomainIndicesSize - 1 && !isTimeToStop(); i++)
+				if (cover == aParentCoverage)
+					break;
+
+				if (cover < itsMinimumCoverage)
+					continue;
+
+				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+				evaluateCandidate(theParent, anAddedCondition, cover, isAllStrategy, aBestSubgroups);
+			}
+		}
+		else if (anOperator == Operator.GREATER_THAN_OR_EQUAL)
+		{
+			for (int i = 0, j = aCounts.length, cover = aParentCoverage; i < j && !isTimeToStop(); ++i)
 			{
-				int anIndex = aSortedDomainIndices.get(i);
-				int aPi = aNCT.getPositiveCount(anIndex);
-				int aNi = aNCT.getNegativeCount(anIndex);
-				aP += aPi;
-				aN += aNi;
-				int aNextIndex = aSortedDomainIndices.get(i+1);
-				// FIXME multiplications might overflow, though == remains valid
-				if (i < aSortedDomainIndicesSize-2 && aPi * aNCT.getNegativeCount(aNextIndex) == aNCT.getPositiveCount(aNextIndex) * aNi) // skip checking degenerate hull points
+				if (cover < itsMinimumCoverage)
+					break;
+
+				int aCount = aCounts[i];
+				if (aCount == 0)
 					continue;
-				double aQuality = itsQualityMeasure.calculate(aP, aP + aN);
-				if (aQuality > aBestQuality)
-				{
-					aBestQuality = aQuality;
-					aBestP = aP;
-					aBestN = aN;
 
-					for (int j = aPrevBestI+1; j <= i; j++)
-					{
-						String aValue = aNCT.getValue(aSortedDomainIndices.get(j));
-						aDomainBestSubSet.add(aValue);
-					}
-					aPrevBestI = i;
+				// >= with the first value select the same subset as the parent
+				// old tp and cover, as counts for this value should be included
+				if (cover != aParentCoverage && !Float.isNaN(aColumn.getSortedValue(i)))
+				{
+					Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+					evaluateCandidate(theParent, anAddedCondition, cover, isAllStrategy, aBestSubgroups);
 				}
+
+				// before moving to next, subtract counts related to this value
+				cover -= aCount;
 			}
+		}
+		else
+			throw new AssertionError("SubgroupDiscovery.evaluateNumericRegularGeneric() + " + anOperator);
 
-			// lower part of the hull
-			// TODO: complete list of QMs
-			boolean aLowIsDominatedQM = false;
-			boolean anAsymmetricQM = true;
-			if (aQualityMeasure == QM.BINOMIAL)
-				aLowIsDominatedQM = true;
-			if (aQualityMeasure == QM.CHI_SQUARED || aQualityMeasure == QM.INFORMATION_GAIN)
-				anAsymmetricQM = false;
+		if (!isAllStrategy)
+		{
+			checkAndLogBest(aBestSubgroups, aParentCoverage);
+			// FIXME temporary checks
+			debugBest(theParent, null, aBestSubgroups);
+		}
+	}
 
-			// NOTE if ever enabled: set aBestQuality, aCountHeadBody, aCoverage
-			if (false && !anAsymmetricQM) // TODO: fix this for depth > 1, check only upper OR lower hull
+	// generic version, use plain ValueCount, no model-specific info
+	private final void evaluateNumericRegularGenericCoarse(Subgroup theParent, ConditionBase theConditionBase, ValueCount theValueInfo)
+	{
+		NumericStrategy ns = itsSearchParameters.getNumericStrategy();
+		assert (ns == NumericStrategy.NUMERIC_BEST_BINS || ns == NumericStrategy.NUMERIC_BINS);
+
+		Operator anOperator = theConditionBase.getOperator();
+
+		long aNrBins = itsSearchParameters.getNrBins();
+
+		// not checked in MiningWindow/XML, do nothing for now (no error)
+		if (aNrBins <= 1L)
+			return;
+
+		// long to prevent overflow for multiplication
+		long aParentCoverage  = theParent.getCoverage();
+		long b                = 1L;
+		Column aColumn        = theConditionBase.getColumn();
+		int[] aCounts         = theValueInfo.itsCounts;
+		boolean isAllStrategy = (ns == NumericStrategy.NUMERIC_BINS);
+		BestSubgroupsForCandidateSetAndResultSet aBestSubgroups = (isAllStrategy ? null : new BestSubgroupsForCandidateSetAndResultSet());
+
+		// ColumnConditionBasesBuilder replaces Operator.EQUALS for (BEST_)BINS
+		if (anOperator == Operator.BETWEEN)
+		{
+			// last cover used for evaluation, and last lower bound
+			int last_cover = 0;
+			float f = Float.NEGATIVE_INFINITY;
+			for (int i = 0, next = getNextBinBoundary(aParentCoverage, b, aNrBins), cover = 0; i < aCounts.length && b < aNrBins && !isTimeToStop(); ++i)
 			{
-				if (aDomainBestSubSet.size() > aNCT.size()/2) // prefer complement if smaller
-				{
-					aDomainBestSubSet.clear();
-					for (int j = aPrevBestI + 1; j < aSortedDomainIndicesSize; j++)
-					{
-						String aValue = aNCT.getValue(aSortedDomainIndices.get(j));
-						aDomainBestSubSet.add(aValue);
-					}
-				}
+				int aCount = aCounts[i];
+				if (aCount == 0)
+					continue;
+
+				cover += aCount;
+
+				if (cover <= next)
+					continue;
+
+				if (cover == aParentCoverage)
+					break;
+
+				float n = aColumn.getSortedValue(i);
+				Condition anAddedCondition = new Condition(theConditionBase, new Interval(f, n));
+				evaluateCandidate(theParent, anAddedCondition, (cover-last_cover), isAllStrategy, aBestSubgroups);
+
+				last_cover = cover;
+				f = n;
+
+				while ((next = getNextBinBoundary(aParentCoverage, ++b, aNrBins)) <= cover-1)
+					; // deliberately empty
 			}
-			else if (true || !aLowIsDominatedQM)
+			// POSITIVE_INFINITY should never be present, as this type of value
+			// should not be in the data, but this is copied from the original
+			// code, moreover Column.add() does not guard against +/- infinity,
+			// -0.0 and NaN
+			//
+			// if there is already a Condition for POSITIVE_INFINITY, do not add
+			// another one, it should be the last value anyway, and have a
+			// correct count, if it exists (though Arrays.sort() would put NaNs
+			// after it)
+			//
+			// if it is not in present(), two situations could occur
+			// 1. the sum of the value.counts is equal to aParentCoverage (for a
+			// half-interval: <= f would select all data, and be useless), or
+			// 2. the sum is lower: add Interval that selects the remaining data
+			// TODO both conditions should never be true -> could be assert
+			if ((last_cover != aParentCoverage) && (Float.compare(Float.POSITIVE_INFINITY, f) != 0))
 			{
-				aP = 0;
-				aN = 0;
-				aPrevBestI = -1;
-				for (int i = aSortedDomainIndicesSize - 1; i > 0 && !isTimeToStop(); i--)
+				Condition anAddedCondition = new Condition(theConditionBase, new Interval(f, Float.POSITIVE_INFINITY));
+				last_cover = (((int) aParentCoverage) - last_cover);
+				evaluateCandidate(theParent, anAddedCondition, last_cover, isAllStrategy, aBestSubgroups);
+			}
+		}
+		else if (anOperator == Operator.LESS_THAN_OR_EQUAL)
+		{
+			for (int i = 0, next = getNextBinBoundary(aParentCoverage, b, aNrBins), cover = 0; b < aNrBins && !isTimeToStop(); ++i)
+			{
+				int aCount = aCounts[i];
+				if (aCount == 0)
+					continue;
+
+				cover += aCount;
+
+				if (cover <= next)
+					continue;
+
+				if (cover == aParentCoverage)
+					break;
+
+				Condition aCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+				evaluateCandidate(theParent, aCondition, cover, isAllStrategy, aBestSubgroups);
+
+				while ((next = getNextBinBoundary(aParentCoverage, ++b, aNrBins)) <= cover-1)
+					; // deliberately empty
+			}
+		}
+		else if (anOperator == Operator.GREATER_THAN_OR_EQUAL)
+		{
+			// NOTE getTertiaryStatistic() only works for SINGLE_NOMINAL
+			// NOTE division in old code rounds down for <= and >=
+			for (int i = 0, next = (int) (aParentCoverage - (aParentCoverage / aNrBins)), cover = (int) aParentCoverage; b < aNrBins && !isTimeToStop(); ++i)
+			{
+				if (cover < itsMinimumCoverage)
+					break;
+
+				int aCount = aCounts[i];
+				if (aCount == 0)
+					continue;
+
+
+				// last value with required cover, use old cover and tp
+				if (cover-aCount < next && cover != aParentCoverage && !Float.isNaN(aColumn.getSortedValue(i)))
 				{
-					int anIndex = aSortedDomainIndices.get(i).intValue();
-					int aPi = aNCT.getPositiveCount(anIndex);
-					int aNi = aNCT.getNegativeCount(anIndex);
-					aP += aPi;
-					aN += aNi;
-					int aPrevIndex = aSortedDomainIndices.get(i-1);
-					if (i > 1 && aPi * aNCT.getNegativeCount(aPrevIndex) == aNCT.getPositiveCount(aPrevIndex) * aNi)
-						continue; // skip degenerate hull points
-					double aQuality = itsQualityMeasure.calculate(aP, aP + aN);
-					if (aQuality > aBestQuality)
-					{
-						aBestQuality = aQuality;
-						aBestP = aP;
-						aBestN = aN;
+					Condition aCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+					evaluateCandidate(theParent, aCondition, cover, isAllStrategy, aBestSubgroups);
 
-						if (aPrevBestI == -1)
-						{
-							aDomainBestSubSet.clear();
-							aPrevBestI = aSortedDomainIndicesSize;
-						}
-						for (int j = aPrevBestI-1; j >= i; j--)
-						{
-							String aValue = aNCT.getValue(aSortedDomainIndices.get(j));
-							aDomainBestSubSet.add(aValue);
-						}
-						aPrevBestI = i;
-					}
+					while ((next = (int) (aParentCoverage - ((++b * aParentCoverage) / aNrBins))) > (cover-aCount))
+						; // deliberately empty
 				}
-			}
-
-			if (aDomainBestSubSet.size() == 0)
-				return;
 
-			// NOTE
-			// when (aDomainBestSubSet.size() == oldValueSet.size()) the
-			// subgroup size or ratios might have changed, yielding a different
-			// aFinalBestQuality
-			//
-			// when (aDomainBestSubSet.size() < oldValueSet.size()) the new
-			// ValueSet might still be a redundant addition, when an
-			// 'intermediate' Condition has reduced the domain of oldValueSet,
-			// the size-check below essentially includes a test for that also
-			if ((aP + aN) == aParentCoverage) // (aP + aN) is aChildCoverage
-			{
-				itsSkipCount.incrementAndGet();
-//				if (DEBUG_PRINTS_FOR_SKIP)
-//					Log.logCommandLine(String.format("SZ-SKIP\t%s AND %s%n", theParent, aDomainBestSubSet));
-				if (BEST_VALUESET_NO_REFINEMENT_SKIP)
-					return;
+				// before moving to next, subtract counts related to this value
+				cover -= aCount;
 			}
-
-			aCountHeadBody    = aBestP;
-			aChildCoverage    = (aBestP + aBestN);
-			aFinalBestQuality = aBestQuality;
 		}
+		else
+			throw new AssertionError("SubgroupDiscovery.evaluateNumericRegularGenericCoarse() + " + anOperator);
 
-		// FIXME MM this does not take maximum coverage into account
-		// the best ValueSet might be > maxCov, and thus not be used
-		// but when this is the last search level, the refined version
-		// will also never be created
-		// a better solution is to obtain the best VALID ValueSet for
-		// this level, add it to the result set (possibly), and add the
-		// BEST (valid or not) Candidate to the CandidateQueue
-		// and then never refine a nominal attribute with itself
-		//
-		// this is especially relevant because for WRAcc the original
-		// includes values with a score of 0, this increases the
-		// support
-		// in general this is a good approach, as larger Subgroups have
-		// more possibilities as refinement seeds
-		// but obviously, when having to choose between not returning a
-		// ValueSet, and one that omits some 0-score labels the latter
-		// seems the logical choice
-		//
-		// so before returning the ValueSet, as simple solution for now
-		// is to reduce the ValueSet if it is too large, by removing
-		// 0-score and labels, and, if needed, those with the worst
-		// ratios, until the ValueSet < maximimum_coverage
-		// then this method calls checkAndLog() twice, once with the
-		// BEST VALID ValueSet (which can be added to the ResultSet)
-		// and the BEST (even if too large) ValueSet, which will never
-		// be added to the ResultSet, but could be added to the
-		// CandidateSet
-		ValueSet aBestSubset = new ValueSet(aDomainBestSubSet);
-		Condition anAddedCondition = new Condition(aConditionBase, aBestSubset);
-		Subgroup aChild = directComputation(theParent, anAddedCondition, aFinalBestQuality, aChildCoverage, aCountHeadBody);
-		checkAndLog(aChild, aParentCoverage);
+		if (!isAllStrategy)
+		{
+			checkAndLogBest(aBestSubgroups, (int) aParentCoverage);
+			// FIXME temporary checks
+			debugBest(theParent, null, aBestSubgroups);
+		}
 	}
 
-	////////////////////////////////////////////////////////////////////////////
-	////////////////////////////////////////////////////////////////////////////
-	///// numeric                                                          /////
-	////////////////////////////////////////////////////////////////////////////
-	////////////////////////////////////////////////////////////////////////////
+	public static final int getNextBinBoundary(long theTotalCoverage, long theCurrentBin, long theNrBins) // public: MiningWidnow
+	{
+		long nb = (theTotalCoverage * theCurrentBin);                 // original theTotalCoverage, b are int: no overflow
+		int i = (int) (nb / theNrBins);
+		return ((nb % theNrBins) == 0L) ? i-1 : i; // get same behaviour as data.reverse
+	}
 
 	/*
-	 * NOTE
-	 * all required data can come from a single Refinement parameter, but
-	 * theParentMembers are obtained through an expensive Subgroup.getMembers()
-	 * call, which creates a new copy every time, therefore it is cached
+	 * this version uses per-value counts, sums and sums of squares of the
+	 * SINGLE_NUMERIC target, obtained in a single pass over the parent members
+	 * the Statistics for each <=, >= and = refinement are derived from the
+	 * cumulative values, avoiding a pass over the data for every split point
+	 * so the cost is O(parent + distinct values) instead of O(parent * values)
 	 *
-	 * NOTE
-	 * these asserts are omitted as only the two mine() methods call this one:
-	 * (theParentMembers.cardinality() == theParentCoverage)
-	 * (theRefinement.getSubgroup().getMembers().equals(theParentMembers))
-	 *
-	 * TODO
-	 * for *_BEST strategies, in case of ties, multiple subgroups
-	 * attaining the best score, implementations retain only the first
-	 * instead it could retain all best scoring subgroups
+	 * the loops are the same as in evaluateNumericRegularGeneric(), such that
+	 * both code paths evaluate the same refinements
 	 *
-	 * moreover, the treatment of <= and >= is dubious
-	 * for <= the first, and therefore smallest best Subgroup is retained
-	 * for >= the first, and therefore largest best Subgroup is retained
+	 * NOTE the sums are computed in double precision, for the shifted values
+	 *      (value - average), getStatistics() uses float, and computes the sum
+	 *      of squared deviations in a second pass, so scores might differ in
+	 *      the least significant digits
 	 */
-	private final void evaluateNumericRegular(Subgroup theParent, BitSet theParentMembers, ColumnConditionBasesNumericRegular theColumnConditionBases)
+	private final void evaluateNumericRegularSingleNumeric(Subgroup theParent, ConditionBase theConditionBase, ValueCountSumSquaresSum theValueInfo)
 	{
-		assert (EnumSet.of(NumericStrategy.NUMERIC_ALL, NumericStrategy.NUMERIC_BEST,
-							NumericStrategy.NUMERIC_BEST_BINS, NumericStrategy.NUMERIC_BINS).contains(itsSearchParameters.getNumericStrategy()));
+		NumericStrategy ns = itsSearchParameters.getNumericStrategy();
+		assert (ns == NumericStrategy.NUMERIC_ALL || ns == NumericStrategy.NUMERIC_BEST);
 
-		ConditionBase e = theColumnConditionBases.get(0);
-		ConditionBase l = theColumnConditionBases.get(1);
-		ConditionBase g = theColumnConditionBases.get(2);
+		////////////////////////////////////////////////////////////////////////
+		int aParentCoverage   = theParent.getCoverage();
+		Column aColumn        = theConditionBase.getColumn();
+		Operator anOperator   = theConditionBase.getOperator();
+		// might require update when more strategies are added
+		boolean isAllStrategy = (ns == NumericStrategy.NUMERIC_ALL);
+		BestSubgroupsForCandidateSetAndResultSet aBestSubgroups = (isAllStrategy ? null : new BestSubgroupsForCandidateSetAndResultSet());
+		////////////////////////////////////////////////////////////////////////
 
-		// SearchSettings should not change, but checking all the time is cheap
-		boolean doEq_Test = (e != null);
-		boolean doLeqTest = (l != null);
-		boolean doGeqTest = (g != null);
+		int[] aCounts          = theValueInfo.itsCounts;
+		int[] aTargetCounts    = theValueInfo.itsTargetCounts;
+		double[] aSums         = theValueInfo.itsSums;
+		double[] aSquaresSums  = theValueInfo.itsSquaresSums;
 
-		assert (!doEq_Test || (e.getOperator() == (itsSearchParameters.getNumericStrategy().isDiscretiser() ? Operator.BETWEEN : Operator.EQUALS)));
-		assert (!doLeqTest || (l.getOperator() == Operator.LESS_THAN_OR_EQUAL));
-		assert (!doGeqTest || (g.getOperator() == Operator.GREATER_THAN_OR_EQUAL));
+		if (anOperator == Operator.EQUALS)
+		{
+			for (int i = 0, j = aCounts.length; i < j && !isTimeToStop(); ++i)
+			{
+				int aCount =  aCounts[i];
 
-		final Column aColumn = (doEq_Test ? e.getColumn() : (doLeqTest ? l.getColumn() : g.getColumn()));
+				if (aCount < itsMinimumCoverage)
+					continue;
 
-		// currently only for SINGLE_NOMINAL (and not for propensity scores)
-		// but expect there to be more optimised settings, so keep split here
-		if (isDirectSingleBinary())
+				if (aCount == aParentCoverage)
+					break;
+
+				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+				evaluateCandidate(theParent, anAddedCondition, aCount, aTargetCounts[i], aSums[i], aSquaresSums[i], isAllStrategy, aBestSubgroups);
+			}
+		}
+		else if (anOperator == Operator.LESS_THAN_OR_EQUAL)
 		{
-			ValueCountTP v = aColumn.getUniqueNumericDomainMap(theParentMembers);
-			if (doEq_Test) evaluateNumericRegularSingleBinary(theParent, e, v);
-			if (doLeqTest) evaluateNumericRegularSingleBinary(theParent, l, v);
-			if (doGeqTest) evaluateNumericRegularSingleBinary(theParent, g, v);
+			int n = 0;
+			double aSum = 0.0;
+			double aSquaresSum = 0.0;
+
+			for (int i = 0, j = aCounts.length, cover = 0; i < j && !isTimeToStop(); ++i)
+			{
+				int aCount = aCounts[i];
+				if (aCount == 0)
+					continue;
+
+				cover       += aCount;
+				n           += aTargetCounts[i];
+				aSum        += aSums[i];
+				aSquaresSum += aSquaresSums[i];
+
+				if (cover == aParentCoverage)
+					break;
+
+				if (cover < itsMinimumCoverage)
+					continue;
+
+				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+				evaluateCandidate(theParent, anAddedCondition, cover, n, aSum, aSquaresSum, isAllStrategy, aBestSubgroups);
+			}
+		}
+		else if (anOperator == Operator.GREATER_THAN_OR_EQUAL)
+		{
+			// start with the totals for the parent, and subtract
+			int n = 0;
+			double aSum = 0.0;
+			double aSquaresSum = 0.0;
+			for (int i = 0; i < aCounts.length; ++i)
+			{
+				n           += aTargetCounts[i];
+				aSum        += aSums[i];
+				aSquaresSum += aSquaresSums[i];
+			}
+
+			for (int i = 0, j = aCounts.length, cover = aParentCoverage; i < j && !isTimeToStop(); ++i)
+			{
+				if (cover < itsMinimumCoverage)
+					break;
+
+				int aCount = aCounts[i];
+				if (aCount == 0)
+					continue;
+
+				if (cover != aParentCoverage && !Float.isNaN(aColumn.getSortedValue(i)))
+				{
+					Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+					evaluateCandidate(theParent, anAddedCondition, cover, n, aSum, aSquaresSum, isAllStrategy, aBestSubgroups);
+				}
+
+				cover       -= aCount;
+				n           -= aTargetCounts[i];
+				aSum        -= aSums[i];
+				aSquaresSum -= aSquaresSums[i];
+			}
 		}
 		else
+			throw new AssertionError("SubgroupDiscovery.evaluateNumericRegularSingleNumeric() + " + anOperator);
+
+		if (!isAllStrategy)
 		{
-			ValueCount v = aColumn.getValueCount(theParentMembers);
-			if (doEq_Test) evaluateNumericRegularGeneric(theParent, e, v);
-			if (doLeqTest) evaluateNumericRegularGeneric(theParent, l, v);
-			if (doGeqTest) evaluateNumericRegularGeneric(theParent, g, v);
+			checkAndLogBest(aBestSubgroups, aParentCoverage);
+			// FIXME temporary checks
+			debugBest(theParent, null, aBestSubgroups);
 		}
 	}
 
-	// generic version, use plain ValueCount, no model-specific info
-	private final void evaluateNumericRegularGeneric(Subgroup theParent, ConditionBase theConditionBase, ValueCount theValueInfo)
+	/*
+	 * DOUBLE_CORRELATION version, like evaluateNumericRegularSingleNumeric()
+	 * the per-value sums of both targets are obtained in a single pass over
+	 * the parent members, and the sums of each <= and >= refinement are the
+	 * running totals of a sweep over the sorted values, so the correlation of
+	 * every threshold, and that of its complement, is computed from sums only
+	 * instead of by a CorrelationMeasure that visits all of its members
+	 *
+	 * the loops are the same as in evaluateNumericRegularGeneric()
+	 *
+	 * NOTE the sums are added per value first, instead of in the order of
+	 *      the members, so scores might differ in the least significant digits
+	 */
+	private final void evaluateNumericRegularDoubleCorrelation(Subgroup theParent, ConditionBase theConditionBase, ValueCountCoMoments theValueInfo)
 	{
 		NumericStrategy ns = itsSearchParameters.getNumericStrategy();
-
-		// split code path - BEST_BINS/BINS use substantially different loop
-		if (ns.isDiscretiser())
-		{
-			evaluateNumericRegularGenericCoarse(theParent, theConditionBase, theValueInfo);
-			return;
-		}
+		assert (ns == NumericStrategy.NUMERIC_ALL || ns == NumericStrategy.NUMERIC_BEST);
 
 		////////////////////////////////////////////////////////////////////////
-		int aParentCoverage  = theParent.getCoverage();
+		int aParentCoverage   = theParent.getCoverage();
 		Column aColumn        = theConditionBase.getColumn();
 		Operator anOperator   = theConditionBase.getOperator();
 		// might require update when more strategies are added
@@ -1913,38 +3556,50 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 		BestSubgroupsForCandidateSetAndResultSet aBestSubgroups = (isAllStrategy ? null : new BestSubgroupsForCandidateSetAndResultSet());
 		////////////////////////////////////////////////////////////////////////
 
-		int[] aCounts = theValueInfo.itsCounts;
+		int[] aCounts            = theValueInfo.itsCounts;
+		double[] aXSums          = theValueInfo.itsXSums;
+		double[] aYSums          = theValueInfo.itsYSums;
+		double[] aXYSums         = theValueInfo.itsXYSums;
+		double[] aXSquaredSums   = theValueInfo.itsXSquaredSums;
+		double[] aYSquaredSums   = theValueInfo.itsYSquaredSums;
 
-		// a lot of code, but keep it together for now, loops differ in subtle
-		// ways, keeping them together for now aids interpretation
 		if (anOperator == Operator.EQUALS)
 		{
 			for (int i = 0, j = aCounts.length; i < j && !isTimeToStop(); ++i)
 			{
 				int aCount =  aCounts[i];
 
-				// no need to evaluate, it includes the (aCounts[i] == 0) check,
-				//  assuming itsMinimumCoverage >= 1
 				if (aCount < itsMinimumCoverage)
 					continue;
 
-				// no useful refinement possible, counts are 0 for other values
 				if (aCount == aParentCoverage)
 					break;
 
 				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
-				evaluateCandidate(theParent, anAddedCondition, aCount, isAllStrategy, aBestSubgroups);
+				CorrelationMeasure aCM = new CorrelationMeasure(itsBaseCM, aCount, aXSums[i], aYSums[i], aXYSums[i], aXSquaredSums[i], aYSquaredSums[i]);
+				evaluateCandidate(theParent, anAddedCondition, aCount, aCM, isAllStrategy, aBestSubgroups);
 			}
 		}
 		else if (anOperator == Operator.LESS_THAN_OR_EQUAL)
 		{
+			double anXSum = 0.0;
+			double aYSum = 0.0;
+			double anXYSum = 0.0;
+			double anXSquaredSum = 0.0;
+			double aYSquaredSum = 0.0;
+
 			for (int i = 0, j = aCounts.length, cover = 0; i < j && !isTimeToStop(); ++i)
 			{
 				int aCount = aCounts[i];
 				if (aCount == 0)
 					continue;
 
-				cover += aCount;
+				cover         += aCount;
+				anXSum        += aXSums[i];
+				aYSum         += aYSums[i];
+				anXYSum       += aXYSums[i];
+				anXSquaredSum += aXSquaredSums[i];
+				aYSquaredSum  += aYSquaredSums[i];
 
 				if (cover == aParentCoverage)
 					break;
@@ -1953,11 +3608,27 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 					continue;
 
 				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
-				evaluateCandidate(theParent, anAddedCondition, cover, isAllStrategy, aBestSubgroups);
+				CorrelationMeasure aCM = new CorrelationMeasure(itsBaseCM, cover, anXSum, aYSum, anXYSum, anXSquaredSum, aYSquaredSum);
+				evaluateCandidate(theParent, anAddedCondition, cover, aCM, isAllStrategy, aBestSubgroups);
 			}
 		}
 		else if (anOperator == Operator.GREATER_THAN_OR_EQUAL)
 		{
+			// start with the totals for the parent, and subtract
+			double anXSum = 0.0;
+			double aYSum = 0.0;
+			double anXYSum = 0.0;
+			double anXSquaredSum = 0.0;
+			double aYSquaredSum = 0.0;
+			for (int i = 0; i < aCounts.length; ++i)
+			{
+				anXSum        += aXSums[i];
+				aYSum         += aYSums[i];
+				anXYSum       += aXYSums[i];
+				anXSquaredSum += aXSquaredSums[i];
+				aYSquaredSum  += aYSquaredSums[i];
+			}
+
 			for (int i = 0, j = aCounts.length, cover = aParentCoverage; i < j && !isTimeToStop(); ++i)
 			{
 				if (cover < itsMinimumCoverage)
@@ -1967,20 +3638,23 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 				if (aCount == 0)
 					continue;
 
-				// >= with the first value select the same subset as the parent
-				// old tp and cover, as counts for this value should be included
 				if (cover != aParentCoverage && !Float.isNaN(aColumn.getSortedValue(i)))
 				{
 					Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
-					evaluateCandidate(theParent, anAddedCondition, cover, isAllStrategy, aBestSubgroups);
+					CorrelationMeasure aCM = new CorrelationMeasure(itsBaseCM, cover, anXSum, aYSum, anXYSum, anXSquaredSum, aYSquaredSum);
+					evaluateCandidate(theParent, anAddedCondition, cover, aCM, isAllStrategy, aBestSubgroups);
 				}
 
-				// before moving to next, subtract counts related to this value
-				cover -= aCount;
+				cover         -= aCount;
+				anXSum        -= aXSums[i];
+				aYSum         -= aYSums[i];
+				anXYSum       -= aXYSums[i];
+				anXSquaredSum -= aXSquaredSums[i];
+				aYSquaredSum  -= aYSquaredSums[i];
 			}
 		}
 		else
-			throw new AssertionError("SubgroupDiscovery.evaluateNumericRegularGeneric() + " + anOperator);
+			throw new AssertionError("SubgroupDiscovery.evaluateNumericRegularDoubleCorrelation() + " + anOperator);
 
 		if (!isAllStrategy)
 		{
@@ -1990,108 +3664,99 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 		}
 	}
 
-	// generic version, use plain ValueCount, no model-specific info
-	private final void evaluateNumericRegularGenericCoarse(Subgroup theParent, ConditionBase theConditionBase, ValueCount theValueInfo)
+	/*
+	 * SCAPE version, theMembers are the parent members ordered on the value of
+	 * the description Column, see Column.getMembersBySortIndex()
+	 * for <= and >= the members of each value are added to a Sweep, in
+	 * ascending or descending order, so the ranking loss of all thresholds is
+	 * obtained in one pass, instead of one pass over all data per threshold
+	 *
+	 * the loops are the same as in evaluateNumericRegularGeneric()
+	 */
+	private final void evaluateNumericRegularScape(Subgroup theParent, BitSet theParentMembers, ConditionBase theConditionBase, ValueCount theValueInfo, int[] theMembers)
 	{
 		NumericStrategy ns = itsSearchParameters.getNumericStrategy();
-		assert (ns == NumericStrategy.NUMERIC_BEST_BINS || ns == NumericStrategy.NUMERIC_BINS);
-
-		Operator anOperator = theConditionBase.getOperator();
+		assert (ns == NumericStrategy.NUMERIC_ALL || ns == NumericStrategy.NUMERIC_BEST);
 
-		long aNrBins = itsSearchParameters.getNrBins();
-
-		// not checked in MiningWindow/XML, do nothing for now (no error)
-		if (aNrBins <= 1L)
-			return;
-
-		// long to prevent overflow for multiplication
-		long aParentCoverage  = theParent.getCoverage();
-		long b                = 1L;
+		////////////////////////////////////////////////////////////////////////
+		int aParentCoverage   = theParent.getCoverage();
 		Column aColumn        = theConditionBase.getColumn();
-		int[] aCounts         = theValueInfo.itsCounts;
-		boolean isAllStrategy = (ns == NumericStrategy.NUMERIC_BINS);
+		Operator anOperator   = theConditionBase.getOperator();
+		// might require update when more strategies are added
+		boolean isAllStrategy = (ns == NumericStrategy.NUMERIC_ALL);
 		BestSubgroupsForCandidateSetAndResultSet aBestSubgroups = (isAllStrategy ? null : new BestSubgroupsForCandidateSetAndResultSet());
+		SubrankingLoss aSubrankingLoss = itsQualityMeasure.getSubrankingLoss();
+		////////////////////////////////////////////////////////////////////////
 
-		// ColumnConditionBasesBuilder replaces Operator.EQUALS for (BEST_)BINS
-		if (anOperator == Operator.BETWEEN)
-		{
-			// last cover used for evaluation, and last lower bound
-			int last_cover = 0;
-			float f = Float.NEGATIVE_INFINITY;
-			for (int i = 0, next = getNextBinBoundary(aParentCoverage, b, aNrBins), cover = 0; i < aCounts.length && b < aNrBins && !isTimeToStop(); ++i)
-			{
-				int aCount = aCounts[i];
-				if (aCount == 0)
-					continue;
+		int[] aCounts = theValueInfo.itsCounts;
 
-				cover += aCount;
+		if (anOperator == Operator.EQUALS)
+		{
+			for (int i = 0, j = aCounts.length, from = 0; i < j && !isTimeToStop(); from += aCounts[i++])
+			{
+				int aCount =  aCounts[i];
 
-				if (cover <= next)
+				if (aCount < itsMinimumCoverage)
 					continue;
 
-				if (cover == aParentCoverage)
+				if (aCount == aParentCoverage)
 					break;
 
-				float n = aColumn.getSortedValue(i);
-				Condition anAddedCondition = new Condition(theConditionBase, new Interval(f, n));
-				evaluateCandidate(theParent, anAddedCondition, (cover-last_cover), isAllStrategy, aBestSubgroups);
-
-				last_cover = cover;
-				f = n;
+				int aNrPositives = 0;
+				for (int k = from, to = from + aCount; k < to; ++k)
+					if (itsPrimaryColumn.getBinary(theMembers[k]))
+						++aNrPositives;
 
-				while ((next = getNextBinBoundary(aParentCoverage, ++b, aNrBins)) <= cover-1)
-					; // deliberately empty
-			}
-			// POSITIVE_INFINITY should never be present, as this type of value
-			// should not be in the data, but this is copied from the original
-			// code, moreover Column.add() does not guard against +/- infinity,
-			// -0.0 and NaN
-			//
-			// if there is already a Condition for POSITIVE_INFINITY, do not add
-			// another one, it should be the last value anyway, and have a
-			// correct count, if it exists (though Arrays.sort() would put NaNs
-			// after it)
-			//
-			// if it is not in present(), two situations could occur
-			// 1. the sum of the value.counts is equal to aParentCoverage (for a
-			// half-interval: <= f would select all data, and be useless), or
-			// 2. the sum is lower: add Interval that selects the remaining data
-			// TODO both conditions should never be true -> could be assert
-			if ((last_cover != aParentCoverage) && (Float.compare(Float.POSITIVE_INFINITY, f) != 0))
-			{
-				Condition anAddedCondition = new Condition(theConditionBase, new Interval(f, Float.POSITIVE_INFINITY));
-				last_cover = (((int) aParentCoverage) - last_cover);
-				evaluateCandidate(theParent, anAddedCondition, last_cover, isAllStrategy, aBestSubgroups);
+				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+				evaluateCandidate(theParent, anAddedCondition, aCount, aNrPositives, aSubrankingLoss.getTotalRankingLoss(theMembers, from, from + aCount), isAllStrategy, aBestSubgroups);
 			}
 		}
 		else if (anOperator == Operator.LESS_THAN_OR_EQUAL)
 		{
-			for (int i = 0, next = getNextBinBoundary(aParentCoverage, b, aNrBins), cover = 0; b < aNrBins && !isTimeToStop(); ++i)
+			SubrankingLoss.Sweep aSweep = aSubrankingLoss.getSweep(theParentMembers);
+
+			for (int i = 0, j = aCounts.length, cover = 0; i < j && !isTimeToStop(); ++i)
 			{
 				int aCount = aCounts[i];
 				if (aCount == 0)
 					continue;
 
+				for (int k = cover, to = cover + aCount; k < to; ++k)
+					aSweep.add(theMembers[k]);
 				cover += aCount;
 
-				if (cover <= next)
-					continue;
-
 				if (cover == aParentCoverage)
 					break;
 
-				Condition aCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
-				evaluateCandidate(theParent, aCondition, cover, isAllStrategy, aBestSubgroups);
+				if (cover < itsMinimumCoverage)
+					continue;
 
-				while ((next = getNextBinBoundary(aParentCoverage, ++b, aNrBins)) <= cover-1)
-					; // deliberately empty
+				Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+				evaluateCandidate(theParent, anAddedCondition, cover, aSweep.getNrPositives(), aSweep.getTotalRankingLoss(), isAllStrategy, aBestSubgroups);
 			}
 		}
 		else if (anOperator == Operator.GREATER_THAN_OR_EQUAL)
 		{
-			// NOTE getTertiaryStatistic() only works for SINGLE_NOMINAL
-			// NOTE division in old code rounds down for <= and >=
-			for (int i = 0, next = (int) (aParentCoverage - (aParentCoverage / aNrBins)), cover = (int) aParentCoverage; b < aNrBins && !isTimeToStop(); ++i)
+			// the generic loop goes up, removing values, the Sweep can only
+			// add members, so go down first, and store the loss for each value
+			// then evaluate going up, like the generic loop, as for BEST the
+			// order determines which of two equal-scoring Subgroups is kept
+			SubrankingLoss.Sweep aSweep = aSubrankingLoss.getSweep(theParentMembers);
+			long[] aLosses = new long[aCounts.length];
+			int[] aNrPositives = new int[aCounts.length];
+
+			for (int i = aCounts.length-1, to = aParentCoverage; i >= 0 && to > 0; --i)
+			{
+				int aCount = aCounts[i];
+				for (int k = to - aCount; k < to; ++k)
+					aSweep.add(theMembers[k]);
+				to -= aCount;
+
+				aLosses[i] = aSweep.getTotalRankingLoss();
+				aNrPositives[i] = aSweep.getNrPositives();
+			}
+
+			for (int i = 0, j = aCounts.length, cover = aParentCoverage; i < j && !isTimeToStop(); ++i)
 			{
 				if (cover < itsMinimumCoverage)
 					break;
@@ -2100,39 +3765,27 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 				if (aCount == 0)
 					continue;
 
-
-				// last value with required cover, use old cover and tp
-				if (cover-aCount < next && cover != aParentCoverage && !Float.isNaN(aColumn.getSortedValue(i)))
+				// >= with the first value select the same subset as the parent
+				if (cover != aParentCoverage && !Float.isNaN(aColumn.getSortedValue(i)))
 				{
-					Condition aCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
-					evaluateCandidate(theParent, aCondition, cover, isAllStrategy, aBestSubgroups);
-
-					while ((next = (int) (aParentCoverage - ((++b * aParentCoverage) / aNrBins))) > (cover-aCount))
-						; // deliberately empty
+					Condition anAddedCondition = new Condition(theConditionBase, aColumn.getSortedValue(i), i);
+					evaluateCandidate(theParent, anAddedCondition, cover, aNrPositives[i], aLosses[i], isAllStrategy, aBestSubgroups);
 				}
 
-				// before moving to next, subtract counts related to this value
 				cover -= aCount;
 			}
 		}
 		else
-			throw new AssertionError("SubgroupDiscovery.evaluateNumericRegularGenericCoarse() + " + anOperator);
+			throw new AssertionError("SubgroupDiscovery.evaluateNumericRegularScape() + " + anOperator);
 
 		if (!isAllStrategy)
 		{
-			checkAndLogBest(aBestSubgroups, (int) aParentCoverage);
+			checkAndLogBest(aBestSubgroups, aParentCoverage);
 			// FIXME temporary checks
 			debugBest(theParent, null, aBestSubgroups);
 		}
 	}
 
-	public static final int getNextBinBoundary(long theTotalCoverage, long theCurrentBin, long theNrBins) // public: MiningWidnow
-	{
-		long nb = (theTotalCoverage * theCurrentBin);                 // original theTotalCoverage, b are int: no overflow
-		int i = (int) (nb / theNrBins);
-		return ((nb % theNrBins) == 0L) ? i-1 : i; // get same behaviour as data.reverse
-	}
-
 	// this version includes true positive counts, and direct computation
 	private final void evaluateNumericRegularSingleBinary(Subgroup theParent, ConditionBase theConditionBase, ValueCountTP theValueInfo)
 	{
@@ -2500,7 +4153,17 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 		int aParentCoverage = theParent.getCoverage();
 		assert (theChildCoverage < aParentCoverage);
 
-		Subgroup aChild = directComputation(theParent, theAddedCondition, itsQualityMeasure, theChildCoverage, theNrTruePositives);
+		// flyweight scoring, the Subgroup is only created when it is used
+		float aQuality = (float) itsQualityMeasure.calculate(theNrTruePositives, theChildCoverage);
+		if (isAllStrategy ? isDiscardable(theChildCoverage, aParentCoverage, theParent.getDepth() + 1, aQuality, theNrTruePositives)
+				  : !isBest(theBestSubgroups, theChildCoverage, aParentCoverage, theParent.getDepth() + 1, aQuality))
+		{
+			if (isAllStrategy)
+				discard(theParent, theAddedCondition, theChildCoverage, aQuality);
+			return;
+		}
+
+		Subgroup aChild = directComputation(theParent, theAddedCondition, aQuality, theChildCoverage, theNrTruePositives);
 
 		// ALL or BINS
 		if (isAllStrategy)
@@ -2513,6 +4176,146 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 			checkForBest(aChild, aParentCoverage, theBestSubgroups, true);
 	}
 
+	// this is the version used by evaluateNumericRegularSingleNumeric()
+	// the sums are for the shifted target values, see getUniqueNumericDomainMapSq()
+	private final void evaluateCandidate(Subgroup theParent, Condition theAddedCondition, int theChildCoverage, int theNrTargetValues, double theSum, double theSquaresSum,
+					     boolean isAllStrategy, BestSubgroupsForCandidateSetAndResultSet theBestSubgroups)
+	{
+		assert (isDirectSingleNumeric());
+
+		if ((itsFilter != null) && !itsFilter.isUseful(theParent.getConditions(), theAddedCondition))
+			return;
+
+		int aParentCoverage = theParent.getCoverage();
+		assert (theChildCoverage < aParentCoverage);
+
+		Statistics aStatistics = getStatistics(theNrTargetValues, theSum, theSquaresSum);
+		float  q = itsQualityMeasure.calculate(aStatistics, null);
+		double s = aStatistics.getSubgroupAverage();
+		double t = Math.sqrt(aStatistics.getSubgroupSumSquaredDeviations()/(theChildCoverage-1.0)); // use n-1 like t-statistic
+
+		// flyweight scoring, the Subgroup is only created when it is used
+		if (isAllStrategy ? isDiscardable(theChildCoverage, aParentCoverage, theParent.getDepth() + 1, q, t)
+				  : !isBest(theBestSubgroups, theChildCoverage, aParentCoverage, theParent.getDepth() + 1, q))
+		{
+			if (isAllStrategy)
+				discard(theParent, theAddedCondition, theChildCoverage, q);
+			return;
+		}
+
+		Subgroup aChild = theParent.getRefinedSubgroup(theAddedCondition, q, s, t, theChildCoverage);
+
+		// ALL
+		if (isAllStrategy)
+			checkAndLog(aChild, aParentCoverage);
+		// BEST
+		else
+			checkForBest(aChild, aParentCoverage, theBestSubgroups, true);
+	}
+
+	// this is the version used by evaluateNumericRegularDoubleCorrelation()
+	// theCorrelationMeasure holds the sums of the child
+	private final void evaluateCandidate(Subgroup theParent, Condition theAddedCondition, int theChildCoverage, CorrelationMeasure theCorrelationMeasure,
+					     boolean isAllStrategy, BestSubgroupsForCandidateSetAndResultSet theBestSubgroups)
+	{
+		assert (isDirectDoubleCorrelation());
+
+		if ((itsFilter != null) && !itsFilter.isUseful(theParent.getConditions(), theAddedCondition))
+			return;
+
+		int aParentCoverage = theParent.getCoverage();
+		assert (theChildCoverage < aParentCoverage);
+
+		// same statistics as evaluateCandidateDoubleCorrelation()
+		float  q = (float) theCorrelationMeasure.getEvaluationMeasureValue();
+		double s = theCorrelationMeasure.getCorrelation();
+		double t = theCorrelationMeasure.computeCorrelationDistance();
+
+		// flyweight scoring, the Subgroup is only created when it is used
+		if (isAllStrategy ? isDiscardable(theChildCoverage, aParentCoverage, theParent.getDepth() + 1, q, t)
+				  : !isBest(theBestSubgroups, theChildCoverage, aParentCoverage, theParent.getDepth() + 1, q))
+		{
+			if (isAllStrategy)
+				discard(theParent, theAddedCondition, theChildCoverage, q);
+			return;
+		}
+
+		Subgroup aChild = theParent.getRefinedSubgroup(theAddedCondition, q, s, t, theChildCoverage);
+
+		// ALL
+		if (isAllStrategy)
+			checkAndLog(aChild, aParentCoverage);
+		// BEST
+		else
+			checkForBest(aChild, aParentCoverage, theBestSubgroups, true);
+	}
+
+	// this is the version used by evaluateNumericRegularScape()
+	// theTotalRankingLoss is twice the ranking loss, see SubrankingLoss
+	private final void evaluateCandidate(Subgroup theParent, Condition theAddedCondition, int theChildCoverage, int theNrPositives, long theTotalRankingLoss,
+					     boolean isAllStrategy, BestSubgroupsForCandidateSetAndResultSet theBestSubgroups)
+	{
+		assert (isDirectScape());
+
+		if ((itsFilter != null) && !itsFilter.isUseful(theParent.getConditions(), theAddedCondition))
+			return;
+
+		int aParentCoverage = theParent.getCoverage();
+		assert (theChildCoverage < aParentCoverage);
+
+		// same statistics as evaluateCandidateScape()
+		float  q = itsQualityMeasure.calculate(theTotalRankingLoss, theNrPositives);
+		double s = theNrPositives;
+		double t = (theChildCoverage - theNrPositives);
+
+		// flyweight scoring, the Subgroup is only created when it is used
+		if (isAllStrategy ? isDiscardable(theChildCoverage, aParentCoverage, theParent.getDepth() + 1, q, t)
+				  : !isBest(theBestSubgroups, theChildCoverage, aParentCoverage, theParent.getDepth() + 1, q))
+		{
+			if (isAllStrategy)
+				discard(theParent, theAddedCondition, theChildCoverage, q);
+			return;
+		}
+
+		Subgroup aChild = theParent.getRefinedSubgroup(theAddedCondition, q, s, t, theChildCoverage);
+
+		// ALL
+		if (isAllStrategy)
+			checkAndLog(aChild, aParentCoverage);
+		// BEST
+		else
+			checkForBest(aChild, aParentCoverage, theBestSubgroups, true);
+	}
+
+	// same Statistics as Column.getStatistics(), but from (shifted) sums
+	private final Statistics getStatistics(int theNrTargetValues, double theSum, double theSquaresSum)
+	{
+		Statistics aStatistics = new Statistics(theNrTargetValues,
+							(float) (theSum + (theNrTargetValues * itsNumericTargetShift)),
+							(float) getSumSquaredDeviations(theNrTargetValues, theSum, theSquaresSum));
+
+		if (QM.requiredStats(itsSearchParameters.getQualityMeasure()).contains(Stat.COMPL))
+		{
+			int n = (itsNumericTargetCount - theNrTargetValues);
+			double aSum = (itsNumericTargetSum - theSum);
+			double aSquaresSum = (itsNumericTargetSquaresSum - theSquaresSum);
+			aStatistics.addComplement(n, (float) (aSum + (n * itsNumericTargetShift)), (float) getSumSquaredDeviations(n, aSum, aSquaresSum));
+			aStatistics.addDatasetSSD((float) getSumSquaredDeviations(itsNumericTargetCount, itsNumericTargetSum, itsNumericTargetSquaresSum));
+		}
+
+		return aStatistics;
+	}
+
+	// the shift does not change the sum of squared deviations
+	private static final double getSumSquaredDeviations(int theCount, double theSum, double theSquaresSum)
+	{
+		if (theCount == 0)
+			return 0.0;
+
+		// subtraction could yield a tiny negative value
+		return Math.max(0.0, theSquaresSum - ((theSum * theSum) / theCount));
+	}
+
 	////////////////////////////////////////////////////////////////////////////
 	////////////////////////////////////////////////////////////////////////////
 	///// numeric intervals - BestInterval algorithm                       /////
@@ -2927,6 +4730,96 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 		Subgroup itsBestForResultSet    = null;
 	}
 
+	/*
+	 * Flyweight scoring, for a refinement of which the quality is computed
+	 * directly from counts: decides from the primitive statistics whether
+	 * checkAndLog() would do anything but count and log it, so the Subgroup,
+	 * and often the Condition, is only created for refinements that are
+	 * admitted to itsResult or itsCandidateQueue.
+	 * Most refinements are discarded, so this avoids most allocations of the
+	 * evaluation loops, discard() does the counting and logging.
+	 * theTertiaryStatistic is the number of positives for SINGLE_NOMINAL.
+	 */
+	private final boolean isDiscardable(int theChildCoverage, int theParentCoverage, int theChildDepth, float theQuality, double theTertiaryStatistic)
+	{
+		boolean isUsefulForCandidateSet = isUsefulForCandidateSet(theChildCoverage, theParentCoverage, itsMinimumCoverage, theChildDepth, itsSearchParameters.getSearchDepth());
+		boolean isUsefulForResultSet    = isUsefulForResultSet(theChildCoverage, theParentCoverage, itsMinimumCoverage, itsMaximumCoverage);
+
+		// follows checkAndLog()
+		if ((itsSearchParameters.getTargetType() == TargetType.SINGLE_NOMINAL) && (theTertiaryStatistic < itsMinimumSupport))
+			return true;
+
+		if (isUsefulForResultSet && (ignoreQualityMinimum || (theQuality > itsQualityMeasureMinimum)) && itsAdmission.hasPotential(theQuality))
+			return false;
+
+		if (!isUsefulForCandidateSet)
+			return true;
+
+		// other optimistic estimates require the members, see getOptimisticEstimate()
+		if (itsUseOptimisticEstimates && (itsSearchParameters.getTargetType() == TargetType.SINGLE_NOMINAL))
+			return isPrunable(itsQualityMeasure.getOptimisticEstimate((int) theTertiaryStatistic, theChildCoverage));
+
+		return false;
+	}
+
+	// shared, holds nothing, see commit()
+	private static final Outcome DISCARDED = new Outcome(null, 0, 0.0, null, null);
+
+	// whether checkAndLog() logs valid refinements, see logCandidateAddition()
+	private static final boolean isCandidateLogged()
+	{
+		return !NO_CANDIDATE_LOG && Log.COMMANDLINELOG;
+	}
+
+	// the part of checkAndLog() that remains for a discarded refinement, it
+	// is logged from its statistics, so only the ConditionList is created
+	// theAddedCondition can be null when !isCandidateLogged()
+	private final void discard(Subgroup theParent, Condition theAddedCondition, int theChildCoverage, float theQuality)
+	{
+		ConditionList aConditions = null;
+		if (isCandidateLogged())
+		{
+			int aParentCoverage = theParent.getCoverage();
+			// see isValid in checkAndLog()
+			if (isUsefulForCandidateSet(theChildCoverage, aParentCoverage, itsMinimumCoverage, theParent.getDepth() + 1, itsSearchParameters.getSearchDepth()) ||
+				isUsefulForResultSet(theChildCoverage, aParentCoverage, itsMinimumCoverage, itsMaximumCoverage))
+				aConditions = ConditionListBuilder.createList(theParent.getConditions(), theAddedCondition);
+		}
+
+		List<Outcome> anOutcomes = itsOutcomes.get();
+		if (anOutcomes != null)
+		{
+			anOutcomes.add((aConditions == null) ? DISCARDED : new Outcome(aConditions, theChildCoverage, theQuality, null, null));
+			return;
+		}
+
+		long count = itsCandidateCount.getAndIncrement();
+
+		if (aConditions != null)
+			logCandidateAddition(aConditions, theChildCoverage, theQuality, count);
+	}
+
+	// as above, theCondition is null when it was not created yet, it is then
+	// only created when the refinement is logged
+	private final void discard(Subgroup theParent, Condition theCondition, ConditionBase theConditionBase, String theValue, int theChildCoverage, float theQuality)
+	{
+		if ((theCondition == null) && isCandidateLogged())
+			theCondition = new Condition(theConditionBase, theValue);
+
+		discard(theParent, theCondition, theChildCoverage, theQuality);
+	}
+
+	// flyweight version of checkForBest(), true when a refinement with these
+	// statistics would replace one of theBestChilds
+	private final boolean isBest(BestSubgroupsForCandidateSetAndResultSet theBestChilds, int theChildCoverage, int theParentCoverage, int theChildDepth, float theQuality)
+	{
+		boolean isUsefulForCandidateSet = isUsefulForCandidateSet(theChildCoverage, theParentCoverage, itsMinimumCoverage, theChildDepth, itsSearchParameters.getSearchDepth());
+		boolean isUsefulForResultSet    = isUsefulForResultSet(theChildCoverage, theParentCoverage, itsMinimumCoverage, itsMaximumCoverage);
+
+		return ((isUsefulForCandidateSet && ((theBestChilds.itsBestForCandidateSet == null) || (theQuality > theBestChilds.itsBestForCandidateSet.getMeasureValue()))) ||
+			(isUsefulForResultSet    && ((theBestChilds.itsBestForResultSet == null)    || (theQuality > theBestChilds.itsBestForResultSet.getMeasureValue()))));
+	}
+
 	// FIXME boolean for SingleBinary setting, it already computed the quality
 	//       will be replace by Subgroup.hasQuality() which returns true when a
 	//       quality has already been computed for the Subgroup
@@ -3048,6 +4941,8 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 	 * TL;DR count + subgroup number will be decoupled / unsynchronised
 	 *
 	 * technically synchronisation needs only execute the addition to the result and candidate set as a logical block
+	 * UPDATE additions are now collected per Thread by itsAdmission, and merged as a logical block by AdmissionBuffer.flush()
+	 * so no lock is acquired here at all, see AdmissionBuffer for why this does not change the final search result
 	 *
 	 * NOTE that in case of ties on the itsResult / itsCandidateQueue max_size boundary this may effect the final search result
 	 * this is related to the fixed max size and has the potential to break invocation invariant results in multi-threaded settings
@@ -3062,8 +4957,10 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 	 * non-beam searches do not have a max size for itsCandidateQueue, so
 	 * they do no suffer from this problem anyway
 	 * (NOTE when a search is stopped because of max_time all bets are of)
+	 *
+	 * UPDATE MiningEngine.DETERMINISTIC restores REQUIREMENT 3 for multiple Threads, checkAndLog() only records its outcome, and
+	 * commit() numbers, logs and admits the outcomes in the order of a single Thread, see mineDeterministic()
 	 */
-	private final Object itsCheckLock = new Object();
 	private void checkAndLog(Subgroup theChild, int theParentCoverage)
 	{
 		setTitle(theChild);
@@ -3076,6 +4973,8 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 
 		// FIXME MM this check should be made obsolete/checked by all callers
 		boolean isValid = (isUsefulForCandidateSet || isUsefulForResultSet);
+		Subgroup aResultAddition = null;
+		Candidate aCandidateAddition = null;
 
 		if (isValid)
 		{
@@ -3108,6 +5007,12 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 				// NOTE this path already performed the isValid-coverage check
 				aQuality = (float) theChild.getMeasureValue();
 			}
+			else if (isLastNumeric && (isDirectSingleNumeric() || isDirectScape() || isDirectDoubleCorrelation()) && theChild.hasQuality())
+			{
+				// NUMERIC_ALL, a Column with missing values takes the else path
+				// NOTE this path already performed the isValid-coverage check
+				aQuality = (float) theChild.getMeasureValue();
+			}
 			else if (isLastNumeric && aNumericBest.contains(itsSearchParameters.getNumericStrategy()))
 			{
 				assert theChild.hasQuality();
@@ -3118,6 +5023,12 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 				// check, and BestInterval does not perform one at all
 				aQuality = (float) theChild.getMeasureValue();
 			}
+			else if ((lastAdded == AttributeType.NOMINAL) && (isDirectSingleBinary() || isDirectDoubleBinary()) && theChild.hasQuality())
+			{
+				// SINGLE_NOMINAL and DOUBLE_BINARY, direct computation by evaluateNominalEquals()
+				// NOTE this path already performed the isValid-coverage check
+				aQuality = (float) theChild.getMeasureValue();
+			}
 			else if ((lastAdded == AttributeType.NOMINAL) && itsSearchParameters.getNominalSets())
 			{
 				assert theChild.hasQuality();
@@ -3144,61 +5055,71 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 				isUsefulForCandidateSet = false;	// and no refinement will ever be above minsup again
 			}
 
-			// FIXME to avoid excessive locking, itsCandidateQueue should also have a (dirty) hasPotential() method, such that if there is
-			//       no chance at all that the Subgroup would be added to either the CandidateSet or the ResultSet no lock is ever acquired
 			isUsefulForResultSet &= (ignoreQualityMinimum || (aQuality > itsQualityMeasureMinimum));
-			// currently not a synchronised call, but perform separately anyway
+			// not a synchronised call, checks both itsResult and Thread buffer
 			if (isUsefulForResultSet)
-				isUsefulForResultSet &= itsResult.hasPotential(aQuality);
+				isUsefulForResultSet &= itsAdmission.hasPotential(aQuality);
 
-			if (isUsefulForCandidateSet || isUsefulForResultSet)
+			// no refinement of theChild could enter itsResult, see useOptimisticEstimates()
+			Candidate aCandidate = null;
+			if (isUsefulForCandidateSet)
 			{
-				// do not Construct this Object within the synchronized block
-				Candidate aCandidate = (isUsefulForCandidateSet ? new Candidate(theChild) : null);
-
-				// performed as a logical unit, see REQUIREMENT 1
-				// all logic is performed outside of synchronized block
-				// to keep it as small as possible
-				synchronized (itsCheckLock)
+				aCandidate = new Candidate(theChild);
+				if (itsUseOptimisticEstimates)
 				{
-					if (isUsefulForResultSet)
-						itsResult.add(theChild);
-
-					if (isUsefulForCandidateSet)
-						itsCandidateQueue.add(aCandidate);
+					aCandidate.setOptimisticEstimate(getOptimisticEstimate(theChild));
+					isUsefulForCandidateSet = !isPrunable(aCandidate.getOptimisticEstimate());
 				}
 			}
+
+			// merged as a logical unit by flush(), see REQUIREMENT 1
+			if (isUsefulForCandidateSet || isUsefulForResultSet)
+			{
+				aResultAddition    = isUsefulForResultSet ? theChild : null;
+				aCandidateAddition = isUsefulForCandidateSet ? aCandidate : null;
+			}
 		}
 
 		// prevent OutOfMemory / GC Overhead Limit errors, some code paths bypass evaluateCandidate(Subgroup) so calling it there is no good
 		// and this is the sole method to add to Candidate and Result sets
 		theChild.killMembers();
 
+		// MiningEngine.DETERMINISTIC, numbered and admitted by commit()
+		List<Outcome> anOutcomes = itsOutcomes.get();
+		if (anOutcomes != null)
+		{
+			anOutcomes.add(new Outcome(isValid ? theChild.getConditions() : null, theChild.getCoverage(), theChild.getMeasureValue(), aResultAddition, aCandidateAddition));
+			return;
+		}
+
+		if ((aResultAddition != null) || (aCandidateAddition != null))
+			itsAdmission.add(aResultAddition, aCandidateAddition);
+
 		// incrementing after expensive check() makes subgroup numbers in log 'closer to being consecutive' when multi-threading a synchronized block with itsCandidateCount.getAndIncrement()
 		// and logCandidateAddition() would yield consecutive numbers but is slower and does not yield useful practical benefits
 		long count = itsCandidateCount.getAndIncrement();
 
 		if (isValid)
-			logCandidateAddition(theChild, count);
+			logCandidateAddition(theChild.getConditions(), theChild.getCoverage(), theChild.getMeasureValue(), count);
 	}
 
 	// log as a single message, else messages of other threads end up in between
-	private void logCandidateAddition(Subgroup theSubgroup, long count)
+	private void logCandidateAddition(ConditionList theConditions, int theCoverage, double theQuality, long count)
 	{
 		if (NO_CANDIDATE_LOG)
 			return;
 
-		String aCandidate = theSubgroup.getConditions().toString();
+		String aCandidate = theConditions.toString();
 
 		StringBuilder sb = new StringBuilder(aCandidate.length() + 100);
 		sb.append("candidate ");
 		sb.append(aCandidate);
 		sb.append(" size: ");
-		sb.append(theSubgroup.getCoverage());
+		sb.append(theCoverage);
 		sb.append("\n  subgroup nr. ");
 		sb.append(count);
 		sb.append("; quality ");
-		sb.append(theSubgroup.getMeasureValue());
+		sb.append(theQuality);
 
 		Log.logCommandLine(sb.toString());
 	}
@@ -3463,79 +5384,103 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
         return (float) aQuality;
     }
     
-    private final float evaluateCandidateDoubleBinary(Subgroup theChild)
-    {
-        BitSet theChildMembers = theChild.getMembers();
-        
-        //subgroup size
-        int aCoverage = theChild.getCoverage();
-//        System.out.println("coverage: " + aCoverage);
-
-        //FIXME these general statistics don't change per subgroup, so could be obtained once and stored. Saves time
-        //dataset statistics
-        BitSet aPrimaryMembers = itsPrimaryColumn.getBinaries(); // dataset A
-        BitSet aSecondaryMembers = itsSecondaryColumn.getBinaries();
-        int aSizeA = aPrimaryMembers.cardinality();
-	int aSizeB = itsNrRows-aSizeA;
-//        System.out.println("dataset: " + itsNrRows + ", Dataset A: " + aSizeA + ", Dataset B: " + aSizeB);
-
-        //target within A and B
-        aSecondaryMembers.and(aPrimaryMembers);
-        float aTargetA = aSecondaryMembers.cardinality()/(float)aSizeA;
-//        System.out.println("target A: " + aSecondaryMembers.cardinality() + " (" + aTargetA + ")");
-        aSecondaryMembers = itsSecondaryColumn.getBinaries();
-        aSecondaryMembers.andNot(aPrimaryMembers);
-        float aTargetB = aSecondaryMembers.cardinality()/(float)aSizeB;
-//        System.out.println("target B: " + aSecondaryMembers.cardinality() + " (" + aTargetB + ")");
-
-        //subgroup within A
-        BitSet aSubset = theChild.getMembers(); //subgroup
-        aSubset.and(aPrimaryMembers); //subgroup within A
-        int aSubgroupPrimaryCountA = aSubset.cardinality();
-//        System.out.println("subgroup within A: " + aSubset.cardinality());
-        if (aSubgroupPrimaryCountA == 0) //FIXME
-        {
-            theChild.setSecondaryStatistic(0);
-            return 0f;
-        }
-
-        //subgroup within A with target = true
-        aSubset.and(itsSecondaryColumn.getBinaries()); //subgroup within A with target = true
-        int aSubgroupPrimarySecondaryCountA = aSubset.cardinality();
-        float aSubgroupTargetA = aSubgroupPrimarySecondaryCountA/(float)aSubgroupPrimaryCountA;
-//        System.out.println("subgroup within A with target = true: " + aSubgroupPrimarySecondaryCountA + " (" + aSubgroupTargetA + ")");
-        theChild.setTertiaryStatistic(aSubgroupTargetA); // used?
-
-        //subgroup within B with target = true
-        aSubset = theChild.getMembers(); //subgroup
-        aSubset.andNot(aPrimaryMembers); //subgroup within B
-        int aSubgroupPrimaryCountB = aSubset.cardinality();
-        if (aSubgroupPrimaryCountB == 0) //FIXME
-        {
-            theChild.setSecondaryStatistic(0);
-            return 0f;
-        }
-        aSubset.and(itsSecondaryColumn.getBinaries()); //subgroup within B with target = true
-        int aSubgroupPrimarySecondaryCountB = aSubset.cardinality();
-        float aSubgroupTargetB = aSubgroupPrimarySecondaryCountB/(float)aSubgroupPrimaryCountB;
-//        System.out.println("subgroup within B with target = true: " + aSubgroupPrimarySecondaryCountB + " (" + aSubgroupTargetB + ")");
-
-        theChild.setSecondaryStatistic(Math.signum((aSubgroupTargetA-aTargetA)/aTargetA)); //relative lift of subgroup in A
-
-	float aWRAccA = aSubgroupPrimarySecondaryCountA/(float)aSizeA - aTargetA*aSubgroupPrimaryCountA/(float)aSizeA;
-	float aWRAccB = aSubgroupPrimarySecondaryCountB/(float)aSizeB - aTargetB*aSubgroupPrimaryCountB/(float)aSizeB;
-//        System.out.println("WRAcc A: " + aWRAccA);
-//        System.out.println("WRAcc B: " + aWRAccB);
-
-        switch (itsSearchParameters.getQualityMeasure())
-        {
-            case RELATIVE_WRACC :    return (aWRAccB!=0) ? aWRAccA/aWRAccB : Float.MAX_VALUE;
-            case ABSOLUTE_WRACC :    return aWRAccA-aWRAccB;
-            case RELATIVE_RISK :     return ((aSubgroupTargetA-aTargetA)/aTargetA) / ((aSubgroupTargetB-aTargetB)/aTargetB);
-            case ABSOLUTE_RISK :     return ((aSubgroupTargetA-aTargetA)/aTargetA) - ((aSubgroupTargetB-aTargetB)/aTargetB);
-            default :                   return 0; //should not happen
-        }
-    }
+	// the dataset statistics are those of itsDoubleBinaryTable, the counts
+	// of theChild are obtained word by word, without cloning its members
+	private final float evaluateCandidateDoubleBinary(Subgroup theChild)
+	{
+		DoubleBinaryTable t = itsDoubleBinaryTable;
+		int[] aCounts = theChild.countCommon(t.itsWords);
+
+		//subgroup within A, and within A with target = true
+		int aSubgroupPrimaryCountA = aCounts[0];
+		if (aSubgroupPrimaryCountA == 0) //FIXME
+		{
+			theChild.setSecondaryStatistic(0);
+			return 0f;
+		}
+		int aSubgroupPrimarySecondaryCountA = aCounts[1];
+		theChild.setTertiaryStatistic(t.getSubgroupTargetA(aSubgroupPrimaryCountA, aSubgroupPrimarySecondaryCountA)); // used?
+
+		//subgroup within B, and within B with target = true
+		int aSubgroupPrimaryCountB = theChild.getCoverage() - aSubgroupPrimaryCountA;
+		if (aSubgroupPrimaryCountB == 0) //FIXME
+		{
+			theChild.setSecondaryStatistic(0);
+			return 0f;
+		}
+		int aSubgroupPrimarySecondaryCountB = aCounts[2];
+
+		theChild.setSecondaryStatistic(t.getRelativeLift(aSubgroupPrimaryCountA, aSubgroupPrimarySecondaryCountA)); //relative lift of subgroup in A
+
+		return t.calculate(itsSearchParameters.getQualityMeasure(), aSubgroupPrimaryCountA, aSubgroupPrimarySecondaryCountA, aSubgroupPrimaryCountB, aSubgroupPrimarySecondaryCountB);
+	}
+
+	/*
+	 * DOUBLE_BINARY, the primary target splits the data in dataset A (true)
+	 * and B (false), the secondary target is the target within both.
+	 * The 2x2 table of the data is the same for every Subgroup, so it is
+	 * computed once, the 2x2 table of a Subgroup follows from its coverage
+	 * and the number of its members in each of the masks.
+	 */
+	private static final class DoubleBinaryTable
+	{
+		static final int NR_MASKS = 3;
+
+		final BitSet[] itsMasks; // A, A with target, B with target
+		final long[][] itsWords; // itsMasks, as BitSet.toLongArray()
+		final int itsSizeA;
+		final int itsSizeB;
+		final float itsTargetA;
+		final float itsTargetB;
+
+		DoubleBinaryTable(BitSet thePrimary, BitSet theSecondary, int theNrRows)
+		{
+			BitSet aTargetA = (BitSet) theSecondary.clone();
+			aTargetA.and(thePrimary);
+			BitSet aTargetB = (BitSet) theSecondary.clone();
+			aTargetB.andNot(thePrimary);
+
+			itsMasks = new BitSet[] { thePrimary, aTargetA, aTargetB };
+			itsWords = new long[NR_MASKS][];
+			for (int i = 0; i < NR_MASKS; ++i)
+				itsWords[i] = itsMasks[i].toLongArray();
+
+			//dataset statistics
+			itsSizeA = thePrimary.cardinality();
+			itsSizeB = theNrRows - itsSizeA;
+			itsTargetA = aTargetA.cardinality() / (float) itsSizeA;
+			itsTargetB = aTargetB.cardinality() / (float) itsSizeB;
+		}
+
+		float getSubgroupTargetA(int theCountA, int theCountAT)
+		{
+			return theCountAT / (float) theCountA;
+		}
+
+		double getRelativeLift(int theCountA, int theCountAT)
+		{
+			return Math.signum((getSubgroupTargetA(theCountA, theCountAT) - itsTargetA) / itsTargetA);
+		}
+
+		// theCountA and theCountB should both be larger than 0
+		float calculate(QM theQM, int theCountA, int theCountAT, int theCountB, int theCountBT)
+		{
+			float aSubgroupTargetA = theCountAT / (float) theCountA;
+			float aSubgroupTargetB = theCountBT / (float) theCountB;
+
+			float aWRAccA = theCountAT/(float)itsSizeA - itsTargetA*theCountA/(float)itsSizeA;
+			float aWRAccB = theCountBT/(float)itsSizeB - itsTargetB*theCountB/(float)itsSizeB;
+
+			switch (theQM)
+			{
+				case RELATIVE_WRACC :    return (aWRAccB!=0) ? aWRAccA/aWRAccB : Float.MAX_VALUE;
+				case ABSOLUTE_WRACC :    return aWRAccA-aWRAccB;
+				case RELATIVE_RISK :     return ((aSubgroupTargetA-itsTargetA)/itsTargetA) / ((aSubgroupTargetB-itsTargetB)/itsTargetB);
+				case ABSOLUTE_RISK :     return ((aSubgroupTargetA-itsTargetA)/itsTargetA) - ((aSubgroupTargetB-itsTargetB)/itsTargetB);
+				default :                return 0; //should not happen
+			}
+		}
+	}
 
 	private final float evaluateCandidateScape(Subgroup theChild)
 	{
@@ -3557,13 +5502,15 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 		return aQuality;
 	}
 
-	// FIXME
-	// multiLabelCalculate(Subgroup) uses Subgroup.getMembers() to select a
-	// subset of records from itsBinaryTable, supply BitSet as parameter
+	// the families are scored on the members of theChild in itsBinaryTable
+	// directly, see Bayesian.FamilyScores, so no table copy is made
 	private final float evaluateCandidateMultiLabel(Subgroup theChild)
 	{
-		BinaryTable aBinaryTable = itsBinaryTable.selectRows(theChild.getMembers());
-		Bayesian aBayesian = new Bayesian(aBinaryTable, itsTargets);
+		Bayesian aBayesian = new Bayesian(new Bayesian.FamilyScores(itsBinaryTable, theChild.getMembers()), itsTargets);
+		// off by default, the Subgroup DAG is then biased towards the one it
+		// is compared to by the quality measure
+		if (itsSearchParameters.getUseMultiLabelWarmStart())
+			aBayesian.warmStart(itsBaseDAG);
 		aBayesian.climb();               //induce DAG
 		DAG aDAG = aBayesian.getDAG();
 		theChild.setDAG(aDAG);           //store DAG with subgroup for later use
@@ -3575,16 +5522,16 @@ TODO for stable jar, disabled, causes compile errors, reinstate later
 		return aQuality;
 	}
 
-	// FIXME
-	// getAverageRankingMatrix(Subgroup) and getAverageRanking(Subgroup)
-	// only use Subgroup.getMembers(), supply BitSet as sole parameter
+	// the rankings are parsed once by Column, the averages follow from the
+	// number of times each ranking occurs in theChild, see LabelRankIndex
 	private final float evaluateCandidateLabelRanking(Subgroup theChild)
 	{
 		int aCoverage = theChild.getCoverage();
-		LabelRankingMatrix aLRM = itsTargetRankings.getAverageRankingMatrix(theChild);
+		int[] aCounts = itsTargetRankings.getLabelRankingCounts(theChild.getMembers());
+		LabelRankingMatrix aLRM = itsTargetRankings.getAverageRankingMatrixFromCounts(aCounts);
 
 		float aQuality = itsQualityMeasure.computeLabelRankingDistance(aCoverage, aLRM);
-		theChild.setLabelRanking(itsTargetRankings.getAverageRanking(theChild));
+		theChild.setLabelRanking(itsTargetRankings.getAverageRankingFromCounts(aCounts));
 		theChild.setLabelRankingMatrix(aLRM);
 
 		// TODO make this more sensible
@@ -37,11 +37,16 @@ public class SubgroupSet extends TreeSet<Subgroup>
 	private int itsMaximumSize;
 	private ROCList itsROCList;
 	// used as quick check for add(), tests on NaN always return false
-	// could use AtomicLong.doubleBits
-	private double itsLowestScore = Double.NaN;
+	// volatile: reads and writes of a double are atomic, and a new lowest
+	// score is visible to hasPotential() of all Threads (AdmissionBuffer)
+	private volatile double itsLowestScore = Double.NaN;
 	private double itsJointEntropy = Double.NaN; //initially not set
 
 	private BinaryTable itsBinaryTable = null;
+	// how Subgroups of this set store killed members, see Subgroup.killMembers()
+	private MemberSetType itsMemberSetType = MemberSetType.BITSET;
+	// killed and revived members of Subgroups of this set, optional
+	private ExtentCache itsExtentCache = null;
 
 	// this is the long way around, new Subgroups are added to QUEUE when QUEUE.size() >= itsMaximumSize all Subgroups in QUEUE are added to this SubgroupSet, much better for concurrency
 	private final int MAX_QUEUE_SIZE = 1; // arbitrarily chosen
@@ -225,7 +230,7 @@ public class SubgroupSet extends TreeSet<Subgroup>
 
 	// includes equal scores, as new Subgroups with the same score might be
 	// ordered before the old one, pushing the old one out
-	// note that this is an unsynchronised check, might use AtomicDouble one day
+	// note that this is an unsynchronised check, itsLowestScore is volatile
 	// isNaN() check is needed as itsLowestScore starts out like that
 	// FIXME use isEmpty() instead of NaN check
 	boolean hasPotential(float theQuality)
@@ -233,6 +238,42 @@ public class SubgroupSet extends TreeSet<Subgroup>
 		return (Double.isNaN(itsLowestScore) || (theQuality >= itsLowestScore));
 	}
 
+	/*
+	 * Adds all Subgroups in one step, used by AdmissionBuffer.flush().
+	 * Avoids the QUEUE round-trip of add(), and TreeSet.addAll(), which might
+	 * bypass add() and the maximum size check altogether.
+	 */
+	void merge(Collection<Subgroup> theSubgroups)
+	{
+		synchronized (QUEUE)
+		{
+			// Subgroups put() by add() go first, as they did before
+			update();
+
+			for (Subgroup s : theSubgroups)
+				if (!(s.getMeasureValue() < itsLowestScore) && super.add(s))
+					s.flattenMemberSet();
+
+			while (itsMaximumSize < super.size())
+				remove(last());
+			if (itsMaximumSize == super.size())
+				itsLowestScore = last().getMeasureValue();
+		}
+	}
+
+	/*
+	 * A copy of the current Subgroups, best first, for MiningSnapshot.
+	 * Safe during mining, as add() and merge() also lock QUEUE.
+	 */
+	List<Subgroup> snapshot()
+	{
+		synchronized (QUEUE)
+		{
+			update();
+			return new ArrayList<Subgroup>(this);
+		}
+	}
+
 	private void update()
 	{
 		// make all put()'s wait until this QUEUE is empty again
@@ -243,7 +284,9 @@ public class SubgroupSet extends TreeSet<Subgroup>
 				Subgroup s = QUEUE.poll();
 				if (s.getMeasureValue() < itsLowestScore)
 					QUEUE.clear();
-				super.add(s);
+				// for DIFFSET, do not keep the MemberSets of its ancestors
+				if (super.add(s))
+					s.flattenMemberSet();
 			}
 			// outside synchronized block leads to troubles if
 			// multiple (QUEUE.size() > MAX) call update
@@ -278,6 +321,35 @@ public class SubgroupSet extends TreeSet<Subgroup>
 		return itsBinaryTarget.cardinality();
 	}
 
+	// Integer.MAX_VALUE when this SubgroupSet has no maximum size
+	final int getMaximumSize()
+	{
+		return itsMaximumSize;
+	}
+
+	// never AUTOMATIC, resolved by SubgroupDiscovery for the Table
+	final MemberSetType getMemberSetType()
+	{
+		return itsMemberSetType;
+	}
+
+	final void setMemberSetType(MemberSetType theMemberSetType)
+	{
+		assert (theMemberSetType != MemberSetType.AUTOMATIC);
+		itsMemberSetType = theMemberSetType;
+	}
+
+	// null when Subgroups of this set do not use an ExtentCache
+	final ExtentCache getExtentCache()
+	{
+		return itsExtentCache;
+	}
+
+	final void setExtentCache(ExtentCache theExtentCache)
+	{
+		itsExtentCache = theExtentCache;
+	}
+
 	final BitSet getAllDataBitSetClone()
 	{
 		return (BitSet) itsAllDataBitSet.clone();
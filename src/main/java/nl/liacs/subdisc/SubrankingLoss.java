@@ -0,0 +1,234 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/**
+ * SubrankingLoss computes the ranking loss of the SCAPE target for a set of
+ * members, without walking the complete data in the order of the numeric
+ * target, as {@link QualityMeasure#calculateSubrankingLoss(BitSet, int, int)}
+ * originally did.
+ * <p>
+ * Every row is assigned the tie group of its numeric target value, where the
+ * highest value is in the lowest group.
+ * The ranking loss is the sum, over the positive members, of the number of
+ * negative members in a lower (higher valued) group, plus half the number of
+ * negative members in the same group.
+ * It is returned as a <code>long</code> that is twice that sum, so that no
+ * fractions or overflows occur.
+ * <p>
+ * A {@link Sweep} maintains the loss while members are added, so all
+ * thresholds of a numeric refinement are scored in a single pass.
+ */
+final class SubrankingLoss
+{
+	// per row, not ranked rows (outside the ordering) have group -1
+	private final int[] itsGroups;
+	private final BitSet itsPositives;
+
+	/*
+	 * theDescendingOrder is the permutation that orders the rows on their
+	 * numeric target value, highest value first
+	 * ties are formed exactly as in the original calculateSubrankingLoss()
+	 * a new group starts when a value is smaller than the previous one
+	 */
+	SubrankingLoss(Column theBinaryTarget, Column theNumericTarget, int[] theDescendingOrder)
+	{
+		int aSize = theNumericTarget.size();
+		itsGroups = new int[aSize];
+		Arrays.fill(itsGroups, -1);
+		itsPositives = theBinaryTarget.getBinaries();
+
+		int aGroup = 0;
+		float aPrevious = Float.MAX_VALUE;
+		for (int i : theDescendingOrder)
+		{
+			float f = theNumericTarget.getFloat(i);
+			if (f < aPrevious)
+			{
+				++aGroup;
+				aPrevious = f;
+			}
+			itsGroups[i] = aGroup;
+		}
+	}
+
+	/**
+	 * Returns twice the ranking loss of the members, it visits the members
+	 * only, in O(coverage * log(coverage)).
+	 *
+	 * @param theMembers the members of the Subgroup.
+	 *
+	 * @return twice the ranking loss.
+	 */
+	long getTotalRankingLoss(BitSet theMembers)
+	{
+		// keys: group in the high bits, 1 for a positive in the low bit
+		long[] aKeys = new long[theMembers.cardinality()];
+		int n = 0;
+		for (int i = theMembers.nextSetBit(0); i >= 0; i = theMembers.nextSetBit(i + 1))
+			n = addKey(aKeys, n, i);
+
+		return getTotalRankingLoss(aKeys, n);
+	}
+
+	/**
+	 * Returns twice the ranking loss of the rows in the specified range of
+	 * theRows, see {@link #getTotalRankingLoss(BitSet)}.
+	 */
+	long getTotalRankingLoss(int[] theRows, int theFromIndex, int theToIndex)
+	{
+		long[] aKeys = new long[theToIndex - theFromIndex];
+		int n = 0;
+		for (int i = theFromIndex; i < theToIndex; ++i)
+			n = addKey(aKeys, n, theRows[i]);
+
+		return getTotalRankingLoss(aKeys, n);
+	}
+
+	private int addKey(long[] theKeys, int theNrKeys, int theRow)
+	{
+		int aGroup = itsGroups[theRow];
+		if (aGroup < 0)
+			return theNrKeys;
+
+		theKeys[theNrKeys] = (((long) aGroup) << 1) | (itsPositives.get(theRow) ? 1L : 0L);
+		return theNrKeys + 1;
+	}
+
+	private static long getTotalRankingLoss(long[] theKeys, int theNrKeys)
+	{
+		Arrays.sort(theKeys, 0, theNrKeys);
+
+		long aLoss = 0L;
+		long aNrNegatives = 0L; // in higher valued groups
+		for (int i = 0; i < theNrKeys; )
+		{
+			long aGroup = (theKeys[i] >>> 1);
+			long aNegatives = 0L;
+			long aPositives = 0L;
+			for ( ; i < theNrKeys && (theKeys[i] >>> 1) == aGroup; ++i)
+			{
+				if ((theKeys[i] & 1L) == 0L)
+					++aNegatives;
+				else
+					++aPositives;
+			}
+
+			// every positive of this group: twice the earlier negatives, and
+			// once the tied negatives (so half of a tie in the final loss)
+			aLoss += aPositives * ((2L * aNrNegatives) + aNegatives);
+			aNrNegatives += aNegatives;
+		}
+
+		return aLoss;
+	}
+
+	/**
+	 * Returns a new {@link Sweep} for subsets of theParentMembers.
+	 *
+	 * @param theParentMembers all rows that might be added to the Sweep.
+	 *
+	 * @return an empty Sweep.
+	 */
+	Sweep getSweep(BitSet theParentMembers)
+	{
+		// only the groups of the parent, keeps the Fenwick trees small
+		int[] aGroups = new int[theParentMembers.cardinality()];
+		int n = 0;
+		for (int i = theParentMembers.nextSetBit(0); i >= 0; i = theParentMembers.nextSetBit(i + 1))
+			if (itsGroups[i] >= 0)
+				aGroups[n++] = itsGroups[i];
+
+		Arrays.sort(aGroups, 0, n);
+		int aNrGroups = 0;
+		for (int i = 0; i < n; ++i)
+			if (aNrGroups == 0 || aGroups[aNrGroups-1] != aGroups[i])
+				aGroups[aNrGroups++] = aGroups[i];
+
+		return new Sweep(Arrays.copyOf(aGroups, aNrGroups));
+	}
+
+	/**
+	 * A Sweep holds a set of rows, and the ranking loss for it.
+	 * Rows are added one by one, updating the ranking loss in
+	 * O(log(groups)), using two Fenwick trees, that count the positives and
+	 * negatives per group.
+	 */
+	final class Sweep
+	{
+		private final int[] itsParentGroups;	// sorted, distinct
+		private final int[] itsPositiveTree;	// Fenwick tree, 1-based
+		private final int[] itsNegativeTree;	// Fenwick tree, 1-based
+		private int itsNrPositives = 0;
+		private int itsNrNegatives = 0;
+		private int itsNrRankedPositives = 0;	// in the Fenwick tree
+		private long itsLoss = 0L;
+
+		private Sweep(int[] theParentGroups)
+		{
+			itsParentGroups = theParentGroups;
+			itsPositiveTree = new int[theParentGroups.length + 1];
+			itsNegativeTree = new int[theParentGroups.length + 1];
+		}
+
+		/**
+		 * Adds theRow to this Sweep, it must be a member of the parent, and
+		 * not be added before.
+		 * Like getTotalRankingLoss(), rows outside the ordering only count
+		 * as positive or negative, they do not add to the loss.
+		 */
+		void add(int theRow)
+		{
+			boolean isPositive = itsPositives.get(theRow);
+			if (isPositive)
+				++itsNrPositives;
+			else
+				++itsNrNegatives;
+
+			int aGroup = itsGroups[theRow];
+			if (aGroup < 0)
+				return;
+
+			// 1-based index in the Fenwick trees
+			int g = Arrays.binarySearch(itsParentGroups, aGroup) + 1;
+			assert (g > 0);
+
+			if (isPositive)
+			{
+				// negatives in higher valued groups (twice), and in this group
+				int aHigher = prefix(itsNegativeTree, g-1);
+				int aTied   = prefix(itsNegativeTree, g) - aHigher;
+				itsLoss += (2L * aHigher) + aTied;
+				update(itsPositiveTree, g);
+				++itsNrRankedPositives;
+			}
+			else
+			{
+				// positives in lower valued groups (twice), and in this group
+				int aUpToThis = prefix(itsPositiveTree, g);
+				int aTied     = aUpToThis - prefix(itsPositiveTree, g-1);
+				itsLoss += (2L * (itsNrRankedPositives - aUpToThis)) + aTied;
+				update(itsNegativeTree, g);
+			}
+		}
+
+		/** Returns twice the ranking loss of the rows added so far. */
+		long getTotalRankingLoss() { return itsLoss; }
+		int getNrPositives()       { return itsNrPositives; }
+		int getNrNegatives()       { return itsNrNegatives; }
+
+		private int prefix(int[] theTree, int theIndex)
+		{
+			int aSum = 0;
+			for (int i = theIndex; i > 0; i -= (i & -i))
+				aSum += theTree[i];
+			return aSum;
+		}
+
+		private void update(int[] theTree, int theIndex)
+		{
+			for (int i = theIndex; i < theTree.length; i += (i & -i))
+				++theTree[i];
+		}
+	}
+}
@@ -0,0 +1,605 @@
+package nl.liacs.subdisc;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * NOTE this class replaces the Scanner based loop of DataLoaderTXT.loadFile().
+ * The data lines are split into chunks of about CHUNK_SIZE bytes, that end at
+ * a line end. A number of chunks is tokenised concurrently, each field is
+ * classified (missing, binary, float, or other) and float values are parsed
+ * during tokenisation. Then, for each Column concurrently, the classified
+ * fields of these chunks are added in line order.
+ *
+ * The Column type changes (BINARY to NUMERIC, BINARY to NOMINAL and NUMERIC
+ * to NOMINAL) depend on the order in which values are encountered, and they
+ * change the values already in the Column. So, the per chunk results are not
+ * merged by type, but the fields are replayed through the same Column.add(),
+ * Column.setType() and Column.toNominalType() calls as the original loop
+ * made, which guarantees an identical Table.
+ *
+ * Fields are the char ranges between delimiters, when a field opens a quote
+ * (', ") that it does not close, the following fields are joined to it until
+ * one closes it. Then it is trimmed, and the quotes are removed, this is the
+ * same as the Scanner tokens and DataLoaderTXT.removeQuotes() produced.
+ * Only the fields that are not parsed as floats are turned into a String.
+ */
+/**
+ * A TXTChunkParser reads the lines of a delimited text file into the
+ * {@link Column Column}s of a {@link Table Table}, using multiple Threads.
+ *
+ * @see DataLoaderTXT
+ */
+final class TXTChunkParser
+{
+	// number of bytes tokenised by a single task, a chunk ends at a line end
+	static final int CHUNK_SIZE = (1 << 20);
+	// size of the window used by readLine() and the chunk boundary search
+	private static final int WINDOW_SIZE = (1 << 13);
+
+	// field kinds, EMPTY, BINARY and FLOAT are tested in this order
+	private static final byte ABSENT = -1;	// line has too few fields
+	private static final byte EMPTY = 0x1;
+	private static final byte BINARY = 0x2;
+	private static final byte TRUE = 0x4;
+	private static final byte FLOAT = 0x8;
+
+	private final FileChannel itsChannel;
+	private final long itsSize;
+	private final int itsChunkSize;
+	// FileReader uses the default Charset
+	private final Charset itsCharset = Charset.defaultCharset();
+	private final int itsNrThreads = Runtime.getRuntime().availableProcessors();
+
+	private final ByteBuffer itsWindow = ByteBuffer.allocate(WINDOW_SIZE);
+	private long itsWindowStart = 0;
+	private long itsPosition = 0;
+	private int itsLineNr = 0;
+
+	TXTChunkParser(FileChannel theChannel) throws IOException
+	{
+		this(theChannel, CHUNK_SIZE);
+	}
+
+	// for testing, small chunks put chunk boundaries in between most lines
+	TXTChunkParser(FileChannel theChannel, int theChunkSize) throws IOException
+	{
+		assert (theChunkSize > 0);
+
+		itsChannel = theChannel;
+		itsSize = theChannel.size();
+		itsChunkSize = theChunkSize;
+		itsWindow.limit(0);
+	}
+
+	// position and number of the last line returned by readLine()
+	long getPosition() { return itsPosition; }
+	int getLineNr() { return itsLineNr; }
+
+	void setPosition(long thePosition, int theLineNr)
+	{
+		itsPosition = thePosition;
+		itsLineNr = theLineNr;
+	}
+
+	/*
+	 * Same as BufferedReader.readLine(), lines end at '\n', '\r' or "\r\n",
+	 * returns null at the end of the file.
+	 */
+	String readLine() throws IOException
+	{
+		if (byteAt(itsPosition) < 0)
+			return null;
+
+		ByteArrayOutputStream aBytes = new ByteArrayOutputStream();
+		for (int b; (b = byteAt(itsPosition)) >= 0; )
+		{
+			++itsPosition;
+			if (b == '\n')
+				break;
+			if (b == '\r')
+			{
+				if (byteAt(itsPosition) == '\n')
+					++itsPosition;
+				break;
+			}
+			aBytes.write(b);
+		}
+		++itsLineNr;
+
+		return new String(aBytes.toByteArray(), itsCharset);
+	}
+
+	// returns -1 at the end of the file
+	private int byteAt(long thePosition) throws IOException
+	{
+		if (thePosition < itsWindowStart || thePosition >= itsWindowStart + itsWindow.limit())
+		{
+			itsWindow.clear();
+			itsWindowStart = thePosition;
+			while (itsWindow.hasRemaining() && itsChannel.read(itsWindow, thePosition + itsWindow.position()) > 0)
+				;
+			itsWindow.flip();
+			if (itsWindow.limit() == 0)
+				return -1;
+		}
+
+		return (itsWindow.get((int) (thePosition - itsWindowStart)) & 0xff);
+	}
+
+	// [start, end) of each chunk, from thePosition to the end of the file
+	private List<long[]> getChunks(long thePosition) throws IOException
+	{
+		List<long[]> aChunks = new ArrayList<long[]>((int) ((itsSize - thePosition) / itsChunkSize) + 1);
+
+		for (long aStart = thePosition, anEnd; aStart < itsSize; aStart = anEnd)
+		{
+			// a chunk ends directly after a '\n', so "\r\n" is never split
+			for (anEnd = aStart + itsChunkSize; anEnd < itsSize; ++anEnd)
+				if (byteAt(anEnd) == '\n')
+					break;
+			anEnd = Math.min(anEnd + 1, itsSize);
+			aChunks.add(new long[] { aStart, anEnd });
+		}
+
+		return aChunks;
+	}
+
+	// positional reads, these are safe for concurrent use
+	private byte[] read(long theStart, long theEnd) throws IOException
+	{
+		ByteBuffer aBuffer = ByteBuffer.allocate((int) (theEnd - theStart));
+		while (aBuffer.hasRemaining())
+			if (itsChannel.read(aBuffer, theStart + aBuffer.position()) < 0)
+				throw new EOFException();
+
+		return aBuffer.array();
+	}
+
+	/**
+	 * Returns the number of non-empty lines from the position parameter to
+	 * the end of the file.
+	 */
+	int countLines(long thePosition) throws IOException
+	{
+		List<Callable<Integer>> aTasks = new ArrayList<Callable<Integer>>();
+		for (final long[] aChunk : getChunks(thePosition))
+		{
+			aTasks.add(new Callable<Integer>()
+			{
+				@Override
+				public Integer call() throws IOException
+				{
+					// no need to decode, '\n' and '\r' are never part of a multi-byte character
+					byte[] aBytes = read(aChunk[0], aChunk[1]);
+					int aCount = 0;
+					boolean isEmpty = true;
+					for (byte b : aBytes)
+					{
+						if (b == '\n' || b == '\r')
+						{
+							if (!isEmpty)
+								++aCount;
+							isEmpty = true;
+						}
+						else
+							isEmpty = false;
+					}
+					return isEmpty ? aCount : aCount + 1;
+				}
+			});
+		}
+
+		int aCount = 0;
+		ExecutorService es = Executors.newFixedThreadPool(itsNrThreads);
+		try
+		{
+			for (int n : invokeAll(es, aTasks))
+				aCount += n;
+		}
+		finally
+		{
+			es.shutdown();
+		}
+
+		return aCount;
+	}
+
+	/**
+	 * Adds the values on the lines from the current position to the end of
+	 * the file to the {@link Column Column}s.
+	 *
+	 * @param theColumns the Columns, their current AttributeType is used.
+	 * @param theDelimiter the field delimiter.
+	 * @param theTrueValues the last value that was read as 'true' for each
+	 * BINARY Column, it is updated.
+	 * @param theFalseValues the last value that was read as 'false' for
+	 * each BINARY Column, it is updated.
+	 */
+	void parse(final List<Column> theColumns, final char theDelimiter, final String[] theTrueValues, final String[] theFalseValues) throws IOException
+	{
+		final int aNrColumns = theColumns.size();
+		List<long[]> aChunks = getChunks(itsPosition);
+		// enough chunks to keep all Threads busy, bounds memory use
+		int aBatchSize = 2 * itsNrThreads;
+		int aLineNr = itsLineNr;
+
+		ExecutorService es = Executors.newFixedThreadPool(itsNrThreads);
+		try
+		{
+			for (int i = 0, j = aChunks.size(); i < j; i += aBatchSize)
+			{
+				List<Callable<Chunk>> aTokenisers = new ArrayList<Callable<Chunk>>(aBatchSize);
+				for (final long[] c : aChunks.subList(i, Math.min(i + aBatchSize, j)))
+				{
+					aTokenisers.add(new Callable<Chunk>()
+					{
+						@Override
+						public Chunk call() throws IOException
+						{
+							return new Chunk(read(c[0], c[1]), aNrColumns, theDelimiter);
+						}
+					});
+				}
+				final List<Chunk> aBatch = invokeAll(es, aTokenisers);
+
+				// line numbers are only known after the previous chunks
+				for (Chunk c : aBatch)
+				{
+					c.itsFirstLineNr = aLineNr;
+					aLineNr += c.itsNrLines;
+
+					for (int k = 0; k < c.itsNrRows; ++k)
+						if (c.itsNrFields[k] != aNrColumns)
+							Log.logCommandLine(String.format("DataLoaderTXT.loadFile(): incorrect number of fields on line %d. %d expected, %d found.",
+												c.getLineNr(k), aNrColumns, c.itsNrFields[k]));
+				}
+
+				List<Callable<Void>> aColumnTasks = new ArrayList<Callable<Void>>(aNrColumns);
+				for (int k = 0; k < aNrColumns; ++k)
+				{
+					final int aColumnIndex = k;
+					aColumnTasks.add(new Callable<Void>()
+					{
+						@Override
+						public Void call()
+						{
+							for (Chunk c : aBatch)
+								add(theColumns.get(aColumnIndex), aColumnIndex, c, theTrueValues, theFalseValues);
+							return null;
+						}
+					});
+				}
+				invokeAll(es, aColumnTasks);
+
+				Log.logCommandLine(String.format("DataLoaderTXT.loadFile(): %d lines read", aLineNr));
+			}
+		}
+		finally
+		{
+			es.shutdown();
+		}
+
+		itsPosition = itsSize;
+		itsLineNr = aLineNr;
+	}
+
+	// same decisions as the original loop, in the same order
+	private static void add(Column theColumn, int theIndex, Chunk theChunk, String[] theTrueValues, String[] theFalseValues)
+	{
+		final byte[] aKinds = theChunk.itsKinds[theIndex];
+		final float[] aFloats = theChunk.itsFloats[theIndex];
+		// last 'true' and 'false' value in this chunk, as a String when needed
+		int aTrue = -1;
+		int aFalse = -1;
+
+		for (int i = 0, j = theChunk.itsNrRows; i < j; ++i)
+		{
+			final byte k = aKinds[i];
+			if (k == ABSENT)
+				continue;
+
+			switch (theColumn.getType())
+			{
+				case BINARY :
+				{
+					if ((k & EMPTY) != 0)
+						theColumn.addMissing();
+					else if ((k & BINARY) != 0)
+					{
+						boolean aValue = ((k & TRUE) != 0);
+						theColumn.add(aValue);
+						if (aValue)
+							aTrue = i;
+						else
+							aFalse = i;
+					}
+					else if ((k & FLOAT) != 0)
+					{
+						theColumn.setType(AttributeType.NUMERIC);
+						theColumn.add(aFloats[i]);
+						Log.logCommandLine(theColumn.getName() + " was binary, is numeric (line " + theChunk.getLineNr(i) + ")");
+					}
+					else
+					{
+						String aTrueValue = (aTrue < 0) ? theTrueValues[theIndex] : theChunk.getString(theIndex, aTrue);
+						String aFalseValue = (aFalse < 0) ? theFalseValues[theIndex] : theChunk.getString(theIndex, aFalse);
+						theColumn.toNominalType(aTrueValue, aFalseValue);
+						theColumn.add(theChunk.getString(theIndex, i));
+						Log.logCommandLine(theColumn.getName() + " was binary, is nominal (line " + theChunk.getLineNr(i) + ")");
+					}
+					break;
+				}
+				case NUMERIC :
+				{
+					if ((k & EMPTY) != 0)
+						theColumn.addMissing();
+					else if ((k & FLOAT) != 0)
+						theColumn.add(aFloats[i]);
+					else
+					{
+						theColumn.setType(AttributeType.NOMINAL);
+						theColumn.add(theChunk.getString(theIndex, i));
+						Log.logCommandLine(theColumn.getName() + " was float, is nominal (line " + theChunk.getLineNr(i) + ")");
+					}
+					break;
+				}
+				default :
+				{
+					if ((k & EMPTY) != 0)
+						theColumn.addMissing();
+					else
+						theColumn.add(theChunk.getString(theIndex, i));
+					break;
+				}
+			}
+		}
+
+		if (aTrue >= 0)
+			theTrueValues[theIndex] = theChunk.getString(theIndex, aTrue);
+		if (aFalse >= 0)
+			theFalseValues[theIndex] = theChunk.getString(theIndex, aFalse);
+	}
+
+	// returns the results of theTasks, in order
+	private static <T> List<T> invokeAll(ExecutorService theExecutor, List<? extends Callable<T>> theTasks) throws IOException
+	{
+		try
+		{
+			List<T> aResults = new ArrayList<T>(theTasks.size());
+			for (Future<T> f : theExecutor.invokeAll(theTasks))
+				aResults.add(f.get());
+			return aResults;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/*
+	 * The tokenised lines of a chunk, for each Column the kind of each field,
+	 * its float value, and the char range of the field after trimming and
+	 * removing quotes.
+	 */
+	private final class Chunk
+	{
+		private final char[] itsChars;
+		private int itsFirstLineNr;
+		private int itsNrLines;
+		private int itsNrRows;
+		private final int[] itsLineNrs;		// per row, line in chunk
+		private final int[] itsNrFields;	// per row
+		private final byte[][] itsKinds;	// [column][row]
+		private final float[][] itsFloats;
+		private final int[][] itsStarts;
+		private final int[][] itsEnds;
+
+		Chunk(byte[] theBytes, int theNrColumns, char theDelimiter)
+		{
+			CharBuffer aBuffer = itsCharset.decode(ByteBuffer.wrap(theBytes));
+			itsChars = aBuffer.array();
+			final char[] c = itsChars;
+			final int n = aBuffer.limit();
+
+			// count rows, to size the arrays
+			for (int i = 0; i < n; ++i)
+			{
+				if (c[i] != '\n' && c[i] != '\r')
+				{
+					++itsNrRows;
+					while (i < n && c[i] != '\n' && c[i] != '\r')
+						++i;
+				}
+			}
+
+			itsLineNrs = new int[itsNrRows];
+			itsNrFields = new int[itsNrRows];
+			itsKinds = new byte[theNrColumns][itsNrRows];
+			itsFloats = new float[theNrColumns][itsNrRows];
+			itsStarts = new int[theNrColumns][itsNrRows];
+			itsEnds = new int[theNrColumns][itsNrRows];
+
+			int aRow = 0;
+			for (int i = 0; i < n; )
+			{
+				int aLineEnd = i;
+				while (aLineEnd < n && c[aLineEnd] != '\n' && c[aLineEnd] != '\r')
+					++aLineEnd;
+
+				if (aLineEnd > i)
+				{
+					itsLineNrs[aRow] = itsNrLines;
+					tokenise(aRow++, i, aLineEnd, theNrColumns, theDelimiter);
+				}
+
+				// skip line terminator, "\r\n" is a single one
+				if (aLineEnd < n && c[aLineEnd] == '\r' && aLineEnd + 1 < n && c[aLineEnd + 1] == '\n')
+					++aLineEnd;
+				if (aLineEnd < n || aLineEnd > i)
+					++itsNrLines;
+				i = aLineEnd + 1;
+			}
+		}
+
+		private void tokenise(int theRow, int theStart, int theEnd, int theNrColumns, char theDelimiter)
+		{
+			int aColumn = 0;
+
+			for (int aStart = theStart; ; )
+			{
+				int anEnd = indexOf(theDelimiter, aStart, theEnd);
+
+				// the delimiter came before the quote was closed
+				if (opensQuotes(aStart, anEnd))
+				{
+					while (anEnd < theEnd)
+					{
+						int aNext = anEnd + 1;
+						anEnd = indexOf(theDelimiter, aNext, theEnd);
+						if (closesQuotes(aNext, anEnd))
+							break;
+					}
+				}
+
+				if (aColumn < theNrColumns)
+					setField(aColumn, theRow, aStart, anEnd);
+				++aColumn;
+
+				if (anEnd >= theEnd)
+					break;
+				aStart = anEnd + 1;
+			}
+
+			itsNrFields[theRow] = aColumn;
+			for (int i = aColumn; i < theNrColumns; ++i)
+				itsKinds[i][theRow] = ABSENT;
+		}
+
+		private int indexOf(char theDelimiter, int theStart, int theEnd)
+		{
+			for (int i = theStart; i < theEnd; ++i)
+				if (itsChars[i] == theDelimiter)
+					return i;
+			return theEnd;
+		}
+
+		// only opens a quote, without closing it
+		private boolean opensQuotes(int theStart, int theEnd)
+		{
+			if (theStart == theEnd)
+				return false;
+			char aStart = itsChars[theStart];
+			char anEnd = itsChars[theEnd - 1];
+
+			return ((aStart == '\'' || aStart == '\"') && (anEnd != aStart));
+		}
+
+		// only closes a quote, without opening it
+		private boolean closesQuotes(int theStart, int theEnd)
+		{
+			if (theStart == theEnd)
+				return false;
+			char aStart = itsChars[theStart];
+			char anEnd = itsChars[theEnd - 1];
+
+			if ((aStart == '\"' || aStart == '\'') && (theEnd - theStart > 1))
+				return false;
+			return (anEnd == '\'' || anEnd == '\"');
+		}
+
+		private void setField(int theColumn, int theRow, int theStart, int theEnd)
+		{
+			final char[] c = itsChars;
+
+			// String.trim()
+			while (theStart < theEnd && c[theStart] <= ' ')
+				++theStart;
+			while (theEnd > theStart && c[theEnd - 1] <= ' ')
+				--theEnd;
+
+			// DataLoaderTXT.removeQuotes()
+			if ((theEnd - theStart > 2) && (c[theStart] == '\"' || c[theStart] == '\'') && (c[theEnd - 1] == c[theStart]))
+			{
+				++theStart;
+				--theEnd;
+			}
+
+			itsStarts[theColumn][theRow] = theStart;
+			itsEnds[theColumn][theRow] = theEnd;
+			itsKinds[theColumn][theRow] = classify(theColumn, theRow, theStart, theEnd);
+		}
+
+		private byte classify(int theColumn, int theRow, int theStart, int theEnd)
+		{
+			final char[] c = itsChars;
+
+			// DataLoaderTXT.isEmptyString(), "\\s*"
+			boolean isEmpty = true;
+			for (int i = theStart; i < theEnd && isEmpty; ++i)
+				isEmpty = (c[i] == ' ' || c[i] == '\t' || c[i] == '\n' || c[i] == '\u000B' || c[i] == '\f' || c[i] == '\r');
+			if (isEmpty)
+				return EMPTY;
+
+			byte aKind = 0;
+
+			// "1", "0", "true" and "false", ignoring case and whitespace
+			int aStart = theStart;
+			int anEnd = theEnd;
+			while (aStart < anEnd && c[aStart] <= ' ')
+				++aStart;
+			while (anEnd > aStart && c[anEnd - 1] <= ' ')
+				--anEnd;
+			if (anEnd - aStart <= 5)
+			{
+				String s = new String(c, theStart, theEnd - theStart);
+				if (AttributeType.isValidBinaryTrueValue(s))
+					aKind = (BINARY | TRUE);
+				else if (AttributeType.isValidBinaryFalseValue(s))
+					aKind = BINARY;
+			}
+
+			// Float.parseFloat() fails for all other first characters
+			if (aStart < anEnd && (c[aStart] == '+' || c[aStart] == '-'))
+				++aStart;
+			if (aStart < anEnd)
+			{
+				char f = c[aStart];
+				if ((f >= '0' && f <= '9') || f == '.' || f == 'N' || f == 'I')
+				{
+					try
+					{
+						itsFloats[theColumn][theRow] = Float.parseFloat(new String(c, theStart, theEnd - theStart));
+						aKind |= FLOAT;
+					}
+					catch (NumberFormatException e) {}
+				}
+			}
+
+			return aKind;
+		}
+
+		String getString(int theColumn, int theRow)
+		{
+			int aStart = itsStarts[theColumn][theRow];
+			return new String(itsChars, aStart, itsEnds[theColumn][theRow] - aStart);
+		}
+
+		// line number in the file, starting at 1
+		int getLineNr(int theRow)
+		{
+			return itsFirstLineNr + itsLineNrs[theRow] + 1;
+		}
+	}
+}
@@ -445,6 +445,64 @@ public class Table implements XMLNodeInterface
 	 * @see Validation#swapRandomization(int)
 	 */
 	public void swapRandomizeTarget(TargetConcept theTC)
+	{
+		List<Column> aTargets = getSwapRandomizeTargets(theTC);
+		int[] aPermutation = getRandomPermutation(getNrRows(), itsRandomNumber);
+
+		//execute permutation on all targets
+		for (Column aColumn : aTargets)
+		{
+			Log.logCommandLine("permuting \"" + aColumn.getName() + "\"");
+			aColumn.permute(aPermutation);
+		}
+	}
+
+	/**
+	 * Returns a swap-randomised view of this Table, this Table and its
+	 * {@link Column}s are not modified.
+	 * <p>
+	 * All Columns of the view are {@link Column#copy() copies} that share
+	 * their data with the Columns of this Table, except for the target
+	 * Columns of the {@link TargetConcept} passed in as parameter, these are
+	 * {@link Column#permute(int[]) permuted} copies.
+	 * Multiple views can be mined concurrently, as each has its own sort
+	 * data.
+	 * <p>
+	 * NOTE theTC is updated to point to the target Columns of the view, so
+	 * it should be a {@link TargetConcept#copy() copy} of the TargetConcept
+	 * that is used for this Table.
+	 *
+	 * @param theTC the TargetConcept to swapRandomize.
+	 * @param theRandom the Random used for the permutation.
+	 *
+	 * @return a new Table, with permuted target Columns.
+	 *
+	 * @see Validation#swapRandomization(int, long)
+	 */
+	public Table getSwapRandomizedView(TargetConcept theTC, Random theRandom)
+	{
+		List<Column> aTargets = getSwapRandomizeTargets(theTC);
+		int[] aPermutation = getRandomPermutation(getNrRows(), theRandom);
+
+		Table aView = new Table(new File(itsSource), itsName, itsNrRows, itsNrColumns);
+		for (Column aColumn : itsColumns)
+			aView.itsColumns.add(aColumn.copy());
+
+		// not shared, so every view draws the same numbers for the same theRandom
+		aView.itsRandomNumber = new Random(theRandom.nextLong());
+		aView.itsDomains = itsDomains;
+		aView.itsDomainIndices = itsDomainIndices;
+
+		// copy() shares the data, permute() replaces it
+		for (Column aColumn : aTargets)
+			aView.getColumn(aColumn.getIndex()).permute(aPermutation);
+
+		theTC.updateToNewTable(aView);
+
+		return aView;
+	}
+
+	private static List<Column> getSwapRandomizeTargets(TargetConcept theTC)
 	{
 		TargetType aType = theTC.getTargetType();
 
@@ -455,49 +513,22 @@ public class Table implements XMLNodeInterface
 		EnumSet<TargetType> s = EnumSet.of(TargetType.SINGLE_NOMINAL, TargetType.SINGLE_NUMERIC, TargetType.LABEL_RANKING);
 		EnumSet<TargetType> d = EnumSet.of(TargetType.DOUBLE_REGRESSION, TargetType.DOUBLE_CORRELATION, TargetType.DOUBLE_BINARY);
 
-		final List<Column> aTargets;
 		if (s.contains(aType))
-			aTargets = Arrays.asList(new Column[] { theTC.getPrimaryTarget() });
+			return Arrays.asList(new Column[] { theTC.getPrimaryTarget() });
 		else if (d.contains(aType))
-			aTargets = Arrays.asList(new Column[] { theTC.getPrimaryTarget(), theTC.getSecondaryTarget() });
+			return Arrays.asList(new Column[] { theTC.getPrimaryTarget(), theTC.getSecondaryTarget() });
 		else if (aType == TargetType.MULTI_LABEL)
-			aTargets = theTC.getMultiTargets();
+			return theTC.getMultiTargets();
 		else
 			throw new AssertionError(String.format("%s.swapRandomizeTarget(): unimplemented %s '%s'",
 										Table.class.getSimpleName(),
 										TargetType.class.getSimpleName(),
 										aType));
+	}
 
-//		//find all targets
-//		switch (aType)
-//		{
-//			case DOUBLE_REGRESSION : // deliberate fall-through
-//			case DOUBLE_CORRELATION :
-//				aTargets.add(theTC.getSecondaryTarget());
-//				//no break
-//			case SINGLE_NOMINAL : // deliberate fall-through
-//			case SINGLE_NUMERIC :
-//			case LABEL_RANKING :
-//				aTargets.add(theTC.getPrimaryTarget());
-//				break;
-//			case MULTI_LABEL :
-//				aTargets = theTC.getMultiTargets();
-//				break;
-//
-//			// unimplemented TargetTypes
-//			case SINGLE_ORDINAL :
-//			case MULTI_BINARY_CLASSIFICATION :
-//			default :
-//			{
-//				throw new AssertionError(
-//						String.format("%s.swapRandomizeTarget(): unimplemented %s '%s'",
-//								this.getClass().getSimpleName(),
-//								TargetType.class.getSimpleName(),
-//								aType));
-//			}
-//		}
-
-		int n = getNrRows();
+	private static int[] getRandomPermutation(int theSize, Random theRandom)
+	{
+		int n = theSize;
 		//start with regular order
 		int[] aPermutation = new int[n];
 		for (int i=0; i<n; i++)
@@ -507,7 +538,7 @@ public class Table implements XMLNodeInterface
 		for (int i=0; i<n-1; i++)
 		{
 			int aFirst = i;
-			int aSecond = i+itsRandomNumber.nextInt(n-i);
+			int aSecond = i+theRandom.nextInt(n-i);
 
 			//swap first and second
 			int aSwap = aPermutation[aFirst];
@@ -515,12 +546,7 @@ public class Table implements XMLNodeInterface
 			aPermutation[aSecond] = aSwap;
 		}
 
-		//execute permutation on all targets
-		for (Column aColumn : aTargets)
-		{
-			Log.logCommandLine("permuting \"" + aColumn.getName() + "\"");
-			aColumn.permute(aPermutation);
-		}
+		return aPermutation;
 	}
 
 	public void print()
@@ -635,8 +661,15 @@ public class Table implements XMLNodeInterface
 	// FIXME MM - leave false in svn, quick hack, should be cleaned up
 	private static final boolean QUOTE_ALL_VALUES = false;
 	// as above, but writes whole Table (no row inclusion test)
+	// a File with the .sdc extension is written in the columnar format
 	public void toFile(File theFile)
 	{
+		if (theFile.getName().toLowerCase().endsWith(FileLoaderSDC.EXTENSION))
+		{
+			FileWriterSDC.write(this, theFile);
+			return;
+		}
+
 		BufferedWriter aWriter = null;
 
 		try
@@ -14,7 +14,7 @@ import org.w3c.dom.*;
  */
 public class TargetConcept implements XMLNodeInterface
 {
-	// when adding/removing members be sure to update addNodeTo() and loadNode()
+	// when adding/removing members be sure to update addNodeTo(), loadNode() and copy()
 	// itsMembers
 // FIXME MM
 // itsNrTargetAttributes is a very confusing member, and it is never used in code
@@ -118,6 +118,39 @@ public class TargetConcept implements XMLNodeInterface
 		itsInterceptRelevance = theInterceptRelevance;
 	}
 
+	/**
+	 * Returns a copy of this TargetConcept, that refers to the same
+	 * {@link Column}s.
+	 * The lists of Columns are copied, so the targets of the copy can be
+	 * changed without affecting this TargetConcept.
+	 *
+	 * @return a copy of this TargetConcept.
+	 *
+	 * @see #updateToNewTable(Table)
+	 */
+	public TargetConcept copy()
+	{
+		TargetConcept aCopy = new TargetConcept();
+		aCopy.itsNrTargetAttributes = itsNrTargetAttributes;
+		aCopy.itsTargetType = itsTargetType;
+		aCopy.itsPrimaryTarget = itsPrimaryTarget;
+		aCopy.itsTargetValue = itsTargetValue;
+		aCopy.itsSecondaryTarget = itsSecondaryTarget;
+		aCopy.itsMultiRegressionTargets = copyOf(itsMultiRegressionTargets);
+		aCopy.itsMultiTargets = copyOf(itsMultiTargets);
+		aCopy.itsSecondaryTargets = copyOf(itsSecondaryTargets);
+		aCopy.itsTertiaryTargets = copyOf(itsTertiaryTargets);
+		aCopy.itsInterceptRelevance = itsInterceptRelevance;
+		aCopy.itsGlobalRegressionModel = itsGlobalRegressionModel;
+
+		return aCopy;
+	}
+
+	private static List<Column> copyOf(List<Column> theColumns)
+	{
+		return (theColumns == null) ? null : new ArrayList<Column>(theColumns);
+	}
+
 	/**
 	 * Updates the TargetConcept to point to a new {@link Table} that is a
 	 * copy of the old <code>Table</code> it was pointing to.
@@ -140,7 +173,7 @@ public class TargetConcept implements XMLNodeInterface
 		}
 		if (itsMultiTargets != null) //replace entire list
 		{
-			List<Column> aList = new ArrayList<Column>(itsMultiTargets);
+			List<Column> aList = new ArrayList<Column>(itsMultiTargets.size());
 			for (Column aColumn : itsMultiTargets)
 			{
 				int aColumnIndex = aColumn.getIndex();
@@ -0,0 +1,64 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+/**
+ * A TidListMemberSet stores the members as a sorted array of row indices (a
+ * tid-list), of which the size is determined by the number of members.
+ * It is the most compact {@link MemberSet} for sparse member sets.
+ *
+ * @see MemberSetType#DIFFSET
+ */
+final class TidListMemberSet implements MemberSet
+{
+	private final int[] itsRows;
+
+	/**
+	 * Creates a TidListMemberSet with the same members as the
+	 * {@link BitSet} argument, the BitSet is not modified.
+	 *
+	 * @param theMembers the BitSet representing the members.
+	 */
+	TidListMemberSet(BitSet theMembers)
+	{
+		itsRows = toRows(theMembers, theMembers.cardinality());
+	}
+
+	// the set bits of theBitSet in ascending order, theCardinality is known
+	static int[] toRows(BitSet theBitSet, int theCardinality)
+	{
+		int[] aRows = new int[theCardinality];
+		for (int i = theBitSet.nextSetBit(0), j = 0; i >= 0; i = theBitSet.nextSetBit(i + 1))
+			aRows[j++] = i;
+		return aRows;
+	}
+
+	@Override
+	public int cardinality()                 { return itsRows.length; }
+	@Override
+	public boolean get(int theIndex)         { return (Arrays.binarySearch(itsRows, theIndex) >= 0); }
+	@Override
+	public long getSizeInBytes()             { return 4L * itsRows.length; }
+
+	@Override
+	public int nextSetBit(int theFromIndex)
+	{
+		if (theFromIndex < 0)
+			throw new IndexOutOfBoundsException("theFromIndex < 0: " + theFromIndex);
+
+		int i = Arrays.binarySearch(itsRows, theFromIndex);
+		if (i < 0)
+			i = -(i + 1);
+
+		return (i < itsRows.length) ? itsRows[i] : -1;
+	}
+
+	@Override
+	public BitSet toBitSet()
+	{
+		BitSet aBitSet = new BitSet((itsRows.length == 0) ? 0 : itsRows[itsRows.length - 1] + 1);
+		for (int i : itsRows)
+			aBitSet.set(i);
+		return aBitSet;
+	}
+}
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 
 import nl.liacs.subdisc.ConditionListBuilder.ConditionList;
 import nl.liacs.subdisc.gui.*;
@@ -14,6 +15,9 @@ import nl.liacs.subdisc.gui.*;
  */
 public class Validation
 {
+	// seed of the first repetition of the concurrent swap-randomisation
+	public static final long SWAP_RANDOMIZATION_SEED = 10L;
+
 	private SearchParameters itsSearchParameters;
 	private TargetConcept itsTargetConcept;
 	private QualityMeasure itsQualityMeasure;
@@ -55,7 +59,11 @@ public class Validation
 		else if (RandomQualitiesWindow.RANDOM_DESCRIPTIONS.equals(aMethod))
 			return getRandomQualities(false, aNrRepetitions);
 		else if (RandomQualitiesWindow.SWAP_RANDOMIZATION.equals(aMethod))
+		{
+			if (itsSearchParameters.getNrThreads() > 1 && isConcurrentSwapRandomizationTargetType(itsTargetConcept.getTargetType()))
+				return swapRandomization(aNrRepetitions, SWAP_RANDOMIZATION_SEED);
 			return swapRandomization(aNrRepetitions);
+		}
 
 		return null;
 	}
@@ -72,6 +80,39 @@ public class Validation
 			theTargetType == TargetType.LABEL_RANKING;
 	}
 
+	/*
+	 * The repetitions of swapRandomization(int, long) are run concurrently
+	 * for these TargetTypes only, the others use static state in their
+	 * quality computation: QualityMeasure.itsNrNodes and itsVStructures and
+	 * the Random of Bayesian for MULTI_LABEL, and the index of LabelRanking
+	 * for LABEL_RANKING.
+	 */
+	static boolean isConcurrentSwapRandomizationTargetType(TargetType theTargetType)
+	{
+		return theTargetType != TargetType.MULTI_LABEL &&
+			theTargetType != TargetType.LABEL_RANKING;
+	}
+
+	/**
+	 * Returns the qualities of random Subgroups, for 'Random Subsets' if
+	 * forSubgroups is <code>true</code>, and for 'Random Descriptions'
+	 * otherwise.
+	 * <p>
+	 * The random Subgroups are drawn in blocks, the ConditionLists of a
+	 * block of 'Random Descriptions' are evaluated concurrently, and for
+	 * most {@link TargetType}s the Subgroups of a block are also scored
+	 * concurrently, using the number of threads of the
+	 * {@link SearchParameters}.
+	 * The Random values are used in the same order as when drawing one
+	 * Subgroup at a time, so the result does not depend on the number of
+	 * threads.
+	 *
+	 * @param forSubgroups whether to use random subsets, or random
+	 * descriptions.
+	 * @param theNrRepetitions the number of random Subgroups.
+	 *
+	 * @return an array holding the quality of each random Subgroup.
+	 */
 	public double[] getRandomQualities(boolean forSubgroups, int theNrRepetitions)
 	{
 		final int aMinimumCoverage = itsSearchParameters.getMinimumCoverage();
@@ -79,55 +120,63 @@ public class Validation
 		final Random aRandom = new Random(10);
 		final int aDepth = itsSearchParameters.getSearchDepth();
 
+		final ExecutorService es = Executors.newFixedThreadPool(Math.max(1, itsSearchParameters.getNrThreads()));
+		final RandomMembers aRandomMembers = new RandomMembers(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth, es);
+
 		final TargetType aTargetType = itsTargetConcept.getTargetType();
-		switch (aTargetType)
+		try
 		{
-			case SINGLE_NOMINAL :
-			{
-				return getSingleNominalQualities(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth);
-			}
-			case SINGLE_NUMERIC :
-			{
-				return getSingleNumericQualities(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth);
-			}
-			case SINGLE_ORDINAL:
-			{
-				throw new AssertionError(aTargetType);
-			}
-			case DOUBLE_REGRESSION :
+			switch (aTargetType)
 			{
-				return getDoubleRegressionQualities(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth);
-			}
-			case DOUBLE_CORRELATION :
-			{
-				return getDoubleCorrelationQualities(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth);
-			}
-			case DOUBLE_BINARY :
-			{
-				return getDoubleBinaryQualities(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth);
-			}
-			case MULTI_LABEL :
-			{
-				return getMultiLabelQualities(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth);
-			}
-			case LABEL_RANKING :
-			{
-				return getLabelRankingQualities(forSubgroups, theNrRepetitions, aMinimumCoverage, aRandom, aDepth);
-			}
-			case MULTI_BINARY_CLASSIFICATION :
-			{
-				throw new AssertionError(aTargetType);
-			}
-			default :
-			{
-				throw new AssertionError(aTargetType);
+				case SINGLE_NOMINAL :
+				{
+					return getSingleNominalQualities(aRandomMembers, theNrRepetitions, es);
+				}
+				case SINGLE_NUMERIC :
+				{
+					return getSingleNumericQualities(aRandomMembers, theNrRepetitions, es);
+				}
+				case SINGLE_ORDINAL:
+				{
+					throw new AssertionError(aTargetType);
+				}
+				case DOUBLE_REGRESSION :
+				{
+					return getDoubleRegressionQualities(aRandomMembers, theNrRepetitions, es);
+				}
+				case DOUBLE_CORRELATION :
+				{
+					return getDoubleCorrelationQualities(aRandomMembers, theNrRepetitions, es);
+				}
+				case DOUBLE_BINARY :
+				{
+					return getDoubleBinaryQualities(aRandomMembers, theNrRepetitions, es);
+				}
+				case MULTI_LABEL :
+				{
+					return getMultiLabelQualities(forSubgroups, aRandomMembers, theNrRepetitions);
+				}
+				case LABEL_RANKING :
+				{
+					return getLabelRankingQualities(aRandomMembers, theNrRepetitions);
+				}
+				case MULTI_BINARY_CLASSIFICATION :
+				{
+					throw new AssertionError(aTargetType);
+				}
+				default :
+				{
+					throw new AssertionError(aTargetType);
+				}
 			}
 		}
+		finally
+		{
+			es.shutdownNow();
+		}
 	}
 
-	// if forSubgroups is true, create Subgroups, else create Conditions
-	// if forSubgroups is true, theDepth is ignored
-	private double[] getSingleNominalQualities(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth)
+	private double[] getSingleNominalQualities(RandomMembers theRandomMembers, int theNrRepetitions, ExecutorService theExecutor)
 	{
 ////////////////////////////////////////////////////////////////////////////////
 ///// FIXME - WHY IS THIS HERE, itsBinaryTarget IS AVAILABLE ALREADY       /////
@@ -158,173 +207,118 @@ public class Validation
 
 		BitSet b = new BitSet(itsTable.getNrRows());
 		b.set(0, itsTable.getNrRows());
-		b = aTarget.evaluate(b, aCondition);
+		final BitSet aBinaryTarget = aTarget.evaluate(b, aCondition);
 ////////////////////////////////////////////////////////////////////////////////
 ////////////////////////////////////////////////////////////////////////////////
 ////////////////////////////////////////////////////////////////////////////////
 
-		final double[] aQualities = new double[theNrRepetitions];
-
-		for (int i = 0; i < theNrRepetitions; ++i)
+		return getQualities(theRandomMembers, theNrRepetitions, theExecutor, new MembersQuality()
 		{
-			Subgroup aSubgroup;
-
-			// essential switch between Subgroups/ Conditions
-			if (forSubgroups)
-				aSubgroup = getValidSubgroup(theMinimumCoverage, theRandom);
-			else
-				aSubgroup = getValidSubgroup(theDepth, theMinimumCoverage, theRandom);
-
-			BitSet aMembers = aSubgroup.getMembers();
-			// aMembers is a clone so this is safe
-			aMembers.and(b);
-			int aCountHeadBody = aMembers.cardinality();
-
-			aQualities[i] = itsQualityMeasure.calculate(aCountHeadBody, aSubgroup.getCoverage());
-		}
+			@Override
+			public double getQuality(BitSet theMembers)
+			{
+				int aCoverage = theMembers.cardinality();
+				// theMembers is not used elsewhere so this is safe
+				theMembers.and(aBinaryTarget);
+				int aCountHeadBody = theMembers.cardinality();
 
-		return aQualities;
+				return itsQualityMeasure.calculate(aCountHeadBody, aCoverage);
+			}
+		});
 	}
 
-	// if forSubgroups is true, create Subgroups, else create Conditions
-	// if forSubgroups is true, theDepth is ignored
-	private double[] getSingleNumericQualities(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth)
+	private double[] getSingleNumericQualities(RandomMembers theRandomMembers, int theNrRepetitions, ExecutorService theExecutor)
 	{
-		final double[] aQualities = new double[theNrRepetitions];
-
 		final Column aTarget = itsTargetConcept.getPrimaryTarget();
+		final QM aQM = itsSearchParameters.getQualityMeasure();
+		final boolean isMedianRequired = (aQM == QM.MMAD);
+		final boolean isComplementRequired = QM.requiredStats(aQM).contains(Stat.COMPL);
 
-		for (int i = 0; i < theNrRepetitions; ++i)
+		return getQualities(theRandomMembers, theNrRepetitions, theExecutor, new MembersQuality()
 		{
-			Subgroup aSubgroup;
-
-			// essential switch between Subgroups/ Conditions
-			if (forSubgroups)
-				aSubgroup = getValidSubgroup(theMinimumCoverage, theRandom);
-			else
-				aSubgroup = getValidSubgroup(theDepth, theMinimumCoverage, theRandom);
-
-			BitSet aMembers = aSubgroup.getMembers();
-
-			QM aQM = itsSearchParameters.getQualityMeasure();
-			Statistics aStatistics = aTarget.getStatistics(null, aMembers, aQM == QM.MMAD, QM.requiredStats(aQM).contains(Stat.COMPL)); //TODO check for theSelection
-
-			ProbabilityDensityFunction aPDF = null;
-			// DEBUG
-			if (!ProbabilityDensityFunction.USE_ProbabilityDensityFunction2)
-				aPDF = new ProbabilityDensityFunction(itsQualityMeasure.getProbabilityDensityFunction(), aMembers);
-			else
-				aPDF = new ProbabilityDensityFunction2(itsQualityMeasure.getProbabilityDensityFunction(), aMembers);
-			aPDF.smooth();
+			@Override
+			public double getQuality(BitSet theMembers)
+			{
+				Statistics aStatistics = aTarget.getStatistics(null, theMembers, isMedianRequired, isComplementRequired); //TODO check for theSelection
 
-			aQualities[i] = itsQualityMeasure.calculate(aStatistics, aPDF);
-		}
+				ProbabilityDensityFunction aPDF = null;
+				// DEBUG
+				if (!ProbabilityDensityFunction.USE_ProbabilityDensityFunction2)
+					aPDF = new ProbabilityDensityFunction(itsQualityMeasure.getProbabilityDensityFunction(), theMembers);
+				else
+					aPDF = new ProbabilityDensityFunction2(itsQualityMeasure.getProbabilityDensityFunction(), theMembers);
+				aPDF.smooth();
 
-		return aQualities;
+				return itsQualityMeasure.calculate(aStatistics, aPDF);
+			}
+		});
 	}
 
-	// if forSubgroups is true, create Subgroups, else create Conditions
-	// if forSubgroups is true, theDepth is ignored
-	private double[] getDoubleRegressionQualities(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth)
+	private double[] getDoubleRegressionQualities(RandomMembers theRandomMembers, int theNrRepetitions, ExecutorService theExecutor)
 	{
-		final double[] aQualities = new double[theNrRepetitions];
-
 		Column aPrimaryColumn = itsTargetConcept.getPrimaryTarget();
 		Column aSecondaryColumn = itsTargetConcept.getSecondaryTarget();
-		RegressionMeasure itsBaseRM =
+		final RegressionMeasure itsBaseRM =
 			new RegressionMeasure(itsSearchParameters.getQualityMeasure(), aPrimaryColumn, aSecondaryColumn);
 
-		for (int i = 0; i < theNrRepetitions; ++i)
+		return getQualities(theRandomMembers, theNrRepetitions, theExecutor, new MembersQuality()
 		{
-			Subgroup aSubgroup;
-
-			// essential switch between Subgroups/ Conditions
-			if (forSubgroups)
-				aSubgroup = getValidSubgroup(theMinimumCoverage, theRandom);
-			else
-				aSubgroup = getValidSubgroup(theDepth, theMinimumCoverage, theRandom);
-
-			BitSet aMembers = aSubgroup.getMembers();
-
-			RegressionMeasure aRM = new RegressionMeasure(itsBaseRM, aMembers);
-
-			aQualities[i] = aRM.getEvaluationMeasureValue();
-		}
+			@Override
+			public double getQuality(BitSet theMembers)
+			{
+				RegressionMeasure aRM = new RegressionMeasure(itsBaseRM, theMembers);
 
-		return aQualities;
+				return aRM.getEvaluationMeasureValue();
+			}
+		});
 	}
 
-	// if forSubgroups is true, create Subgroups, else create Conditions
-	// if forSubgroups is true, theDepth is ignored
-	private double[] getDoubleCorrelationQualities(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth)
+	private double[] getDoubleCorrelationQualities(RandomMembers theRandomMembers, int theNrRepetitions, ExecutorService theExecutor)
 	{
-		final double[] aQualities = new double[theNrRepetitions];
-
-		Column aPrimaryColumn = itsTargetConcept.getPrimaryTarget();
-		Column aSecondaryColumn = itsTargetConcept.getSecondaryTarget();
-		CorrelationMeasure itsBaseCM =
+		final Column aPrimaryColumn = itsTargetConcept.getPrimaryTarget();
+		final Column aSecondaryColumn = itsTargetConcept.getSecondaryTarget();
+		final CorrelationMeasure itsBaseCM =
 			new CorrelationMeasure(itsSearchParameters.getQualityMeasure(), aPrimaryColumn, aSecondaryColumn);
 
-		for (int i = 0; i < theNrRepetitions; ++i)
+		return getQualities(theRandomMembers, theNrRepetitions, theExecutor, new MembersQuality()
 		{
-			Subgroup aSubgroup;
-
-			// essential switch between Subgroups/ Conditions
-			if (forSubgroups)
-				aSubgroup = getValidSubgroup(theMinimumCoverage, theRandom);
-			else
-				aSubgroup = getValidSubgroup(theDepth, theMinimumCoverage, theRandom);
-
-			BitSet aMembers = aSubgroup.getMembers();
-
-			CorrelationMeasure aCM = new CorrelationMeasure(itsBaseCM);
-
-			for (int k = aMembers.nextSetBit(0); k >= 0; k = aMembers.nextSetBit(k))
-				aCM.addObservation(aPrimaryColumn.getFloat(k), aSecondaryColumn.getFloat(k));
+			@Override
+			public double getQuality(BitSet theMembers)
+			{
+				CorrelationMeasure aCM = new CorrelationMeasure(itsBaseCM);
 
-			aQualities[i] = aCM.getEvaluationMeasureValue();
-		}
+				for (int k = theMembers.nextSetBit(0); k >= 0; k = theMembers.nextSetBit(k + 1))
+					aCM.addObservation(aPrimaryColumn.getFloat(k), aSecondaryColumn.getFloat(k));
 
-		return aQualities;
+				return aCM.getEvaluationMeasureValue();
+			}
+		});
 	}
 
-    // if forSubgroups is true, create Subgroups, else create Conditions
-    // if forSubgroups is true, theDepth is ignored
-    private double[] getDoubleBinaryQualities(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth)
+    private double[] getDoubleBinaryQualities(RandomMembers theRandomMembers, int theNrRepetitions, ExecutorService theExecutor)
     {
-        final double[] aQualities = new double[theNrRepetitions];
-
-        Column aPrimaryColumn = itsTargetConcept.getPrimaryTarget();
-        Column aSecondaryColumn = itsTargetConcept.getSecondaryTarget();
-        CorrelationMeasure itsBaseCM =
+        final Column aPrimaryColumn = itsTargetConcept.getPrimaryTarget();
+        final Column aSecondaryColumn = itsTargetConcept.getSecondaryTarget();
+        final CorrelationMeasure itsBaseCM =
             new CorrelationMeasure(itsSearchParameters.getQualityMeasure(), aPrimaryColumn, aSecondaryColumn);
 
-        for (int i = 0; i < theNrRepetitions; ++i)
+        return getQualities(theRandomMembers, theNrRepetitions, theExecutor, new MembersQuality()
         {
-            Subgroup aSubgroup;
-
-            // essential switch between Subgroups/ Conditions
-            if (forSubgroups)
-                aSubgroup = getValidSubgroup(theMinimumCoverage, theRandom);
-            else
-                aSubgroup = getValidSubgroup(theDepth, theMinimumCoverage, theRandom);
-
-            BitSet aMembers = aSubgroup.getMembers();
+            @Override
+            public double getQuality(BitSet theMembers)
+            {
+                CorrelationMeasure aCM = new CorrelationMeasure(itsBaseCM);
 
-            CorrelationMeasure aCM = new CorrelationMeasure(itsBaseCM);
+                for (int k = theMembers.nextSetBit(0); k >= 0; k = theMembers.nextSetBit(k + 1))
+                    aCM.addObservation(aPrimaryColumn.getFloat(k), aSecondaryColumn.getFloat(k));
 
-            for (int k = aMembers.nextSetBit(0); k >= 0; k = aMembers.nextSetBit(k))
-                aCM.addObservation(aPrimaryColumn.getFloat(k), aSecondaryColumn.getFloat(k));
-
-            aQualities[i] = aCM.getEvaluationMeasureValue();
-        }
-
-        return aQualities;
+                return aCM.getEvaluationMeasureValue();
+            }
+        });
     }
 
-	// if forSubgroups is true, create Subgroups, else create Conditions
-	// if forSubgroups is true, theDepth is ignored
-	private double[] getMultiLabelQualities(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth)
+	// NOTE scored one by one, Bayesian uses a static Random
+	private double[] getMultiLabelQualities(boolean forSubgroups, RandomMembers theRandomMembers, int theNrRepetitions)
 	{
 		final double[] aQualities = new double[theNrRepetitions];
 
@@ -335,17 +329,10 @@ public class Validation
 
 		for (int i = 0, j = aQualities.length; i < j; ++i)
 		{
-			Subgroup aSubgroup;
-
-			// essential switch between Subgroups/ Conditions
-			if (forSubgroups)
-				aSubgroup = getValidSubgroup(theMinimumCoverage, theRandom);
-			else
-				aSubgroup = getValidSubgroup(theDepth, theMinimumCoverage, theRandom);
+			Subgroup aSubgroup = new Subgroup(theRandomMembers.next());
 
 			// build model
-			BinaryTable aBinaryTable = aBaseTable.selectRows(aSubgroup.getMembers());
-			aBayesian = new Bayesian(aBinaryTable);
+			aBayesian = new Bayesian(new Bayesian.FamilyScores(aBaseTable, aSubgroup.getMembers()), null);
 			aBayesian.climb();
 			aSubgroup.setDAG(aBayesian.getDAG()); // store DAG with subgroup for later use
 
@@ -360,9 +347,8 @@ public class Validation
 	}
 
 	//TODO: fix implementation
-	// if forSubgroups is true, create Subgroups, else create Conditions
-	// if forSubgroups is true, theDepth is ignored
-	private double[] getLabelRankingQualities(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth)
+	// NOTE scored one by one, LabelRanking uses a static index
+	private double[] getLabelRankingQualities(RandomMembers theRandomMembers, int theNrRepetitions)
 	{
 		final double[] aQualities = new double[theNrRepetitions];
 
@@ -381,13 +367,7 @@ public class Validation
 
 		for (int i = 0; i < theNrRepetitions; ++i)
 		{
-			Subgroup aSubgroup;
-
-			// essential switch between Subgroups/ Conditions
-			if (forSubgroups)
-				aSubgroup = getValidSubgroup(theMinimumCoverage, theRandom);
-			else
-				aSubgroup = getValidSubgroup(theDepth, theMinimumCoverage, theRandom);
+			Subgroup aSubgroup = new Subgroup(theRandomMembers.next());
 
 			LabelRankingMatrix aSubgroupLRM = aTarget.getAverageRankingMatrix(aSubgroup);
 			aQualities[i] = aQualityMeasure.computeLabelRankingDistance(aSubgroup.getCoverage(), aSubgroupLRM);
@@ -413,40 +393,191 @@ public class Validation
 		return aQualities;
 	}
 
-	// for RANDOM_SUBSETS/Subgroups, always uses an updated Random value
-	private Subgroup getValidSubgroup(int theMinimumCoverage, Random theRandom)
+	// the quality of a random Subgroup, theMembers may be modified
+	private interface MembersQuality
+	{
+		double getQuality(BitSet theMembers);
+	}
+
+	/*
+	 * Draws theNrRepetitions random Subgroups, a block at a time, and scores
+	 * the Subgroups of a block concurrently.
+	 * Only one block of members is kept in memory, see getBlockSize().
+	 */
+	private double[] getQualities(RandomMembers theRandomMembers, int theNrRepetitions, ExecutorService theExecutor, final MembersQuality theMembersQuality)
 	{
-		final int aNrRows = itsTable.getNrRows();
-		int aSubgroupSize;
+		final double[] aQualities = new double[theNrRepetitions];
+
+		for (int i = 0; i < theNrRepetitions; )
+		{
+			int aBlockSize = getBlockSize(theNrRepetitions - i, 1.0, itsTable.getNrRows());
+			final BitSet[] aMembers = new BitSet[aBlockSize];
+			for (int k = 0; k < aBlockSize; ++k)
+				aMembers[k] = theRandomMembers.next();
 
-		do
-			aSubgroupSize = (int) (theRandom.nextDouble() * aNrRows);
-		while (aSubgroupSize < theMinimumCoverage || aSubgroupSize == aNrRows);
+			List<Callable<Double>> aTasks = new ArrayList<Callable<Double>>(aBlockSize);
+			for (int k = 0; k < aBlockSize; ++k)
+			{
+				final int aTask = k;
+				aTasks.add(new Callable<Double>()
+				{
+					@Override
+					public Double call()
+					{
+						return theMembersQuality.getQuality(aMembers[aTask]);
+					}
+				});
+			}
+
+			for (Double d : invokeAll(theExecutor, aTasks))
+				aQualities[i++] = d;
+		}
+
+		return aQualities;
+	}
 
-		return new Subgroup(itsTable.getRandomBitSet(aSubgroupSize));
+	// returns the results of theTasks, in order
+	private static <T> List<T> invokeAll(ExecutorService theExecutor, List<Callable<T>> theTasks)
+	{
+		try
+		{
+			List<T> aResults = new ArrayList<T>(theTasks.size());
+			for (Future<T> f : theExecutor.invokeAll(theTasks))
+				aResults.add(f.get());
+			return aResults;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
 	}
 
-	// for RANDOM_DESCRIPTIONS/Conditions, always uses the same Random value
-	private Subgroup getValidSubgroup(int theDepth, int theMinimumCoverage, Random theRandom)
+	// maximum number of random Subgroups/ ConditionLists handled at a time
+	static final int BLOCK_SIZE = 1 << 16;
+	// maximum size of the members of a block, in bytes, 1 bit per row
+	static final long BLOCK_MEMORY = 1L << 26;
+
+	/*
+	 * Returns the number of random Subgroups/ ConditionLists to draw for a
+	 * block, such that theNrNeeded valid ones are expected, given the
+	 * fraction of valid ones so far, but no more than fit in BLOCK_MEMORY.
+	 * Any block size gives the same result, as the valid ones are used in
+	 * the order in which they were drawn.
+	 */
+	static int getBlockSize(int theNrNeeded, double theValidRate, int theNrRows)
 	{
-		final int aNrRows = itsTable.getNrRows();
-		int aSubgroupSize;
+		long aBytesPerMembers = Math.max(1L, (theNrRows + 7L) / 8L);
+		long aMaximum = Math.max(1L, Math.min(BLOCK_SIZE, BLOCK_MEMORY / aBytesPerMembers));
+		// a small rate is no more than an estimate, so do not draw too many
+		double aRate = Math.max(theValidRate, 1.0 / BLOCK_SIZE);
+		double aBlockSize = Math.ceil(Math.max(1, theNrNeeded) / aRate);
 
-		//ConditionList aCL;
-		ConditionList aCL;
-		BitSet aMembers;
+		return (int) Math.max(1L, Math.min(aMaximum, (long) aBlockSize));
+	}
 
-		do
+	/*
+	 * Draws the members of random Subgroups, using theRandom in exactly the
+	 * same order as drawing them one at a time would.
+	 *
+	 * For RANDOM_SUBSETS/Subgroups, a random size is drawn until it is valid,
+	 * and the members are drawn by Table.getRandomBitSet().
+	 *
+	 * For RANDOM_DESCRIPTIONS/Conditions, random ConditionLists are drawn
+	 * until one yields a valid Subgroup. As drawing a ConditionList does
+	 * not depend on the evaluation of the previous ones, a block of them is
+	 * drawn at once, and evaluated concurrently. The valid ones are used in
+	 * the order in which they were drawn, so the result is the same as for
+	 * the sequential retry loop.
+	 */
+	private final class RandomMembers
+	{
+		private final boolean forSubgroups;
+		private int itsNrRemaining;
+		private final int itsMinimumCoverage;
+		private final Random itsRandom;
+		private final int itsDepth;
+		private final ExecutorService itsExecutor;
+		// valid ConditionLists and their members, in order, not used yet
+		private final Deque<ConditionList> itsValidConditionLists = new ArrayDeque<ConditionList>();
+		private final Deque<BitSet> itsValidMembers = new ArrayDeque<BitSet>();
+		// the number of ConditionLists drawn, and the number of valid ones
+		private long itsNrDrawn;
+		private long itsNrValid;
+
+		RandomMembers(boolean forSubgroups, int theNrRepetitions, int theMinimumCoverage, Random theRandom, int theDepth, ExecutorService theExecutor)
 		{
-			aCL = getRandomConditionList(theDepth, theRandom);
-			aMembers = itsTable.evaluate(aCL);
-			aSubgroupSize = aMembers.cardinality();
+			this.forSubgroups = forSubgroups;
+			itsNrRemaining = theNrRepetitions;
+			itsMinimumCoverage = theMinimumCoverage;
+			itsRandom = theRandom;
+			itsDepth = theDepth;
+			itsExecutor = theExecutor;
 		}
-		while (aSubgroupSize < theMinimumCoverage || aSubgroupSize == aNrRows);
 
-		Log.logCommandLine(aCL.toString());
+		BitSet next()
+		{
+			final int aNrRows = itsTable.getNrRows();
+			--itsNrRemaining;
+
+			// for RANDOM_SUBSETS/Subgroups, always uses an updated Random value
+			if (forSubgroups)
+			{
+				int aSubgroupSize;
+
+				do
+					aSubgroupSize = (int) (itsRandom.nextDouble() * aNrRows);
+				while (aSubgroupSize < itsMinimumCoverage || aSubgroupSize == aNrRows);
+
+				return itsTable.getRandomBitSet(aSubgroupSize);
+			}
+
+			// for RANDOM_DESCRIPTIONS/Conditions
+			while (itsValidMembers.isEmpty())
+			{
+				// as many as are expected to be needed for the remaining
+				// Subgroups, assuming all are valid for the first block
+				double aValidRate = (itsNrDrawn == 0) ? 1.0 : (itsNrValid / (double) itsNrDrawn);
+				int aBlockSize = getBlockSize(itsNrRemaining + 1, aValidRate, aNrRows);
+				final ConditionList[] aConditionLists = new ConditionList[aBlockSize];
+				for (int i = 0; i < aBlockSize; ++i)
+					aConditionLists[i] = getRandomConditionList(itsDepth, itsRandom);
+
+				List<Callable<BitSet>> aTasks = new ArrayList<Callable<BitSet>>(aBlockSize);
+				for (final ConditionList aCL : aConditionLists)
+				{
+					aTasks.add(new Callable<BitSet>()
+					{
+						@Override
+						public BitSet call()
+						{
+							BitSet aMembers = itsTable.evaluate(aCL);
+							int aSubgroupSize = aMembers.cardinality();
+							return (aSubgroupSize < itsMinimumCoverage || aSubgroupSize == aNrRows) ? null : aMembers;
+						}
+					});
+				}
+
+				List<BitSet> aMembers = invokeAll(itsExecutor, aTasks);
+				itsNrDrawn += aBlockSize;
+				for (int i = 0; i < aBlockSize; ++i)
+				{
+					if (aMembers.get(i) == null)
+						continue;
 
-		return new Subgroup(aMembers);
+					++itsNrValid;
+					itsValidConditionLists.add(aConditionLists[i]);
+					itsValidMembers.add(aMembers.get(i));
+				}
+			}
+
+			Log.logCommandLine(itsValidConditionLists.poll().toString());
+			return itsValidMembers.poll();
+		}
 	}
 
 	/**
@@ -627,6 +758,142 @@ public class Validation
 		return aQualities;
 	}
 
+	/**
+	 * Swap randomizes the {@link TargetConcept}, like
+	 * {@link #swapRandomization(int)}, but runs the repetitions
+	 * concurrently, using the number of threads of the
+	 * {@link SearchParameters}.
+	 * <p>
+	 * The original {@link Table} is not modified, every repetition mines its
+	 * own {@link Table#getSwapRandomizedView(TargetConcept, Random) view},
+	 * that shares all data except the permuted target {@link Column}s.
+	 * Repetition <code>i</code> uses a Random with seed
+	 * <code>theSeed + i</code>, so the result does not depend on the number
+	 * of threads, or the order in which the repetitions are run.
+	 * <p>
+	 * For {@link TargetType#MULTI_LABEL} and {@link TargetType#LABEL_RANKING}
+	 * the repetitions are run one at a time, as their quality computation
+	 * uses static state.
+	 *
+	 * @param theNrRepetitions the number of times to perform a permutation
+	 * of the {@link TargetConcept}.
+	 * @param theSeed the seed for the first repetition.
+	 *
+	 * @return an array holding the qualities of the best scoring
+	 * {@link Subgroup} of each permutation.
+	 */
+	public double[] swapRandomization(int theNrRepetitions, long theSeed)
+	{
+		final TargetType aTargetType = itsTargetConcept.getTargetType();
+		if (!isValidRandomQualitiesTargetType(aTargetType))
+			throw new AssertionError(aTargetType);
+
+		// computed on the original target, as in swapRandomization(int)
+		final int aPositiveCount = (aTargetType != TargetType.SINGLE_NOMINAL) ? 0 :
+			itsTargetConcept.getPrimaryTarget().countValues(itsTargetConcept.getTargetValue(), itsSelection);
+		final float aTargetAverage = (aTargetType != TargetType.SINGLE_NUMERIC) ? Float.NaN :
+			itsTargetConcept.getPrimaryTarget().getAverage(itsSelection);
+
+		// the Columns of all views share the RankIndex of the original
+		for (Column c : itsTable.getColumns())
+			if (c.getIsEnabled())
+				c.buildRankIndex();
+
+		double[] aQualities = new double[theNrRepetitions];
+		int aNrThreads = !isConcurrentSwapRandomizationTargetType(aTargetType) ? 1 :
+			Math.max(1, Math.min(itsSearchParameters.getNrThreads(), theNrRepetitions));
+		ExecutorService es = Executors.newFixedThreadPool(aNrThreads);
+		List<Future<Double>> aFutures = new ArrayList<Future<Double>>(theNrRepetitions);
+
+		// Memorize COMMANDLINELOG setting, it is global, so set it only once
+		boolean aCOMMANDLINELOGmem = Log.COMMANDLINELOG;
+		Log.COMMANDLINELOG = false;
+		try
+		{
+			for (int i = 0; i < theNrRepetitions; ++i)
+			{
+				final Random aRandom = new Random(theSeed + i);
+				aFutures.add(es.submit(new Callable<Double>()
+				{
+					@Override
+					public Double call()
+					{
+						return runSwapRandomizedRepetition(aRandom, aPositiveCount, aTargetAverage);
+					}
+				}));
+			}
+
+			for (int i = 0; i < theNrRepetitions; ++i)
+				aQualities[i] = aFutures.get(i).get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			es.shutdownNow();
+			Log.COMMANDLINELOG = aCOMMANDLINELOGmem;
+		}
+
+		for (int i = 0; i < theNrRepetitions; ++i)
+			Log.logCommandLine((i + 1) + ", " + aQualities[i]);
+
+		return aQualities;
+	}
+
+	/*
+	 * Mines a new view of the Table, until a result is found, like
+	 * runSRSD() does for swapRandomization(int).
+	 * Every SubgroupDiscovery uses a single thread, the repetitions are run
+	 * concurrently.
+	 */
+	private double runSwapRandomizedRepetition(Random theRandom, int thePositiveCount, float theTargetAverage)
+	{
+		while (true)
+		{
+			TargetConcept aTC = itsTargetConcept.copy();
+			Table aView = itsTable.getSwapRandomizedView(aTC, theRandom);
+			SearchParameters anSP = itsSearchParameters.copy();
+			anSP.setTargetConcept(aTC);
+			anSP.setNrThreads(1);
+
+			final SubgroupDiscovery anSD;
+			switch (aTC.getTargetType())
+			{
+				case SINGLE_NOMINAL :
+					anSD = new SubgroupDiscovery(anSP, aView, itsSelection, thePositiveCount, null); break;
+				case SINGLE_NUMERIC :
+					anSD = new SubgroupDiscovery(anSP, aView, itsSelection, theTargetAverage, null); break;
+				case DOUBLE_REGRESSION :
+					anSD = new SubgroupDiscovery(anSP, aView, itsSelection, true, null); break;
+				case DOUBLE_CORRELATION :
+				case DOUBLE_BINARY :
+					anSD = new SubgroupDiscovery(anSP, aView, itsSelection, false, null); break;
+				case MULTI_LABEL :
+					anSD = new SubgroupDiscovery(anSP, aView, itsSelection, null); break;
+				case LABEL_RANKING :
+					anSD = new SubgroupDiscovery(anSP, null, aView, itsSelection); break;
+				default :
+					throw new AssertionError(aTC.getTargetType());
+			}
+
+			//quality minimum should not be taken into account when computing distribution of random qualities
+			anSD.ignoreQualityMinimum();
+			anSD.mine(System.currentTimeMillis(), 1);
+
+			SubgroupSet aSubgroupSet = anSD.getResult();
+			// if no subgroups are found, try again
+			if (aSubgroupSet.size() != 0)
+				return aSubgroupSet.getBestScore();
+		}
+	}
+
 	//returns the 5% significance of swap randomisation.
 	public float getSignWithSwapRand(int theNrRepetitions)
 	{
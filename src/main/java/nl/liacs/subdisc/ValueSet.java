@@ -61,6 +61,12 @@ public class ValueSet implements Comparable<ValueSet>
 		return itsValues.contains(theValue);
 	}
 
+	// the values in sorted order, can not be modified
+	SortedSet<String> getValues()
+	{
+		return Collections.unmodifiableSortedSet(itsValues);
+	}
+
 	/*
 	 * NOTE that there is no real logic in testing just ValueSets, as there
 	 * is no information about the Column they are ValueSets of
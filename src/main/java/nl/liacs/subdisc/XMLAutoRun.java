@@ -11,10 +11,6 @@ import org.w3c.dom.*;
 
 public class XMLAutoRun
 {
-	// leave false in svn - write result with Conditions in canonical order
-	// this makes results invocation invariant
-	private static final boolean IS_MULTI_THREAD_TEST = false;
-
 	public static final String RESULT_SET_DELIMITER = "\t";
 
 	private Document itsDocument;
@@ -154,8 +150,9 @@ public class XMLAutoRun
 		File aFile = null;
 		boolean showWindows = false;
 		int aNrThreads = Integer.MIN_VALUE;
+		boolean isResume = false;
 
-		if (!args[0].endsWith(".xml") || args.length > 3)
+		if (!args[0].endsWith(".xml") || args.length > 4)
 			showHelp();
 		else
 			aFile = new File(args[0]);
@@ -163,13 +160,21 @@ public class XMLAutoRun
 		if (args.length >= 2)
 			showWindows = AttributeType.isValidBinaryTrueValue(args[1]);
 
-		if (args.length == 3)
+		if (args.length >= 3)
 		{
 			try { aNrThreads = Integer.parseInt(args[2]); }
 			catch (NumberFormatException e) { showHelp(); }
 		}
 
-		runAllFromFile(aFile, showWindows, aNrThreads);
+		if (args.length == 4)
+		{
+			if ("resume".equalsIgnoreCase(args[3]))
+				isResume = true;
+			else
+				showHelp();
+		}
+
+		runAllFromFile(aFile, showWindows, aNrThreads, isResume);
 
 //		// this seems unnecessary, there should be no windows in this case
 //		// though this deals with ErrorDialogs / incorrectly opened windows
@@ -180,15 +185,15 @@ public class XMLAutoRun
 		return true;
 	}
 
-	private static void runAllFromFile(File theFile, boolean showWindows, int theNrThreads)
+	private static void runAllFromFile(File theFile, boolean showWindows, int theNrThreads, boolean isResume)
 	{
 		NodeList allExperiments = XMLDocument.parseXMLFile(theFile).getLastChild().getChildNodes();
 
 		for (int i = 0, j = allExperiments.getLength(); i < j; ++i)
-			runSubgroupDiscovery(allExperiments.item(i), theFile, showWindows, theNrThreads);
+			runSubgroupDiscovery(allExperiments.item(i), theFile, showWindows, theNrThreads, isResume);
 	}
 
-	private static void runSubgroupDiscovery(Node theExperimentNode, File theFile, boolean showWindows, int theNrThreads)
+	private static void runSubgroupDiscovery(Node theExperimentNode, File theFile, boolean showWindows, int theNrThreads, boolean isResume)
 	{
 		NodeList aSettings = theExperimentNode.getChildNodes();
 		Table aTable = new Table(aSettings.item(2), theFile.getParent() == null ? "." : theFile.getParent(), showWindows);
@@ -200,7 +205,8 @@ public class XMLAutoRun
 		aSearchParameters.setTargetConcept(new TargetConcept(aSettings.item(0), aTable));
 
 		long aBegin = System.currentTimeMillis();
-		SubgroupDiscovery aSubgroupDiscovery =
+		SubgroupDiscovery aSubgroupDiscovery = isResume ?
+			Process.resumeSubgroupDiscovery(aTable, 0, null, aSearchParameters, showWindows, theNrThreads, null) :
 			Process.runSubgroupDiscovery(aTable, 0, null, aSearchParameters, showWindows, theNrThreads, null); //null means no progress update to mainwindow
 		// always save result TODO search parameters based filename
 		String aTimeStamp = new SimpleDateFormat("yyyyMMddHHmmssSSS").format(new Date(aBegin));
@@ -247,10 +253,7 @@ public class XMLAutoRun
 				aWriter.write(aDelimiter);
 				aWriter.write(String.valueOf(aSubgroup.getPValue()));
 				aWriter.write(aDelimiter);
-				if (IS_MULTI_THREAD_TEST)
-					aWriter.write(ConditionListBuilder.toCanonicalOrderString(aSubgroup.getConditions()));
-				else
-					aWriter.write(aSubgroup.getConditions().toString());
+				aWriter.write(aSubgroup.getConditions().toString());
 				aWriter.write("\n");
 			}
 		}
@@ -275,7 +278,7 @@ public class XMLAutoRun
 	private static void showHelp()
 	{
 		Log.logCommandLine("");
-		Log.logCommandLine("Usage: java -jar subdisc-gui-2.xxxx.jar /path/to/file.xml [showWindows] [nrThreads]");
+		Log.logCommandLine("Usage: java -jar subdisc-gui-2.xxxx.jar /path/to/file.xml [showWindows] [nrThreads] [resume]");
 		Log.logCommandLine("");
 		Log.logCommandLine("filepath can be relative");
 		Log.logCommandLine("filename must end with '.xml'");
@@ -289,6 +292,10 @@ public class XMLAutoRun
 		Log.logCommandLine("default is " + Runtime.getRuntime().availableProcessors());
 		Log.logCommandLine("(determined through java.lang.Runtime.getRuntime().availableProcessors())");
 		Log.logCommandLine("");
+		Log.logCommandLine("optional resume:");
+		Log.logCommandLine("'resume' to continue from the checkpoint_file of each experiment");
+		Log.logCommandLine("checkpoints are written every checkpoint_interval minutes");
+		Log.logCommandLine("");
 		System.exit(0);
 	}
 }
@@ -0,0 +1,100 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+
+public class BayesianTest
+{
+	private static final int NR_COLUMNS = 6;
+	private static final int NR_ROWS = 1000;
+
+	@Test
+	@DisplayName("Check the BDeu of the word counts equals the one of the BinaryTable copies")
+	public void testComputeBDeu()
+	{
+		Random aRandom = new Random(1);
+		Table aTable = new Table(new File("bayesian"), NR_ROWS, NR_COLUMNS);
+		List<Column> aColumns = new ArrayList<Column>(NR_COLUMNS);
+		for (int i = 0; i < NR_COLUMNS; ++i)
+		{
+			Column aColumn = new Column("c" + i, "c" + i, AttributeType.BINARY, i, NR_ROWS);
+			for (int j = 0; j < NR_ROWS; ++j)
+				aColumn.add(aRandom.nextInt(i + 2) == 0);
+			aColumn.close();
+			aColumns.add(aColumn);
+		}
+		BinaryTable aBinaryTable = new BinaryTable(aTable, aColumns);
+
+		BitSet aMembers = new BitSet(NR_ROWS);
+		for (int i = 0; i < NR_ROWS; ++i)
+			if (aRandom.nextInt(3) == 0)
+				aMembers.set(i);
+
+		for (BitSet b : new BitSet[] { null, aMembers, new BitSet(NR_ROWS) })
+		{
+			long[] aRows = aBinaryTable.getRows(b);
+			BinaryTable aSubset = (b == null) ? aBinaryTable : aBinaryTable.selectRows(b);
+			for (int aChild = 0; aChild < NR_COLUMNS; ++aChild)
+			{
+				// all parent sets of aChild
+				for (int aMask = 0; aMask < (1 << NR_COLUMNS); ++aMask)
+				{
+					if ((aMask & (1 << aChild)) != 0)
+						continue;
+					ItemSet aParents = new ItemSet(NR_COLUMNS);
+					for (int i = 0; i < NR_COLUMNS; ++i)
+						if ((aMask & (1 << i)) != 0)
+							aParents.set(i);
+
+					BinaryTable aFamily = aSubset.selectColumns(aParents);
+					aFamily.addColumn(aSubset.getColumn(aChild));
+					assertEquals(aFamily.computeBDeuFaster(), aBinaryTable.computeBDeu(aParents, aChild, aRows));
+				}
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	@DisplayName("Check MULTI_LABEL mining on Adult.txt, with and without warm start")
+	public void testMiningMultiLabel(boolean useWarmStart)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		List<Column> aTargets = new ArrayList<Column>();
+		for (int i : new int[] { 9, 14 }) // sex, target
+		{
+			Column aColumn = aTable.getColumns().get(i);
+			aColumn.setType(AttributeType.BINARY);
+			aColumn.setIsEnabled(false);
+			aTargets.add(aColumn);
+		}
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.MULTI_LABEL);
+		aTC.setMultiTargets(aTargets);
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.WEED, -Float.MAX_VALUE);
+		anSP.setSearchDepth(1);
+		anSP.setMinimumCoverage(10);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+
+		anSP.setUseMultiLabelWarmStart(useWarmStart);
+		SubgroupSet aResult = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertFalse(aResult.isEmpty());
+		for (Subgroup s : aResult)
+			assertEquals(aTargets.size(), s.getDAG().getSize());
+	}
+}
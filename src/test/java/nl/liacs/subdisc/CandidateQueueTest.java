@@ -0,0 +1,95 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class CandidateQueueTest
+{
+	@TempDir
+	File itsDirectory;
+
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEST_FIRST", "DEPTH_FIRST", "BREADTH_FIRST" })
+	@DisplayName("Check spilling Candidates to disk does not change the result on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testSpilling(SearchStrategy theSearchStrategy)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		SearchParameters anSP = getSearchParameters(aTable, theSearchStrategy);
+
+		SubgroupSet anExpected = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+		// many small runs
+		anSP.setMaximumInMemoryCandidates(16);
+		SubgroupSet aSpilled = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertEquals(anExpected.size(), aSpilled.size());
+		Iterator<Subgroup> anIterator = anExpected.iterator();
+		for (Subgroup a : aSpilled)
+		{
+			Subgroup e = anIterator.next();
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getMembers(), a.getMembers());
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEST_FIRST", "BREADTH_FIRST" })
+	@DisplayName("Check the spilled Candidates are deleted when the search stops before the Queue is depleted")
+	public void testSpillingStopped(SearchStrategy theSearchStrategy)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		SearchParameters anSP = getSearchParameters(aTable, theSearchStrategy);
+		Set<String> aRuns = getRuns();
+
+		// a checkpoint after every refinement, stop after a few
+		anSP.setMaximumInMemoryCandidates(16);
+		anSP.setCheckpointFile(new File(itsDirectory, "adult.checkpoint").getPath());
+		anSP.setCheckpointInterval(0.0f);
+		anSP.setCheckpointStopAfter(10);
+		Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null);
+
+		Set<String> aLeft = getRuns();
+		aLeft.removeAll(aRuns);
+		assertTrue(aLeft.isEmpty(), aLeft.toString());
+	}
+
+	private static SearchParameters getSearchParameters(Table theTable, SearchStrategy theSearchStrategy)
+	{
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(theTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		anSP.setMinimumCoverage(50);
+		anSP.setSearchStrategy(theSearchStrategy);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+		anSP.setNrBins(4);
+
+		return anSP;
+	}
+
+	// the names of the CandidateRun files in the temporary directory
+	private static Set<String> getRuns()
+	{
+		Set<String> aRuns = new HashSet<String>();
+		for (String s : new File(System.getProperty("java.io.tmpdir")).list())
+			if (s.startsWith("subdisc-candidates-"))
+				aRuns.add(s);
+
+		return aRuns;
+	}
+}
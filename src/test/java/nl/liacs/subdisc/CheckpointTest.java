@@ -0,0 +1,118 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class CheckpointTest
+{
+	@TempDir
+	File itsDirectory;
+
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEST_FIRST", "BEAM", "BREADTH_FIRST" })
+	@DisplayName("Check resuming from a checkpoint gives the same result on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testResume(SearchStrategy theSearchStrategy)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		SearchParameters anSP = getSearchParameters(aTable, theSearchStrategy);
+
+		SubgroupSet anExpected = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		// a checkpoint after every refinement, stop after a few, as if killed
+		File aFile = new File(itsDirectory, "adult.checkpoint");
+		anSP.setCheckpointFile(aFile.getPath());
+		anSP.setCheckpointInterval(0.0f);
+		anSP.setCheckpointStopAfter(3);
+		Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null);
+		assertTrue(aFile.exists());
+
+		anSP.setCheckpointStopAfter(0);
+		SubgroupSet aResumed = Process.resumeSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertEquals(anExpected.size(), aResumed.size());
+		Iterator<Subgroup> anIterator = anExpected.iterator();
+		for (Subgroup a : aResumed)
+		{
+			Subgroup e = anIterator.next();
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getMembers(), a.getMembers());
+		}
+	}
+
+	@Test
+	@DisplayName("Check the fingerprint of a checkpoint depends on the selection of rows")
+	public void testFingerprintSelection()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		SearchParameters anSP = getSearchParameters(aTable, SearchStrategy.BEAM);
+
+		int aNrRows = aTable.getNrRows();
+		BitSet aFirstHalf = new BitSet(aNrRows);
+		aFirstHalf.set(0, aNrRows / 2);
+		BitSet aSecondHalf = new BitSet(aNrRows);
+		aSecondHalf.set(aNrRows - aNrRows / 2, aNrRows);
+
+		String aFingerprint = Checkpoint.getFingerprint(aTable, aFirstHalf, anSP);
+		assertEquals(aFingerprint, Checkpoint.getFingerprint(aTable, (BitSet) aFirstHalf.clone(), anSP));
+		assertNotEquals(aFingerprint, Checkpoint.getFingerprint(aTable, aSecondHalf, anSP));
+		assertNotEquals(aFingerprint, Checkpoint.getFingerprint(aTable, null, anSP));
+	}
+
+	@Test
+	@DisplayName("Check the package-private settings are copied, and change the fingerprint, so MiningWorkers with the defaults are rejected")
+	public void testFingerprintSettings()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		SearchParameters anSP = getSearchParameters(aTable, SearchStrategy.BEAM);
+		String aDefault = Checkpoint.getFingerprint(aTable, null, anSP);
+
+		List<Consumer<SearchParameters>> aSettings = new ArrayList<Consumer<SearchParameters>>();
+		aSettings.add(s -> s.setUseOptimisticEstimates(false));
+		aSettings.add(s -> s.setUseDirectSingleNumeric(false));
+		aSettings.add(s -> s.setUseDirectScape(false));
+		aSettings.add(s -> s.setUseDirectDoubleCorrelation(false));
+
+		for (Consumer<SearchParameters> c : aSettings)
+		{
+			SearchParameters aChanged = anSP.copy();
+			c.accept(aChanged);
+			String aFingerprint = Checkpoint.getFingerprint(aTable, null, aChanged);
+			assertNotEquals(aDefault, aFingerprint);
+			assertEquals(aFingerprint, Checkpoint.getFingerprint(aTable, null, aChanged.copy()));
+		}
+		assertEquals(aDefault, Checkpoint.getFingerprint(aTable, null, anSP));
+	}
+
+	private static SearchParameters getSearchParameters(Table theTable, SearchStrategy theSearchStrategy)
+	{
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(theTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		anSP.setMinimumCoverage(50);
+		anSP.setSearchStrategy(theSearchStrategy);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+		anSP.setNrBins(4);
+
+		return anSP;
+	}
+}
@@ -0,0 +1,99 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+/*
+ * Not a unit test (surefire does not pick it up), run it using:
+ *   mvn -B test-compile
+ *   java -Xmx4g -cp target/classes:target/test-classes nl.liacs.subdisc.ColumnRankIndexBenchmark [nr_rows] [nr_repetitions]
+ *
+ * Compares the original Arrays.sort() based Column.sortValues() to the
+ * RankIndex based Column.getSortedValues(), that is used by
+ * getUniqueNumericDomainMap() and the split point (discretisation) code.
+ * The NUMERIC Columns of adult.txt are scaled up to nr_rows (default 10M) by
+ * repeating the data, the parents are random selections of different sizes.
+ */
+public class ColumnRankIndexBenchmark
+{
+	private static final int DEFAULT_NR_ROWS = 10_000_000;
+	private static final int DEFAULT_NR_REPETITIONS = 5;
+	private static final double[] PARENT_FRACTIONS = { 1.0, 0.5, 0.1, 0.01, 0.001 };
+
+	public static void main(String[] args)
+	{
+		int aNrRows = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_NR_ROWS;
+		int aNrRepetitions = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_NR_REPETITIONS;
+
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		Random aRandom = new Random(0);
+
+		System.out.format("rows=%d repetitions=%d%n", aNrRows, aNrRepetitions);
+		System.out.format("%-16s %9s %10s %10s %10s %10s %8s%n", "column", "fraction", "members", "index_ms", "sort_ms", "rank_ms", "speedup");
+
+		for (Column c : aTable.getColumns())
+		{
+			if (c.getType() != AttributeType.NUMERIC)
+				continue;
+
+			Column aScaled = scale(c, aNrRows);
+
+			long aStart = System.nanoTime();
+			// builds the RankIndex
+			aScaled.getSortedValues(new BitSet(), 0);
+			double anIndexTime = (System.nanoTime() - aStart) / 1e6;
+
+			for (double f : PARENT_FRACTIONS)
+			{
+				BitSet aParent = getParent(aNrRows, f, aRandom);
+				int aCardinality = aParent.cardinality();
+
+				// warm-up and check
+				if (!Arrays.equals(aScaled.sortValues(aParent, aCardinality), aScaled.getSortedValues(aParent, aCardinality)))
+					throw new AssertionError("different result for " + c.getName());
+
+				long aSortTime = 0L;
+				long aRankTime = 0L;
+				for (int i = 0; i < aNrRepetitions; ++i)
+				{
+					aStart = System.nanoTime();
+					aScaled.sortValues(aParent, aCardinality);
+					aSortTime += (System.nanoTime() - aStart);
+
+					aStart = System.nanoTime();
+					aScaled.getSortedValues(aParent, aCardinality);
+					aRankTime += (System.nanoTime() - aStart);
+				}
+
+				double aSort = aSortTime / 1e6 / aNrRepetitions;
+				double aRank = aRankTime / 1e6 / aNrRepetitions;
+				System.out.format("%-16s %9.3f %10d %10.1f %10.2f %10.2f %7.1fx%n", c.getName(), f, aCardinality, anIndexTime, aSort, aRank, aSort / aRank);
+			}
+		}
+	}
+
+	private static Column scale(Column theColumn, int theNrRows)
+	{
+		int aSize = theColumn.size();
+		float[] aData = new float[theNrRows];
+		for (int i = 0; i < theNrRows; ++i)
+			aData[i] = theColumn.getFloat(i % aSize);
+
+		Column aColumn = new Column(theColumn.getName(), theColumn.getShort(), AttributeType.NUMERIC, theColumn.getIndex(), theNrRows);
+		aColumn.setData(aData);
+		return aColumn;
+	}
+
+	private static BitSet getParent(int theNrRows, double theFraction, Random theRandom)
+	{
+		BitSet aParent = new BitSet(theNrRows);
+		if (theFraction >= 1.0)
+			aParent.set(0, theNrRows);
+		else
+			for (int i = 0; i < theNrRows; ++i)
+				if (theRandom.nextDouble() < theFraction)
+					aParent.set(i);
+		return aParent;
+	}
+}
@@ -0,0 +1,64 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+
+public class CorrelationMeasureTest
+{
+	// the direct code path adds the sums per value first
+	private static final double DELTA = 1e-6;
+
+	@ParameterizedTest
+	@EnumSource(value = QM.class, names = { "CORRELATION_R", "CORRELATION_DISTANCE", "CORRELATION_ENTROPY" })
+	@DisplayName("Check DOUBLE_CORRELATION results of the threshold sweep on Adult.txt equal those of the generic code path")
+	public void testMiningDoubleCorrelation(QM theQM)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		Column aPrimary = aTable.getColumns().get(0);    // age
+		Column aSecondary = aTable.getColumns().get(12); // hours-per-week
+		aPrimary.setIsEnabled(false);
+		aSecondary.setIsEnabled(false);
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.DOUBLE_CORRELATION);
+		aTC.setPrimaryTarget(aPrimary);
+		aTC.setSecondaryTarget(aSecondary);
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, theQM, -Float.MAX_VALUE);
+		anSP.setMinimumCoverage(10);
+
+		for (NumericStrategy aNS : new NumericStrategy[] { NumericStrategy.NUMERIC_ALL, NumericStrategy.NUMERIC_BEST })
+		{
+			anSP.setNumericStrategy(aNS);
+
+			SubgroupSet aDirect = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+			anSP.setUseDirectDoubleCorrelation(false);
+			SubgroupSet aGeneric = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+			anSP.setUseDirectDoubleCorrelation(true);
+
+			assertFalse(aDirect.isEmpty());
+			assertEquals(aGeneric.size(), aDirect.size());
+			Iterator<Subgroup> anExpected = aGeneric.iterator();
+			for (Subgroup a : aDirect)
+			{
+				Subgroup e = anExpected.next();
+				assertEquals(e.toString(), a.toString());
+				assertEquals(e.getCoverage(), a.getCoverage());
+				assertEquals(e.getMeasureValue(), a.getMeasureValue(), DELTA);
+				assertEquals(e.getSecondaryStatistic(), a.getSecondaryStatistic(), DELTA);
+				assertEquals(e.getTertiaryStatistic(), a.getTertiaryStatistic(), DELTA);
+			}
+		}
+	}
+}
@@ -5,12 +5,14 @@ import java.util.*;
 // Testing lib
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 // Java lib
 import java.io.*;
@@ -18,6 +20,12 @@ import java.io.*;
 
 public class DataLoaderTxtTest 
 {
+	// chunk sizes in bytes, a chunk ends at the first line end after that
+	private static final int[] CHUNK_SIZES = { 1, 7, 100, 4096 };
+
+	@TempDir
+	File itsDirectory;
+
 	@ParameterizedTest
 	@ValueSource(strings = {
 		"src/test/resources/adult.txt", 
@@ -89,4 +97,115 @@ public class DataLoaderTxtTest
 		assertEquals(aColumns.get(17).getCardinality(), 6);
 		assertEquals(aColumns.get(18).getCardinality(), 3); //#veroordelingen_zeden
 	}
+
+	@Test
+	@DisplayName("Check quoted fields of commas in fields.txt")
+	public void quotedFields()
+	{
+		DataLoaderTXT dltxt = new DataLoaderTXT(new File("src/test/resources/commas in fields.txt"));
+		Table table = dltxt.getTable();
+
+		assertEquals(table.getNrRows(), 8);
+		assertEquals(table.getNrColumns(), 2);
+		String[] anA = { "a", "a,aa", "aa,a,a", "aa", "aa", "\"aa,a'", "a'a'a'a'a'", "a, a" };
+		String[] aB = { "b", "b", "b", "b", "bb", "b", "b", "b" };
+		for (int i = 0; i < anA.length; ++i)
+		{
+			assertEquals(table.getColumn(0).getNominal(i), anA[i]);
+			assertEquals(table.getColumn(1).getNominal(i), aB[i]);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"src/test/resources/adult.txt",
+		"src/test/resources/adult with missing.txt",
+		"src/test/resources/dataloader no missing.txt",
+		"src/test/resources/long10k.txt",
+		"src/test/resources/commas in fields.txt",
+		"src/test/resources/discretisation.txt",
+		"src/test/resources/long10.txt",
+		"src/test/resources/long with unique nums.txt",
+		"src/test/resources/missing values.txt",
+		"src/test/resources/subset selection.txt"
+	})
+	@DisplayName("Check small chunks yield the same Table as a single chunk")
+	public void chunkBoundaries(String filename)
+	{
+		File aFile = new File(filename);
+		Table aSingle = new DataLoaderTXT(aFile, Integer.MAX_VALUE).getTable();
+		assertNotNull(aSingle);
+
+		for (int aChunkSize : CHUNK_SIZES)
+			assertSameTable(aSingle, new DataLoaderTXT(aFile, aChunkSize).getTable());
+	}
+
+	@Test
+	@DisplayName("Check type changes, quoted fields, CRLF and empty lines across chunk boundaries")
+	public void chunkBoundariesTypeChanges() throws IOException
+	{
+		// b is BINARY, NUMERIC at line 6 and NOMINAL at line 8, n is NUMERIC
+		// and NOMINAL at line 7, t is BINARY and NOMINAL at line 8, after
+		// which its earlier values are the 'true' and 'false' values last read
+		// NOTE createTable() splits the first data line without quotes
+		String[] aLines = {
+			"b,n,q,t",
+			"TRUE,1.5,'z',TRUE",
+			"0,2,\"x,y\",false",
+			"",
+			"1,3,\"x,y\",TRUE",
+			"2.5,,w,",
+			"0,a,\"v, w\",false",
+			"c,4,'u,u',c",
+			"",
+			"",
+		};
+		File aFile = new File(itsDirectory, "chunks.txt");
+		try (Writer w = new FileWriter(aFile))
+		{
+			for (String s : aLines)
+				w.write(s + "\r\n");
+		}
+
+		Table aSingle = new DataLoaderTXT(aFile, Integer.MAX_VALUE).getTable();
+		assertNotNull(aSingle);
+		assertEquals(6, aSingle.getNrRows());
+		for (Column c : aSingle.getColumns())
+			assertEquals(AttributeType.NOMINAL, c.getType(), c.getName());
+		String[] aB = { "1.0", "0.0", "1.0", "2.5", "0.0", "c" };
+		String[] aQ = { "z", "x,y", "x,y", "w", "v, w", "u,u" };
+		String[] aT = { "TRUE", "false", "TRUE", "", "false", "c" };
+		for (int i = 0; i < aB.length; ++i)
+		{
+			assertEquals(aB[i], aSingle.getColumn(0).getNominal(i));
+			assertEquals(aQ[i], aSingle.getColumn(2).getNominal(i));
+			if (i != 3)
+				assertEquals(aT[i], aSingle.getColumn(3).getNominal(i));
+		}
+		assertTrue(aSingle.getColumn(1).getMissing(3));
+		assertTrue(aSingle.getColumn(3).getMissing(3));
+
+		for (int aChunkSize : CHUNK_SIZES)
+			assertSameTable(aSingle, new DataLoaderTXT(aFile, aChunkSize).getTable());
+	}
+
+	private static void assertSameTable(Table theExpected, Table theActual)
+	{
+		assertNotNull(theActual);
+		assertEquals(theExpected.getNrRows(), theActual.getNrRows());
+		assertEquals(theExpected.getNrColumns(), theActual.getNrColumns());
+
+		for (int i = 0, j = theExpected.getNrColumns(); i < j; ++i)
+		{
+			Column e = theExpected.getColumn(i);
+			Column a = theActual.getColumn(i);
+			assertEquals(e.getName(), a.getName());
+			assertEquals(e.getType(), a.getType(), e.getName());
+			for (int k = 0, n = theExpected.getNrRows(); k < n; ++k)
+			{
+				assertEquals(e.getString(k), a.getString(k), e.getName());
+				assertEquals(e.getMissing(k), a.getMissing(k), e.getName());
+			}
+		}
+	}
 }
@@ -0,0 +1,229 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.net.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.xml.parsers.*;
+import org.w3c.dom.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class DistributedTest
+{
+	private static final int NR_WORKERS = 2;
+
+	@TempDir
+	File itsDirectory;
+
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEST_FIRST", "BEAM", "DEPTH_FIRST" })
+	@DisplayName("Check mining with worker processes gives the same result on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testDistributed(SearchStrategy theSearchStrategy) throws Exception
+	{
+		Table aTable = getTable();
+		SearchParameters anSP = getSearchParameters(aTable, theSearchStrategy);
+		SubgroupSet anExpected = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertEqualResults(anExpected, runDistributed(aTable, anSP, NR_WORKERS, 0));
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEST_FIRST", "BEAM" })
+	@DisplayName("Check the TASKs of a failed worker are retried by the others, on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testDistributedWorkerFailure(SearchStrategy theSearchStrategy) throws Exception
+	{
+		Table aTable = getTable();
+		SearchParameters anSP = getSearchParameters(aTable, theSearchStrategy);
+		SubgroupSet anExpected = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertEqualResults(anExpected, runDistributed(aTable, anSP, 1, 1));
+	}
+
+	@Test
+	@DisplayName("Check the search fails when all workers fail, instead of returning an incomplete result")
+	public void testDistributedAllWorkersFail() throws Exception
+	{
+		Table aTable = getTable();
+		SearchParameters anSP = getSearchParameters(aTable, SearchStrategy.BEAM);
+
+		assertThrows(IllegalStateException.class, () -> runDistributed(aTable, anSP, 0, 1));
+	}
+
+	private Table getTable() throws IOException
+	{
+		// the AutoRun file refers to the data by its name
+		File aData = new File(itsDirectory, "adult.txt");
+		Files.copy(new File("src/test/resources/adult.txt").toPath(), aData.toPath());
+		return new DataLoaderTXT(aData).getTable();
+	}
+
+	private static SearchParameters getSearchParameters(Table theTable, SearchStrategy theSearchStrategy)
+	{
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(theTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		anSP.setMinimumCoverage(50);
+		anSP.setSearchStrategy(theSearchStrategy);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+		anSP.setNrBins(4);
+
+		return anSP;
+	}
+
+	/*
+	 * mines theSearchParameters using theNrWorkers worker processes, and
+	 * theNrFailingWorkers in-process workers that close their connection
+	 * when they receive their first TASK
+	 */
+	private SubgroupSet runDistributed(Table theTable, SearchParameters theSearchParameters, int theNrWorkers, int theNrFailingWorkers) throws Exception
+	{
+		ServerSocket aFreePort = new ServerSocket(0);
+		int aPort = aFreePort.getLocalPort();
+		aFreePort.close();
+		SearchParameters anSP = theSearchParameters.copy();
+		anSP.setMiningEngine(MiningEngine.DISTRIBUTED);
+		anSP.setDistributedPort(aPort);
+		anSP.setDistributedWorkers(theNrWorkers + theNrFailingWorkers);
+		File anAutoRun = new File(itsDirectory, "autorun.xml");
+		new XMLAutoRun(anSP, theTable, anAutoRun);
+		writeDTD(anAutoRun, new File(itsDirectory, "autorun.dtd"));
+
+		// separate JVMs, on the class path of this test
+		List<java.lang.Process> aWorkers = new ArrayList<java.lang.Process>();
+		for (int i = 0; i < theNrWorkers; ++i)
+		{
+			ProcessBuilder aBuilder = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(),
+									"-cp", itsDirectory.getPath() + File.pathSeparator + System.getProperty("java.class.path"),
+									MiningWorker.class.getName(),
+									anSP.getDistributedAddress(), String.valueOf(aPort), anAutoRun.getPath(), "0", "2");
+			aBuilder.redirectErrorStream(true);
+			aBuilder.redirectOutput(new File(itsDirectory, "worker" + i + ".log"));
+			aWorkers.add(aBuilder.start());
+		}
+
+		ExecutorService es = Executors.newCachedThreadPool();
+		String aFingerprint = Checkpoint.getFingerprint(theTable, null, anSP);
+		for (int i = 0; i < theNrFailingWorkers; ++i)
+			es.submit(() -> runFailingWorker(anSP.getDistributedAddress(), aPort, aFingerprint));
+
+		try
+		{
+			return Process.runSubgroupDiscovery(theTable, 0, null, anSP, false, 1, null).getResult();
+		}
+		finally
+		{
+			es.shutdownNow();
+			for (java.lang.Process p : aWorkers)
+				if (!p.waitFor(60, TimeUnit.SECONDS))
+					p.destroyForcibly();
+			for (java.lang.Process p : aWorkers)
+				assertEquals(0, p.exitValue());
+		}
+	}
+
+	// see MiningWorker.run()
+	private static Void runFailingWorker(String theHost, int thePort, String theFingerprint) throws Exception
+	{
+		Socket aSocket = null;
+		for (long anEnd = System.currentTimeMillis() + 10_000; aSocket == null; Thread.sleep(50))
+		{
+			try { aSocket = new Socket(theHost, thePort); }
+			catch (ConnectException e) { if (System.currentTimeMillis() > anEnd) throw e; }
+		}
+
+		try
+		{
+			DataInputStream in = new DataInputStream(aSocket.getInputStream());
+			DataOutputStream out = new DataOutputStream(aSocket.getOutputStream());
+			out.writeByte(MiningProtocol.HELLO);
+			out.writeInt(MiningProtocol.MAGIC);
+			out.writeInt(MiningProtocol.VERSION);
+			out.writeUTF(theFingerprint);
+			out.writeInt(2);
+			out.flush();
+			assertEquals(MiningProtocol.ACCEPT, in.readByte());
+			assertEquals(MiningProtocol.TASK, in.readByte());
+		}
+		finally
+		{
+			aSocket.close();
+		}
+
+		return null;
+	}
+
+	private static void assertEqualResults(SubgroupSet theExpected, SubgroupSet theDistributed)
+	{
+		assertTrue(theExpected.size() > 0);
+		assertEquals(theExpected.size(), theDistributed.size());
+		Iterator<Subgroup> anIterator = theExpected.iterator();
+		for (Subgroup a : theDistributed)
+		{
+			Subgroup e = anIterator.next();
+			// like for multiple threads, the first of equivalent Subgroups wins
+			assertEquals(ConditionListBuilder.toCanonicalOrderString(e.getConditions()), ConditionListBuilder.toCanonicalOrderString(a.getConditions()));
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getMembers(), a.getMembers());
+		}
+	}
+
+	/*
+	 * DTDResolver looks for the DTD on the class path, the worker gets
+	 * theDirectory on its class path, and a DTD that declares the elements
+	 * that occur in the file, validation is what strips the whitespace
+	 */
+	private static void writeDTD(File theXMLFile, File theDTDFile) throws Exception
+	{
+		DocumentBuilderFactory aFactory = DocumentBuilderFactory.newInstance();
+		aFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+		Document aDocument = aFactory.newDocumentBuilder().parse(theXMLFile);
+
+		Map<String, Set<String>> aChildren = new LinkedHashMap<String, Set<String>>();
+		Map<String, Set<String>> anAttributes = new LinkedHashMap<String, Set<String>>();
+		Deque<Element> aStack = new ArrayDeque<Element>();
+		aStack.push(aDocument.getDocumentElement());
+		while (!aStack.isEmpty())
+		{
+			Element e = aStack.pop();
+			Set<String> c = aChildren.computeIfAbsent(e.getTagName(), k -> new LinkedHashSet<String>());
+			Set<String> a = anAttributes.computeIfAbsent(e.getTagName(), k -> new LinkedHashSet<String>());
+			for (int i = 0; i < e.getAttributes().getLength(); ++i)
+				a.add(e.getAttributes().item(i).getNodeName());
+			for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling())
+			{
+				if (n instanceof Element)
+				{
+					c.add(((Element) n).getTagName());
+					aStack.push((Element) n);
+				}
+			}
+		}
+
+		PrintWriter out = new PrintWriter(theDTDFile, "UTF-8");
+		for (Map.Entry<String, Set<String>> e : aChildren.entrySet())
+		{
+			out.println("<!ELEMENT " + e.getKey() + " " + (e.getValue().isEmpty() ? "(#PCDATA)" : "(" + String.join("|", e.getValue()) + ")*") + ">");
+			for (String a : anAttributes.get(e.getKey()))
+				out.println("<!ATTLIST " + e.getKey() + " " + a + " CDATA #IMPLIED>");
+		}
+		out.close();
+	}
+}
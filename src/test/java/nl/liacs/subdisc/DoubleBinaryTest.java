@@ -0,0 +1,106 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class DoubleBinaryTest
+{
+	@ParameterizedTest
+	@EnumSource(value = QM.class, names = { "ABSOLUTE_WRACC", "RELATIVE_WRACC", "ABSOLUTE_RISK", "RELATIVE_RISK" })
+	@DisplayName("Check DOUBLE_BINARY qualities on Adult.txt equal those of the 2x2 tables of the members")
+	public void testDoubleBinary(QM theQM)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		Column aPrimary = aTable.getColumns().get(9);    // sex
+		Column aSecondary = aTable.getColumns().get(14); // target
+		aPrimary.setType(AttributeType.BINARY);
+		aSecondary.setType(AttributeType.BINARY);
+		aPrimary.setIsEnabled(false);
+		aSecondary.setIsEnabled(false);
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.DOUBLE_BINARY);
+		aTC.setPrimaryTarget(aPrimary);
+		aTC.setSecondaryTarget(aSecondary);
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, theQM, -Float.MAX_VALUE);
+		anSP.setMinimumCoverage(10);
+
+		SubgroupDiscovery anSD = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null);
+		SubgroupSet aResult = anSD.getResult();
+		assertFalse(aResult.isEmpty());
+
+		boolean hasNominal = false;
+		for (Subgroup s : aResult)
+		{
+			hasNominal |= (s.getConditions().get(s.getDepth()-1).getColumn().getType() == AttributeType.NOMINAL);
+			float[] anExpected = evaluate(theQM, s.getMembers(), aPrimary.getBinaries(), aSecondary.getBinaries(), aTable.getNrRows());
+			if (anExpected == null)
+				continue;
+			assertEquals(anExpected[0], (float) s.getMeasureValue(), s.toString());
+			assertEquals(anExpected[1], s.getSecondaryStatistic(), s.toString());
+			assertEquals(anExpected[2], s.getTertiaryStatistic(), s.toString());
+		}
+		// the result contains refinements of the direct nominal path
+		assertTrue(hasNominal);
+	}
+
+	// the original code, that clones and and()s the member BitSets
+	private static float[] evaluate(QM theQM, BitSet theMembers, BitSet thePrimary, BitSet theSecondary, int theNrRows)
+	{
+		int aSizeA = thePrimary.cardinality();
+		int aSizeB = theNrRows - aSizeA;
+		BitSet aTarget = (BitSet) theSecondary.clone();
+		aTarget.and(thePrimary);
+		float aTargetA = aTarget.cardinality() / (float) aSizeA;
+		aTarget = (BitSet) theSecondary.clone();
+		aTarget.andNot(thePrimary);
+		float aTargetB = aTarget.cardinality() / (float) aSizeB;
+
+		BitSet aSubset = (BitSet) theMembers.clone();
+		aSubset.and(thePrimary);
+		int aCountA = aSubset.cardinality();
+		aSubset.and(theSecondary);
+		int aCountAT = aSubset.cardinality();
+		float aSubgroupTargetA = aCountAT / (float) aCountA;
+
+		aSubset = (BitSet) theMembers.clone();
+		aSubset.andNot(thePrimary);
+		int aCountB = aSubset.cardinality();
+		aSubset.and(theSecondary);
+		int aCountBT = aSubset.cardinality();
+		float aSubgroupTargetB = aCountBT / (float) aCountB;
+
+		float aLift = Math.signum((aSubgroupTargetA-aTargetA)/aTargetA);
+		float aWRAccA = aCountAT/(float)aSizeA - aTargetA*aCountA/(float)aSizeA;
+		float aWRAccB = aCountBT/(float)aSizeB - aTargetB*aCountB/(float)aSizeB;
+
+		final float aQuality;
+		switch (theQM)
+		{
+			case RELATIVE_WRACC : aQuality = (aWRAccB!=0) ? aWRAccA/aWRAccB : Float.MAX_VALUE; break;
+			case ABSOLUTE_WRACC : aQuality = aWRAccA-aWRAccB; break;
+			case RELATIVE_RISK :  aQuality = ((aSubgroupTargetA-aTargetA)/aTargetA) / ((aSubgroupTargetB-aTargetB)/aTargetB); break;
+			case ABSOLUTE_RISK :  aQuality = ((aSubgroupTargetA-aTargetA)/aTargetA) - ((aSubgroupTargetB-aTargetB)/aTargetB); break;
+			default :             throw new AssertionError(theQM);
+		}
+
+		// quality 0, the tertiary statistic is not defined, see SubgroupDiscovery
+		if ((aCountA == 0) || (aCountB == 0))
+			return null;
+
+		return new float[] { aQuality, aLift, aSubgroupTargetA };
+	}
+}
@@ -739,5 +739,90 @@ public class EndToEndTest
 		SubgroupDiscovery anSDLarge = Process.runSubgroupDiscovery(aTable, 0, aSelection, anSP, false, 1, null);
 	}
 
+	@Test
+	@DisplayName("Check direct computation against generic path on Adult.txt using SINGLE_NUMERIC (t-Test, Explained Variance), d=2")
+	public void testAdultSingleNumericDirect()
+	{
+		//SINGLE_NUMERIC
+		//d=2
+		//numeric strategy = all
+		//NOTE for best, the chosen split point might differ when scores tie
+
+		DataLoaderTXT aLoader = new DataLoaderTXT(new File("src/test/resources/adult.txt"));
+		Table aTable = aLoader.getTable();
+
+		//set target concept
+		Column aTarget = aTable.getColumns().get(12); //get target (hours-per-week)
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NUMERIC);
+		aTC.setPrimaryTarget(aTarget);
+
+		//set search parameters
+		SearchParameters anSP = new SearchParameters();
+		anSP.setTargetConcept(aTC);
+		anSP.setQualityMeasureMinimum(0f);
+		anSP.setSearchDepth(2);
+		anSP.setMinimumCoverage(10);
+		anSP.setMaximumCoverageFraction(1f);
+		anSP.setMaximumSubgroups(100);
+		anSP.setMaximumTime(1000); //1000 seconds
+		anSP.setSearchStrategy(SearchStrategy.BEAM);
+		anSP.setNominalSets(false);
+		anSP.setNumericOperators(NumericOperatorSetting.NORMAL);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_ALL);
+		anSP.setSearchStrategyWidth(10);
+		anSP.setNrBins(8);
+		anSP.setNrThreads(1);
+
+		for (QM aQM : new QM[] { QM.T_TEST, QM.EXPLAINED_VARIANCE })
+		{
+			anSP.setQualityMeasure(aQM);
+
+			SubgroupSet aDirect = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+			anSP.setUseDirectSingleNumeric(false);
+			SubgroupSet aGeneric = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+			anSP.setUseDirectSingleNumeric(true);
+
+			// the order of (equivalent) Subgroups with the same score might
+			// differ, as the scores might differ in the last digits
+			assertEquals(aGeneric.size(), aDirect.size());
+			Iterator<Subgroup> anExpected = aGeneric.iterator();
+			for (Subgroup a : aDirect)
+				assertEquals(anExpected.next().getMeasureValue(), a.getMeasureValue(), 1e-4);
+
+			// ignore the lowest scores, the last ties might be cut off
+			Map<String, Subgroup> aGenericMap = getCanonicalMap(aGeneric);
+			double aMinimum = aGeneric.last().getMeasureValue() + 1e-4;
+			for (Subgroup a : aDirect)
+			{
+				if (a.getMeasureValue() <= aMinimum)
+					continue;
+
+				Subgroup e = aGenericMap.get(getCanonicalString(a));
+				assertNotNull(e, a.toString());
+				assertEquals(e.getCoverage(), a.getCoverage());
+				assertEquals(e.getMeasureValue(), a.getMeasureValue(), 1e-4);
+				assertEquals(e.getSecondaryStatistic(), a.getSecondaryStatistic(), 1e-4);
+				assertEquals(e.getTertiaryStatistic(), a.getTertiaryStatistic(), 1e-4);
+			}
+		}
+	}
+
+	private static Map<String, Subgroup> getCanonicalMap(SubgroupSet theSubgroupSet)
+	{
+		Map<String, Subgroup> aMap = new HashMap<String, Subgroup>();
+		for (Subgroup s : theSubgroupSet)
+			aMap.put(getCanonicalString(s), s);
+		return aMap;
+	}
+
+	// conditions in a fixed order
+	private static String getCanonicalString(Subgroup theSubgroup)
+	{
+		String[] aConditions = theSubgroup.toString().split(" AND ");
+		Arrays.sort(aConditions);
+		return Arrays.toString(aConditions);
+	}
+
 	private float roundToFive(double f) { return (float) Math.round(f*100000)/100000; }
 }
@@ -0,0 +1,94 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import nl.liacs.subdisc.ConditionListBuilder.ConditionList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ExtentCacheTest
+{
+	@Test
+	@DisplayName("Check ExtentCache evaluates from the longest cached prefix, and evicts the least recently used extent")
+	public void testExtentCache()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		Condition aWorkclass = new Condition(new ConditionBase(aTable.getColumns().get(1), Operator.EQUALS), "Private");
+		Condition anEducation = new Condition(new ConditionBase(aTable.getColumns().get(3), Operator.EQUALS), "Bachelors");
+
+		BitSet anAll = new BitSet();
+		anAll.set(0, aTable.getNrRows());
+		ConditionList aParent = ConditionListBuilder.createList(aWorkclass);
+		ConditionList aChild = ConditionListBuilder.createList(aParent, anEducation);
+		BitSet anExpectedParent = aWorkclass.getColumn().evaluate(anAll, aWorkclass);
+		BitSet anExpectedChild = anEducation.getColumn().evaluate(anExpectedParent, anEducation);
+
+		// room for two extents of all rows
+		long anExtentSize = anAll.size() >>> 3;
+		ExtentCache aCache = new ExtentCache(2 * anExtentSize);
+
+		assertNull(aCache.get(aChild));
+		assertEquals(anExpectedChild, aCache.evaluate(aChild, anAll, 0));
+		assertEquals(anExpectedParent, aCache.get(ConditionListBuilder.createList(aWorkclass)));
+		BitSet aCachedChild = aCache.get(aChild);
+		assertEquals(anExpectedChild, aCachedChild);
+
+		// the same Conditions, in another search order
+		ConditionList aSwapped = ConditionListBuilder.createList(ConditionListBuilder.createList(anEducation), aWorkclass);
+		assertSame(aCachedChild, aCache.get(aSwapped));
+
+		// aParent is least recently used
+		aCache.put(ConditionListBuilder.createList(anEducation), anAll);
+		assertNull(aCache.get(aParent));
+		assertSame(aCachedChild, aCache.get(aChild));
+		assertTrue(aCache.getSizeInBytes() <= 2 * anExtentSize);
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEAM", "DEPTH_FIRST" })
+	@DisplayName("Check the ExtentCache does not change the result on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testMining(SearchStrategy theSearchStrategy)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		anSP.setMinimumCoverage(50);
+		anSP.setSearchStrategy(theSearchStrategy);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+		anSP.setNrBins(4);
+
+		SubgroupSet aCached = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+		assertTrue(aCached.getExtentCache().getNrHits() > 0);
+		anSP.setExtentCacheCapacity(0L);
+		SubgroupSet anExpected = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertEquals(anExpected.size(), aCached.size());
+		Iterator<Subgroup> anIterator = anExpected.iterator();
+		for (Subgroup a : aCached)
+		{
+			Subgroup e = anIterator.next();
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getMembers(), a.getMembers());
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package nl.liacs.subdisc;
+
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Java lib
+import java.io.*;
+
+
+public class FileLoaderSdcTest
+{
+	@TempDir
+	File itsDirectory;
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"src/test/resources/adult.txt",
+		"src/test/resources/missing values.txt",
+		"src/test/resources/long10k.txt"
+	})
+	public void roundTrip(String filename)
+	{
+		Table aTable = new DataLoaderTXT(new File(filename)).getTable();
+		assertNotNull(aTable);
+		aTable.update();
+
+		File aFile = new File(itsDirectory, "table" + FileLoaderSDC.EXTENSION);
+		assertTrue(FileWriterSDC.write(aTable, aFile));
+
+		Table aCopy = new FileLoaderSDC(aFile).getTable();
+		assertNotNull(aCopy);
+		aCopy.update();
+
+		assertEquals(aTable.getName(), aCopy.getName());
+		assertEquals(aTable.getNrRows(), aCopy.getNrRows());
+		assertEquals(aTable.getNrColumns(), aCopy.getNrColumns());
+
+		for (int i = 0; i < aTable.getNrColumns(); ++i)
+		{
+			Column c = aTable.getColumn(i);
+			Column d = aCopy.getColumn(i);
+
+			assertEquals(c.getName(), d.getName());
+			assertEquals(c.getType(), d.getType());
+			assertEquals(c.getIsEnabled(), d.getIsEnabled());
+			assertEquals(c.getCardinality(), d.getCardinality());
+			assertEquals(c.getMissing(), d.getMissing());
+
+			for (int j = 0; j < aTable.getNrRows(); ++j)
+			{
+				switch (c.getType())
+				{
+					case NUMERIC : assertEquals(c.getFloat(j), d.getFloat(j)); break;
+					case NOMINAL : assertEquals(c.getNominal(j), d.getNominal(j)); break;
+					case BINARY : assertEquals(c.getBinary(j), d.getBinary(j)); break;
+					default : break;
+				}
+			}
+
+			if (c.getType() == AttributeType.NUMERIC)
+			{
+				assertEquals(c.getMin(), d.getMin());
+				assertEquals(c.getMax(), d.getMax());
+				assertArrayEquals(c.getRankValues(), d.getRankValues());
+				assertArrayEquals(c.getRanks(), d.getRanks());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Check a Table without a name is written, and read back without a name")
+	public void roundTripNullName()
+	{
+		int aNrRows = 10;
+		Table aTable = new Table(new File("nameless.txt"), null, aNrRows, 1);
+		Column aColumn = new Column("x", "x", AttributeType.NUMERIC, 0, aNrRows);
+		for (int i = 0; i < aNrRows; ++i)
+			aColumn.add(i);
+		aColumn.close();
+		aTable.getColumns().add(aColumn);
+		aTable.update();
+
+		File aFile = new File(itsDirectory, "nameless" + FileLoaderSDC.EXTENSION);
+		assertTrue(FileWriterSDC.write(aTable, aFile));
+
+		Table aCopy = new FileLoaderSDC(aFile).getTable();
+		assertNotNull(aCopy);
+		assertNull(aCopy.getName());
+		assertEquals(aNrRows, aCopy.getNrRows());
+		assertEquals(aColumn.getFloat(aNrRows-1), aCopy.getColumn(0).getFloat(aNrRows-1));
+	}
+}
@@ -0,0 +1,97 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+public class LabelRankingTest
+{
+	private static final String[] RANKINGS = { "a>b>c>d", "b>a>d>c", "c>d>a>b", "ab>c>d", "d>c>b>a", "a>c>b>d", "bc>a>d" };
+
+	@Test
+	@DisplayName("Check the average ranking (matrix) from the LabelRankIndex equals the one of parsing every row")
+	public void testAverageRanking()
+	{
+		Random aRandom = new Random(1);
+		int aNrRows = 500;
+		Column aColumn = new Column("ranking", "ranking", AttributeType.NOMINAL, 0, aNrRows);
+		for (int i = 0; i < aNrRows; ++i)
+			aColumn.add(RANKINGS[aRandom.nextInt(RANKINGS.length)]);
+		aColumn.close();
+
+		BitSet aMembers = new BitSet(aNrRows);
+		for (int i = 0; i < aNrRows; ++i)
+			if (aRandom.nextInt(3) == 0)
+				aMembers.set(i);
+		BitSet aComplement = (BitSet) aMembers.clone();
+		aComplement.flip(0, aNrRows);
+
+		for (BitSet b : new BitSet[] { null, aMembers, aComplement })
+		{
+			int[] aCounts = aColumn.getLabelRankingCounts(b);
+			assertMatrixEquals(getAverageRankingMatrix(aColumn, b), aColumn.getAverageRankingMatrixFromCounts(aCounts));
+			assertEquals(getAverageRanking(aColumn, b).getRanking(), aColumn.getAverageRankingFromCounts(aCounts).getRanking());
+		}
+	}
+
+	private static void assertMatrixEquals(LabelRankingMatrix theExpected, LabelRankingMatrix theActual)
+	{
+		assertEquals(theExpected.getSize(), theActual.getSize());
+		for (int i = 0; i < theExpected.getSize(); ++i)
+			assertArrayEquals(theExpected.itsMatrix[i], theActual.itsMatrix[i]);
+	}
+
+	// the original code, that parses the ranking of every row
+	private static LabelRankingMatrix getAverageRankingMatrix(Column theColumn, BitSet theMembers)
+	{
+		LabelRankingMatrix aResult = new LabelRankingMatrix(theColumn.getNominal(0).replace(">","").length());
+		int aCount = 0;
+		for (int i = 0; i < theColumn.size(); ++i)
+		{
+			if (theMembers == null || theMembers.get(i))
+			{
+				aResult.add(new LabelRankingMatrix(new LabelRanking(theColumn.getNominal(i))));
+				aCount++;
+			}
+		}
+		aResult.divide(aCount);
+
+		return aResult;
+	}
+
+	private static LabelRanking getAverageRanking(Column theColumn, BitSet theMembers)
+	{
+		LabelRanking aResult = new LabelRanking(theColumn.getNominal(0));
+		int aSize = aResult.getSize();
+		int[] aTotalRanks = new int[aSize];
+		for (int i = 0; i < theColumn.size(); ++i)
+		{
+			if (theMembers == null || theMembers.get(i))
+			{
+				LabelRanking aRanking = new LabelRanking(theColumn.getNominal(i));
+				for (int j = 0; j < aSize; j++)
+					aTotalRanks[j] += aRanking.getRank(j);
+			}
+		}
+
+		int[] aRanks = Arrays.copyOf(aTotalRanks, aSize);
+		Arrays.sort(aRanks);
+		for (int i = 0; i < aSize; i++)
+		{
+			int aFirst = -1;
+			for (int j = 0; j < aSize; j++)
+				if (aTotalRanks[i] == aRanks[j])
+					aFirst = j;
+			aResult.setRank(i, aFirst);
+		}
+
+		return aResult;
+	}
+}
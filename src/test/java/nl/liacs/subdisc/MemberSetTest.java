@@ -0,0 +1,171 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class MemberSetTest
+{
+	private static final int NR_ROWS = 300000; // five chunks, last one partial
+
+	@Test
+	@DisplayName("Check CompressedMemberSet against BitSet for sparse, dense and clustered members")
+	public void testCompressedMemberSet()
+	{
+		Random aRandom = new Random(42);
+
+		// sparse -> array containers
+		BitSet aSparse = new BitSet();
+		for (int i = 0; i < 1000; ++i)
+			aSparse.set(aRandom.nextInt(NR_ROWS));
+		assertSameMembers(aSparse);
+
+		// dense and scattered -> bitmap containers
+		BitSet aDense = new BitSet();
+		for (int i = 0; i < NR_ROWS; ++i)
+			if (aRandom.nextBoolean())
+				aDense.set(i);
+		assertSameMembers(aDense);
+
+		// long runs, crossing word and chunk boundaries -> run containers
+		BitSet aRuns = new BitSet();
+		aRuns.set(63, 65);
+		aRuns.set(1000, 70000);
+		aRuns.set(131071, 131073);
+		aRuns.set(200000, NR_ROWS);
+		assertSameMembers(aRuns);
+
+		// first chunk empty
+		BitSet aLate = new BitSet();
+		aLate.set(NR_ROWS - 1);
+		assertSameMembers(aLate);
+
+		assertSameMembers(new BitSet());
+	}
+
+	@Test
+	@DisplayName("Check TidListMemberSet and (nested) DiffsetMemberSet against BitSet")
+	public void testDiffsetMemberSet()
+	{
+		Random aRandom = new Random(42);
+
+		// each level removes a few rows of its parent
+		BitSet aMembers = new BitSet();
+		aMembers.set(0, NR_ROWS);
+		MemberSet aParent = MemberSetType.DIFFSET.create(aMembers);
+		for (int d = 0; d < 3; ++d)
+		{
+			for (int i = 0; i < 1000; ++i)
+				aMembers.clear(aRandom.nextInt(NR_ROWS));
+			MemberSet m = MemberSetType.DIFFSET.create(aMembers, aParent);
+			assertTrue(m instanceof DiffsetMemberSet);
+			assertSameMembers(aMembers, m);
+			aParent = m;
+		}
+
+		// removing most rows gives a tid-list
+		BitSet aSparse = new BitSet();
+		for (int i = 0; i < 1000; ++i)
+			aSparse.set(aRandom.nextInt(NR_ROWS));
+		aSparse.and(aMembers);
+		MemberSet m = MemberSetType.DIFFSET.create(aSparse, aParent);
+		assertTrue(m instanceof TidListMemberSet);
+		assertSameMembers(aSparse, m);
+
+		assertSameMembers(new BitSet(), new TidListMemberSet(new BitSet()));
+	}
+
+	@Test
+	@DisplayName("Check diffset against bitset member sets on Adult.txt using SINGLE_NOMINAL, DEPTH_FIRST, d=4")
+	public void testMiningDiffset()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(4);
+		anSP.setMinimumCoverage(50);
+		anSP.setSearchStrategy(SearchStrategy.DEPTH_FIRST);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+		anSP.setNrBins(4);
+
+		anSP.setMemberSetType(MemberSetType.BITSET);
+		SubgroupSet aBitSet = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+		anSP.setMemberSetType(MemberSetType.DIFFSET);
+		SubgroupSet aDiffset = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertEquals(aBitSet.size(), aDiffset.size());
+		Iterator<Subgroup> anExpected = aBitSet.iterator();
+		for (Subgroup a : aDiffset)
+		{
+			// the result does not keep the MemberSets of the ancestors
+			assertFalse(a.hasParentMemberSet(), a.toString());
+			Subgroup e = anExpected.next();
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getMembers(), a.getMembers());
+		}
+	}
+
+	@Test
+	@DisplayName("Check compressed against bitset member sets on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testMiningCompressed()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+
+		anSP.setMemberSetType(MemberSetType.BITSET);
+		SubgroupSet aBitSet = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+		anSP.setMemberSetType(MemberSetType.COMPRESSED);
+		SubgroupSet aCompressed = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+
+		assertEquals(aBitSet.size(), aCompressed.size());
+		Iterator<Subgroup> anExpected = aBitSet.iterator();
+		for (Subgroup a : aCompressed)
+		{
+			Subgroup e = anExpected.next();
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getMembers(), a.getMembers());
+		}
+	}
+
+	private static void assertSameMembers(BitSet theMembers)
+	{
+		assertSameMembers(theMembers, MemberSetType.COMPRESSED.create(theMembers));
+	}
+
+	private static void assertSameMembers(BitSet theMembers, MemberSet m)
+	{
+		assertEquals(theMembers.cardinality(), m.cardinality());
+		assertEquals(theMembers, m.toBitSet());
+		for (int i = 0; i <= NR_ROWS; ++i)
+		{
+			assertEquals(theMembers.get(i), m.get(i));
+			assertEquals(theMembers.nextSetBit(i), m.nextSetBit(i));
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static nl.liacs.subdisc.SearchParametersFixture.getSearchParameters;
+
+
+public class MiningEngineTest
+{
+	@Test
+	@DisplayName("Check fork-join engine against semaphore engine on Adult.txt using SINGLE_NOMINAL, d=2")
+	public void testForkJoinSingleNominal()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		SubgroupSet aSemaphore = run(aTable, anSP, MiningEngine.SEMAPHORE, 1);
+		SubgroupSet aForkJoin = run(aTable, anSP, MiningEngine.FORK_JOIN, 4);
+
+		assertSameResult(aSemaphore, aForkJoin);
+	}
+
+	@Test
+	@DisplayName("Check fork-join engine against semaphore engine on Adult.txt using SINGLE_NUMERIC, d=2")
+	public void testForkJoinSingleNumeric()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept (age)
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NUMERIC);
+		aTC.setPrimaryTarget(aTable.getColumns().get(0));
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.Z_SCORE, 1f);
+		SubgroupSet aSemaphore = run(aTable, anSP, MiningEngine.SEMAPHORE, 1);
+		SubgroupSet aForkJoin = run(aTable, anSP, MiningEngine.FORK_JOIN, 4);
+
+		assertSameResult(aSemaphore, aForkJoin);
+	}
+
+	@Test
+	@DisplayName("Check multi-threaded against single-threaded semaphore engine on Adult.txt using SINGLE_NOMINAL, d=2, top-10")
+	public void testSemaphoreThreadsSingleNominal()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		// small result set, many ties on the maximum size boundary
+		SearchParameters anSP = getSearchParameters(aTC, QM.WRACC, 0.0f);
+		anSP.setMaximumSubgroups(10);
+		anSP.setSearchStrategyWidth(5);
+		SubgroupSet aSingle = run(aTable, anSP, MiningEngine.SEMAPHORE, 1);
+		SubgroupSet aMulti = run(aTable, anSP, MiningEngine.SEMAPHORE, 8);
+
+		assertSameResult(aSingle, aMulti);
+	}
+
+	@Test
+	@DisplayName("Check batched engine against semaphore engine on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testBatchedSingleNominal()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		SubgroupSet aSemaphore = run(aTable, anSP, MiningEngine.SEMAPHORE, 1);
+		SubgroupSet aBatched = run(aTable, anSP, MiningEngine.BATCHED, 4);
+
+		assertSameResult(aSemaphore, aBatched);
+	}
+
+	@Test
+	@DisplayName("Check batched engine against semaphore engine on Adult.txt using SINGLE_NUMERIC, d=2, bins")
+	public void testBatchedSingleNumeric()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept (age)
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NUMERIC);
+		aTC.setPrimaryTarget(aTable.getColumns().get(0));
+
+		// no direct computation, counts for the generic code path
+		SearchParameters anSP = getSearchParameters(aTC, QM.Z_SCORE, 1f);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+		SubgroupSet aSemaphore = run(aTable, anSP, MiningEngine.SEMAPHORE, 1);
+		SubgroupSet aBatched = run(aTable, anSP, MiningEngine.BATCHED, 4);
+
+		assertSameResult(aSemaphore, aBatched);
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEST_FIRST", "DEPTH_FIRST", "BREADTH_FIRST" })
+	@DisplayName("Check fork-join and batched engines dispatch Candidates as the semaphore engine for non-beam strategies, so the expansion order is unchanged")
+	public void testLevelWiseNonBeam(SearchStrategy theSearchStrategy)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.WRACC, 0.0f);
+		anSP.setSearchStrategy(theSearchStrategy);
+		anSP.setMaximumSubgroups(10);
+		List<String> aLog = new ArrayList<String>();
+		SubgroupSet aSemaphore = run(aTable, anSP, MiningEngine.SEMAPHORE, 1, aLog);
+		assertFalse(aLog.isEmpty());
+
+		for (MiningEngine m : new MiningEngine[] { MiningEngine.FORK_JOIN, MiningEngine.BATCHED })
+		{
+			List<String> anEngineLog = new ArrayList<String>();
+			SubgroupSet anEngine = run(aTable, anSP, m, 1, anEngineLog);
+
+			assertEquals(aLog, anEngineLog, m.toString());
+			assertIdenticalResult(aSemaphore, anEngine);
+
+			// the refinements of a Candidate are evaluated concurrently
+			assertSameResult(aSemaphore, run(aTable, anSP, m, 4));
+		}
+	}
+
+	@Test
+	@DisplayName("Check deterministic engine against single-threaded semaphore engine on Adult.txt using SINGLE_NOMINAL, d=3, including the log")
+	public void testDeterministicBeam()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		List<String> aSemaphoreLog = new ArrayList<String>();
+		SubgroupSet aSemaphore = run(aTable, anSP, MiningEngine.SEMAPHORE, 1, aSemaphoreLog);
+		List<String> aDeterministicLog = new ArrayList<String>();
+		SubgroupSet aDeterministic = run(aTable, anSP, MiningEngine.DETERMINISTIC, 4, aDeterministicLog);
+
+		assertIdenticalResult(aSemaphore, aDeterministic);
+		assertFalse(aSemaphoreLog.isEmpty());
+		assertEquals(aSemaphoreLog, aDeterministicLog);
+	}
+
+	@Test
+	@DisplayName("Check deterministic engine does not depend on the number of Threads on Adult.txt using SINGLE_NOMINAL, d=3, best-first, top-10")
+	public void testDeterministicThreads()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		// small result set, many ties on the maximum size boundary
+		SearchParameters anSP = getSearchParameters(aTC, QM.WRACC, 0.0f);
+		anSP.setSearchDepth(3);
+		anSP.setMinimumCoverage(50);
+		anSP.setMaximumSubgroups(10);
+		anSP.setSearchStrategy(SearchStrategy.BEST_FIRST);
+		List<String> aLog2 = new ArrayList<String>();
+		SubgroupSet aDeterministic2 = run(aTable, anSP, MiningEngine.DETERMINISTIC, 2, aLog2);
+		List<String> aLog8 = new ArrayList<String>();
+		SubgroupSet aDeterministic8 = run(aTable, anSP, MiningEngine.DETERMINISTIC, 8, aLog8);
+
+		assertIdenticalResult(aDeterministic2, aDeterministic8);
+		assertFalse(aLog2.isEmpty());
+		assertEquals(aLog2, aLog8);
+	}
+
+	@Test
+	@DisplayName("Check the Candidate log does not change the flyweight result on Adult.txt using SINGLE_NOMINAL, numeric all")
+	public void testFlyweightSingleNominal()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setMinimumCoverage(50);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_ALL);
+
+		// best-first at d=3 takes too long for a unit test
+		for (SearchStrategy aSearchStrategy : new SearchStrategy[] { SearchStrategy.BEAM, SearchStrategy.BEST_FIRST })
+		{
+			anSP.setSearchStrategy(aSearchStrategy);
+			anSP.setSearchDepth(aSearchStrategy.isBeam() ? 3 : 2);
+
+			// discarded refinements are logged from their statistics
+			List<String> aLog = new ArrayList<String>();
+			SubgroupSet aLogged = run(aTable, anSP, MiningEngine.SEMAPHORE, 1, aLog);
+			SubgroupSet aFlyweight;
+			Log.COMMANDLINELOG = false;
+			try
+			{
+				aFlyweight = run(aTable, anSP, MiningEngine.SEMAPHORE, 1);
+			}
+			finally
+			{
+				Log.COMMANDLINELOG = true;
+			}
+
+			assertFalse(aLog.isEmpty());
+			assertIdenticalResult(aLogged, aFlyweight);
+		}
+	}
+
+	private static SubgroupSet run(Table theTable, SearchParameters theSearchParameters, MiningEngine theMiningEngine, int theNrThreads)
+	{
+		theSearchParameters.setMiningEngine(theMiningEngine);
+		return Process.runSubgroupDiscovery(theTable, 0, null, theSearchParameters, false, theNrThreads, null).getResult();
+	}
+
+	// theLog receives the lines of the Candidate log, see logCandidateAddition()
+	private static SubgroupSet run(Table theTable, SearchParameters theSearchParameters, MiningEngine theMiningEngine, int theNrThreads, List<String> theLog)
+	{
+		PrintStream anOut = System.out;
+		ByteArrayOutputStream aBytes = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(aBytes, true));
+		try
+		{
+			return run(theTable, theSearchParameters, theMiningEngine, theNrThreads);
+		}
+		finally
+		{
+			System.setOut(anOut);
+			for (String s : aBytes.toString().split("\n"))
+				if (s.startsWith("candidate ") || s.startsWith("  subgroup nr. "))
+					theLog.add(s);
+		}
+	}
+
+	// including the order of the Conditions, and the members
+	private static void assertIdenticalResult(SubgroupSet theExpected, SubgroupSet theActual)
+	{
+		assertEquals(theExpected.size(), theActual.size());
+
+		Iterator<Subgroup> anExpected = theExpected.iterator();
+		for (Subgroup a : theActual)
+		{
+			Subgroup e = anExpected.next();
+			assertEquals(e.toString(), a.toString());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getMembers(), a.getMembers());
+		}
+	}
+
+	private static void assertSameResult(SubgroupSet theExpected, SubgroupSet theActual)
+	{
+		assertEquals(theExpected.size(), theActual.size());
+
+		Iterator<Subgroup> anExpected = theExpected.iterator();
+		Iterator<Subgroup> anActual = theActual.iterator();
+		while (anExpected.hasNext())
+		{
+			Subgroup e = anExpected.next();
+			Subgroup a = anActual.next();
+			assertEquals(ConditionListBuilder.toCanonicalOrderString(e.getConditions()), ConditionListBuilder.toCanonicalOrderString(a.getConditions()));
+			assertEquals(e.getCoverage(), a.getCoverage());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+			assertEquals(e.getSecondaryStatistic(), a.getSecondaryStatistic());
+			assertEquals(e.getTertiaryStatistic(), a.getTertiaryStatistic());
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class MiningListenerTest
+{
+	@ParameterizedTest
+	@EnumSource(value = SearchStrategy.class, names = { "BEST_FIRST", "BEAM" })
+	@DisplayName("Check snapshot deltas add up to the final result on Adult.txt using SINGLE_NOMINAL, d=3")
+	public void testSnapshots(SearchStrategy theSearchStrategy)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.CORTANA_QUALITY, 0.1f);
+		anSP.setSearchDepth(3);
+		anSP.setMinimumCoverage(50);
+		anSP.setSearchStrategy(theSearchStrategy);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+		anSP.setNrBins(4);
+
+		int aPositiveCount = aTC.getPrimaryTarget().countValues("gr50K", null);
+		SubgroupDiscovery aSubgroupDiscovery = new SubgroupDiscovery(anSP, aTable, null, aPositiveCount, null);
+
+		final List<MiningSnapshot> aSnapshots = new ArrayList<MiningSnapshot>();
+		aSubgroupDiscovery.addMiningListener(new MiningListener()
+		{
+			@Override
+			public void update(MiningSnapshot theSnapshot) { aSnapshots.add(theSnapshot); }
+		});
+		aSubgroupDiscovery.setSnapshotInterval(1L);
+		aSubgroupDiscovery.mine(System.currentTimeMillis(), 1);
+
+		assertFalse(aSnapshots.isEmpty());
+		MiningSnapshot aLast = aSnapshots.get(aSnapshots.size() - 1);
+		assertTrue(aLast.isLast());
+		assertEquals(new ArrayList<Subgroup>(aSubgroupDiscovery.getResult()), aLast.getSubgroups());
+
+		// replay the deltas
+		Set<Subgroup> aReplay = Collections.newSetFromMap(new IdentityHashMap<Subgroup, Boolean>());
+		long aSequenceNumber = -1L;
+		for (MiningSnapshot s : aSnapshots)
+		{
+			assertTrue(s.getSequenceNumber() > aSequenceNumber);
+			assertEquals(s.getSequenceNumber() - aSequenceNumber - 1, s.getNrSkipped());
+			aSequenceNumber = s.getSequenceNumber();
+
+			for (Subgroup r : s.getRemoved())
+				assertTrue(aReplay.remove(r));
+			for (Subgroup a : s.getAdded())
+				assertTrue(aReplay.add(a));
+			assertEquals(s.getSubgroups().size(), aReplay.size());
+		}
+		assertTrue(aReplay.containsAll(aLast.getSubgroups()));
+	}
+}
@@ -0,0 +1,144 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class OptimisticEstimateTest
+{
+	@ParameterizedTest
+	@EnumSource(value = QM.class, names = { "WRACC", "CORTANA_QUALITY", "CHI_SQUARED", "BINOMIAL" })
+	@DisplayName("Check that no subset of a Subgroup scores higher than the SINGLE_NOMINAL optimistic estimate")
+	public void testNominalEstimate(QM theQM)
+	{
+		int N = 40;
+		int H = 13;
+		QualityMeasure aQM = new QualityMeasure(theQM, N, H);
+
+		// every Subgroup (B, HB), and every subset (B', HB') of it
+		for (int B = 1; B <= N; ++B)
+		{
+			for (int HB = Math.max(0, B - (N - H)); HB <= Math.min(B, H); ++HB)
+			{
+				double anEstimate = aQM.getOptimisticEstimate(HB, B);
+
+				for (int b = 1; b <= B; ++b)
+					for (int hb = Math.max(0, b - (B - HB)); hb <= Math.min(b, HB); ++hb)
+						assertTrue(aQM.calculate(hb, b) <= anEstimate);
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = QM.class, names = { "Z_SCORE", "INVERSE_Z_SCORE", "ABS_Z_SCORE", "AVERAGE", "INVERSE_AVERAGE", "MEAN_TEST", "INVERSE_MEAN_TEST", "ABS_MEAN_TEST" })
+	@DisplayName("Check that no subset of a Subgroup scores higher than the SINGLE_NUMERIC optimistic estimate")
+	public void testNumericEstimate(QM theQM)
+	{
+		float[] aData = { 3.5f, -1.0f, 7.25f, 0.0f, 2.0f, 9.5f, -4.0f, 2.0f, 5.0f, 1.5f };
+		float aSum = 0.0f;
+		for (float f : aData)
+			aSum += f;
+		float anSSD = 0.0f;
+		for (float f : aData)
+			anSSD += (f - aSum / aData.length) * (f - aSum / aData.length);
+		Column aColumn = new Column("target", "target", AttributeType.NUMERIC, 0, aData.length);
+		for (float f : aData)
+			aColumn.add(f);
+		QualityMeasure aQM = new QualityMeasure(theQM, aData.length, aSum, anSSD, new ProbabilityDensityFunction(aColumn));
+
+		// first 7 values form the Subgroup, test all of its subsets
+		int aSize = 7;
+		double anEstimate = aQM.getOptimisticEstimate(Arrays.copyOf(aData, aSize), 1);
+		for (int aMask = 1; aMask < (1 << aSize); ++aMask)
+		{
+			int aCount = 0;
+			float aSubsetSum = 0.0f;
+			for (int i = 0; i < aSize; ++i)
+			{
+				if ((aMask & (1 << i)) != 0)
+				{
+					++aCount;
+					aSubsetSum += aData[i];
+				}
+			}
+
+			assertTrue(aQM.calculate(new Statistics(aCount, aSubsetSum, 0.0f), null) <= anEstimate);
+		}
+	}
+
+	@Test
+	@DisplayName("Check pruning by optimistic estimate does not change the result on Adult.txt using SINGLE_NOMINAL, d=3, top-20")
+	public void testPruningSingleNominal()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.WRACC, 0.02f);
+		assertSameResult(run(aTable, anSP, false), run(aTable, anSP, true));
+	}
+
+	@Test
+	@DisplayName("Check pruning by optimistic estimate does not change the result on Adult.txt using SINGLE_NUMERIC, d=3, top-20")
+	public void testPruningSingleNumeric()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept (age)
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NUMERIC);
+		aTC.setPrimaryTarget(aTable.getColumns().get(0));
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.Z_SCORE, 1.0f);
+		assertSameResult(run(aTable, anSP, false), run(aTable, anSP, true));
+	}
+
+	// d=3, best-first, top-20
+	private static SearchParameters getSearchParameters(TargetConcept theTargetConcept, QM theQM, float theMinimum)
+	{
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(theTargetConcept, theQM, theMinimum);
+		anSP.setSearchDepth(3);
+		anSP.setMinimumCoverage(10);
+		anSP.setMaximumSubgroups(20);
+		anSP.setSearchStrategy(SearchStrategy.BEST_FIRST);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BINS);
+
+		return anSP;
+	}
+
+	private static SubgroupSet run(Table theTable, SearchParameters theSearchParameters, boolean useOptimisticEstimates)
+	{
+		theSearchParameters.setUseOptimisticEstimates(useOptimisticEstimates);
+		return Process.runSubgroupDiscovery(theTable, 0, null, theSearchParameters, false, 1, null).getResult();
+	}
+
+	private static void assertSameResult(SubgroupSet theExpected, SubgroupSet theActual)
+	{
+		assertEquals(theExpected.size(), theActual.size());
+
+		Iterator<Subgroup> anExpected = theExpected.iterator();
+		Iterator<Subgroup> anActual = theActual.iterator();
+		while (anExpected.hasNext())
+		{
+			Subgroup e = anExpected.next();
+			Subgroup a = anActual.next();
+			assertEquals(ConditionListBuilder.toCanonicalOrderString(e.getConditions()), ConditionListBuilder.toCanonicalOrderString(a.getConditions()));
+			assertEquals(e.getCoverage(), a.getCoverage());
+			assertEquals(e.getMeasureValue(), a.getMeasureValue());
+		}
+	}
+}
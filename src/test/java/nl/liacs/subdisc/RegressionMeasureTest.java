@@ -0,0 +1,177 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class RegressionMeasureTest
+{
+	private static final int NR_ROWS = 1000;
+	private static final double DELTA = 1e-6;
+
+	@ParameterizedTest
+	@EnumSource(value = QM.class, names = { "REGRESSION_SSD_COMPLEMENT", "REGRESSION_SSD_DATASET", "REGRESSION_FLATNESS", "REGRESSION_SSD_4" })
+	@DisplayName("Check the qualities from the sufficient statistics equal those of the squared error terms of every row")
+	public void testRegressionMeasure(QM theQM)
+	{
+		Random aRandom = new Random(1);
+		Column aPrimary = new Column("x", "x", AttributeType.NUMERIC, 0, NR_ROWS);
+		Column aSecondary = new Column("y", "y", AttributeType.NUMERIC, 1, NR_ROWS);
+		for (int i = 0; i < NR_ROWS; ++i)
+		{
+			float x = 100.0f + aRandom.nextInt(50);
+			aPrimary.add(x);
+			aSecondary.add(((i % 3 == 0) ? -2.0f : 0.5f) * x + (float) aRandom.nextGaussian());
+		}
+		aPrimary.close();
+		aSecondary.close();
+
+		RegressionMeasure aBase = new RegressionMeasure(theQM, aPrimary, aSecondary);
+		double[] x = new double[NR_ROWS];
+		double[] y = new double[NR_ROWS];
+		for (int i = 0; i < NR_ROWS; ++i)
+		{
+			x[i] = aPrimary.getFloat(i);
+			y[i] = aSecondary.getFloat(i);
+		}
+		BitSet anAll = new BitSet(NR_ROWS);
+		anAll.set(0, NR_ROWS);
+		double aBaseSlope = getLine(x, y, anAll)[0];
+
+		for (int aModulo : new int[] { 2, 3, 5 })
+		{
+			BitSet aMembers = new BitSet(NR_ROWS);
+			for (int i = 0; i < NR_ROWS; ++i)
+				if (i % aModulo == 0)
+					aMembers.set(i);
+
+			RegressionMeasure anRM = new RegressionMeasure(aBase, aMembers);
+			double aQuality = anRM.getEvaluationMeasureValue();
+			double[] aLine = getLine(x, y, aMembers);
+			assertEquals(aLine[0], anRM.getSlope(), DELTA * Math.abs(aLine[0]));
+			assertEquals(aLine[1], anRM.getIntercept(), DELTA * Math.max(1.0, Math.abs(aLine[1])));
+
+			double anExpected = getQuality(theQM, x, y, aMembers, aBaseSlope);
+			assertEquals(anExpected, aQuality, DELTA * Math.abs(anExpected), "modulo " + aModulo);
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = QM.class, names = { "REGRESSION_SSD_COMPLEMENT", "REGRESSION_SSD_DATASET" })
+	@DisplayName("Check the qualities from the sufficient statistics for large X-values, where plain sums cancel")
+	public void testRegressionMeasureLargeValues(QM theQM)
+	{
+		final int aNrRows = 20_000;
+		Random aRandom = new Random(1);
+		Column aPrimary = new Column("x", "x", AttributeType.NUMERIC, 0, aNrRows);
+		Column aSecondary = new Column("y", "y", AttributeType.NUMERIC, 1, aNrRows);
+		for (int i = 0; i < aNrRows; ++i)
+		{
+			float x = 20_000.0f + 1_000.0f * aRandom.nextFloat();
+			aPrimary.add(x);
+			aSecondary.add(2.0f * x + (float) aRandom.nextGaussian());
+		}
+		aPrimary.close();
+		aSecondary.close();
+
+		double[] x = new double[aNrRows];
+		double[] y = new double[aNrRows];
+		for (int i = 0; i < aNrRows; ++i)
+		{
+			x[i] = aPrimary.getFloat(i);
+			y[i] = aSecondary.getFloat(i);
+		}
+		BitSet anAll = new BitSet(aNrRows);
+		anAll.set(0, aNrRows);
+		BitSet aMembers = new BitSet(aNrRows);
+		for (int i = 0; i < aNrRows; i += 2)
+			aMembers.set(i);
+
+		RegressionMeasure anRM = new RegressionMeasure(new RegressionMeasure(theQM, aPrimary, aSecondary), aMembers);
+		double aQuality = anRM.getEvaluationMeasureValue();
+		double anExpected = getQuality(theQM, x, y, aMembers, getLine(x, y, anAll)[0]);
+		// the error terms are about 1, and should not vanish
+		assertTrue(anExpected > 0.0);
+		assertEquals(anExpected, aQuality, DELTA * anExpected);
+	}
+
+	// least squares { slope, intercept } of the selected rows, using the centered values
+	private static double[] getLine(double[] x, double[] y, BitSet theRows)
+	{
+		int n = theRows.cardinality();
+		double aXMean = 0.0;
+		double aYMean = 0.0;
+		for (int i = theRows.nextSetBit(0); i >= 0; i = theRows.nextSetBit(i + 1))
+		{
+			aXMean += x[i];
+			aYMean += y[i];
+		}
+		aXMean /= n;
+		aYMean /= n;
+
+		double aSxx = 0.0;
+		double aSxy = 0.0;
+		for (int i = theRows.nextSetBit(0); i >= 0; i = theRows.nextSetBit(i + 1))
+		{
+			aSxx += (x[i] - aXMean) * (x[i] - aXMean);
+			aSxy += (x[i] - aXMean) * (y[i] - aYMean);
+		}
+		double aSlope = aSxy / aSxx;
+
+		return new double[] { aSlope, aYMean - aSlope * aXMean };
+	}
+
+	// the original computation, that sums the squared error terms of every row
+	// NOTE the error terms of the complement are those of the subgroup line
+	private static double getQuality(QM theQM, double[] x, double[] y, BitSet theMembers, double theBaseSlope)
+	{
+		BitSet aComplement = (BitSet) theMembers.clone();
+		aComplement.flip(0, x.length);
+		double[] aLine = getLine(x, y, theMembers);
+		double aComplementSlope = getLine(x, y, aComplement)[0];
+
+		double aVariance = getVariance(x, y, theMembers, aLine);
+		double aComplementVariance = getVariance(x, y, aComplement, aLine);
+
+		switch (theQM)
+		{
+			case REGRESSION_SSD_COMPLEMENT :
+			case REGRESSION_SSD_4 :
+				return Math.abs(aComplementSlope - aLine[0]) / Math.sqrt(aVariance + aComplementVariance);
+			case REGRESSION_SSD_DATASET :
+				return Math.abs(theBaseSlope - aLine[0]) / Math.sqrt(aVariance + aComplementVariance);
+			case REGRESSION_FLATNESS :
+				return -Math.abs(aLine[0]);
+			default :
+				throw new AssertionError(theQM);
+		}
+	}
+
+	private static double getVariance(double[] x, double[] y, BitSet theRows, double[] theLine)
+	{
+		int n = theRows.cardinality();
+		double aXMean = 0.0;
+		for (int i = theRows.nextSetBit(0); i >= 0; i = theRows.nextSetBit(i + 1))
+			aXMean += x[i];
+		aXMean /= n;
+
+		double anErrorTermSquaredSum = 0.0;
+		double aSxx = 0.0;
+		for (int i = theRows.nextSetBit(0); i >= 0; i = theRows.nextSetBit(i + 1))
+		{
+			double anErrorTerm = y[i] - (theLine[0] * x[i] + theLine[1]);
+			anErrorTermSquaredSum += anErrorTerm * anErrorTerm;
+			aSxx += (x[i] - aXMean) * (x[i] - aXMean);
+		}
+
+		return (anErrorTermSquaredSum / (n - 2)) / aSxx;
+	}
+}
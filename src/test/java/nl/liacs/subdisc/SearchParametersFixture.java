@@ -0,0 +1,33 @@
+package nl.liacs.subdisc;
+
+/**
+ * The {@link SearchParameters} the tests start from, a test sets the ones it
+ * depends on itself.
+ */
+final class SearchParametersFixture
+{
+	private SearchParametersFixture() {}
+
+	// d=2, BEAM of width 10, top-100, NUMERIC_BEST, 8 bins, 1 Thread
+	static SearchParameters getSearchParameters(TargetConcept theTargetConcept, QM theQM, float theMinimum)
+	{
+		SearchParameters anSP = new SearchParameters();
+		anSP.setTargetConcept(theTargetConcept);
+		anSP.setQualityMeasure(theQM);
+		anSP.setQualityMeasureMinimum(theMinimum);
+		anSP.setSearchDepth(2);
+		anSP.setMinimumCoverage(2);
+		anSP.setMaximumCoverageFraction(1f);
+		anSP.setMaximumSubgroups(100);
+		anSP.setMaximumTime(1000);
+		anSP.setSearchStrategy(SearchStrategy.BEAM);
+		anSP.setNominalSets(false);
+		anSP.setNumericOperators(NumericOperatorSetting.NORMAL);
+		anSP.setNumericStrategy(NumericStrategy.NUMERIC_BEST);
+		anSP.setSearchStrategyWidth(10);
+		anSP.setNrBins(8);
+		anSP.setNrThreads(1);
+
+		return anSP;
+	}
+}
@@ -0,0 +1,160 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+
+public class SubrankingLossTest
+{
+	@Test
+	@DisplayName("Check member-only subranking loss against full scan on Adult.txt")
+	public void testSubrankingLoss()
+	{
+		Table aTable = getTable();
+		Column aBinary = aTable.getColumns().get(14);
+		Column aNumeric = aTable.getColumns().get(12);
+		int aNrRows = aTable.getNrRows();
+
+		QualityMeasure aQM = new QualityMeasure(QM.SUBRANKING_LOSS, aNrRows, aBinary.getBinaries().cardinality(), aBinary, aNumeric);
+		SubrankingLoss aSubrankingLoss = aQM.getSubrankingLoss();
+		Random aRandom = new Random(42);
+
+		for (double f : new double[] { 1.0, 0.5, 0.1, 0.02 })
+		{
+			BitSet aMembers = new BitSet(aNrRows);
+			for (int i = 0; i < aNrRows; ++i)
+				if (aRandom.nextDouble() < f)
+					aMembers.set(i);
+
+			BitSet aPositives = aBinary.getBinaries();
+			aPositives.and(aMembers);
+			int aCoverage = aMembers.cardinality();
+			int aNrPositives = aPositives.cardinality();
+
+			float anExpected = aQM.calculateSubrankingLossFullScan(aMembers, aCoverage, aNrPositives);
+			assertEquals(anExpected, aQM.calculateSubrankingLoss(aMembers, aCoverage, aNrPositives));
+
+			// a Sweep, adding the members in random order
+			List<Integer> aRows = new ArrayList<Integer>();
+			for (int i = aMembers.nextSetBit(0); i >= 0; i = aMembers.nextSetBit(i + 1))
+				aRows.add(i);
+			Collections.shuffle(aRows, aRandom);
+
+			SubrankingLoss.Sweep aSweep = aSubrankingLoss.getSweep(aMembers);
+			for (int i : aRows)
+				aSweep.add(i);
+			assertEquals(aNrPositives, aSweep.getNrPositives());
+			assertEquals(anExpected, aQM.calculate(aSweep.getTotalRankingLoss(), aSweep.getNrPositives()));
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = QM.class, names = { "SUBRANKING_LOSS", "NEGATIVE_SUBRANKING_LOSS", "RELATIVE_SUBRANKING_LOSS", "REVERSE_RELATIVE_SUBRANKING_LOSS" })
+	@DisplayName("Check the overall subranking loss is that of the whole dataset scored by the QM, for every QualityMeasure")
+	public void testOverallSubrankingLoss(QM theQM)
+	{
+		Table aTable = getTable();
+		Column aBinary = aTable.getColumns().get(14);
+		Column aNumeric = aTable.getColumns().get(12);
+		int aNrRows = aTable.getNrRows();
+		int aNrPositives = aBinary.getBinaries().cardinality();
+
+		BitSet anAll = new BitSet(aNrRows);
+		anAll.set(0, aNrRows);
+		QualityMeasure aQM = new QualityMeasure(theQM, aNrRows, aNrPositives, aBinary, aNumeric);
+		float aLoss = aQM.calculateSubrankingLoss(anAll, aNrRows, aNrPositives);
+		boolean isNegated = (theQM == QM.NEGATIVE_SUBRANKING_LOSS) || (theQM == QM.REVERSE_RELATIVE_SUBRANKING_LOSS);
+		assertEquals(isNegated ? -aLoss : aLoss, aQM.getOverallSubrankingLoss());
+
+		// a second QualityMeasure does not change the value of the first
+		QualityMeasure aSecond = new QualityMeasure(theQM, aNrRows, aNrPositives, aBinary, aNumeric);
+		assertEquals(aQM.getOverallSubrankingLoss(), aSecond.getOverallSubrankingLoss());
+		assertEquals(isNegated ? -aLoss : aLoss, aQM.getOverallSubrankingLoss());
+	}
+
+	@Test
+	@DisplayName("Check a QualityMeasure for another numeric target does not change the subranking loss of the first")
+	public void testIndependentTargets()
+	{
+		Table aTable = getTable();
+		Column aBinary = aTable.getColumns().get(14);
+		Column aNumeric = aTable.getColumns().get(12);
+		int aNrRows = aTable.getNrRows();
+		int aNrPositives = aBinary.getBinaries().cardinality();
+
+		BitSet aMembers = new BitSet(aNrRows);
+		for (int i = 0; i < aNrRows; i += 3)
+			aMembers.set(i);
+		BitSet aPositives = aBinary.getBinaries();
+		aPositives.and(aMembers);
+		int aCoverage = aMembers.cardinality();
+		int aNrMemberPositives = aPositives.cardinality();
+
+		QualityMeasure aQM = new QualityMeasure(QM.SUBRANKING_LOSS, aNrRows, aNrPositives, aBinary, aNumeric);
+		float anExpected = aQM.calculateSubrankingLossFullScan(aMembers, aCoverage, aNrMemberPositives);
+
+		// age, ordered differently than hours-per-week
+		QualityMeasure aSecond = new QualityMeasure(QM.SUBRANKING_LOSS, aNrRows, aNrPositives, aBinary, aTable.getColumns().get(0));
+		assertNotEquals(anExpected, aSecond.calculateSubrankingLossFullScan(aMembers, aCoverage, aNrMemberPositives));
+		assertEquals(anExpected, aQM.calculateSubrankingLossFullScan(aMembers, aCoverage, aNrMemberPositives));
+	}
+
+	@Test
+	@DisplayName("Check direct computation against generic path on Adult.txt using SCAPE, d=2")
+	public void testMiningScape()
+	{
+		Table aTable = getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SCAPE);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setSecondaryTarget(aTable.getColumns().get(12));
+
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(aTC, QM.RELATIVE_SUBRANKING_LOSS, 0f);
+		anSP.setMinimumCoverage(10);
+
+		for (NumericStrategy aNS : new NumericStrategy[] { NumericStrategy.NUMERIC_ALL, NumericStrategy.NUMERIC_BEST })
+		{
+			anSP.setNumericStrategy(aNS);
+
+			SubgroupSet aDirect = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+			anSP.setUseDirectScape(false);
+			SubgroupSet aGeneric = Process.runSubgroupDiscovery(aTable, 0, null, anSP, false, 1, null).getResult();
+			anSP.setUseDirectScape(true);
+
+			assertEquals(aGeneric.size(), aDirect.size());
+			Iterator<Subgroup> anExpected = aGeneric.iterator();
+			for (Subgroup a : aDirect)
+			{
+				Subgroup e = anExpected.next();
+				assertEquals(e.toString(), a.toString());
+				assertEquals(e.getCoverage(), a.getCoverage());
+				assertEquals(e.getMeasureValue(), a.getMeasureValue());
+				assertEquals(e.getSecondaryStatistic(), a.getSecondaryStatistic());
+				assertEquals(e.getTertiaryStatistic(), a.getTertiaryStatistic());
+			}
+		}
+	}
+
+	// class as BINARY primary target, hours-per-week as numeric target
+	private static Table getTable()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+		Column aBinary = aTable.getColumns().get(14);
+		aBinary.setType(AttributeType.BINARY);
+		aBinary.setIsEnabled(false);
+		aTable.getColumns().get(12).setIsEnabled(false);
+		return aTable;
+	}
+}
@@ -0,0 +1,197 @@
+package nl.liacs.subdisc;
+
+// Java lib
+import java.io.*;
+import java.util.*;
+
+import nl.liacs.subdisc.gui.RandomQualitiesWindow;
+
+// Testing lib
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ValidationTest
+{
+	private static final int NR_REPETITIONS = 6;
+
+	@Test
+	@DisplayName("Check concurrent swap-randomization on Adult.txt using SINGLE_NOMINAL, d=1")
+	public void testSwapRandomizationSingleNominal()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		assertConcurrentSwapRandomization(aTable, getSearchParameters(aTC, QM.CORTANA_QUALITY));
+	}
+
+	@Test
+	@DisplayName("Check concurrent swap-randomization on Adult.txt using SINGLE_NUMERIC, d=1")
+	public void testSwapRandomizationSingleNumeric()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept (age)
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NUMERIC);
+		aTC.setPrimaryTarget(aTable.getColumns().get(0));
+
+		assertConcurrentSwapRandomization(aTable, getSearchParameters(aTC, QM.Z_SCORE));
+	}
+
+	@Test
+	@DisplayName("Check batched random descriptions on Adult.txt using SINGLE_NOMINAL, d=2")
+	public void testRandomDescriptionsSingleNominal()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.WRACC);
+		anSP.setSearchDepth(2);
+		anSP.setMinimumCoverage(50);
+		int aPositiveCount = aTC.getPrimaryTarget().countValues(aTC.getTargetValue(), null);
+		QualityMeasure aQM = new QualityMeasure(QM.WRACC, aTable.getNrRows(), aPositiveCount);
+
+		// more than one block, result does not depend on the number of threads
+		anSP.setNrThreads(1);
+		double[] aSingle = new Validation(anSP, aTable, null, aQM).getRandomQualities(false, 3000);
+		anSP.setNrThreads(4);
+		double[] aMulti = new Validation(anSP, aTable, null, aQM).getRandomQualities(false, 3000);
+		assertArrayEquals(aSingle, aMulti);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 50, 400 })
+	@DisplayName("Check random descriptions do not depend on the block size, for a high and a low valid rate, on Adult.txt using SINGLE_NOMINAL, d=2")
+	public void testRandomDescriptionsBlockSize(int theMinimumCoverage)
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.SINGLE_NOMINAL);
+		aTC.setPrimaryTarget(aTable.getColumns().get(14));
+		aTC.setTargetValue("gr50K");
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.WRACC);
+		anSP.setSearchDepth(2);
+		anSP.setMinimumCoverage(theMinimumCoverage);
+		anSP.setNrThreads(3);
+		int aPositiveCount = aTC.getPrimaryTarget().countValues(aTC.getTargetValue(), null);
+		QualityMeasure aQM = new QualityMeasure(QM.WRACC, aTable.getNrRows(), aPositiveCount);
+
+		// the blocks are sized for the number of repetitions, the first
+		// qualities are the same for any number of repetitions
+		double[] aFew = new Validation(anSP, aTable, null, aQM).getRandomQualities(false, 20);
+		double[] aMany = new Validation(anSP, aTable, null, aQM).getRandomQualities(false, 500);
+		assertArrayEquals(aFew, Arrays.copyOf(aMany, aFew.length));
+	}
+
+	@Test
+	@DisplayName("Check the block size follows the valid rate, and its members fit in memory")
+	public void testBlockSize()
+	{
+		assertEquals(100, Validation.getBlockSize(100, 1.0, 1000));
+		assertEquals(1000, Validation.getBlockSize(100, 0.1, 1000));
+		assertEquals(Validation.BLOCK_SIZE, Validation.getBlockSize(100, 0.0, 1000));
+		assertEquals(1, Validation.getBlockSize(0, 1.0, 1000));
+
+		for (int aNrRows : new int[] { 1, 1000, 48842, 10_000_000, Integer.MAX_VALUE })
+		{
+			int aBlockSize = Validation.getBlockSize(Validation.BLOCK_SIZE, 0.5, aNrRows);
+			assertTrue(aBlockSize >= 1);
+			assertTrue((aBlockSize == 1) || ((aBlockSize * ((aNrRows + 7L) / 8L)) <= Validation.BLOCK_MEMORY), Integer.toString(aNrRows));
+		}
+	}
+
+	@Test
+	@DisplayName("Check random subsets on Adult.txt using DOUBLE_CORRELATION")
+	public void testRandomSubsetsDoubleCorrelation()
+	{
+		Table aTable = new DataLoaderTXT(new File("src/test/resources/adult.txt")).getTable();
+
+		//set target concept (age, hours-per-week)
+		TargetConcept aTC = new TargetConcept();
+		aTC.setTargetType(TargetType.DOUBLE_CORRELATION);
+		aTC.setPrimaryTarget(aTable.getColumns().get(0));
+		aTC.setSecondaryTarget(aTable.getColumns().get(12));
+
+		SearchParameters anSP = getSearchParameters(aTC, QM.CORRELATION_R);
+		anSP.setNrThreads(4);
+		double[] aQualities = new Validation(anSP, aTable, null, null).getRandomQualities(true, 100);
+
+		assertEquals(100, aQualities.length);
+		for (double d : aQualities)
+			assertTrue(d >= -1.0 && d <= 1.0, Double.toString(d));
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = TargetType.class, names = { "MULTI_LABEL", "LABEL_RANKING" })
+	@DisplayName("Check swap-randomization is not concurrent for TargetTypes whose quality computation uses static state")
+	public void testSwapRandomizationNotConcurrent(TargetType theTargetType)
+	{
+		assertTrue(Validation.isValidRandomQualitiesTargetType(theTargetType));
+		assertFalse(Validation.isConcurrentSwapRandomizationTargetType(theTargetType));
+	}
+
+	private static void assertConcurrentSwapRandomization(Table theTable, SearchParameters theSearchParameters)
+	{
+		TargetConcept aTC = theSearchParameters.getTargetConcept();
+		Column aTarget = aTC.getPrimaryTarget();
+		String aTargetData = getData(aTarget);
+
+		// result does not depend on the number of threads
+		theSearchParameters.setNrThreads(1);
+		double[] aSingle = new Validation(theSearchParameters, theTable, null, null).swapRandomization(NR_REPETITIONS, Validation.SWAP_RANDOMIZATION_SEED);
+		theSearchParameters.setNrThreads(4);
+		double[] aMulti = new Validation(theSearchParameters, theTable, null, null).swapRandomization(NR_REPETITIONS, Validation.SWAP_RANDOMIZATION_SEED);
+		assertArrayEquals(aSingle, aMulti);
+
+		// Table and TargetConcept are not modified
+		assertSame(aTarget, aTC.getPrimaryTarget());
+		assertSame(aTarget, theTable.getColumn(aTarget.getIndex()));
+		assertEquals(aTargetData, getData(aTarget));
+
+		// first repetition permutes as the serial swapRandomization(int) on a new Table
+		theSearchParameters.setNrThreads(1);
+		String[] aSetup = { RandomQualitiesWindow.SWAP_RANDOMIZATION, "2" };
+		double[] aSerial = new Validation(theSearchParameters, theTable, null, null).getQualities(aSetup);
+		assertEquals(aSingle[0], aSerial[0]);
+	}
+
+	private static String getData(Column theColumn)
+	{
+		StringBuilder sb = new StringBuilder(theColumn.size() * 8);
+		for (int i = 0, j = theColumn.size(); i < j; ++i)
+			sb.append(theColumn.getString(i)).append(',');
+		return sb.toString();
+	}
+
+	private static SearchParameters getSearchParameters(TargetConcept theTargetConcept, QM theQM)
+	{
+		SearchParameters anSP = SearchParametersFixture.getSearchParameters(theTargetConcept, theQM, 0.0f);
+		anSP.setSearchDepth(1);
+		anSP.setMaximumSubgroups(10);
+
+		return anSP;
+	}
+}